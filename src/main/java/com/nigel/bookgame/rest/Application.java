@@ -4,6 +4,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.hateoas.config.EnableHypermediaSupport;
 import org.springframework.hateoas.config.EnableHypermediaSupport.HypermediaType;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Standard Spring Boot application class.
@@ -12,6 +13,7 @@ import org.springframework.hateoas.config.EnableHypermediaSupport.HypermediaType
  */
 @EnableHypermediaSupport(type = HypermediaType.HAL)
 @SpringBootApplication
+@EnableScheduling
 public class Application {
 
     public static void main(String[] args) {
@@ -0,0 +1,110 @@
+package com.nigel.bookgame.rest.config;
+
+import java.util.List;
+import java.util.Map;
+
+import org.reactivestreams.Publisher;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.config.HypermediaMappingInformation;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Serves the books and the leaderboard as CBOR (application/cbor) to callers who ask for it, and reads book requests
+ * sent as CBOR, in both deployments.
+ *
+ * CBOR is JSON's data model in binary, so a response decodes to exactly what its JSON would: resources carry their links
+ * as HAL, as they do in JSON, and anything else (the list of every book, requests) goes through the application's own
+ * settings. Both mappers are built by Spring Boot's builder with CBOR in place of JSON, which brings every module the
+ * JSON mapper has, including the hand-written resource serialisers.
+ *
+ * @author nigel
+ */
+@Configuration(proxyBeanMethods = false)
+public class CborConfiguration {
+
+    @Bean
+    @ConditionalOnWebApplication(type = Type.SERVLET)
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(final Jackson2ObjectMapperBuilder objectMapperBuilder,
+            final List<HypermediaMappingInformation> hypermediaMappingInformation) {
+
+        final MappingJackson2CborHttpMessageConverter cborHttpMessageConverter = new MappingJackson2CborHttpMessageConverter(createObjectMapper(objectMapperBuilder));
+        final ObjectMapper halObjectMapper = createHalObjectMapper(objectMapperBuilder, hypermediaMappingInformation);
+
+        cborHttpMessageConverter.registerObjectMappersForType(RepresentationModel.class, objectMappers -> objectMappers.put(MediaType.APPLICATION_CBOR, halObjectMapper));
+
+        return cborHttpMessageConverter;
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = Type.REACTIVE)
+    public CodecCustomizer cborCodecCustomizer(final Jackson2ObjectMapperBuilder objectMapperBuilder, final List<HypermediaMappingInformation> hypermediaMappingInformation) {
+
+        final Jackson2CborEncoder cborEncoder = new SingleValueCborEncoder(createObjectMapper(objectMapperBuilder));
+        final ObjectMapper halObjectMapper = createHalObjectMapper(objectMapperBuilder, hypermediaMappingInformation);
+
+        cborEncoder.registerObjectMappersForType(RepresentationModel.class, objectMappers -> objectMappers.put(MediaType.APPLICATION_CBOR, halObjectMapper));
+
+        final Jackson2CborDecoder cborDecoder = new Jackson2CborDecoder(createObjectMapper(objectMapperBuilder), MediaType.APPLICATION_CBOR);
+
+        return codecConfigurer -> {
+            codecConfigurer.customCodecs().register(cborEncoder);
+            codecConfigurer.customCodecs().register(cborDecoder);
+        };
+    }
+
+    private static ObjectMapper createObjectMapper(final Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        return objectMapperBuilder.factory(new CBORFactory()).build();
+    }
+
+    private static ObjectMapper createHalObjectMapper(final Jackson2ObjectMapperBuilder objectMapperBuilder,
+            final List<HypermediaMappingInformation> hypermediaMappingInformation) {
+
+        final HypermediaMappingInformation halMappingInformation = hypermediaMappingInformation.stream()
+                .filter(mappingInformation -> mappingInformation.getMediaTypes().contains(MediaTypes.HAL_JSON))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("HAL hypermedia support is not enabled"));
+
+        return halMappingInformation.configureObjectMapper(createObjectMapper(objectMapperBuilder));
+    }
+
+    // Spring's CBOR encoder turns down every body handed to it, since they all come as publishers. Every body here is a
+    // single value, so it is encoded as one; a stream of values is still turned down.
+    private static class SingleValueCborEncoder extends Jackson2CborEncoder {
+
+        SingleValueCborEncoder(final ObjectMapper objectMapper) {
+            super(objectMapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(final Publisher<?> inputStream, final DataBufferFactory bufferFactory, final ResolvableType elementType,
+                final MimeType mimeType, final Map<String, Object> hints) {
+
+            if (!(inputStream instanceof Mono)) {
+                return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+            }
+
+            return ((Mono<?>) inputStream).map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.nigel.bookgame.rest.config;
+
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Serves the reactive deployment (the reactive profile) from Netty.
+ *
+ * Tomcat is on the classpath for the servlet deployment and Spring Boot prefers it for reactive applications too, so
+ * the Netty server is declared here to take its place. Netty serves every connection from a small, fixed set of event
+ * loop threads, which is what lets the reactive controllers hold far more connections per core.
+ *
+ * @author nigel
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveServerConfiguration {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(final ObjectProvider<NettyServerCustomizer> nettyServerCustomizers) {
+
+        final NettyReactiveWebServerFactory nettyReactiveWebServerFactory = new NettyReactiveWebServerFactory();
+        nettyReactiveWebServerFactory.getServerCustomizers().addAll(nettyServerCustomizers.orderedStream().collect(Collectors.toList()));
+
+        return nettyReactiveWebServerFactory;
+    }
+}
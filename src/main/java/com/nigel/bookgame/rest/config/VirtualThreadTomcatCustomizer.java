@@ -0,0 +1,32 @@
+package com.nigel.bookgame.rest.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Opt-in mode which has Tomcat serve every request on its own virtual thread instead of from its pool of platform threads.
+ *
+ * Enabled with bookgame.server.virtual-threads=true. A player blocked waiting for the journal or the append pipeline
+ * then parks a virtual thread rather than holding one of the pool's threads, so the number of requests in flight is no
+ * longer capped by server.tomcat.threads.max; server.tomcat.max-connections is what limits concurrency instead. Startup
+ * fails if the mode is enabled on a Java version without virtual threads, rather than quietly serving from the pool.
+ *
+ * @author nigel
+ */
+@Component
+@ConditionalOnProperty(name = "bookgame.server.virtual-threads", havingValue = "true")
+public class VirtualThreadTomcatCustomizer implements TomcatProtocolHandlerCustomizer<ProtocolHandler> {
+
+    public VirtualThreadTomcatCustomizer() {
+        if (!VirtualThreads.isSupported()) {
+            throw new IllegalStateException("bookgame.server.virtual-threads needs Java 21 or later, but this is Java " + Runtime.version().feature());
+        }
+    }
+
+    @Override
+    public void customize(final ProtocolHandler protocolHandler) {
+        protocolHandler.setExecutor(VirtualThreads.newVirtualThreadPerTaskExecutor());
+    }
+}
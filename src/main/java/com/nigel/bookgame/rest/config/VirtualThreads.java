@@ -0,0 +1,52 @@
+package com.nigel.bookgame.rest.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads while the build still targets Java 17.
+ *
+ * Virtual threads arrived in Java 21, so the executor is looked up reflectively: the same build uses them when run on
+ * Java 21 or later and reports clearly that they are missing on anything older. Once the build targets Java 21 this
+ * can be replaced by Executors.newVirtualThreadPerTaskExecutor() (or, on Spring Boot 3.2, by spring.threads.virtual.enabled).
+ *
+ * @author nigel
+ */
+public final class VirtualThreads {
+
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findNewVirtualThreadPerTaskExecutor();
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return null != NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR;
+    }
+
+    // Starts a new virtual thread for every task.
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+
+        if (!isSupported()) {
+            throw new IllegalStateException("Virtual threads need Java 21 or later, but this is Java " + Runtime.version().feature());
+        }
+
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        }
+        catch (final IllegalAccessException | InvocationTargetException exception) {
+            throw new IllegalStateException("Could not create a virtual thread executor", exception);
+        }
+    }
+
+    private static Method findNewVirtualThreadPerTaskExecutor() {
+
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        }
+        catch (final NoSuchMethodException exception) {
+            return null;
+        }
+    }
+}
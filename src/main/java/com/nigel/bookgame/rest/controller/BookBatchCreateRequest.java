@@ -0,0 +1,46 @@
+package com.nigel.bookgame.rest.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import com.nigel.bookgame.rest.domain.Book;
+
+/**
+ * Request class encapsulating what will be submitted as a request to create a batch of books, each as it would be by a
+ * {@link BookCreateRequest}.
+ * 
+ * A batch is capped so that one request cannot hold the journal and the table for too long. Larger numbers of books
+ * are created in several batches.
+ * 
+ * @author nigel
+ */
+public class BookBatchCreateRequest {
+
+    public static final int MAXIMUM_SIZE = 10_000;
+
+    private List<BookCreateRequest> books;
+
+    public List<BookCreateRequest> getBooks() {
+        return this.books;
+    }
+
+    public void setBooks(final List<BookCreateRequest> books) {
+        this.books = books;
+    }
+
+    public boolean isValid() {
+        return null != this.books && !this.books.isEmpty() && this.books.size() <= MAXIMUM_SIZE && this.books.stream().noneMatch(Objects::isNull);
+    }
+
+    public List<Book> toBooks() {
+
+        final List<Book> createdBooks = new ArrayList<Book>(this.books.size());
+
+        for (BookCreateRequest bookCreateRequest : this.books) {
+            createdBooks.add(bookCreateRequest.toBook());
+        }
+
+        return createdBooks;
+    }
+}
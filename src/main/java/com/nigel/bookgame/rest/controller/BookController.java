@@ -1,57 +1,216 @@
 package com.nigel.bookgame.rest.controller;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.hateoas.server.ExposesResourceFor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import com.nigel.bookgame.rest.domain.Book;
 import com.nigel.bookgame.rest.domain.BookContainer;
-import com.nigel.bookgame.rest.domain.EUpdateOutcome;
+import com.nigel.bookgame.rest.domain.BookPage;
+import com.nigel.bookgame.rest.domain.BookUpdateContainer;
+import com.nigel.bookgame.rest.domain.ERetrievalOutcome;
+import com.nigel.bookgame.rest.repository.BookAppendPipeline;
 import com.nigel.bookgame.rest.repository.BookRepository;
+import com.nigel.bookgame.rest.resource.BookBatchResource;
+import com.nigel.bookgame.rest.resource.BookPageResource;
+import com.nigel.bookgame.rest.resource.BookPageResourceAssembler;
 import com.nigel.bookgame.rest.resource.BookResource;
 import com.nigel.bookgame.rest.resource.BookResourceAssembler;
+import com.nigel.bookgame.rest.resource.BookResourceStreamWriter;
+import com.nigel.bookgame.rest.resource.CompletedBookJsonCache;
+import com.nigel.bookgame.rest.resource.CompletedBookJsonCache.RenderedBook;
 
 /**
  * Book controller class providing endpoints for:
  * 
  * - Finding all books: not part of requirement, can be called by anyone to see the current state of all books (full if complete, last line only if not).
- * - Finding a specific book by ID.
+ *   Asking for application/x-ndjson streams them instead, one book per line, which is how to read a very large library.
+ * - Listing books a page at a time: given any of complete, available, contributor, after, before or limit, the books
+ *   are filtered and returned in ID order with next and prev links, using indexes rather than visiting every book.
+ * - Finding a specific book by ID. The response carries an ETag, and a player quoting it back in If-None-Match is told
+ *   304 NOT MODIFIED (still taking the lock) without the book being rendered. Complete books may be cached for a year.
+ * - Finding any available book: locks and returns a book nobody holds and which the player did not write the last line
+ *   of, so players need not guess at IDs and be turned away (404 NOT FOUND if there is no such book).
  * - Creating a book: needed to set up books in the first place, can be called by anyone.
- * - Updating a book.
+ * - Creating a batch of books: sets up many books in one request under consecutive IDs, answering with how many were
+ *   created and the first and last of them rather than every book (400 BAD REQUEST if the batch is empty or too large).
+ * - Updating a book: appends the line and releases the lock, optionally checked against the version of the book the
+ *   player last saw (409 CONFLICT if it has since moved on). Appends go through the {@link BookAppendPipeline} so that
+ *   concurrent players' appends are applied and made durable in batches.
+ * 
+ * Complete books never change, so they are rendered to JSON once and kept in the {@link CompletedBookJsonCache}, from
+ * where finding all books, streaming them and finding one by ID write them straight to the response.
+ * 
+ * Books are served as CBOR to callers whose Accept header prefers it, and can be created and updated in CBOR too. CBOR
+ * responses are rendered from the resources as they stand, the cache holding only JSON.
+ * 
+ * These endpoints are served by Tomcat. The reactive deployment serves the same ones from {@link ReactiveBookController}.
  * 
  * @author nigel
  */
 @RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
 @ExposesResourceFor(Book.class)
-@RequestMapping(value = "/book", produces = "application/json")
+@RequestMapping(value = "/book", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
 public class BookController {
 
 	@Autowired
 	private BookRepository bookRepository;
 
+	@Autowired
+	private BookAppendPipeline bookAppendPipeline;
+
 	@Autowired
 	private BookResourceAssembler bookResourceAssembler;
 
+	@Autowired
+	private BookResourceStreamWriter bookResourceStreamWriter;
+
+	@Autowired
+	private BookPageResourceAssembler bookPageResourceAssembler;
+
+	@Autowired
+	private CompletedBookJsonCache completedBookJsonCache;
+
 	@RequestMapping(method = RequestMethod.GET)
-	public ResponseEntity<Collection<BookResource>> findAllBooks() {
-		List<Book> books = this.bookRepository.findAll();
-		return new ResponseEntity<>(this.bookResourceAssembler.toResourceCollection(books), HttpStatus.OK);
+	public ResponseEntity<?> findBooks(@ModelAttribute BookPageRequest bookPageRequest, WebRequest webRequest, HttpServletResponse response) throws IOException {
+
+	    if (!bookPageRequest.isPaged()) {
+	        if (EResponseEncoding.CBOR == EResponseEncoding.negotiate(webRequest)) {
+	            return findAllBookResources();
+	        }
+	        findAllBooks(response);
+	        return null; // The response has been written.
+	    }
+
+	    return findBookPage(bookPageRequest);
+	}
+
+	public ResponseEntity<BookPageResource> findBookPage(BookPageRequest bookPageRequest) {
+
+	    if (!bookPageRequest.isValid()) {
+	        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+	    }
+
+	    BookPage bookPage = this.bookRepository.findPage(bookPageRequest.toFilter(), bookPageRequest.getAfter(), bookPageRequest.getBefore(),
+	            bookPageRequest.getLimitOrDefault());
+
+	    return new ResponseEntity<>(this.bookPageResourceAssembler.toResource(bookPage, this.bookResourceAssembler.bindToCurrentRequest(),
+	            ServletUriComponentsBuilder.fromCurrentRequest()), HttpStatus.OK);
+	}
+
+	// Written straight to the response a book at a time rather than as a collection of resources, so that complete books
+	// are copied from the cache rather than rendered and the listing is never held in memory whole. The output is the
+	// same as the collection's would be. Writing blocks while the caller is slow to read, as streaming all books does.
+	public void findAllBooks(final HttpServletResponse response) throws IOException {
+
+	    final Function<Book, BookResource> toResource = this.bookResourceAssembler.bindToCurrentRequest();
+	    final String bookBaseUri = this.bookResourceAssembler.getBookBaseUri();
+
+	    response.setStatus(HttpStatus.OK.value());
+	    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+	    final OutputStream outputStream = response.getOutputStream();
+	    boolean isFirst = true;
+
+	    outputStream.write('[');
+
+	    for (Book book : this.bookRepository.iterateAll()) {
+
+	        if (!isFirst) {
+	            outputStream.write(',');
+	        }
+	        isFirst = false;
+
+	        final RenderedBook renderedBook = this.completedBookJsonCache.find(book, bookBaseUri, toResource);
+
+	        if (null == renderedBook) {
+	            this.bookResourceStreamWriter.writeListElement(toResource.apply(book), outputStream);
+	        }
+	        else {
+	            outputStream.write(renderedBook.getListElementJson());
+	        }
+	    }
+
+	    outputStream.write(']');
+	}
+
+	public ResponseEntity<List<BookResource>> findAllBookResources() {
+
+	    final Function<Book, BookResource> toResource = this.bookResourceAssembler.bindToCurrentRequest();
+
+	    return new ResponseEntity<>(this.bookRepository.findAll().stream().map(toResource).collect(Collectors.toList()), HttpStatus.OK);
+	}
+
+	// Each book is written as it is reached, so memory use does not grow with the number of books. Writing blocks while the
+	// caller is slow to read, which is what holds the stream back to the caller's pace.
+	@RequestMapping(method = RequestMethod.GET, produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> streamAllBooks() {
+
+	    final Function<Book, BookResource> toResource = this.bookResourceAssembler.bindToCurrentRequest();
+	    final String bookBaseUri = this.bookResourceAssembler.getBookBaseUri();
+	    final Iterable<Book> books = this.bookRepository.iterateAll();
+
+	    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(outputStream -> {
+	        for (Book book : books) {
+	            writeLine(book, bookBaseUri, toResource, outputStream);
+	        }
+	    });
+	}
+
+	private void writeLine(final Book book, final String bookBaseUri, final Function<Book, BookResource> toResource, final OutputStream outputStream) throws IOException {
+
+	    final RenderedBook renderedBook = this.completedBookJsonCache.find(book, bookBaseUri, toResource);
+
+	    if (null == renderedBook) {
+	        this.bookResourceStreamWriter.writeLine(toResource.apply(book), outputStream);
+	    }
+	    else {
+	        outputStream.write(renderedBook.getJson());
+	        outputStream.write('\n');
+	    }
+	}
+
+	@RequestMapping(value = "/available", method = RequestMethod.GET)
+	public ResponseEntity<BookResource> findAvailableBook(@RequestParam String playerName) {
+
+	    BookContainer bookContainer = this.bookRepository.findAvailable(playerName);
+
+	    if (ERetrievalOutcome.SUCCESS != bookContainer.getRetrievalOutcome()) {
+	        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+	    }
+
+	    return new ResponseEntity<>(this.bookResourceAssembler.toResource(bookContainer.getBook()), HttpStatus.OK);
 	}
 
 	@RequestMapping(value = "/{id}", method = RequestMethod.GET)
-	public ResponseEntity<BookResource> findBookById(@PathVariable Long id, @RequestParam String playerName) {
+	public ResponseEntity<?> findBookById(@PathVariable Long id, @RequestParam String playerName, WebRequest webRequest) throws IOException {
 
 	    BookContainer bookContainer = this.bookRepository.findById(id, playerName);
+	    EResponseEncoding encoding = EResponseEncoding.negotiate(webRequest);
 
 	    switch (bookContainer.getRetrievalOutcome()) {
 	    case NOT_FOUND:
@@ -59,18 +218,40 @@ public class BookController {
 	    case LOCKED_BY_ANOTHER_PLAYER:
 	        return new ResponseEntity<>(HttpStatus.LOCKED);
 	    default:
-	        return new ResponseEntity<>(this.bookResourceAssembler.toResource(bookContainer.getBook()), HttpStatus.OK);
+	        HttpHeaders cachingHeaders = HttpCaching.bookHeaders(bookContainer.getBook(), encoding);
+	        if (webRequest.checkNotModified(cachingHeaders.getETag())) {
+	            cachingHeaders.remove(HttpHeaders.ETAG); // Already written to the response by checkNotModified.
+	            return new ResponseEntity<>(cachingHeaders, HttpStatus.NOT_MODIFIED);
+	        }
+	        if (bookContainer.getBook().isComplete() && EResponseEncoding.JSON == encoding) {
+	            RenderedBook renderedBook = this.completedBookJsonCache.find(bookContainer.getBook(), this.bookResourceAssembler.getBookBaseUri(),
+	                    this.bookResourceAssembler::toResource);
+	            return new ResponseEntity<>(renderedBook.getJson(), cachingHeaders, HttpStatus.OK);
+	        }
+	        return new ResponseEntity<>(this.bookResourceAssembler.toResource(bookContainer.getBook()), cachingHeaders, HttpStatus.OK);
 	    }
 	}
 
-    @RequestMapping(method = RequestMethod.POST, consumes = "application/json")
+    @RequestMapping(method = RequestMethod.POST, consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
     public ResponseEntity<BookResource> createBook(@RequestBody BookCreateRequest bookCreateRequest) {
         Book createdBook = this.bookRepository.create(bookCreateRequest.toBook());
         return new ResponseEntity<>(this.bookResourceAssembler.toResource(createdBook), HttpStatus.CREATED);
     }
 
-	@RequestMapping(value = "/{id}", method = RequestMethod.PUT, consumes = "application/json")
-	public ResponseEntity<BookResource> updateBook(@PathVariable Long id, @RequestBody BookUpdateRequest bookUpdateRequest) {
+	@RequestMapping(value = "/batch", method = RequestMethod.POST, consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+	public ResponseEntity<BookBatchResource> createBooks(@RequestBody BookBatchCreateRequest bookBatchCreateRequest) {
+
+	    if (!bookBatchCreateRequest.isValid()) {
+	        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+	    }
+
+	    List<Book> createdBooks = this.bookRepository.createAll(bookBatchCreateRequest.toBooks());
+
+	    return new ResponseEntity<>(this.bookResourceAssembler.toBatchResource(createdBooks), HttpStatus.CREATED);
+	}
+
+	@RequestMapping(value = "/{id}", method = RequestMethod.PUT, consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+	public ResponseEntity<BookResource> updateBook(@PathVariable Long id, @RequestBody BookUpdateRequest bookUpdateRequest, WebRequest webRequest) {
 
 	    String playerName = bookUpdateRequest.getPlayerName();
 
@@ -78,27 +259,18 @@ public class BookController {
 	        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
 	    }
 
-	    BookContainer bookContainer = this.bookRepository.findById(id, playerName);
+	    BookUpdateContainer bookUpdateContainer = this.bookAppendPipeline.append(id, playerName, bookUpdateRequest.getNewLine(), bookUpdateRequest.getVersion()).join();
 
-        switch (bookContainer.getRetrievalOutcome()) {
-        case NOT_FOUND:
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-        case LOCKED_BY_ANOTHER_PLAYER:
-            return new ResponseEntity<>(HttpStatus.LOCKED);
-        default:
-            final Book book = bookContainer.getBook();
-            book.addLineToLineDetailMap(bookUpdateRequest.getNewLine(), playerName);
-            EUpdateOutcome updateOutcome = this.bookRepository.update(id, book, playerName, true); // Passes true as we want to unlock the book so it is available again.
-            switch (updateOutcome) {
-            case NULL_BOOK_SUPPLIED:
-                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-            case REQUESTING_PLAYER_DOES_NOT_HAVE_LOCK:
-                return new ResponseEntity<>(HttpStatus.LOCKED);
-            case NOT_FOUND:
-                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-            default:
-                return new ResponseEntity<>(this.bookResourceAssembler.toResource(bookContainer.getBook()), HttpStatus.OK);
-            }
-        }
+	    switch (bookUpdateContainer.getUpdateOutcome()) {
+	    case NOT_FOUND:
+	        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+	    case REQUESTING_PLAYER_DOES_NOT_HAVE_LOCK:
+	        return new ResponseEntity<>(HttpStatus.LOCKED);
+	    case VERSION_CONFLICT:
+	        return new ResponseEntity<>(HttpStatus.CONFLICT);
+	    default: // A complete book is returned as it stands, as it always has been.
+	        return new ResponseEntity<>(this.bookResourceAssembler.toResource(bookUpdateContainer.getBook()),
+	                HttpCaching.bookHeaders(bookUpdateContainer.getBook(), EResponseEncoding.negotiate(webRequest)), HttpStatus.OK);
+	    }
 	}
 }
\ No newline at end of file
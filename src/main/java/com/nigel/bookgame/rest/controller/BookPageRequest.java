@@ -0,0 +1,93 @@
+package com.nigel.bookgame.rest.controller;
+
+import com.nigel.bookgame.rest.domain.BookFilter;
+
+/**
+ * Request class encapsulating the query parameters for listing books a page at a time.
+ * 
+ * Every parameter is optional. A request with none of them set is not a page request at all, and is answered with the
+ * whole listing as it always has been.
+ * 
+ * @author nigel
+ */
+public class BookPageRequest {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAXIMUM_LIMIT = 1000;
+
+    private Boolean complete;
+    private Boolean available;
+    private String contributor;
+    private Long after;
+    private Long before;
+    private Integer limit;
+
+    public Boolean getComplete() {
+        return this.complete;
+    }
+
+    public void setComplete(final Boolean complete) {
+        this.complete = complete;
+    }
+
+    public Boolean getAvailable() {
+        return this.available;
+    }
+
+    public void setAvailable(final Boolean available) {
+        this.available = available;
+    }
+
+    public String getContributor() {
+        return this.contributor;
+    }
+
+    public void setContributor(final String contributor) {
+        this.contributor = contributor;
+    }
+
+    public Long getAfter() {
+        return this.after;
+    }
+
+    public void setAfter(final Long after) {
+        this.after = after;
+    }
+
+    public Long getBefore() {
+        return this.before;
+    }
+
+    public void setBefore(final Long before) {
+        this.before = before;
+    }
+
+    public Integer getLimit() {
+        return this.limit;
+    }
+
+    public void setLimit(final Integer limit) {
+        this.limit = limit;
+    }
+
+    public boolean isPaged() {
+        return null != this.complete || null != this.available || null != this.contributor || null != this.after || null != this.before
+                || null != this.limit;
+    }
+
+    // A page can only be read in one direction at a time, and cursors are book IDs so are never negative.
+    public boolean isValid() {
+        return (null == this.after || null == this.before)
+                && (null == this.after || this.after.longValue() >= 0)
+                && (null == this.before || this.before.longValue() >= 0)
+                && (null == this.limit || (this.limit.intValue() > 0 && this.limit.intValue() <= MAXIMUM_LIMIT));
+    }
+
+    public int getLimitOrDefault() {
+        return (null == this.limit) ? DEFAULT_LIMIT : this.limit.intValue();
+    }
+
+    public BookFilter toFilter() {
+        return new BookFilter(this.complete, this.available, this.contributor);
+    }
+}
@@ -9,6 +9,7 @@ public class BookUpdateRequest {
 
     private String newLine;
     private String playerName;
+    private Long version;
 
     public String getNewLine() {
         return this.newLine;
@@ -25,4 +26,13 @@ public class BookUpdateRequest {
     public void setPlayerName(final String playerName) {
         this.playerName = playerName;
     }
+
+    // Optional: the version of the book the player last saw. If supplied, the update is rejected if the book has moved on.
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public void setVersion(final Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
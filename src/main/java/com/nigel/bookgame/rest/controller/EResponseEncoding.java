@@ -0,0 +1,70 @@
+package com.nigel.bookgame.rest.controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Enumeration describing the encodings the books and the leaderboard are served in: JSON, or CBOR for callers who would
+ * rather have it.
+ *
+ * The controllers need to know which one a response will be written in before it is, to write complete books from the
+ * JSON cache only into JSON responses and to tag each encoding of a book differently. The choice is the one Spring
+ * makes from the Accept header given the endpoints' produces order: the caller's most preferred type which either
+ * encoding matches, with JSON taking any tie and when nothing is asked for.
+ *
+ * @author nigel
+ */
+enum EResponseEncoding {
+
+    JSON(MediaType.APPLICATION_JSON, ""),
+    CBOR(MediaType.APPLICATION_CBOR, "-cbor");
+
+    private final MediaType mediaType;
+    private final String eTagSuffix;
+
+    private EResponseEncoding(final MediaType mediaType, final String eTagSuffix) {
+        this.mediaType = mediaType;
+        this.eTagSuffix = eTagSuffix;
+    }
+
+    String getETagSuffix() {
+        return this.eTagSuffix;
+    }
+
+    static EResponseEncoding negotiate(final WebRequest webRequest) {
+
+        final String[] accept = webRequest.getHeaderValues(HttpHeaders.ACCEPT);
+
+        return negotiate((null == accept) ? List.of() : MediaType.parseMediaTypes(Arrays.asList(accept)));
+    }
+
+    static EResponseEncoding negotiate(final HttpHeaders headers) {
+        return negotiate(headers.getAccept());
+    }
+
+    private static EResponseEncoding negotiate(final List<MediaType> acceptedMediaTypes) {
+
+        final List<MediaType> mostPreferredFirst = new ArrayList<>(acceptedMediaTypes);
+        MediaType.sortBySpecificityAndQuality(mostPreferredFirst);
+
+        for (MediaType acceptedMediaType : mostPreferredFirst) {
+
+            if (0.0 == acceptedMediaType.getQualityValue()) {
+                continue; // Not acceptable at all.
+            }
+
+            for (EResponseEncoding encoding : values()) {
+                if (acceptedMediaType.includes(encoding.mediaType)) {
+                    return encoding;
+                }
+            }
+        }
+
+        return JSON;
+    }
+}
@@ -0,0 +1,70 @@
+package com.nigel.bookgame.rest.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.nigel.bookgame.rest.domain.GameEvent;
+import com.nigel.bookgame.rest.event.GameEventBus;
+import com.nigel.bookgame.rest.event.GameEventSubscription;
+import com.nigel.bookgame.rest.resource.GameEventResourceAssembler;
+
+/**
+ * Game event controller class providing an endpoint for:
+ * 
+ * - Watching the game: a stream of server-sent events, one for each book completed, each lock taken or released and
+ *   each change to the top of the leaderboard, named after the type of event. A watcher who falls behind is sent a
+ *   RESYNC event in place of the ones it missed.
+ * 
+ * The stream stays open until the watcher goes away. Events are written by the {@link GameEventBus}'s delivery threads,
+ * so no request thread is held while the stream is open.
+ * 
+ * These endpoints are served by Tomcat. The reactive deployment serves the same ones from {@link ReactiveGameEventController}.
+ * 
+ * @author nigel
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequestMapping(value = "/events")
+public class GameEventController {
+
+    private static final long NO_TIMEOUT = 0L;
+
+    @Autowired
+    private GameEventBus gameEventBus;
+
+    @Autowired
+    private GameEventResourceAssembler gameEventResourceAssembler;
+
+    @RequestMapping(method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents() {
+
+        final SseEmitter sseEmitter = new SseEmitter(NO_TIMEOUT);
+        final GameEventSubscription subscription = this.gameEventBus.subscribe(gameEvent -> send(sseEmitter, gameEvent));
+
+        sseEmitter.onCompletion(subscription::cancel);
+        sseEmitter.onTimeout(subscription::cancel);
+        sseEmitter.onError(exception -> subscription.cancel());
+
+        return sseEmitter;
+    }
+
+    // A watcher who has gone away is only noticed when the next event cannot be written, at which point the bus drops it.
+    private void send(final SseEmitter sseEmitter, final GameEvent gameEvent) {
+        try {
+            sseEmitter.send(SseEmitter.event().name(gameEvent.getType().name()).data(this.gameEventResourceAssembler.toResource(gameEvent), MediaType.APPLICATION_JSON));
+        }
+        catch (final IOException exception) {
+            sseEmitter.completeWithError(exception);
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
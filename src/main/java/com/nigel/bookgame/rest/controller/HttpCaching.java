@@ -0,0 +1,62 @@
+package com.nigel.bookgame.rest.controller;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.LineHistory;
+
+/**
+ * Validators and caching directives for the books and the leaderboard, shared by the Tomcat and reactive controllers so
+ * that both deployments answer conditional requests the same way.
+ *
+ * A book's ETag is its ID and the version of its lines, which goes up with every line appended, plus whether it is
+ * complete. Those are everything its representation is built from, so the tag can be worked out and compared without
+ * building the resource. A complete book never changes again and may be cached for a year; anything else must be
+ * revalidated every time, which also means fetching a book still always takes its lock.
+ *
+ * The leaderboard's ETag is the version {@link com.nigel.bookgame.rest.repository.LeaderboardRepository} moves on
+ * after each change to the scores. It must be read before the scores are, so that a response is never tagged with a
+ * version newer than what it shows.
+ *
+ * Books and the leaderboard are both served as JSON or CBOR, so every response varies by Accept, and a CBOR response
+ * is tagged apart from the JSON one, which keeps a cache from taking one for the other.
+ *
+ * @author nigel
+ */
+final class HttpCaching {
+
+    private static final CacheControl COMPLETE_BOOK_CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic();
+    private static final CacheControl REVALIDATE_CACHE_CONTROL = CacheControl.noCache();
+    private static final List<String> VARY = List.of(HttpHeaders.ACCEPT);
+
+    private HttpCaching() {
+    }
+
+    // Taken from a single snapshot of the book's lines, so the ETag and caching directive always agree with each other.
+    static HttpHeaders bookHeaders(final Book book, final EResponseEncoding encoding) {
+
+        final LineHistory lineHistory = book.getLineHistory();
+        final HttpHeaders headers = new HttpHeaders();
+
+        headers.setETag("\"" + book.getId() + "-" + lineHistory.getVersion() + (lineHistory.isComplete() ? "-complete" : "") + encoding.getETagSuffix() + "\"");
+        headers.setCacheControl(lineHistory.isComplete() ? COMPLETE_BOOK_CACHE_CONTROL : REVALIDATE_CACHE_CONTROL);
+        headers.setVary(VARY);
+
+        return headers;
+    }
+
+    static HttpHeaders leaderboardHeaders(final long leaderboardVersion, final EResponseEncoding encoding) {
+
+        final HttpHeaders headers = new HttpHeaders();
+
+        headers.setETag("\"leaderboard-" + leaderboardVersion + encoding.getETagSuffix() + "\"");
+        headers.setCacheControl(REVALIDATE_CACHE_CONTROL);
+        headers.setVary(VARY);
+
+        return headers;
+    }
+}
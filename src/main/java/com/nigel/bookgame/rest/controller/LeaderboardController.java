@@ -3,40 +3,67 @@ package com.nigel.bookgame.rest.controller;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
-import com.nigel.bookgame.rest.domain.Book;
-import com.nigel.bookgame.rest.repository.BookRepository;
+import com.nigel.bookgame.rest.domain.PlayerScore;
+import com.nigel.bookgame.rest.repository.LeaderboardRepository;
 import com.nigel.bookgame.rest.resource.LeaderboardResource;
 import com.nigel.bookgame.rest.resource.LeaderboardResourceAssembler;
 
 /**
  * Leaderboard controller class providing endpoints for:
  * 
- * - Getting the leaderboard.
+ * - Getting the leaderboard: the top 5 places by default, or the top {@code limit} places if supplied. Players tied
+ *   with whoever is in the last place shown are always included.
  * 
- * The logic here is in the presentation/resource layer only: no separate domain logic or repository is required
- * as the leaderboard can always be determined by the current state of the stored books.
+ * Scores are kept up to date by the {@link LeaderboardRepository} as books are completed, so showing the leaderboard
+ * only has to read off the top places rather than look at any books. The response carries an ETag of the leaderboard's
+ * version, and a caller quoting it back in If-None-Match is told 304 NOT MODIFIED without the top places being read.
+ * The leaderboard is served as CBOR to callers whose Accept header prefers it.
+ * 
+ * These endpoints are served by Tomcat. The reactive deployment serves the same ones from {@link ReactiveLeaderboardController}.
  * 
  * @author nigel
  */
 @RestController
-@RequestMapping(value = "/leaderboard", produces = "application/json")
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequestMapping(value = "/leaderboard", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
 public class LeaderboardController {
 
+    private static final String DEFAULT_NUMBER_OF_PLACES_SHOWN = "5";
+    private static final int MAXIMUM_NUMBER_OF_PLACES_SHOWN = 1000;
+
     @Autowired
-    private BookRepository bookRepository;
+    private LeaderboardRepository leaderboardRepository;
 
     @Autowired
     private LeaderboardResourceAssembler leaderboardResourceAssembler;
 
     @RequestMapping(method = RequestMethod.GET)
-    public ResponseEntity<LeaderboardResource> showLeaderboard() {
-        List<Book> books = this.bookRepository.findAll();
-        return new ResponseEntity<>(this.leaderboardResourceAssembler.toResource(books), HttpStatus.OK);
+    public ResponseEntity<LeaderboardResource> showLeaderboard(@RequestParam(defaultValue = DEFAULT_NUMBER_OF_PLACES_SHOWN) int limit, WebRequest webRequest) {
+
+        if (limit < 1 || limit > MAXIMUM_NUMBER_OF_PLACES_SHOWN) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        HttpHeaders cachingHeaders = HttpCaching.leaderboardHeaders(this.leaderboardRepository.getVersion(), EResponseEncoding.negotiate(webRequest));
+
+        if (webRequest.checkNotModified(cachingHeaders.getETag())) {
+            cachingHeaders.remove(HttpHeaders.ETAG); // Already written to the response by checkNotModified.
+            return new ResponseEntity<>(cachingHeaders, HttpStatus.NOT_MODIFIED);
+        }
+
+        List<PlayerScore> topPlayers = this.leaderboardRepository.findTopPlayers(limit);
+        return new ResponseEntity<>(this.leaderboardResourceAssembler.toResource(topPlayers), cachingHeaders, HttpStatus.OK);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,263 @@
+package com.nigel.bookgame.rest.controller;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.BookContainer;
+import com.nigel.bookgame.rest.domain.BookUpdateContainer;
+import com.nigel.bookgame.rest.domain.ERetrievalOutcome;
+import com.nigel.bookgame.rest.repository.ReactiveBookRepository;
+import com.nigel.bookgame.rest.resource.BookBatchResource;
+import com.nigel.bookgame.rest.resource.BookPageResource;
+import com.nigel.bookgame.rest.resource.BookPageResourceAssembler;
+import com.nigel.bookgame.rest.resource.BookResource;
+import com.nigel.bookgame.rest.resource.BookResourceStreamWriter;
+import com.nigel.bookgame.rest.resource.CompletedBookJsonCache;
+import com.nigel.bookgame.rest.resource.CompletedBookJsonCache.RenderedBook;
+import com.nigel.bookgame.rest.resource.ReactiveBookResourceAssembler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive book controller for the reactive deployment, providing the same endpoints, responses and status codes as
+ * {@link BookController} without blocking a thread while a player waits for the journal or the append pipeline.
+ * 
+ * Streaming every book as application/x-ndjson is driven by the caller's demand: a book is only read and rendered when
+ * the connection is ready for more, so a slow reader holds the stream back rather than filling memory. Complete books
+ * are written from the {@link CompletedBookJsonCache}, wrapped in buffers without being copied, as they are by
+ * {@link BookController}. As there, callers preferring CBOR are served it, rendered from the resources.
+ * 
+ * @author nigel
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@RequestMapping(value = "/book", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+public class ReactiveBookController {
+
+    private static final byte[] ARRAY_START = { '[' };
+    private static final byte[] ARRAY_SEPARATOR = { ',' };
+    private static final byte[] ARRAY_END = { ']' };
+    private static final byte[] LINE_SEPARATOR = { '\n' };
+
+    @Autowired
+    private ReactiveBookRepository reactiveBookRepository;
+
+    @Autowired
+    private ReactiveBookResourceAssembler reactiveBookResourceAssembler;
+
+    @Autowired
+    private BookResourceStreamWriter bookResourceStreamWriter;
+
+    @Autowired
+    private BookPageResourceAssembler bookPageResourceAssembler;
+
+    @Autowired
+    private CompletedBookJsonCache completedBookJsonCache;
+
+    @RequestMapping(method = RequestMethod.GET)
+    public Mono<? extends ResponseEntity<?>> findBooks(@ModelAttribute final BookPageRequest bookPageRequest, final ServerHttpRequest request,
+            final ServerHttpResponse response) {
+
+        if (!bookPageRequest.isPaged()) {
+            return (EResponseEncoding.CBOR == EResponseEncoding.negotiate(request.getHeaders())) ? findAllBookResources(request) : writeAllBooks(request, response);
+        }
+
+        return findBookPage(bookPageRequest, request);
+    }
+
+    public Mono<ResponseEntity<BookPageResource>> findBookPage(final BookPageRequest bookPageRequest, final ServerHttpRequest request) {
+
+        if (!bookPageRequest.isValid()) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+
+        return this.reactiveBookRepository.findPage(bookPageRequest.toFilter(), bookPageRequest.getAfter(), bookPageRequest.getBefore(), bookPageRequest.getLimitOrDefault())
+                .map(bookPage -> new ResponseEntity<>(this.bookPageResourceAssembler.toResource(bookPage,
+                        this.reactiveBookResourceAssembler.bindTo(request), UriComponentsBuilder.fromHttpRequest(request)), HttpStatus.OK));
+    }
+
+    // Written out a book at a time rather than as a collection of resources, so that complete books are written from the
+    // cache rather than rendered. The output is the same as the collection's would be. Each book is a buffer wrapping its
+    // JSON, emitted as the connection asks for more, so nothing is copied and the listing is never held in memory whole.
+    public Flux<DataBuffer> findAllBooks(final ServerHttpRequest request, final ServerHttpResponse response) {
+
+        final DataBufferFactory bufferFactory = response.bufferFactory();
+        final Function<Book, BookResource> toResource = this.reactiveBookResourceAssembler.bindTo(request);
+        final String bookBaseUri = this.reactiveBookResourceAssembler.getBookBaseUri(request);
+
+        final Flux<DataBuffer> listElements = this.reactiveBookRepository.findAll().index().concatMapIterable(indexedBook -> {
+            final DataBuffer listElement = bufferFactory.wrap(toListElementJson(indexedBook.getT2(), bookBaseUri, toResource));
+            return (0 == indexedBook.getT1()) ? Collections.singletonList(listElement) : Arrays.asList(bufferFactory.wrap(ARRAY_SEPARATOR), listElement);
+        });
+
+        return Flux.concat(Mono.fromSupplier(() -> bufferFactory.wrap(ARRAY_START)), listElements, Mono.fromSupplier(() -> bufferFactory.wrap(ARRAY_END)));
+    }
+
+    // Written to the response here rather than returned as a body: findBooks declares no body type, so a returned stream
+    // of buffers would be taken for a stream of objects to encode as JSON.
+    private Mono<ResponseEntity<?>> writeAllBooks(final ServerHttpRequest request, final ServerHttpResponse response) {
+
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        return response.writeWith(findAllBooks(request, response)).then(Mono.empty());
+    }
+
+    public Mono<ResponseEntity<Collection<BookResource>>> findAllBookResources(final ServerHttpRequest request) {
+        return this.reactiveBookRepository.findAll().collectList()
+                .map(books -> new ResponseEntity<>(this.reactiveBookResourceAssembler.toResourceCollection(books, request), HttpStatus.OK));
+    }
+
+    @RequestMapping(method = RequestMethod.GET, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DataBuffer> streamAllBooks(final ServerHttpRequest request, final ServerHttpResponse response) {
+
+        final DataBufferFactory bufferFactory = response.bufferFactory();
+        final Function<Book, BookResource> toResource = this.reactiveBookResourceAssembler.bindTo(request);
+        final String bookBaseUri = this.reactiveBookResourceAssembler.getBookBaseUri(request);
+
+        return this.reactiveBookRepository.findAll().concatMapIterable(book -> toLine(book, bookBaseUri, toResource, bufferFactory));
+    }
+
+    // Thrown on as an error signal to the response.
+    private byte[] toListElementJson(final Book book, final String bookBaseUri, final Function<Book, BookResource> toResource) {
+        try {
+            final RenderedBook renderedBook = this.completedBookJsonCache.find(book, bookBaseUri, toResource);
+            return (null == renderedBook) ? this.bookResourceStreamWriter.toListElementJson(toResource.apply(book)) : renderedBook.getListElementJson();
+        }
+        catch (final JsonProcessingException exception) {
+            throw Exceptions.propagate(exception);
+        }
+    }
+
+    private List<DataBuffer> toLine(final Book book, final String bookBaseUri, final Function<Book, BookResource> toResource, final DataBufferFactory bufferFactory) {
+        try {
+            final RenderedBook renderedBook = this.completedBookJsonCache.find(book, bookBaseUri, toResource);
+            return (null == renderedBook)
+                    ? Collections.singletonList(bufferFactory.wrap(this.bookResourceStreamWriter.toLine(toResource.apply(book))))
+                    : Arrays.asList(bufferFactory.wrap(renderedBook.getJson()), bufferFactory.wrap(LINE_SEPARATOR));
+        }
+        catch (final JsonProcessingException exception) {
+            throw Exceptions.propagate(exception);
+        }
+    }
+
+    @RequestMapping(value = "/available", method = RequestMethod.GET)
+    public Mono<ResponseEntity<BookResource>> findAvailableBook(@RequestParam final String playerName, final ServerHttpRequest request) {
+        return this.reactiveBookRepository.findAvailable(playerName).map(bookContainer -> ERetrievalOutcome.SUCCESS != bookContainer.getRetrievalOutcome()
+                ? new ResponseEntity<BookResource>(HttpStatus.NOT_FOUND)
+                : new ResponseEntity<>(this.reactiveBookResourceAssembler.toResource(bookContainer.getBook(), request), HttpStatus.OK));
+    }
+
+    @RequestMapping(value = "/{id}", method = RequestMethod.GET)
+    public Mono<ResponseEntity<?>> findBookById(@PathVariable final Long id, @RequestParam final String playerName, final ServerWebExchange exchange) {
+        return this.reactiveBookRepository.findById(id, playerName).map(bookContainer -> toFindResponse(bookContainer, exchange));
+    }
+
+    @RequestMapping(method = RequestMethod.POST, consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+    public Mono<ResponseEntity<BookResource>> createBook(@RequestBody final BookCreateRequest bookCreateRequest, final ServerHttpRequest request) {
+        return this.reactiveBookRepository.create(bookCreateRequest.toBook())
+                .map(createdBook -> new ResponseEntity<>(this.reactiveBookResourceAssembler.toResource(createdBook, request), HttpStatus.CREATED));
+    }
+
+    @RequestMapping(value = "/batch", method = RequestMethod.POST, consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+    public Mono<ResponseEntity<BookBatchResource>> createBooks(@RequestBody final BookBatchCreateRequest bookBatchCreateRequest, final ServerHttpRequest request) {
+
+        if (!bookBatchCreateRequest.isValid()) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+
+        return this.reactiveBookRepository.createAll(bookBatchCreateRequest.toBooks())
+                .map(createdBooks -> new ResponseEntity<>(this.reactiveBookResourceAssembler.toBatchResource(createdBooks, request), HttpStatus.CREATED));
+    }
+
+    @RequestMapping(value = "/{id}", method = RequestMethod.PUT, consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+    public Mono<ResponseEntity<BookResource>> updateBook(@PathVariable final Long id, @RequestBody final BookUpdateRequest bookUpdateRequest,
+            final ServerHttpRequest request) {
+
+        final String playerName = bookUpdateRequest.getPlayerName();
+
+        if (null == playerName) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+
+        return this.reactiveBookRepository.appendLine(id, playerName, bookUpdateRequest.getNewLine(), bookUpdateRequest.getVersion())
+                .map(bookUpdateContainer -> toUpdateResponse(bookUpdateContainer, request));
+    }
+
+    private ResponseEntity<?> toFindResponse(final BookContainer bookContainer, final ServerWebExchange exchange) {
+
+        switch (bookContainer.getRetrievalOutcome()) {
+        case NOT_FOUND:
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        case LOCKED_BY_ANOTHER_PLAYER:
+            return new ResponseEntity<>(HttpStatus.LOCKED);
+        default:
+            final EResponseEncoding encoding = EResponseEncoding.negotiate(exchange.getRequest().getHeaders());
+            final HttpHeaders cachingHeaders = HttpCaching.bookHeaders(bookContainer.getBook(), encoding);
+            if (exchange.checkNotModified(cachingHeaders.getETag())) {
+                return new ResponseEntity<>(cachingHeaders, HttpStatus.NOT_MODIFIED);
+            }
+            if (bookContainer.getBook().isComplete() && EResponseEncoding.JSON == encoding) {
+                return new ResponseEntity<>(toJson(bookContainer.getBook(), exchange), cachingHeaders, HttpStatus.OK);
+            }
+            return new ResponseEntity<>(this.reactiveBookResourceAssembler.toResource(bookContainer.getBook(), exchange.getRequest()), cachingHeaders, HttpStatus.OK);
+        }
+    }
+
+    private DataBuffer toJson(final Book book, final ServerWebExchange exchange) {
+
+        final ServerHttpRequest request = exchange.getRequest();
+
+        try {
+            return exchange.getResponse().bufferFactory().wrap(this.completedBookJsonCache.find(book, this.reactiveBookResourceAssembler.getBookBaseUri(request),
+                    unrenderedBook -> this.reactiveBookResourceAssembler.toResource(unrenderedBook, request)).getJson());
+        }
+        catch (final JsonProcessingException exception) {
+            throw Exceptions.propagate(exception);
+        }
+    }
+
+    private ResponseEntity<BookResource> toUpdateResponse(final BookUpdateContainer bookUpdateContainer, final ServerHttpRequest request) {
+
+        switch (bookUpdateContainer.getUpdateOutcome()) {
+        case NOT_FOUND:
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        case REQUESTING_PLAYER_DOES_NOT_HAVE_LOCK:
+            return new ResponseEntity<>(HttpStatus.LOCKED);
+        case VERSION_CONFLICT:
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        default: // A complete book is returned as it stands, as it is by BookController.
+            return new ResponseEntity<>(this.reactiveBookResourceAssembler.toResource(bookUpdateContainer.getBook(), request),
+                    HttpCaching.bookHeaders(bookUpdateContainer.getBook(), EResponseEncoding.negotiate(request.getHeaders())), HttpStatus.OK);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.nigel.bookgame.rest.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.nigel.bookgame.rest.domain.GameEvent;
+import com.nigel.bookgame.rest.event.GameEventBus;
+import com.nigel.bookgame.rest.event.GameEventSubscription;
+import com.nigel.bookgame.rest.resource.GameEventResource;
+import com.nigel.bookgame.rest.resource.GameEventResourceAssembler;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Reactive game event controller for the reactive deployment, providing the same stream as {@link GameEventController}.
+ * 
+ * Events are only taken from the subscription's buffer when the connection asks for more, so a slow watcher's events
+ * wait, coalesce and if need be are dropped in the bus's bounded buffer rather than piling up in the stream.
+ * 
+ * @author nigel
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@RequestMapping(value = "/events")
+public class ReactiveGameEventController {
+
+    @Autowired
+    private GameEventBus gameEventBus;
+
+    @Autowired
+    private GameEventResourceAssembler gameEventResourceAssembler;
+
+    @RequestMapping(method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<GameEventResource>> streamEvents() {
+        return Flux.create(sink -> {
+
+            final GameEventSubscription subscription = this.gameEventBus.subscribe();
+            final Runnable drain = () -> subscription.drain(() -> sink.requestedFromDownstream() > 0, gameEvent -> sink.next(toServerSentEvent(gameEvent)));
+
+            subscription.onPending(drain);
+            sink.onRequest(requested -> drain.run());
+            sink.onDispose(subscription::cancel);
+        });
+    }
+
+    private ServerSentEvent<GameEventResource> toServerSentEvent(final GameEvent gameEvent) {
+        return ServerSentEvent.builder(this.gameEventResourceAssembler.toResource(gameEvent)).event(gameEvent.getType().name()).build();
+    }
+}
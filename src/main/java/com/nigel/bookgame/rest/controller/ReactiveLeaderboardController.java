@@ -0,0 +1,59 @@
+package com.nigel.bookgame.rest.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.nigel.bookgame.rest.repository.ReactiveBookRepository;
+import com.nigel.bookgame.rest.resource.LeaderboardResource;
+import com.nigel.bookgame.rest.resource.LeaderboardResourceAssembler;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive leaderboard controller for the reactive deployment, providing the same endpoint as {@link LeaderboardController}.
+ * 
+ * @author nigel
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@RequestMapping(value = "/leaderboard", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+public class ReactiveLeaderboardController {
+
+    private static final String DEFAULT_NUMBER_OF_PLACES_SHOWN = "5";
+    private static final int MAXIMUM_NUMBER_OF_PLACES_SHOWN = 1000;
+
+    @Autowired
+    private ReactiveBookRepository reactiveBookRepository;
+
+    @Autowired
+    private LeaderboardResourceAssembler leaderboardResourceAssembler;
+
+    @RequestMapping(method = RequestMethod.GET)
+    public Mono<ResponseEntity<LeaderboardResource>> showLeaderboard(@RequestParam(defaultValue = DEFAULT_NUMBER_OF_PLACES_SHOWN) final int limit,
+            final ServerWebExchange exchange) {
+
+        if (limit < 1 || limit > MAXIMUM_NUMBER_OF_PLACES_SHOWN) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+
+        final HttpHeaders cachingHeaders = HttpCaching.leaderboardHeaders(this.reactiveBookRepository.getLeaderboardVersion(),
+                EResponseEncoding.negotiate(exchange.getRequest().getHeaders()));
+
+        if (exchange.checkNotModified(cachingHeaders.getETag())) {
+            return Mono.just(new ResponseEntity<>(cachingHeaders, HttpStatus.NOT_MODIFIED));
+        }
+
+        return this.reactiveBookRepository.findTopPlayers(limit)
+                .map(topPlayers -> new ResponseEntity<>(this.leaderboardResourceAssembler.toResource(topPlayers), cachingHeaders, HttpStatus.OK));
+    }
+}
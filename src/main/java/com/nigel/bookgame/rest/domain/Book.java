@@ -1,7 +1,10 @@
 package com.nigel.bookgame.rest.domain;
 
+import java.util.List;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Domain logic class representing a book.
@@ -11,12 +14,13 @@ import java.util.TreeMap;
 public class Book implements Identifiable {
 
     private static final Short MAXIMUM_BOOK_LENGTH = 5;
+    private static final long DEFAULT_LOCK_LEASE_DURATION_MILLIS = 5 * 60 * 1000L; // A player who walks away loses the book after five minutes.
 
 	private Long id;
 	private String name;
-	private SortedMap<Integer, LineDetail> lineDetailMap = new TreeMap<Integer, LineDetail>();
-	private boolean isComplete = false;
-	private String lockedBy;
+	private final AtomicReference<LineHistory> lineHistory = new AtomicReference<LineHistory>(LineHistory.EMPTY);
+	private final AtomicReference<LockLease> lockLease = new AtomicReference<LockLease>(LockLease.UNLOCKED);
+	private final AtomicBoolean isCompletionRecorded = new AtomicBoolean(false);
 
 	@Override
 	public Long getId() {
@@ -36,64 +40,175 @@ public class Book implements Identifiable {
 		this.name = name;
 	}
 
-	public SortedMap<Integer, LineDetail> getLineDetailMap() {
+	// The current snapshot of the book's lines, which will not change underneath the caller. Prefer this over
+	// getLineDetailMap(), which builds a map of every line.
+	public LineHistory getLineHistory() {
+	    return this.lineHistory.get();
+	}
+
+	public String lastLine() {
+	    return this.lineHistory.get().lastLine();
+	}
+
+	public int lineCount() {
+	    return this.lineHistory.get().lineCount();
+	}
+
+	public SortedMap<Integer, LineDetail> getLineDetailMap(final PlayerRegistry playerRegistry) {
 
 	    final SortedMap<Integer, LineDetail> lineDetailMapCopy = new TreeMap<Integer, LineDetail>();
+	    final List<LineDetail> lineDetails = this.lineHistory.get().getLineDetails(playerRegistry);
 
-	    for (Integer mapKey : this.lineDetailMap.keySet()) {
-	        lineDetailMapCopy.put(mapKey, new LineDetail(this.lineDetailMap.get(mapKey)));
+	    for (int index = 0; index < lineDetails.size(); index++) {
+	        lineDetailMapCopy.put(index + 1, lineDetails.get(index)); // Line details are immutable, so need no copying.
 	    }
 
 	    return lineDetailMapCopy;
 	}
 
-	public boolean addLineToLineDetailMap(final String line, final String playerName) {
+	public boolean addLineToLineDetailMap(final String line, final int playerId) {
+	    return EUpdateOutcome.SUCCESS == appendLine(line, playerId, null);
+	}
 
-	    if (isComplete()) {
-	        return false;
-	    }
+	// Applies the line with a single compare-and-set. If an expected version is supplied and another line has been added
+	// since, nothing is changed and the caller is told about the conflict so it can re-read the book and retry.
+	public EUpdateOutcome appendLine(final String line, final int playerId, final Long expectedVersion) {
 
-	    Integer currentMaximumLineNumber = 0;
+	    while (true) {
 
-	    if (!this.lineDetailMap.isEmpty()) {
-	        currentMaximumLineNumber = this.lineDetailMap.lastKey();
-	    }
+	        final LineHistory currentLineHistory = this.lineHistory.get();
+
+	        if (currentLineHistory.isComplete()) {
+	            return EUpdateOutcome.BOOK_COMPLETE;
+	        }
 
-	    this.lineDetailMap.put(currentMaximumLineNumber + 1, new LineDetail(line, playerName));
+	        if (null != expectedVersion && expectedVersion.longValue() != currentLineHistory.getVersion()) {
+	            return EUpdateOutcome.VERSION_CONFLICT;
+	        }
 
-	    if (MAXIMUM_BOOK_LENGTH == this.lineDetailMap.size()) {
-	        setComplete(true);
+	        if (this.lineHistory.compareAndSet(currentLineHistory, currentLineHistory.append(line, playerId, MAXIMUM_BOOK_LENGTH))) {
+	            return EUpdateOutcome.SUCCESS;
+	        }
 	    }
+	}
+
+	// Replaces the book's lines wholesale. Only for recovering books from disk, before anyone else can see them.
+	public void restoreLineHistory(final String[] lines, final int[] playerIds) {
+	    this.lineHistory.set(LineHistory.of(lines, playerIds, MAXIMUM_BOOK_LENGTH));
+	}
 
-	    return true;
+	public long getVersion() {
+	    return this.lineHistory.get().getVersion();
 	}
 
     public boolean isComplete() {
-        return this.isComplete;
+        return this.lineHistory.get().isComplete();
     }
 
+	// Open to any player: not yet complete and nobody holds the lock. A lease which has lapsed but not yet been reaped
+	// still counts as held, so the answer only changes when the book itself changes.
+	public boolean isAvailable() {
+	    return !isComplete() && !this.lockLease.get().isLocked();
+	}
+
 	public void setComplete(final boolean isComplete) {
-		this.isComplete = isComplete;
+
+	    LineHistory currentLineHistory = this.lineHistory.get();
+
+	    while (!this.lineHistory.compareAndSet(currentLineHistory, currentLineHistory.withComplete(isComplete))) {
+	        currentLineHistory = this.lineHistory.get();
+	    }
+	}
+
+	// Returns true exactly once for a complete book, so that whoever gets true is the one responsible for anything which
+	// must happen once on completion (such as scoring), however many threads notice the book is complete.
+	public boolean recordCompletion() {
+	    return isComplete() && this.isCompletionRecorded.compareAndSet(false, true);
 	}
 
     public String getLockedBy() {
-        return this.lockedBy;
+
+        final LockLease currentLease = this.lockLease.get();
+
+        return currentLease.isHeldAt(System.currentTimeMillis()) ? currentLease.getOwner() : null;
     }
 
-    public synchronized boolean lock(final String playerName) {
+    public boolean isLockedBy(final String playerName) {
 
-        boolean successfully_locked = false;
+        final LockLease currentLease = this.lockLease.get();
 
-        if (null == this.lockedBy) {
-            this.lockedBy = playerName;
-            successfully_locked = true;
+        return currentLease.isHeldAt(System.currentTimeMillis()) && currentLease.isOwnedBy(playerName);
+    }
+
+    public LockLease getLockLease() {
+        return this.lockLease.get();
+    }
+
+    public boolean lock(final String playerName) {
+        return lock(playerName, DEFAULT_LOCK_LEASE_DURATION_MILLIS);
+    }
+
+    // Succeeds if the book is unlocked, the current lease has expired or the player already holds the lock (in which case the lease is renewed).
+    public boolean lock(final String playerName, final long leaseDurationMillis) {
+
+        while (true) {
+
+            final LockLease currentLease = this.lockLease.get();
+            final long now = System.currentTimeMillis();
+
+            if (currentLease.isHeldAt(now) && !currentLease.isOwnedBy(playerName)) {
+                return false;
+            }
+
+            if (this.lockLease.compareAndSet(currentLease, currentLease.acquire(playerName, now, now + leaseDurationMillis))) {
+                return true;
+            }
+        }
+    }
+
+    // Only releases a lease the player holds, so a player whose lease has lapsed and been taken by somebody else cannot
+    // release the new holder's lock. Returns the lease released, or UNLOCKED if the player did not hold the lock.
+    public LockLease unlock(final String playerName) {
+
+        while (true) {
+
+            final LockLease currentLease = this.lockLease.get();
+
+            if (!currentLease.isOwnedBy(playerName)) {
+                return LockLease.UNLOCKED;
+            }
+
+            if (this.lockLease.compareAndSet(currentLease, currentLease.release())) {
+                return currentLease;
+            }
         }
+    }
+
+    // Only takes the lease supplied if it is newer than the current one, so recovered lock transitions can be applied in any order.
+    public boolean restoreLockLease(final LockLease restoredLease) {
+
+        while (true) {
+
+            final LockLease currentLease = this.lockLease.get();
 
-        return successfully_locked;
+            if (restoredLease.getVersion() <= currentLease.getVersion()) {
+                return false;
+            }
+
+            if (this.lockLease.compareAndSet(currentLease, restoredLease)) {
+                return true;
+            }
+        }
     }
 
-    public void unlock() {
-        this.lockedBy = null;
+    // Only clears the exact lease supplied, so a lock which has since been renewed or taken by someone else is left alone.
+    public boolean expireLease(final LockLease expiredLease, final long now) {
+
+        if (!expiredLease.isLocked() || expiredLease.isHeldAt(now)) {
+            return false;
+        }
+
+        return this.lockLease.compareAndSet(expiredLease, expiredLease.release());
     }
 
     @Override
@@ -0,0 +1,72 @@
+package com.nigel.bookgame.rest.domain;
+
+/**
+ * Criteria for listing books, each of which is ignored when null.
+ * 
+ * The contributor is resolved to a {@link PlayerRegistry} ID once, by {@link #resolvedWith(PlayerRegistry)}, without
+ * registering a name which has never been seen, since nobody of that name can have written anything. A filter must be
+ * resolved before it is used.
+ * 
+ * @author nigel
+ */
+public final class BookFilter {
+
+    public static final BookFilter NONE = new BookFilter(null, null, null);
+
+    private final Boolean complete;
+    private final Boolean available;
+    private final String contributor;
+    private final int contributorId;
+
+    public BookFilter(final Boolean complete, final Boolean available, final String contributor) {
+        this(complete, available, contributor, PlayerRegistry.NO_PLAYER);
+    }
+
+    private BookFilter(final Boolean complete, final Boolean available, final String contributor, final int contributorId) {
+        this.complete = complete;
+        this.available = available;
+        this.contributor = contributor;
+        this.contributorId = contributorId;
+    }
+
+    public BookFilter resolvedWith(final PlayerRegistry playerRegistry) {
+        return (null == this.contributor) ? this : new BookFilter(this.complete, this.available, this.contributor, playerRegistry.findId(this.contributor));
+    }
+
+    public Boolean getComplete() {
+        return this.complete;
+    }
+
+    public Boolean getAvailable() {
+        return this.available;
+    }
+
+    public String getContributor() {
+        return this.contributor;
+    }
+
+    public int getContributorId() {
+        return this.contributorId;
+    }
+
+    // True if no book could ever match, such as an unknown contributor or a complete book which is still available.
+    public boolean isUnsatisfiable() {
+        return (null != this.contributor && PlayerRegistry.NO_PLAYER == this.contributorId)
+                || (Boolean.TRUE.equals(this.complete) && Boolean.TRUE.equals(this.available));
+    }
+
+    public boolean matches(final Book book) {
+
+        final LineHistory lineHistory = book.getLineHistory();
+
+        if (null != this.complete && this.complete.booleanValue() != lineHistory.isComplete()) {
+            return false;
+        }
+
+        if (null != this.available && this.available.booleanValue() != book.isAvailable()) {
+            return false;
+        }
+
+        return null == this.contributor || lineHistory.hasContributor(this.contributorId);
+    }
+}
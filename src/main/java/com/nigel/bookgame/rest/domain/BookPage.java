@@ -0,0 +1,36 @@
+package com.nigel.bookgame.rest.domain;
+
+import java.util.List;
+
+/**
+ * One page of a book listing in ID order, with the cursors for the pages either side of it.
+ * 
+ * A cursor is a book ID: the next page holds the matching books after the next cursor and the previous page the
+ * matching books before the previous cursor. Either is null when there is nothing more in that direction.
+ * 
+ * @author nigel
+ */
+public final class BookPage {
+
+    private final List<Book> books;
+    private final Long previousCursor;
+    private final Long nextCursor;
+
+    public BookPage(final List<Book> books, final Long previousCursor, final Long nextCursor) {
+        this.books = books;
+        this.previousCursor = previousCursor;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Book> getBooks() {
+        return this.books;
+    }
+
+    public Long getPreviousCursor() {
+        return this.previousCursor;
+    }
+
+    public Long getNextCursor() {
+        return this.nextCursor;
+    }
+}
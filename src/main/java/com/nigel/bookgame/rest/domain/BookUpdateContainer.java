@@ -0,0 +1,28 @@
+package com.nigel.bookgame.rest.domain;
+
+/**
+ * Container class representing a book together with the outcome of an attempt to update it.
+ * 
+ * @author nigel
+ */
+public class BookUpdateContainer {
+
+    private Book book;
+    private EUpdateOutcome updateOutcome;
+
+    public Book getBook() {
+        return this.book;
+    }
+
+    public void setBook(Book book) {
+        this.book = book;
+    }
+
+    public EUpdateOutcome getUpdateOutcome() {
+        return this.updateOutcome;
+    }
+
+    public void setUpdateOutcome(EUpdateOutcome updateOutcome) {
+        this.updateOutcome = updateOutcome;
+    }
+}
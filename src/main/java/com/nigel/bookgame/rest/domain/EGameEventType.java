@@ -0,0 +1,13 @@
+package com.nigel.bookgame.rest.domain;
+
+/**
+ * Enumeration describing the kinds of change pushed to players watching the game.
+ * 
+ * @author nigel
+ */
+public enum EGameEventType {
+    BOOK_COMPLETED,
+    LOCK_CHANGED,
+    LEADERBOARD_CHANGED,
+    RESYNC // The watcher fell too far behind and events were dropped, so it should fetch the current state again.
+}
@@ -9,5 +9,7 @@ public enum EUpdateOutcome {
     SUCCESS,
     REQUESTING_PLAYER_DOES_NOT_HAVE_LOCK,
     NULL_BOOK_SUPPLIED,
-    NOT_FOUND
+    NOT_FOUND,
+    VERSION_CONFLICT,
+    BOOK_COMPLETE
 }
\ No newline at end of file
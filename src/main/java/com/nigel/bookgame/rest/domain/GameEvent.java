@@ -0,0 +1,69 @@
+package com.nigel.bookgame.rest.domain;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable notice of a change to the game, carrying only what changed rather than the whole book or leaderboard.
+ * 
+ * Events which describe the latest state of something, such as who holds a book's lock or who is at the top of the
+ * leaderboard, share a coalescing key with every other event about the same thing, so that a watcher who has not yet
+ * received an older one need only be sent the newest. Events without a key, such as a book being completed, are each
+ * delivered in their own right.
+ * 
+ * @author nigel
+ */
+public final class GameEvent {
+
+    public static final GameEvent RESYNC = new GameEvent(EGameEventType.RESYNC, null, null, Collections.<PlayerScore>emptyList(), null);
+
+    private static final Object LEADERBOARD_KEY = new Object();
+
+    private final EGameEventType type;
+    private final Long bookId;
+    private final String playerName;
+    private final List<PlayerScore> topPlayers;
+    private final Object coalescingKey;
+
+    private GameEvent(final EGameEventType type, final Long bookId, final String playerName, final List<PlayerScore> topPlayers, final Object coalescingKey) {
+        this.type = type;
+        this.bookId = bookId;
+        this.playerName = playerName;
+        this.topPlayers = topPlayers;
+        this.coalescingKey = coalescingKey;
+    }
+
+    public static GameEvent bookCompleted(final Book book) {
+        return new GameEvent(EGameEventType.BOOK_COMPLETED, book.getId(), null, Collections.<PlayerScore>emptyList(), null);
+    }
+
+    // The lock holder is null once the book has been unlocked.
+    public static GameEvent lockChanged(final Book book, final String lockHolder) {
+        return new GameEvent(EGameEventType.LOCK_CHANGED, book.getId(), lockHolder, Collections.<PlayerScore>emptyList(), book.getId());
+    }
+
+    public static GameEvent leaderboardChanged(final List<PlayerScore> topPlayers) {
+        return new GameEvent(EGameEventType.LEADERBOARD_CHANGED, null, null, topPlayers, LEADERBOARD_KEY);
+    }
+
+    public EGameEventType getType() {
+        return this.type;
+    }
+
+    public Long getBookId() {
+        return this.bookId;
+    }
+
+    public String getPlayerName() {
+        return this.playerName;
+    }
+
+    public List<PlayerScore> getTopPlayers() {
+        return this.topPlayers;
+    }
+
+    // Null if the event must be delivered however many later events there are.
+    public Object getCoalescingKey() {
+        return this.coalescingKey;
+    }
+}
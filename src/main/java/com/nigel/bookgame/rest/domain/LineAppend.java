@@ -0,0 +1,37 @@
+package com.nigel.bookgame.rest.domain;
+
+/**
+ * A request from a player to add a line to a book, optionally only if the book is still at the version they last saw.
+ * 
+ * @author nigel
+ */
+public final class LineAppend {
+
+    private final Long bookId;
+    private final String playerName;
+    private final String line;
+    private final Long expectedVersion;
+
+    public LineAppend(final Long bookId, final String playerName, final String line, final Long expectedVersion) {
+        this.bookId = bookId;
+        this.playerName = playerName;
+        this.line = line;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public Long getBookId() {
+        return this.bookId;
+    }
+
+    public String getPlayerName() {
+        return this.playerName;
+    }
+
+    public String getLine() {
+        return this.line;
+    }
+
+    public Long getExpectedVersion() {
+        return this.expectedVersion;
+    }
+}
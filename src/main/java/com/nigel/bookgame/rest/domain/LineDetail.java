@@ -1,15 +1,15 @@
 package com.nigel.bookgame.rest.domain;
 
 /**
- * Class describing information about a line in a book.
+ * Immutable class describing information about a line in a book.
  * Equals is not overridden because the same player could add the same line (to any book).
  * 
  * @author nigel
  */
-public class LineDetail {
+public final class LineDetail {
 
-    private String line;
-    private String playerName;
+    private final String line;
+    private final String playerName;
 
     public LineDetail(final String line, final String playerName) {
         this.line = line;
@@ -25,15 +25,7 @@ public class LineDetail {
         return line;
     }
 
-    public void setLine(String line) {
-        this.line = line;
-    }
-
     public String getPlayerName() {
         return playerName;
     }
-
-    public void setPlayerName(String playerName) {
-        this.playerName = playerName;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,212 @@
+package com.nigel.bookgame.rest.domain;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable, append-only history of the lines written in a book.
+ *
+ * Appending produces a new history which shares every existing line with the old one, so a history handed to a reader
+ * is a stable snapshot for as long as they hold it. The list views it returns are read-only windows onto the snapshot
+ * rather than copies, and the last line and line count are available without building anything.
+ *
+ * Every history carries a version which goes up by one with each line appended, and which is what clients quote back
+ * to detect that somebody else has written to the book in the meantime.
+ *
+ * Lines are held compactly as plain arrays rather than as an object per line, with each player held as their
+ * {@link PlayerRegistry} ID so that a player's name exists once however many lines they write.
+ *
+ * Once a book is complete its history is frozen: all of the lines are packed into a single string with an array of end
+ * offsets, which removes the per-line string overhead for the bulk of books, which are finished and never change again.
+ * Each line read from a frozen history is cut out of the packed text afresh rather than kept, so reading or rendering a
+ * finished book never grows it back to its unfrozen size.
+ *
+ * @author nigel
+ */
+public final class LineHistory {
+
+    public static final LineHistory EMPTY = new LineHistory(new String[0], null, null, new int[0], 0L, false);
+
+    private final String[] lines; // Null once frozen.
+    private final String frozenText; // Null until frozen.
+    private final int[] frozenLineEnds; // Null until frozen.
+    private final int[] playerIds;
+    private final long version;
+    private final boolean isComplete;
+
+    private LineHistory(final String[] lines, final String frozenText, final int[] frozenLineEnds, final int[] playerIds, final long version, final boolean isComplete) {
+        this.lines = lines;
+        this.frozenText = frozenText;
+        this.frozenLineEnds = frozenLineEnds;
+        this.playerIds = playerIds;
+        this.version = version;
+        this.isComplete = isComplete;
+    }
+
+    // Recreates the history of a book whose lines are already known, such as when recovering books from disk. The arrays
+    // are taken over rather than copied, so the caller must not change them afterwards.
+    public static LineHistory of(final String[] lines, final int[] playerIds, final int maximumLength) {
+
+        final LineHistory lineHistory = new LineHistory(lines, null, null, playerIds, lines.length, false);
+
+        return (lines.length >= maximumLength) ? lineHistory.withComplete(true) : lineHistory;
+    }
+
+    public int lineCount() {
+        return this.playerIds.length;
+    }
+
+    public String getLine(final int index) {
+
+        if (null != this.lines) {
+            return this.lines[index];
+        }
+
+        return this.frozenText.substring((index == 0) ? 0 : this.frozenLineEnds[index - 1], this.frozenLineEnds[index]);
+    }
+
+    public int getPlayerId(final int index) {
+        return this.playerIds[index];
+    }
+
+    // Books are only a handful of lines long, so a linear search is as quick as anything cleverer.
+    public boolean hasContributor(final int playerId) {
+
+        for (int existingPlayerId : this.playerIds) {
+            if (existingPlayerId == playerId) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public boolean isLastWrittenBy(final int playerId) {
+        return lineCount() > 0 && this.playerIds[lineCount() - 1] == playerId;
+    }
+
+    public String lastLine() {
+        return lineCount() == 0 ? null : getLine(lineCount() - 1);
+    }
+
+    public List<String> getLines() {
+        return new LineView();
+    }
+
+    // The registry is needed to present each player by name, since the history itself only holds their IDs.
+    public List<LineDetail> getLineDetails(final PlayerRegistry playerRegistry) {
+        return new LineDetailView(playerRegistry);
+    }
+
+    public long getVersion() {
+        return this.version;
+    }
+
+    public boolean isComplete() {
+        return this.isComplete;
+    }
+
+    public boolean isFrozen() {
+        return null == this.lines;
+    }
+
+    // Books are only a handful of lines long, so copying the references is cheaper than any tree or trie would be.
+    public LineHistory append(final String line, final int playerId, final int maximumLength) {
+
+        final int lineCount = lineCount();
+
+        final String[] newLines = copyLines(lineCount + 1);
+        newLines[lineCount] = line;
+
+        final int[] newPlayerIds = Arrays.copyOf(this.playerIds, lineCount + 1);
+        newPlayerIds[lineCount] = playerId;
+
+        final LineHistory newLineHistory = new LineHistory(newLines, null, null, newPlayerIds, this.version + 1, false);
+
+        return (newLines.length >= maximumLength) ? newLineHistory.withComplete(true) : newLineHistory;
+    }
+
+    public LineHistory withComplete(final boolean isComplete) {
+
+        if (isFrozen()) {
+            return isComplete ? this : new LineHistory(copyLines(lineCount()), null, null, this.playerIds, this.version, false);
+        }
+
+        return isComplete ? freeze(this.lines, this.playerIds, this.version) : new LineHistory(this.lines, null, null, this.playerIds, this.version, false);
+    }
+
+    private static LineHistory freeze(final String[] lines, final int[] playerIds, final long version) {
+
+        final StringBuilder frozenText = new StringBuilder();
+        final int[] frozenLineEnds = new int[lines.length];
+
+        for (int index = 0; index < lines.length; index++) {
+            if (null == lines[index]) {
+                return new LineHistory(lines, null, null, playerIds, version, true); // A missing line cannot be told apart from an empty one once packed.
+            }
+            frozenText.append(lines[index]);
+            frozenLineEnds[index] = frozenText.length();
+        }
+
+        return new LineHistory(null, frozenText.toString(), frozenLineEnds, playerIds, version, true);
+    }
+
+    // A new array of the lines, padded out to the length given, which the caller is free to fill in and keep.
+    private String[] copyLines(final int length) {
+
+        if (null != this.lines) {
+            return Arrays.copyOf(this.lines, length);
+        }
+
+        final String[] copiedLines = new String[length];
+
+        for (int index = 0; index < lineCount(); index++) {
+            copiedLines[index] = getLine(index);
+        }
+
+        return copiedLines;
+    }
+
+    private class LineView extends AbstractList<String> {
+
+        @Override
+        public String get(final int index) {
+            return getLine(index);
+        }
+
+        @Override
+        public int size() {
+            return lineCount();
+        }
+    }
+
+    // Each detail is made the first time it is asked for and then kept, so reading a line twice does not build it twice.
+    private class LineDetailView extends AbstractList<LineDetail> {
+
+        private final PlayerRegistry playerRegistry;
+        private final LineDetail[] lineDetails = new LineDetail[lineCount()];
+
+        LineDetailView(final PlayerRegistry playerRegistry) {
+            this.playerRegistry = playerRegistry;
+        }
+
+        @Override
+        public LineDetail get(final int index) {
+
+            LineDetail lineDetail = this.lineDetails[index];
+
+            if (null == lineDetail) {
+                lineDetail = new LineDetail(getLine(index), this.playerRegistry.nameOf(getPlayerId(index)));
+                this.lineDetails[index] = lineDetail;
+            }
+
+            return lineDetail;
+        }
+
+        @Override
+        public int size() {
+            return lineCount();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.nigel.bookgame.rest.domain;
+
+/**
+ * Immutable snapshot of the lock on a book: who holds it, until when, and how many lock transitions the book has seen.
+ *
+ * A new instance is created for every transition so that a book's lock can be changed with a single compare-and-set
+ * and so that anyone holding an old instance (such as the lease reaper) can tell whether it is still current. The
+ * owner is held by name rather than as a {@link PlayerRegistry} ID, since taking a lock must not register a player who
+ * may never write anything.
+ *
+ * @author nigel
+ */
+public final class LockLease {
+
+    public static final LockLease UNLOCKED = new LockLease(null, 0L, 0L, 0L);
+
+    private final String owner; // Null if unlocked.
+    private final long leaseDeadline;
+    private final long version;
+    private final long lockedSince; // When the owner first took the lock, carried over renewals. Zero if not known.
+
+    private LockLease(final String owner, final long leaseDeadline, final long version, final long lockedSince) {
+        this.owner = owner;
+        this.leaseDeadline = leaseDeadline;
+        this.version = version;
+        this.lockedSince = lockedSince;
+    }
+
+    // Recreates a lease exactly as it was recorded, such as when recovering books from disk. When it was first taken is not recorded.
+    public static LockLease of(final String owner, final long leaseDeadline, final long version) {
+        return new LockLease(owner, leaseDeadline, version, 0L);
+    }
+
+    public String getOwner() {
+        return this.owner;
+    }
+
+    public long getLeaseDeadline() {
+        return this.leaseDeadline;
+    }
+
+    public long getVersion() {
+        return this.version;
+    }
+
+    public long getLockedSince() {
+        return this.lockedSince;
+    }
+
+    public boolean isLocked() {
+        return null != this.owner;
+    }
+
+    public boolean isHeldAt(final long now) {
+        return isLocked() && now < this.leaseDeadline;
+    }
+
+    public boolean isOwnedBy(final String playerName) {
+        return isLocked() && this.owner.equals(playerName);
+    }
+
+    // Renewing a lease the player still holds keeps the time they first took it, so hold times cover the whole hold.
+    public LockLease acquire(final String playerName, final long now, final long newLeaseDeadline) {
+        return new LockLease(playerName, newLeaseDeadline, this.version + 1, isHeldAt(now) && isOwnedBy(playerName) ? this.lockedSince : now);
+    }
+
+    public LockLease release() {
+        return new LockLease(null, 0L, this.version + 1, 0L);
+    }
+}
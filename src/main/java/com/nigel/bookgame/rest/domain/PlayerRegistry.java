@@ -0,0 +1,84 @@
+package com.nigel.bookgame.rest.domain;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry which gives every player name a compact numeric ID the first time it is seen.
+ * 
+ * Player names arrive as fresh strings on every request. Converting them to an ID once means that book histories and
+ * the leaderboard can store and compare plain ints, and each name is held exactly once however many lines or scores
+ * refer to it. Names are looked up again by ID only when something is presented to a caller or written to disk.
+ * 
+ * A name is only registered once its player has actually written a line. Reading, locking and searching look names up
+ * with {@link #findId(String)}, which never registers anything, so requests naming players who never write cannot grow
+ * the registry. IDs are not reused until the registry is cleared along with the books which refer to them.
+ * 
+ * @author nigel
+ */
+@Component
+public class PlayerRegistry {
+    
+    public static final int NO_PLAYER = -1;
+    
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    private final Map<String, Integer> playerIdMap = new ConcurrentHashMap<String, Integer>();
+    private volatile String[] playerNames = new String[INITIAL_CAPACITY];
+    private int numberOfPlayers = 0; // Only changed while holding the registry's monitor.
+    
+    // Registers the name if it has not been seen before. Only for players who are writing a line.
+    public int idOf(final String playerName) {
+        
+        if (null == playerName) {
+            return NO_PLAYER;
+        }
+        
+        final Integer playerId = this.playerIdMap.get(playerName);
+        
+        return (null == playerId) ? register(playerName) : playerId.intValue();
+    }
+    
+    // Looks a name up without registering it, for players who may never have written anything.
+    public int findId(final String playerName) {
+        
+        final Integer playerId = (null == playerName) ? null : this.playerIdMap.get(playerName);
+        
+        return (null == playerId) ? NO_PLAYER : playerId.intValue();
+    }
+    
+    public String nameOf(final int playerId) {
+        return (NO_PLAYER == playerId) ? null : this.playerNames[playerId];
+    }
+    
+    // Only for use alongside clearing every book and score, since any ID still held elsewhere would lose its name.
+    public synchronized void clear() {
+        this.playerIdMap.clear();
+        this.playerNames = new String[INITIAL_CAPACITY];
+        this.numberOfPlayers = 0;
+    }
+    
+    // The name is written before the ID is published through the map, so anyone who has been given an ID can resolve it.
+    private synchronized int register(final String playerName) {
+        
+        final Integer existingPlayerId = this.playerIdMap.get(playerName);
+        
+        if (null != existingPlayerId) {
+            return existingPlayerId.intValue();
+        }
+        
+        if (this.numberOfPlayers == this.playerNames.length) {
+            this.playerNames = Arrays.copyOf(this.playerNames, this.playerNames.length * 2);
+        }
+        
+        final int playerId = this.numberOfPlayers++;
+        
+        this.playerNames[playerId] = playerName;
+        this.playerIdMap.put(playerName, Integer.valueOf(playerId));
+        
+        return playerId;
+    }
+}
@@ -0,0 +1,62 @@
+package com.nigel.bookgame.rest.domain;
+
+/**
+ * Immutable class describing a player's overall score at a point in time.
+ * 
+ * Ordered by descending score and then alphabetically by player name, which is the order the leaderboard is shown in.
+ * The player is identified by their {@link PlayerRegistry} ID, and their name is carried alongside for ordering ties
+ * and presenting the score.
+ * 
+ * @author nigel
+ */
+public final class PlayerScore implements Comparable<PlayerScore> {
+
+    private final int playerId;
+    private final String playerName;
+    private final int score;
+
+    public PlayerScore(final int playerId, final String playerName, final int score) {
+        this.playerId = playerId;
+        this.playerName = playerName;
+        this.score = score;
+    }
+
+    public int getPlayerId() {
+        return this.playerId;
+    }
+
+    public String getPlayerName() {
+        return this.playerName;
+    }
+
+    public int getScore() {
+        return this.score;
+    }
+
+    @Override
+    public int compareTo(final PlayerScore otherPlayerScore) {
+
+        if (otherPlayerScore.getScore() == this.score) {
+            return (otherPlayerScore.getPlayerId() == this.playerId) ? 0 : this.playerName.compareTo(otherPlayerScore.getPlayerName());
+        }
+
+        return Integer.compare(otherPlayerScore.getScore(), this.score);
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+
+        if (!(object instanceof PlayerScore)) {
+            return false;
+        }
+
+        final PlayerScore otherPlayerScore = (PlayerScore) object;
+
+        return otherPlayerScore.getScore() == this.score && otherPlayerScore.getPlayerId() == this.playerId;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.playerId + this.score;
+    }
+}
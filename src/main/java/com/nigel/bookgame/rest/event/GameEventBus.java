@@ -0,0 +1,117 @@
+package com.nigel.bookgame.rest.event;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.nigel.bookgame.rest.domain.GameEvent;
+
+/**
+ * In-process bus which fans game events out to everyone watching, so that watchers are told about changes instead of
+ * polling for them.
+ *
+ * Publishing puts the event into each {@link GameEventSubscription}'s own bounded buffer and returns; it never waits for
+ * anything to be sent. With nobody watching it is a single read of the subscriber list.
+ *
+ * Watchers can either be pushed their events, one at a time and in order, on the bus's delivery threads (which suits
+ * senders which block, such as server-sent events on Tomcat), or take them as they are ready for them (which suits
+ * reactive streams, which signal their own demand).
+ *
+ * There is a fixed number of delivery threads, so watchers whose sends block on a slow connection tie up at most that
+ * many threads between them rather than one each. Everyone else's deliveries wait for a free thread meanwhile, with
+ * their events held and coalesced in their own buffers as usual.
+ *
+ * @author nigel
+ */
+@Component
+public class GameEventBus {
+
+    private final int bufferCapacity;
+    private final List<GameEventSubscription> subscriptions = new CopyOnWriteArrayList<GameEventSubscription>();
+    private final ExecutorService deliveryExecutor;
+
+    @Autowired
+    public GameEventBus(@Value("${bookgame.events.buffer-capacity:256}") final int bufferCapacity,
+            @Value("${bookgame.events.delivery-threads:16}") final int numberOfDeliveryThreads) {
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+
+        this.bufferCapacity = bufferCapacity;
+        this.deliveryExecutor = Executors.newFixedThreadPool(numberOfDeliveryThreads, runnable -> {
+            final Thread thread = new Thread(runnable, "game-event-delivery-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        this.deliveryExecutor.shutdownNow();
+    }
+
+    public boolean hasSubscribers() {
+        return !this.subscriptions.isEmpty();
+    }
+
+    public void publish(final GameEvent gameEvent) {
+        for (GameEventSubscription subscription : this.subscriptions) {
+            subscription.offer(gameEvent);
+        }
+    }
+
+    // The caller takes events with poll() or drain() once told they are pending.
+    public GameEventSubscription subscribe() {
+
+        final GameEventSubscription subscription = new GameEventSubscription(this, this.bufferCapacity);
+
+        this.subscriptions.add(subscription);
+
+        return subscription;
+    }
+
+    // Events are pushed to the consumer on a delivery thread, never more than one at a time. A consumer which throws is unsubscribed.
+    public GameEventSubscription subscribe(final Consumer<GameEvent> consumer) {
+
+        final GameEventSubscription subscription = new GameEventSubscription(this, this.bufferCapacity);
+
+        subscription.onPending(() -> {
+            try {
+                this.deliveryExecutor.execute(() -> deliver(subscription, consumer));
+            }
+            catch (final RejectedExecutionException exception) {
+                subscription.cancel(); // Shutting down.
+            }
+        });
+
+        this.subscriptions.add(subscription);
+
+        return subscription;
+    }
+
+    private static void deliver(final GameEventSubscription subscription, final Consumer<GameEvent> consumer) {
+        try {
+            subscription.drain(() -> true, consumer);
+        }
+        catch (final RuntimeException exception) {
+            subscription.cancel();
+        }
+    }
+
+    public int getSubscriberCount() {
+        return this.subscriptions.size();
+    }
+
+    void unsubscribe(final GameEventSubscription subscription) {
+        this.subscriptions.remove(subscription);
+    }
+}
@@ -0,0 +1,120 @@
+package com.nigel.bookgame.rest.event;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import com.nigel.bookgame.rest.domain.GameEvent;
+
+/**
+ * One watcher's place on the {@link GameEventBus}, holding the events published which it has not yet been sent.
+ *
+ * The buffer is bounded, so a watcher who reads slowly costs a fixed amount of memory however busy the game is. An
+ * event with the same coalescing key as one still waiting replaces it, so a slow watcher is sent the latest lock holder
+ * of a book or the latest leaderboard rather than every step along the way. If the buffer fills up regardless,
+ * everything waiting is dropped in favour of a single {@link GameEvent#RESYNC}, which tells the watcher to fetch the
+ * current state again, and events are then buffered afresh behind it.
+ *
+ * Each subscription has its own lock, held only while an event is added or taken, so publishing never waits on any
+ * other watcher and never waits for anything to be sent.
+ *
+ * @author nigel
+ */
+public class GameEventSubscription {
+
+    private final GameEventBus gameEventBus;
+    private final int capacity;
+    private final Map<Object, GameEvent> pendingEvents = new LinkedHashMap<Object, GameEvent>();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+
+    private volatile Runnable pendingListener = () -> { };
+    private long numberOfEventsDropped; // Only changed while holding the subscription's monitor.
+
+    GameEventSubscription(final GameEventBus gameEventBus, final int capacity) {
+        this.gameEventBus = gameEventBus;
+        this.capacity = capacity;
+    }
+
+    // Told whenever events start waiting where there were none, on the publisher's thread, so it must not block.
+    public void onPending(final Runnable pendingListener) {
+        this.pendingListener = pendingListener;
+    }
+
+    void offer(final GameEvent gameEvent) {
+
+        final boolean wasEmpty;
+
+        synchronized (this) {
+
+            wasEmpty = this.pendingEvents.isEmpty();
+
+            final Object key = (null == gameEvent.getCoalescingKey()) ? gameEvent : gameEvent.getCoalescingKey();
+
+            // Taken out first so that the newest event goes to the back of the queue, after anything it may depend on.
+            if (null == this.pendingEvents.remove(key) && this.pendingEvents.size() >= this.capacity) {
+                this.numberOfEventsDropped += this.pendingEvents.size();
+                this.pendingEvents.clear();
+                this.pendingEvents.put(GameEvent.RESYNC, GameEvent.RESYNC);
+            }
+
+            this.pendingEvents.put(key, gameEvent);
+        }
+
+        if (wasEmpty) {
+            this.pendingListener.run();
+        }
+    }
+
+    public synchronized GameEvent poll() {
+
+        final Iterator<GameEvent> iterator = this.pendingEvents.values().iterator();
+
+        if (!iterator.hasNext()) {
+            return null;
+        }
+
+        final GameEvent gameEvent = iterator.next();
+        iterator.remove();
+
+        return gameEvent;
+    }
+
+    /*
+     * Hands waiting events to the consumer for as long as there is demand for them. It is safe to call from any thread
+     * at any time: only one thread drains at once, and a call made while another thread is draining makes that thread
+     * look again before it stops rather than being lost, so no event is left waiting with nobody draining.
+     */
+    public void drain(final BooleanSupplier hasDemand, final Consumer<GameEvent> consumer) {
+
+        if (0 != this.drainRequests.getAndIncrement()) {
+            return;
+        }
+
+        int missedRequests = 1;
+
+        do {
+            GameEvent gameEvent;
+
+            while (hasDemand.getAsBoolean() && null != (gameEvent = poll())) {
+                consumer.accept(gameEvent);
+            }
+
+            missedRequests = this.drainRequests.addAndGet(-missedRequests);
+        } while (0 != missedRequests);
+    }
+
+    public synchronized int getPendingCount() {
+        return this.pendingEvents.size();
+    }
+
+    public synchronized long getNumberOfEventsDropped() {
+        return this.numberOfEventsDropped;
+    }
+
+    public void cancel() {
+        this.gameEventBus.unsubscribe(this);
+    }
+}
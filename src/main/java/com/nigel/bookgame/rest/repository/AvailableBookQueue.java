@@ -0,0 +1,125 @@
+package com.nigel.bookgame.rest.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.nigel.bookgame.rest.domain.Book;
+
+/**
+ * Queue of the IDs of books which are available to be written in, for handing players a book without them having to
+ * guess which ones are free.
+ *
+ * The queue is split into stripes, each a lock-free queue, with books spread across them by ID. Players start at a
+ * random stripe and move on to the next when it is empty, so players on different cores mostly take from different
+ * stripes and there is no single head for them all to contend on.
+ *
+ * A book is only ever queued once at a time, which an {@link IdBitSet} of the queued IDs ensures. Its bit is cleared as
+ * soon as it is taken off the queue and before the book is looked at, so a book which becomes available again while it
+ * is being taken is either picked up by the taker or queued again by whoever released it, and is never lost. Books which
+ * turn out to be locked or complete by the time they are taken are simply dropped, since they are offered again when
+ * they are next unlocked.
+ *
+ * A player is never handed a book whose last line they wrote. Those are put straight back on another stripe as they
+ * are passed over, so other players polling at the same time still find them, and a player only passes over a few
+ * before giving up, so a poll costs the same however many of the queued books are their own. Giving up does not mean
+ * there is nothing for them, so the caller then looks through the {@link BookIndex} instead.
+ *
+ * @author nigel
+ */
+public class AvailableBookQueue {
+
+    private static final int MAXIMUM_OWN_BOOKS_SKIPPED = 8;
+
+    private final IdIndexedTable<Book> books;
+    private final List<Queue<Long>> stripes;
+    private final IdBitSet queuedIds = new IdBitSet();
+
+    public AvailableBookQueue(final IdIndexedTable<Book> books, final int numberOfStripes) {
+
+        this.books = books;
+        this.stripes = new ArrayList<Queue<Long>>(numberOfStripes);
+
+        for (int index = 0; index < numberOfStripes; index++) {
+            this.stripes.add(new ConcurrentLinkedQueue<Long>());
+        }
+    }
+
+    // Queues the book if it is available and not already queued. Safe to call on every change to a book.
+    public void offer(final Book book) {
+
+        final Long id = book.getId();
+
+        if (book.isAvailable() && this.queuedIds.add(id.longValue())) {
+            this.stripes.get((int) Math.floorMod(id.longValue(), (long) this.stripes.size())).add(id);
+        }
+    }
+
+    /*
+     * Takes the first book off the queue which is still available and whose last line was not written by the player,
+     * or returns null if there is none or the player has passed over too many of their own. The book is not locked: the
+     * caller locks it, and if someone else gets there first it simply asks again.
+     */
+    public Book poll(final int playerId) {
+
+        final int firstStripeIndex = ThreadLocalRandom.current().nextInt(this.stripes.size());
+
+        int numberOfOwnBooksSkipped = 0;
+
+        for (int offset = 0; offset < this.stripes.size(); offset++) {
+
+            final int stripeIndex = (firstStripeIndex + offset) % this.stripes.size();
+            final Queue<Long> stripe = this.stripes.get(stripeIndex);
+
+            Long id;
+
+            while (null != (id = stripe.poll())) {
+
+                this.queuedIds.remove(id.longValue());
+
+                final Book book = this.books.get(id);
+
+                if (null == book || !book.isAvailable()) {
+                    continue;
+                }
+
+                if (!book.getLineHistory().isLastWrittenBy(playerId)) {
+                    return book;
+                }
+
+                requeue(book, (stripeIndex + 1) % this.stripes.size());
+
+                if (++numberOfOwnBooksSkipped >= MAXIMUM_OWN_BOOKS_SKIPPED) {
+                    return null;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    public int size() {
+        return this.queuedIds.size();
+    }
+
+    public void clear() {
+
+        for (Queue<Long> stripe : this.stripes) {
+            stripe.clear();
+        }
+
+        this.queuedIds.clear();
+    }
+
+    // Onto the stripe given rather than the book's own, so a player draining the book's stripe does not meet it again.
+    private void requeue(final Book book, final int stripeIndex) {
+
+        final Long id = book.getId();
+
+        if (book.isAvailable() && this.queuedIds.add(id.longValue())) {
+            this.stripes.get(stripeIndex).add(id);
+        }
+    }
+}
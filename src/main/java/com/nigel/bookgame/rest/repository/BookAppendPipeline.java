@@ -0,0 +1,236 @@
+package com.nigel.bookgame.rest.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.nigel.bookgame.rest.domain.BookUpdateContainer;
+import com.nigel.bookgame.rest.domain.LineAppend;
+
+/**
+ * Stage in front of {@link BookRepository} which gathers concurrent line appends into batches.
+ *
+ * Appends are split into shards by book ID, each with its own queue and a single thread which drains it, so all appends
+ * to one book are applied one after another by the same thread and never contend with each other. Each drain takes
+ * whatever has queued up, optionally waiting up to a latency budget for more, and applies it with a single call to
+ * {@link BookRepository#appendLines(List)}, so the batch shares one wait for the journal however many players are in it.
+ *
+ * With the default latency budget of zero nothing is held back: a batch is simply everything which arrived while the
+ * previous batch was being applied, so batches grow with load and a lone append is applied straight away.
+ *
+ * @author nigel
+ */
+@Component
+public class BookAppendPipeline {
+
+    private final BookRepository bookRepository;
+    private final int maximumBatchSize;
+    private final long maximumBatchDelayNanos;
+    private final List<Shard> shards;
+
+    private final AtomicLong numberOfBatches = new AtomicLong();
+    private final AtomicLong numberOfAppends = new AtomicLong();
+
+    private volatile boolean isRunning = true;
+
+    @Autowired
+    public BookAppendPipeline(final BookRepository bookRepository,
+            @Value("${bookgame.append-pipeline.shards:0}") final int numberOfShards,
+            @Value("${bookgame.append-pipeline.max-batch-size:128}") final int maximumBatchSize,
+            @Value("${bookgame.append-pipeline.max-batch-delay-micros:0}") final long maximumBatchDelayMicros) {
+
+        this.bookRepository = bookRepository;
+        this.maximumBatchSize = maximumBatchSize;
+        this.maximumBatchDelayNanos = TimeUnit.MICROSECONDS.toNanos(maximumBatchDelayMicros);
+
+        final int shardCount = (numberOfShards > 0) ? numberOfShards : Runtime.getRuntime().availableProcessors();
+
+        this.shards = new ArrayList<Shard>(shardCount);
+
+        for (int index = 0; index < shardCount; index++) {
+            this.shards.add(new Shard(index));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        for (Shard shard : this.shards) {
+            shard.drainerThread.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+
+        this.isRunning = false;
+
+        for (Shard shard : this.shards) {
+            shard.drainerThread.interrupt();
+        }
+    }
+
+    public CompletableFuture<BookUpdateContainer> append(final Long id, final String playerName, final String line, final Long expectedVersion) {
+
+        final PendingAppend pendingAppend = new PendingAppend(new LineAppend(id, playerName, line, expectedVersion));
+
+        if (!this.isRunning) {
+            pendingAppend.future.completeExceptionally(new IllegalStateException("Append pipeline is stopped"));
+            return pendingAppend.future;
+        }
+
+        final Shard shard = shardFor(id);
+
+        shard.pendingAppends.add(pendingAppend);
+
+        if (!this.isRunning) {
+            failPendingAppends(shard); // Raced with stop, so the drainer may already have failed everything it is going to.
+        }
+
+        return pendingAppend.future;
+    }
+
+    public int getShardCount() {
+        return this.shards.size();
+    }
+
+    public int getQueueDepth() {
+
+        int queueDepth = 0;
+
+        for (Shard shard : this.shards) {
+            queueDepth += shard.pendingAppends.size();
+        }
+
+        return queueDepth;
+    }
+
+    public int getQueueDepth(final int shardIndex) {
+        return this.shards.get(shardIndex).pendingAppends.size();
+    }
+
+    public long getNumberOfBatches() {
+        return this.numberOfBatches.get();
+    }
+
+    public long getNumberOfAppends() {
+        return this.numberOfAppends.get();
+    }
+
+    private Shard shardFor(final Long id) {
+        return this.shards.get((null == id) ? 0 : (int) Math.floorMod(id.longValue(), (long) this.shards.size()));
+    }
+
+    private void drain(final Shard shard) {
+
+        final List<PendingAppend> batch = new ArrayList<PendingAppend>(this.maximumBatchSize);
+
+        while (this.isRunning) {
+
+            try {
+                batch.add(shard.pendingAppends.take());
+                shard.pendingAppends.drainTo(batch, this.maximumBatchSize - batch.size());
+                waitForMoreAppends(shard, batch);
+            }
+            catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            finally {
+                if (!batch.isEmpty()) {
+                    applyBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+
+        failPendingAppends(shard);
+    }
+
+    // Safe to call from any thread once the pipeline is stopped: each append is taken from the queue by exactly one caller.
+    private void failPendingAppends(final Shard shard) {
+
+        PendingAppend pendingAppend;
+
+        while (null != (pendingAppend = shard.pendingAppends.poll())) {
+            pendingAppend.future.completeExceptionally(new IllegalStateException("Append pipeline is stopped"));
+        }
+    }
+
+    private void waitForMoreAppends(final Shard shard, final List<PendingAppend> batch) throws InterruptedException {
+
+        final long deadline = System.nanoTime() + this.maximumBatchDelayNanos;
+
+        long remainingNanos = this.maximumBatchDelayNanos;
+
+        while (batch.size() < this.maximumBatchSize && remainingNanos > 0) {
+
+            final PendingAppend pendingAppend = shard.pendingAppends.poll(remainingNanos, TimeUnit.NANOSECONDS);
+
+            if (null == pendingAppend) {
+                return;
+            }
+
+            batch.add(pendingAppend);
+            shard.pendingAppends.drainTo(batch, this.maximumBatchSize - batch.size());
+            remainingNanos = deadline - System.nanoTime();
+        }
+    }
+
+    private void applyBatch(final List<PendingAppend> batch) {
+
+        final List<LineAppend> lineAppends = new ArrayList<LineAppend>(batch.size());
+
+        for (PendingAppend pendingAppend : batch) {
+            lineAppends.add(pendingAppend.lineAppend);
+        }
+
+        // Counted before anyone is told their append is done, so the counts always include every completed append.
+        this.numberOfBatches.incrementAndGet();
+        this.numberOfAppends.addAndGet(batch.size());
+
+        try {
+            final List<BookUpdateContainer> bookUpdateContainers = this.bookRepository.appendLines(lineAppends);
+
+            for (int index = 0; index < batch.size(); index++) {
+                batch.get(index).future.complete(bookUpdateContainers.get(index));
+            }
+        }
+        catch (final Throwable throwable) { // Anything escaping would kill the drainer and leave its shard's players waiting forever.
+            for (PendingAppend pendingAppend : batch) {
+                pendingAppend.future.completeExceptionally(throwable);
+            }
+        }
+    }
+
+    private class Shard {
+
+        private final BlockingQueue<PendingAppend> pendingAppends = new LinkedBlockingQueue<PendingAppend>();
+        private final Thread drainerThread;
+
+        private Shard(final int index) {
+            this.drainerThread = new Thread(() -> drain(this), "book-append-pipeline-" + index);
+            this.drainerThread.setDaemon(true);
+        }
+    }
+
+    private static class PendingAppend {
+
+        private final LineAppend lineAppend;
+        private final CompletableFuture<BookUpdateContainer> future = new CompletableFuture<BookUpdateContainer>();
+
+        private PendingAppend(final LineAppend lineAppend) {
+            this.lineAppend = lineAppend;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.nigel.bookgame.rest.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Gauges for the state of the books and of the stages in front of the journal.
+ *
+ * These are registered by this component rather than by a MeterBinder, since Actuator binds those while creating the
+ * registry, before the repository (which needs the registry for {@link BookMetrics}) can exist.
+ *
+ * Nothing here is on the hot path: every value is read when the metrics are collected. Locked and completed books are
+ * counted from the {@link BookIndex} bit sets rather than by visiting every book.
+ *
+ * @author nigel
+ */
+@Component
+public class BookGauges {
+
+    @Autowired
+    public BookGauges(final MeterRegistry meterRegistry, final BookRepository bookRepository, final BookAppendPipeline bookAppendPipeline,
+            final BookPersistence bookPersistence) {
+
+        Gauge.builder("bookgame.books.live", bookRepository, BookRepository::getCount)
+                .description("Books held by the repository")
+                .register(meterRegistry);
+
+        Gauge.builder("bookgame.books.locked", bookRepository, BookRepository::countLockedBooks)
+                .description("Books whose lock is currently held by a player")
+                .register(meterRegistry);
+
+        Gauge.builder("bookgame.books.completed", bookRepository, BookRepository::countCompletedBooks)
+                .description("Books which have been completed")
+                .register(meterRegistry);
+
+        Gauge.builder("bookgame.append-pipeline.queue.depth", bookAppendPipeline, BookAppendPipeline::getQueueDepth)
+                .description("Line appends waiting to be applied, across all shards")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("bookgame.append-pipeline.batches", bookAppendPipeline, BookAppendPipeline::getNumberOfBatches)
+                .description("Batches of line appends applied")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("bookgame.append-pipeline.appends", bookAppendPipeline, BookAppendPipeline::getNumberOfAppends)
+                .description("Line appends applied")
+                .register(meterRegistry);
+
+        Gauge.builder("bookgame.journal.pending.writes", bookPersistence, BookPersistence::getPendingWriteCount)
+                .description("Records waiting to be written to the journal")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,271 @@
+package com.nigel.bookgame.rest.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongUnaryOperator;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.BookFilter;
+import com.nigel.bookgame.rest.domain.BookPage;
+import com.nigel.bookgame.rest.domain.LineHistory;
+
+/**
+ * Secondary indexes over the books in an {@link IdIndexedTable}, for listing them a page at a time by filter.
+ *
+ * Whether a book is complete and whether it is available are each held as a pair of {@link IdBitSet}s, one for each
+ * answer, which costs a bit per book rather than an entry in a tree. Which books are locked is only ever counted, so
+ * needs just the one set. The books each player has written in are held
+ * as a sorted set of IDs per player, since most players only ever write in a small share of the books.
+ *
+ * Pages are found by walking the most selective index from the cursor in ID order, so a page costs about as much as
+ * the books on it however deep into the listing it is. The indexes may briefly lag a change which is in flight, so
+ * every candidate is checked against the live book before it is put on a page, and a book is only ever missed while
+ * the change which moves it into the listing is still being made.
+ *
+ * @author nigel
+ */
+public class BookIndex {
+
+    private final IdIndexedTable<Book> books;
+    private final IdBitSet completeIds = new IdBitSet();
+    private final IdBitSet incompleteIds = new IdBitSet();
+    private final IdBitSet availableIds = new IdBitSet();
+    private final IdBitSet unavailableIds = new IdBitSet();
+    private final IdBitSet lockedIds = new IdBitSet();
+    private final ConcurrentMap<Integer, NavigableSet<Long>> idsByContributor = new ConcurrentHashMap<Integer, NavigableSet<Long>>();
+
+    public BookIndex(final IdIndexedTable<Book> books) {
+        this.books = books;
+    }
+
+    /*
+     * Brings the flag indexes into line with the book as it is in the table now. Two threads refreshing the same book
+     * can each write what they saw in either order, so the book is read again after writing and the indexes rewritten
+     * until they agree with it: whoever changes the book last is then always the last to correct the indexes.
+     */
+    public void refresh(final Book book) {
+
+        final Book liveBook = this.books.get(book.getId());
+
+        if (null == liveBook) {
+            return;
+        }
+
+        final long id = liveBook.getId().longValue();
+
+        boolean isComplete;
+        boolean isAvailable;
+        boolean isLocked;
+
+        do {
+            isComplete = liveBook.isComplete();
+            isAvailable = liveBook.isAvailable();
+            isLocked = liveBook.getLockLease().isLocked();
+            mark(this.completeIds, this.incompleteIds, id, isComplete);
+            mark(this.availableIds, this.unavailableIds, id, isAvailable);
+            mark(this.lockedIds, id, isLocked);
+        } while (isComplete != liveBook.isComplete() || isAvailable != liveBook.isAvailable() || isLocked != liveBook.getLockLease().isLocked());
+    }
+
+    // Contributors are never removed: lines are only ever added, and a book replaced wholesale is checked on the way out.
+    public void addContributor(final Book book, final int playerId) {
+        this.idsByContributor.computeIfAbsent(Integer.valueOf(playerId), key -> new ConcurrentSkipListSet<Long>()).add(book.getId());
+    }
+
+    public void addContributors(final Book book) {
+
+        final LineHistory lineHistory = book.getLineHistory();
+
+        for (int index = 0; index < lineHistory.lineCount(); index++) {
+            addContributor(book, lineHistory.getPlayerId(index));
+        }
+    }
+
+    public int countComplete() {
+        return this.completeIds.size();
+    }
+
+    // A lease which has run out still counts until the reaper clears it, which is at most a tick later.
+    public int countLocked() {
+        return this.lockedIds.size();
+    }
+
+    // For when the queue of available books has nothing for the player, which may only be because it is full of their own.
+    public Book findAvailableNotLastWrittenBy(final int playerId) {
+
+        for (long id = this.availableIds.next(IdBitSet.NONE); IdBitSet.NONE != id; id = this.availableIds.next(id)) {
+
+            final Book book = this.books.get(Long.valueOf(id));
+
+            if (null != book && book.isAvailable() && !book.getLineHistory().isLastWrittenBy(playerId)) {
+                return book;
+            }
+        }
+
+        return null;
+    }
+
+    /*
+     * Finds up to the limit of matching books in ID order, either following the after cursor or leading up to the before
+     * cursor (or from the start when there is neither). The cursors returned are only given when there is at least one
+     * more matching book in that direction, which costs looking one book further each way.
+     */
+    public BookPage findPage(final BookFilter filter, final Long after, final Long before, final int limit) {
+
+        if (filter.isUnsatisfiable()) {
+            return new BookPage(Collections.<Book>emptyList(), null, null);
+        }
+
+        final Candidates candidates = candidatesFor(filter);
+        final List<Book> pageBooks = new ArrayList<Book>(limit + 1);
+
+        if (null != before) {
+
+            Book book = previousMatch(filter, candidates, before.longValue());
+
+            while (null != book && pageBooks.size() <= limit) {
+                pageBooks.add(book);
+                book = previousMatch(filter, candidates, book.getId().longValue());
+            }
+
+            final boolean hasPrevious = pageBooks.size() > limit;
+
+            if (hasPrevious) {
+                pageBooks.remove(limit);
+            }
+
+            Collections.reverse(pageBooks);
+
+            final long lastId = pageBooks.isEmpty() ? before.longValue() - 1 : pageBooks.get(pageBooks.size() - 1).getId().longValue();
+            final boolean hasNext = null != nextMatch(filter, candidates, lastId);
+
+            return new BookPage(pageBooks, hasPrevious ? pageBooks.get(0).getId() : null, hasNext ? Long.valueOf(lastId) : null);
+        }
+
+        Book book = nextMatch(filter, candidates, (null == after) ? 0L : after.longValue());
+
+        while (null != book && pageBooks.size() <= limit) {
+            pageBooks.add(book);
+            book = nextMatch(filter, candidates, book.getId().longValue());
+        }
+
+        final boolean hasNext = pageBooks.size() > limit;
+
+        if (hasNext) {
+            pageBooks.remove(limit);
+        }
+
+        final long firstId = pageBooks.isEmpty() ? ((null == after) ? 1L : after.longValue() + 1) : pageBooks.get(0).getId().longValue();
+        final boolean hasPrevious = null != after && null != previousMatch(filter, candidates, firstId);
+
+        return new BookPage(pageBooks, hasPrevious ? Long.valueOf(firstId) : null, hasNext ? pageBooks.get(pageBooks.size() - 1).getId() : null);
+    }
+
+    public void clear() {
+        this.completeIds.clear();
+        this.incompleteIds.clear();
+        this.availableIds.clear();
+        this.unavailableIds.clear();
+        this.lockedIds.clear();
+        this.idsByContributor.clear();
+    }
+
+    // Added before removing, so a book is briefly in both sets rather than in neither and cannot drop out of a listing.
+    private static void mark(final IdBitSet trueIds, final IdBitSet falseIds, final long id, final boolean flag) {
+        if (flag) {
+            trueIds.add(id);
+            falseIds.remove(id);
+        }
+        else {
+            falseIds.add(id);
+            trueIds.remove(id);
+        }
+    }
+
+    private static void mark(final IdBitSet trueIds, final long id, final boolean flag) {
+        if (flag) {
+            trueIds.add(id);
+        }
+        else {
+            trueIds.remove(id);
+        }
+    }
+
+    private Candidates candidatesFor(final BookFilter filter) {
+
+        if (null != filter.getContributor()) {
+            final NavigableSet<Long> contributorIds = this.idsByContributor.getOrDefault(Integer.valueOf(filter.getContributorId()), Collections.<Long>emptyNavigableSet());
+            return new Candidates(id -> idOrNone(contributorIds.higher(Long.valueOf(id))), id -> idOrNone(contributorIds.lower(Long.valueOf(id))));
+        }
+
+        if (Boolean.TRUE.equals(filter.getAvailable())) {
+            return candidatesIn(this.availableIds);
+        }
+
+        if (null != filter.getComplete()) {
+            return candidatesIn(filter.getComplete().booleanValue() ? this.completeIds : this.incompleteIds);
+        }
+
+        if (Boolean.FALSE.equals(filter.getAvailable())) {
+            return candidatesIn(this.unavailableIds);
+        }
+
+        return new Candidates(id -> idOf(this.books.higher(id)), id -> idOf(this.books.lower(id)));
+    }
+
+    private static Candidates candidatesIn(final IdBitSet ids) {
+        return new Candidates(ids::next, ids::previous);
+    }
+
+    private static long idOrNone(final Long id) {
+        return (null == id) ? IdBitSet.NONE : id.longValue();
+    }
+
+    private static long idOf(final Book book) {
+        return (null == book) ? IdBitSet.NONE : book.getId().longValue();
+    }
+
+    private Book nextMatch(final BookFilter filter, final Candidates candidates, final long afterId) {
+
+        long id = afterId;
+
+        while (IdBitSet.NONE != (id = candidates.next.applyAsLong(id))) {
+            final Book book = this.books.get(Long.valueOf(id));
+            if (null != book && filter.matches(book)) {
+                return book;
+            }
+        }
+
+        return null;
+    }
+
+    private Book previousMatch(final BookFilter filter, final Candidates candidates, final long beforeId) {
+
+        long id = beforeId;
+
+        while (IdBitSet.NONE != (id = candidates.previous.applyAsLong(id))) {
+            final Book book = this.books.get(Long.valueOf(id));
+            if (null != book && filter.matches(book)) {
+                return book;
+            }
+        }
+
+        return null;
+    }
+
+    private static class Candidates {
+
+        private final LongUnaryOperator next;
+        private final LongUnaryOperator previous;
+
+        private Candidates(final LongUnaryOperator next, final LongUnaryOperator previous) {
+            this.next = next;
+            this.previous = previous;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.nigel.bookgame.rest.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only, memory-mapped write-ahead log made up of numbered segment files.
+ *
+ * Callers hand over records which are already encoded and a single writer thread copies them into the current segment
+ * in the order they arrived. The writer takes everything that has queued up while it was busy as one batch, so under
+ * load many records share each force to disk (group commit). Each record is framed as its length, a CRC32 of its
+ * payload and the payload itself, with the length written last so that a record is never seen half written.
+ *
+ * Rolling to a new segment is queued like any other record, which makes it an exact cut: everything queued before the
+ * roll is in earlier segments and everything queued after it is in later ones. Snapshots rely on this to know which
+ * segments they have made redundant.
+ *
+ * If forcing the journal to disk outside of a batch fails, the writer can no longer promise anything about what it has
+ * written, so it closes the journal: whatever is still queued fails, and so does every append from then on, rather
+ * than records queuing up behind a writer which will never write them.
+ *
+ * @author nigel
+ */
+public class BookJournal implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookJournal.class);
+    private static final String SEGMENT_FILE_PREFIX = "journal-";
+    private static final String SEGMENT_FILE_SUFFIX = ".wal";
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final EDurabilityMode durabilityMode;
+    private final int segmentSizeBytes;
+    private final int maximumBatchSize;
+    private final long flushIntervalMillis;
+    private final BlockingQueue<PendingWrite> pendingWrites = new LinkedBlockingQueue<PendingWrite>();
+    private final Thread writerThread;
+
+    private volatile boolean isOpen = true;
+    private volatile RuntimeException failure; // Set before closing if the writer had to stop.
+
+    // Only used by the writer thread once it has started.
+    private long segmentNumber;
+    private FileChannel segmentChannel;
+    private MappedByteBuffer segmentBuffer;
+    private boolean hasUnforcedWrites;
+    private long lastForcedMillis;
+
+    public BookJournal(final Path directory, final EDurabilityMode durabilityMode, final int segmentSizeBytes, final int maximumBatchSize,
+            final long flushIntervalMillis, final long firstSegmentNumber) throws IOException {
+
+        this.directory = directory;
+        this.durabilityMode = durabilityMode;
+        this.segmentSizeBytes = segmentSizeBytes;
+        this.maximumBatchSize = maximumBatchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+
+        Files.createDirectories(directory);
+        openSegment(firstSegmentNumber);
+
+        this.writerThread = new Thread(this::writeLoop, "book-journal-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    // Completes with the number of the segment the record went into, once it is as durable as the durability mode promises.
+    public CompletableFuture<Long> append(final byte[] payload) {
+
+        if (RECORD_HEADER_BYTES + payload.length > this.segmentSizeBytes) {
+            throw new IllegalArgumentException("Journal record of " + payload.length + " bytes does not fit in a segment");
+        }
+
+        return enqueue(new PendingWrite(payload));
+    }
+
+    // Completes with the number of the new segment, which holds everything queued after this call.
+    public CompletableFuture<Long> roll() {
+        return enqueue(new PendingWrite(null));
+    }
+
+    public int getPendingWriteCount() {
+        return this.pendingWrites.size();
+    }
+
+    public void deleteSegmentsBefore(final long firstSegmentNumberToKeep) throws IOException {
+
+        for (Long existingSegmentNumber : listSegmentNumbers(this.directory)) {
+            if (existingSegmentNumber.longValue() < firstSegmentNumberToKeep) {
+                Files.deleteIfExists(segmentPath(this.directory, existingSegmentNumber.longValue()));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+
+        this.isOpen = false;
+
+        try {
+            this.writerThread.join();
+        }
+        catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * Hands every intact record in the segments from the one given onwards to the consumer, in the order they were written,
+     * and returns the number of the last segment found. Reading a segment stops at the first record which is missing or
+     * fails its checksum, which is where the writer was when the application stopped.
+     */
+    public static long replay(final Path directory, final long firstSegmentNumber, final Consumer<ByteBuffer> recordConsumer) throws IOException {
+
+        long lastSegmentNumber = firstSegmentNumber - 1;
+
+        for (Long existingSegmentNumber : listSegmentNumbers(directory)) {
+
+            if (existingSegmentNumber.longValue() < firstSegmentNumber) {
+                continue;
+            }
+
+            try (FileChannel channel = FileChannel.open(segmentPath(directory, existingSegmentNumber.longValue()), StandardOpenOption.READ)) {
+                replaySegment(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), recordConsumer);
+            }
+
+            lastSegmentNumber = existingSegmentNumber.longValue();
+        }
+
+        return lastSegmentNumber;
+    }
+
+    private static void replaySegment(final ByteBuffer segment, final Consumer<ByteBuffer> recordConsumer) {
+
+        final CRC32 crc = new CRC32();
+
+        while (segment.remaining() >= RECORD_HEADER_BYTES) {
+
+            final int payloadLength = segment.getInt();
+            final int expectedCrc = segment.getInt();
+
+            if (payloadLength <= 0 || payloadLength > segment.remaining()) {
+                return;
+            }
+
+            final ByteBuffer payload = segment.slice(segment.position(), payloadLength);
+
+            crc.reset();
+            crc.update(payload.duplicate());
+
+            if ((int) crc.getValue() != expectedCrc) {
+                return;
+            }
+
+            recordConsumer.accept(payload.asReadOnlyBuffer());
+            segment.position(segment.position() + payloadLength);
+        }
+    }
+
+    private static List<Long> listSegmentNumbers(final Path directory) throws IOException {
+
+        final List<Long> segmentNumbers = new ArrayList<Long>();
+
+        if (!Files.isDirectory(directory)) {
+            return segmentNumbers;
+        }
+
+        try (DirectoryStream<Path> segmentPaths = Files.newDirectoryStream(directory, SEGMENT_FILE_PREFIX + "*" + SEGMENT_FILE_SUFFIX)) {
+            for (Path segmentPath : segmentPaths) {
+                final String fileName = segmentPath.getFileName().toString();
+                segmentNumbers.add(Long.valueOf(fileName.substring(SEGMENT_FILE_PREFIX.length(), fileName.length() - SEGMENT_FILE_SUFFIX.length())));
+            }
+        }
+
+        Collections.sort(segmentNumbers);
+
+        return segmentNumbers;
+    }
+
+    private static Path segmentPath(final Path directory, final long segmentNumber) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_FILE_PREFIX, segmentNumber, SEGMENT_FILE_SUFFIX));
+    }
+
+    private CompletableFuture<Long> enqueue(final PendingWrite pendingWrite) {
+
+        if (!this.isOpen) {
+            throw new IllegalStateException((null == this.failure) ? "Journal is closed" : "Journal has failed", this.failure);
+        }
+
+        this.pendingWrites.add(pendingWrite);
+
+        if (!this.isOpen && !this.writerThread.isAlive()) {
+            failPendingWrites(); // Raced with close after the writer had already stopped, so nobody else will complete it.
+        }
+
+        return pendingWrite.future;
+    }
+
+    private void writeLoop() {
+
+        final List<PendingWrite> batch = new ArrayList<PendingWrite>(this.maximumBatchSize);
+
+        while (this.isOpen || !this.pendingWrites.isEmpty()) {
+
+            try {
+                final PendingWrite firstPendingWrite = this.pendingWrites.poll(this.flushIntervalMillis, TimeUnit.MILLISECONDS);
+
+                if (null != firstPendingWrite) {
+                    batch.add(firstPendingWrite);
+                    this.pendingWrites.drainTo(batch, this.maximumBatchSize - 1);
+                    writeBatch(batch);
+                    batch.clear();
+                }
+
+                if (this.hasUnforcedWrites && System.currentTimeMillis() - this.lastForcedMillis >= this.flushIntervalMillis) {
+                    force();
+                }
+            }
+            catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            catch (final RuntimeException exception) {
+                LOGGER.error("Failed to force the journal to disk, so closing it", exception);
+                this.failure = exception;
+                this.isOpen = false;
+                break;
+            }
+        }
+
+        try {
+            if (null == this.failure) {
+                force();
+            }
+            this.segmentChannel.close();
+        }
+        catch (final IOException | RuntimeException exception) {
+            // Nothing is waiting on the journal any more and every acknowledged record has already been forced or was written asynchronously.
+            LOGGER.warn("Failed to force and close the journal while closing it", exception);
+        }
+
+        failPendingWrites();
+    }
+
+    private void writeBatch(final List<PendingWrite> batch) {
+
+        try {
+            for (PendingWrite pendingWrite : batch) {
+                pendingWrite.segmentNumber = (null == pendingWrite.payload) ? rollSegment() : writeRecord(pendingWrite.payload);
+            }
+
+            if (EDurabilityMode.SYNC_BATCH == this.durabilityMode) {
+                force();
+            }
+
+            for (PendingWrite pendingWrite : batch) {
+                pendingWrite.future.complete(Long.valueOf(pendingWrite.segmentNumber));
+            }
+        }
+        catch (final IOException | RuntimeException exception) {
+            for (PendingWrite pendingWrite : batch) {
+                pendingWrite.future.completeExceptionally(exception);
+            }
+        }
+    }
+
+    private long writeRecord(final byte[] payload) throws IOException {
+
+        if (this.segmentBuffer.remaining() < RECORD_HEADER_BYTES + payload.length) {
+            rollSegment();
+        }
+
+        final CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        final int recordStart = this.segmentBuffer.position();
+
+        this.segmentBuffer.putInt(recordStart + 4, (int) crc.getValue());
+        this.segmentBuffer.put(recordStart + RECORD_HEADER_BYTES, payload);
+        this.segmentBuffer.putInt(recordStart, payload.length);
+        this.segmentBuffer.position(recordStart + RECORD_HEADER_BYTES + payload.length);
+
+        this.hasUnforcedWrites = true;
+
+        return this.segmentNumber;
+    }
+
+    private long rollSegment() throws IOException {
+
+        force();
+        this.segmentChannel.close();
+        openSegment(this.segmentNumber + 1);
+
+        return this.segmentNumber;
+    }
+
+    private void openSegment(final long newSegmentNumber) throws IOException {
+
+        this.segmentChannel = FileChannel.open(segmentPath(this.directory, newSegmentNumber), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.segmentBuffer = this.segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentSizeBytes);
+        this.segmentNumber = newSegmentNumber;
+    }
+
+    private void force() {
+
+        if (this.hasUnforcedWrites) {
+            forceSegment(this.segmentBuffer);
+            this.hasUnforcedWrites = false;
+        }
+
+        this.lastForcedMillis = System.currentTimeMillis();
+    }
+
+    // Called on the writer thread. Tests override it to make the disk fail.
+    protected void forceSegment(final MappedByteBuffer segment) {
+        segment.force();
+    }
+
+    private void failPendingWrites() {
+
+        PendingWrite pendingWrite;
+
+        while (null != (pendingWrite = this.pendingWrites.poll())) {
+            pendingWrite.future.completeExceptionally((null == this.failure) ? new UncheckedIOException(new IOException("Journal is closed")) : this.failure);
+        }
+    }
+
+    private static class PendingWrite {
+
+        private final byte[] payload; // Null for a request to roll to a new segment.
+        private final CompletableFuture<Long> future = new CompletableFuture<Long>();
+        private long segmentNumber;
+
+        private PendingWrite(final byte[] payload) {
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.nigel.bookgame.rest.repository;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.nigel.bookgame.rest.domain.ERetrievalOutcome;
+import com.nigel.bookgame.rest.domain.EUpdateOutcome;
+import com.nigel.bookgame.rest.domain.LockLease;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Timers and counters for every {@link BookRepository} operation, exported through Actuator.
+ *
+ * Every meter is registered up front and held in a field or an enum map, so recording on the hot path is a clock read
+ * and an update of a striped counter, with no tag lookups or allocation. Only the lock hold times publish a percentile
+ * histogram, since how long players keep books is what decides how often others are turned away.
+ *
+ * @author nigel
+ */
+@Component
+public class BookMetrics {
+
+    private static final String OPERATION_TIMER = "bookgame.books.operations";
+
+    private final Timer findTimer;
+    private final Timer lockTimer;
+    private final Timer updateTimer;
+    private final Timer appendTimer;
+    private final Timer createTimer;
+    private final Timer createBatchTimer;
+    private final DistributionSummary createBatchSizes;
+    private final Timer lockReleasedTimer;
+    private final Timer lockExpiredTimer;
+    private final Map<ERetrievalOutcome, Counter> retrievalOutcomeCounters = new EnumMap<ERetrievalOutcome, Counter>(ERetrievalOutcome.class);
+    private final Map<EUpdateOutcome, Counter> updateOutcomeCounters = new EnumMap<EUpdateOutcome, Counter>(EUpdateOutcome.class);
+
+    @Autowired
+    public BookMetrics(final MeterRegistry meterRegistry) {
+
+        this.findTimer = operationTimer(meterRegistry, "find");
+        this.lockTimer = operationTimer(meterRegistry, "lock");
+        this.updateTimer = operationTimer(meterRegistry, "update");
+        this.appendTimer = operationTimer(meterRegistry, "append");
+        this.createTimer = operationTimer(meterRegistry, "create");
+        this.createBatchTimer = operationTimer(meterRegistry, "create-batch");
+
+        this.createBatchSizes = DistributionSummary.builder("bookgame.books.create.batch.size")
+                .description("Books created together in one batch")
+                .baseUnit("books")
+                .register(meterRegistry);
+
+        this.lockReleasedTimer = lockHeldTimer(meterRegistry, "released");
+        this.lockExpiredTimer = lockHeldTimer(meterRegistry, "expired");
+
+        for (ERetrievalOutcome retrievalOutcome : ERetrievalOutcome.values()) {
+            this.retrievalOutcomeCounters.put(retrievalOutcome, Counter.builder("bookgame.books.retrievals")
+                    .description("Attempts to retrieve (and so lock) a book, by outcome")
+                    .tag("outcome", retrievalOutcome.name())
+                    .register(meterRegistry));
+        }
+
+        for (EUpdateOutcome updateOutcome : EUpdateOutcome.values()) {
+            this.updateOutcomeCounters.put(updateOutcome, Counter.builder("bookgame.books.updates")
+                    .description("Attempts to update a book or add a line to it, by outcome")
+                    .tag("outcome", updateOutcome.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    // Pairs with the record methods, which take the value returned here.
+    public long startTiming() {
+        return System.nanoTime();
+    }
+
+    public void recordFind(final long startNanos, final ERetrievalOutcome retrievalOutcome) {
+        this.findTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        this.retrievalOutcomeCounters.get(retrievalOutcome).increment();
+    }
+
+    public void recordLock(final long startNanos) {
+        this.lockTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordUpdate(final long startNanos, final EUpdateOutcome updateOutcome) {
+        this.updateTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        this.updateOutcomeCounters.get(updateOutcome).increment();
+    }
+
+    // Every append in a batch waited for the same journal write, so each is timed from the start of the batch.
+    public void recordAppend(final long startNanos, final EUpdateOutcome updateOutcome) {
+        this.appendTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        this.updateOutcomeCounters.get(updateOutcome).increment();
+    }
+
+    public void recordCreate(final long startNanos) {
+        this.createTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Timed once for the whole batch, with its size kept apart, so a large batch does not pass for many slow creates.
+    public void recordCreateBatch(final long startNanos, final int numberOfBooks) {
+        this.createBatchTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        this.createBatchSizes.record(numberOfBooks);
+    }
+
+    // Records how long the lease had been held for, unless it was not held or was recovered from disk without a start time.
+    public void recordLockReleased(final LockLease releasedLease, final long now) {
+        recordLockHeld(this.lockReleasedTimer, releasedLease, now);
+    }
+
+    // A lease left to run out was held right up to its deadline, however long it then waited to be reaped.
+    public void recordLockExpired(final LockLease expiredLease) {
+        recordLockHeld(this.lockExpiredTimer, expiredLease, expiredLease.getLeaseDeadline());
+    }
+
+    private static void recordLockHeld(final Timer timer, final LockLease lease, final long heldUntil) {
+        if (lease.isLocked() && lease.getLockedSince() > 0) {
+            timer.record(Math.max(0L, heldUntil - lease.getLockedSince()), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static Timer operationTimer(final MeterRegistry meterRegistry, final String operation) {
+        return Timer.builder(OPERATION_TIMER)
+                .description("Time taken by book repository operations, including waiting for the journal")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private static Timer lockHeldTimer(final MeterRegistry meterRegistry, final String outcome) {
+        return Timer.builder("bookgame.books.lock.held")
+                .description("How long players held a book's lock, by whether they released it or let it expire")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(5))
+                .register(meterRegistry);
+    }
+}
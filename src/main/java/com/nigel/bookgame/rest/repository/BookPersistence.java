@@ -0,0 +1,572 @@
+package com.nigel.bookgame.rest.repository;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.LineHistory;
+import com.nigel.bookgame.rest.domain.LockLease;
+import com.nigel.bookgame.rest.domain.PlayerRegistry;
+
+/**
+ * Makes the books held by {@link BookRepository} survive a restart, using a {@link BookJournal} of every change plus
+ * periodic snapshots of every book.
+ *
+ * Changes are applied in memory first and journalled straight afterwards, and the repository waits for the journal
+ * (according to the {@link EDurabilityMode}) before telling the player their change has been made. Journal records say
+ * where a change belongs rather than simply repeating it (the line number of an appended line, the version of a lock), so
+ * replaying a record twice or out of order leaves the same result, and a snapshot can be taken while books carry on
+ * changing: anything the snapshot missed is in the journal written after it.
+ *
+ * A snapshot is written to a temporary file and renamed into place, and only once it is safely on disk are the journal
+ * segments and snapshots before it deleted. Startup therefore reads the latest snapshot and replays only the journal
+ * written since it. The leaderboard is not stored at all, since it is rebuilt from the completed books.
+ *
+ * Persistence is off unless bookgame.persistence.enabled is set, in which case everything lives in
+ * bookgame.persistence.directory.
+ *
+ * @author nigel
+ */
+@Component
+public class BookPersistence {
+
+    private static final byte BOOK_RECORD = 1;
+    private static final byte APPEND_RECORD = 2;
+    private static final byte LOCK_RECORD = 3;
+    private static final byte UNLOCK_RECORD = 4;
+
+    private static final int SNAPSHOT_MAGIC = 0x424B534E;
+    private static final int SNAPSHOT_FORMAT_VERSION = 1;
+    private static final String SNAPSHOT_FILE_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_FILE_SUFFIX = ".snap";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final int NO_SNAPSHOT_PLAYER = -1;
+
+    private static final int MAXIMUM_BATCH_SIZE = 1024;
+    private static final long FLUSH_INTERVAL_MILLIS = 10;
+
+    private static final CompletableFuture<Long> ALREADY_DURABLE = CompletableFuture.completedFuture(Long.valueOf(0L));
+
+    private final boolean isEnabled;
+    private final Path directory;
+    private final EDurabilityMode durabilityMode;
+    private final int segmentSizeBytes;
+    private final PlayerRegistry playerRegistry;
+
+    private volatile BookJournal bookJournal; // Only opened once recovery has finished.
+    private volatile IdIndexedTable<Book> books;
+
+    @Autowired
+    public BookPersistence(@Value("${bookgame.persistence.enabled:false}") final boolean isEnabled,
+            @Value("${bookgame.persistence.directory:data}") final String directory,
+            @Value("${bookgame.persistence.durability:SYNC_BATCH}") final EDurabilityMode durabilityMode,
+            @Value("${bookgame.persistence.segment-size-bytes:67108864}") final int segmentSizeBytes,
+            final PlayerRegistry playerRegistry) {
+        this.isEnabled = isEnabled;
+        this.directory = Paths.get(directory);
+        this.durabilityMode = durabilityMode;
+        this.segmentSizeBytes = segmentSizeBytes;
+        this.playerRegistry = playerRegistry;
+    }
+
+    public boolean isEnabled() {
+        return this.isEnabled;
+    }
+
+    public int getPendingWriteCount() {
+
+        final BookJournal currentBookJournal = this.bookJournal;
+
+        return (null == currentBookJournal) ? 0 : currentBookJournal.getPendingWriteCount();
+    }
+
+    // Records the whole of a book, for creation and for wholesale replacement.
+    public CompletableFuture<Long> recordBook(final Book book) {
+
+        if (null == this.bookJournal) {
+            return ALREADY_DURABLE;
+        }
+
+        final LineHistory lineHistory = book.getLineHistory();
+
+        return journal(record -> {
+            record.writeByte(BOOK_RECORD);
+            record.writeLong(book.getId().longValue());
+            writeString(record, book.getName());
+            record.writeInt(lineHistory.lineCount());
+            for (int index = 0; index < lineHistory.lineCount(); index++) {
+                writeString(record, this.playerRegistry.nameOf(lineHistory.getPlayerId(index)));
+                writeString(record, lineHistory.getLine(index));
+            }
+        });
+    }
+
+    // Line numbers start at one, so the line number is also the version of the book once the line has been added.
+    public CompletableFuture<Long> recordAppend(final Book book, final long lineNumber, final int playerId, final String line) {
+
+        if (null == this.bookJournal) {
+            return ALREADY_DURABLE;
+        }
+
+        return journal(record -> {
+            record.writeByte(APPEND_RECORD);
+            record.writeLong(book.getId().longValue());
+            record.writeLong(lineNumber);
+            writeString(record, this.playerRegistry.nameOf(playerId));
+            writeString(record, line);
+        });
+    }
+
+    // Records whatever the book's lock is now, which is what matters if another transition has raced with the caller's.
+    public CompletableFuture<Long> recordLockLease(final Book book) {
+
+        if (null == this.bookJournal) {
+            return ALREADY_DURABLE;
+        }
+
+        final LockLease lockLease = book.getLockLease();
+
+        return journal(record -> {
+            record.writeByte(lockLease.isLocked() ? LOCK_RECORD : UNLOCK_RECORD);
+            record.writeLong(book.getId().longValue());
+            record.writeLong(lockLease.getVersion());
+            writeString(record, lockLease.getOwner());
+            record.writeLong(lockLease.getLeaseDeadline());
+        });
+    }
+
+    // Waits for journal records to be forced to disk, unless the durability mode says not to.
+    public void awaitDurable(final CompletableFuture<?> journalled) {
+        if (EDurabilityMode.SYNC_BATCH == this.durabilityMode) {
+            journalled.join();
+        }
+    }
+
+    // The same promise as awaitDurable, for callers who must not block: completes once the records are forced to disk, or straight away.
+    public CompletableFuture<?> whenDurable(final CompletableFuture<?> journalled) {
+        return (EDurabilityMode.SYNC_BATCH == this.durabilityMode) ? journalled : ALREADY_DURABLE;
+    }
+
+    /*
+     * Loads the latest snapshot and replays the journal since it into the table given, then starts journalling. Lines are
+     * restored at their recorded line numbers and locks with their recorded versions, so the journal carries on from
+     * exactly where it left off and a later replay can span any number of runs of the application. Returns the highest book
+     * ID recovered.
+     */
+    public synchronized long recover(final IdIndexedTable<Book> booksToRecoverInto) {
+
+        if (!this.isEnabled) {
+            return 0L;
+        }
+
+        try {
+            Files.createDirectories(this.directory);
+
+            final List<DeferredAppend> deferredAppends = new ArrayList<DeferredAppend>();
+            final long firstSegmentToReplay = readLatestSnapshot(booksToRecoverInto);
+            final long lastSegmentReplayed = BookJournal.replay(this.directory, firstSegmentToReplay,
+                    record -> applyRecord(record, booksToRecoverInto, deferredAppends));
+
+            applyDeferredAppends(deferredAppends);
+
+            this.bookJournal = new BookJournal(this.directory, this.durabilityMode, this.segmentSizeBytes, MAXIMUM_BATCH_SIZE, FLUSH_INTERVAL_MILLIS,
+                    Math.max(firstSegmentToReplay, lastSegmentReplayed + 1));
+            this.books = booksToRecoverInto;
+
+            long highestBookId = 0L;
+
+            for (Book book : booksToRecoverInto) {
+                highestBookId = book.getId().longValue(); // The table iterates in ID order.
+            }
+
+            return highestBookId;
+        }
+        catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bookgame.persistence.snapshot-interval-millis:300000}", initialDelayString = "${bookgame.persistence.snapshot-interval-millis:300000}")
+    public void takeScheduledSnapshot() {
+        if (null != this.books) {
+            takeSnapshot();
+        }
+    }
+
+    public synchronized void takeSnapshot() {
+
+        try {
+            // Everything journalled before the roll is either already in memory or in the journal being kept, so the snapshot can miss nothing.
+            final long firstSegmentToKeep = this.bookJournal.roll().join().longValue();
+
+            writeSnapshot(firstSegmentToKeep);
+
+            this.bookJournal.deleteSegmentsBefore(firstSegmentToKeep);
+            deleteSnapshotsBefore(firstSegmentToKeep);
+        }
+        catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (null != this.bookJournal) {
+            this.bookJournal.close();
+        }
+    }
+
+    private CompletableFuture<Long> journal(final RecordWriter recordWriter) {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+
+        try {
+            recordWriter.write(new DataOutputStream(bytes));
+        }
+        catch (final IOException exception) {
+            throw new UncheckedIOException(exception); // Cannot happen when writing to memory.
+        }
+
+        return this.bookJournal.append(bytes.toByteArray());
+    }
+
+    private void applyRecord(final ByteBuffer record, final IdIndexedTable<Book> booksToRecoverInto, final List<DeferredAppend> deferredAppends) {
+
+        final byte recordType = record.get();
+        final Book book = findOrCreateBook(booksToRecoverInto, record.getLong());
+
+        switch (recordType) {
+            case BOOK_RECORD:
+                book.setName(readString(record));
+                final int lineCount = record.getInt();
+                final String[] lines = new String[lineCount];
+                final int[] playerIds = new int[lineCount];
+                for (int index = 0; index < lineCount; index++) {
+                    playerIds[index] = this.playerRegistry.idOf(readString(record));
+                    lines[index] = readString(record);
+                }
+                if (lineCount > book.lineCount()) {
+                    book.restoreLineHistory(lines, playerIds);
+                }
+                break;
+            case APPEND_RECORD:
+                final DeferredAppend append = new DeferredAppend(book, record.getLong(), this.playerRegistry.idOf(readString(record)), readString(record));
+                if (!append.apply()) {
+                    deferredAppends.add(append);
+                }
+                break;
+            case LOCK_RECORD:
+            case UNLOCK_RECORD:
+                final long version = record.getLong();
+                book.restoreLockLease(LockLease.of(readString(record), record.getLong(), version));
+                break;
+            default:
+                throw new IllegalStateException("Unknown journal record type " + recordType);
+        }
+    }
+
+    // A record can reach the journal before the one creating its book, because the book is visible as soon as it is added.
+    private Book findOrCreateBook(final IdIndexedTable<Book> booksToRecoverInto, final long bookId) {
+
+        final Book existingBook = booksToRecoverInto.get(Long.valueOf(bookId));
+
+        if (null != existingBook) {
+            return existingBook;
+        }
+
+        final Book book = new Book();
+        book.setId(Long.valueOf(bookId));
+        booksToRecoverInto.putIfAbsent(book);
+
+        return book;
+    }
+
+    // Lines still waiting for an earlier line once the journal is exhausted were never acknowledged, so they are dropped.
+    private void applyDeferredAppends(final List<DeferredAppend> deferredAppends) {
+
+        boolean isProgressMade = true;
+
+        while (isProgressMade) {
+            isProgressMade = deferredAppends.removeIf(DeferredAppend::apply);
+        }
+    }
+
+    /*
+     * Snapshot layout: magic, format version, first journal segment to replay, then each book preceded by a marker byte and
+     * followed by a zero byte, then a CRC32 of everything before it. Each player is written by name the first time they
+     * appear and by their position in the snapshot after that, whether they wrote a line or only hold a lock.
+     */
+    private void writeSnapshot(final long firstSegmentToKeep) throws IOException {
+
+        final Path snapshotPath = snapshotPath(firstSegmentToKeep);
+        final Path temporaryPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + TEMPORARY_FILE_SUFFIX);
+        final Map<String, Integer> snapshotPlayerIndexes = new HashMap<String, Integer>();
+
+        try (FileOutputStream fileOutputStream = new FileOutputStream(temporaryPath.toFile())) {
+
+            final CheckedOutputStream checkedOutputStream = new CheckedOutputStream(fileOutputStream, new CRC32());
+            final DataOutputStream snapshot = new DataOutputStream(new BufferedOutputStream(checkedOutputStream, 1 << 16));
+
+            snapshot.writeInt(SNAPSHOT_MAGIC);
+            snapshot.writeInt(SNAPSHOT_FORMAT_VERSION);
+            snapshot.writeLong(firstSegmentToKeep);
+
+            for (Book book : this.books) {
+
+                final LineHistory lineHistory = book.getLineHistory();
+                final LockLease lockLease = book.getLockLease();
+
+                snapshot.writeByte(1);
+                snapshot.writeLong(book.getId().longValue());
+                writeString(snapshot, book.getName());
+                snapshot.writeInt(lineHistory.lineCount());
+                for (int index = 0; index < lineHistory.lineCount(); index++) {
+                    writeSnapshotPlayer(snapshot, this.playerRegistry.nameOf(lineHistory.getPlayerId(index)), snapshotPlayerIndexes);
+                    writeString(snapshot, lineHistory.getLine(index));
+                }
+                snapshot.writeLong(lockLease.getVersion());
+                writeSnapshotPlayer(snapshot, lockLease.getOwner(), snapshotPlayerIndexes);
+                snapshot.writeLong(lockLease.getLeaseDeadline());
+            }
+
+            snapshot.writeByte(0);
+            snapshot.flush();
+            snapshot.writeLong(checkedOutputStream.getChecksum().getValue());
+            snapshot.flush();
+
+            fileOutputStream.getChannel().force(true);
+        }
+
+        Files.move(temporaryPath, snapshotPath, StandardCopyOption.ATOMIC_MOVE);
+
+        try (FileChannel directoryChannel = FileChannel.open(this.directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true); // Makes the rename itself durable.
+        }
+    }
+
+    private void writeSnapshotPlayer(final DataOutput snapshot, final String playerName, final Map<String, Integer> snapshotPlayerIndexes) throws IOException {
+
+        if (null == playerName) {
+            snapshot.writeInt(NO_SNAPSHOT_PLAYER);
+            return;
+        }
+
+        final Integer existingIndex = snapshotPlayerIndexes.get(playerName);
+
+        if (null != existingIndex) {
+            snapshot.writeInt(existingIndex.intValue());
+            return;
+        }
+
+        final int newIndex = snapshotPlayerIndexes.size();
+
+        snapshotPlayerIndexes.put(playerName, Integer.valueOf(newIndex));
+        snapshot.writeInt(newIndex);
+        writeString(snapshot, playerName);
+    }
+
+    // Returns the first journal segment the snapshot does not cover, or zero if there is no snapshot.
+    private long readLatestSnapshot(final IdIndexedTable<Book> booksToRecoverInto) throws IOException {
+
+        final List<Long> snapshotSegmentNumbers = listSnapshotSegmentNumbers();
+
+        if (snapshotSegmentNumbers.isEmpty()) {
+            return 0L;
+        }
+
+        final Path snapshotPath = snapshotPath(snapshotSegmentNumbers.get(snapshotSegmentNumbers.size() - 1).longValue());
+        final byte[] snapshotBytes = Files.readAllBytes(snapshotPath);
+        final int contentLength = snapshotBytes.length - Long.BYTES;
+
+        final CRC32 crc = new CRC32();
+        crc.update(snapshotBytes, 0, Math.max(contentLength, 0));
+
+        if (contentLength < 0 || crc.getValue() != ByteBuffer.wrap(snapshotBytes, contentLength, Long.BYTES).getLong()) {
+            throw new IllegalStateException("Snapshot " + snapshotPath + " is corrupt");
+        }
+
+        final ByteBuffer snapshot = ByteBuffer.wrap(snapshotBytes, 0, contentLength);
+
+        if (SNAPSHOT_MAGIC != snapshot.getInt() || SNAPSHOT_FORMAT_VERSION != snapshot.getInt()) {
+            throw new IllegalStateException("Snapshot " + snapshotPath + " is not in a recognised format");
+        }
+
+        final long firstSegmentToReplay = snapshot.getLong();
+        final List<String> snapshotPlayerNames = new ArrayList<String>();
+
+        while (0 != snapshot.get()) {
+
+            final Book book = new Book();
+            book.setId(Long.valueOf(snapshot.getLong()));
+            book.setName(readString(snapshot));
+
+            final int lineCount = snapshot.getInt();
+            final String[] lines = new String[lineCount];
+            final int[] playerIds = new int[lineCount];
+
+            for (int index = 0; index < lineCount; index++) {
+                playerIds[index] = this.playerRegistry.idOf(readSnapshotPlayer(snapshot, snapshotPlayerNames));
+                lines[index] = readString(snapshot);
+            }
+
+            book.restoreLineHistory(lines, playerIds);
+
+            final long lockVersion = snapshot.getLong();
+            book.restoreLockLease(LockLease.of(readSnapshotPlayer(snapshot, snapshotPlayerNames), snapshot.getLong(), lockVersion));
+
+            booksToRecoverInto.putIfAbsent(book);
+        }
+
+        return firstSegmentToReplay;
+    }
+
+    private String readSnapshotPlayer(final ByteBuffer snapshot, final List<String> snapshotPlayerNames) {
+
+        final int index = snapshot.getInt();
+
+        if (NO_SNAPSHOT_PLAYER == index) {
+            return null;
+        }
+
+        if (index == snapshotPlayerNames.size()) {
+            snapshotPlayerNames.add(readString(snapshot));
+        }
+
+        return snapshotPlayerNames.get(index);
+    }
+
+    private void deleteSnapshotsBefore(final long firstSegmentToKeep) throws IOException {
+        for (Long snapshotSegmentNumber : listSnapshotSegmentNumbers()) {
+            if (snapshotSegmentNumber.longValue() < firstSegmentToKeep) {
+                Files.deleteIfExists(snapshotPath(snapshotSegmentNumber.longValue()));
+            }
+        }
+    }
+
+    private List<Long> listSnapshotSegmentNumbers() throws IOException {
+
+        final List<Long> snapshotSegmentNumbers = new ArrayList<Long>();
+
+        try (DirectoryStream<Path> snapshotPaths = Files.newDirectoryStream(this.directory, SNAPSHOT_FILE_PREFIX + "*" + SNAPSHOT_FILE_SUFFIX)) {
+            for (Path snapshotPath : snapshotPaths) {
+                final String fileName = snapshotPath.getFileName().toString();
+                snapshotSegmentNumbers.add(Long.valueOf(fileName.substring(SNAPSHOT_FILE_PREFIX.length(), fileName.length() - SNAPSHOT_FILE_SUFFIX.length())));
+            }
+        }
+
+        Collections.sort(snapshotSegmentNumbers);
+
+        return snapshotSegmentNumbers;
+    }
+
+    private Path snapshotPath(final long firstSegmentToKeep) {
+        return this.directory.resolve(String.format("%s%020d%s", SNAPSHOT_FILE_PREFIX, firstSegmentToKeep, SNAPSHOT_FILE_SUFFIX));
+    }
+
+    // Strings are written as a byte count and UTF-8, with -1 for null, since lines may exceed what writeUTF allows.
+    private static void writeString(final DataOutput output, final String value) throws IOException {
+
+        if (null == value) {
+            output.writeInt(-1);
+            return;
+        }
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(final ByteBuffer input) {
+
+        final int length = input.getInt();
+
+        if (length < 0) {
+            return null;
+        }
+
+        final String value;
+
+        if (input.hasArray()) {
+            value = new String(input.array(), input.arrayOffset() + input.position(), length, StandardCharsets.UTF_8);
+            input.position(input.position() + length);
+        }
+        else {
+            final byte[] bytes = new byte[length];
+            input.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return value;
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutput record) throws IOException;
+    }
+
+    /*
+     * A line from the journal which can only be added once the line before it has been. Appends were journalled by
+     * whichever thread made them, so two appends to one book can reach the journal in the opposite order to that they were
+     * made in.
+     */
+    private static class DeferredAppend {
+
+        private final Book book;
+        private final long lineNumber;
+        private final int playerId;
+        private final String line;
+
+        private DeferredAppend(final Book book, final long lineNumber, final int playerId, final String line) {
+            this.book = book;
+            this.lineNumber = lineNumber;
+            this.playerId = playerId;
+            this.line = line;
+        }
+
+        // True once the line is in the book, including when it already was.
+        private boolean apply() {
+
+            if (this.lineNumber <= this.book.getVersion()) {
+                return true;
+            }
+
+            if (this.lineNumber > this.book.getVersion() + 1) {
+                return false;
+            }
+
+            this.book.appendLine(this.line, this.playerId, Long.valueOf(this.lineNumber - 1));
+
+            return true;
+        }
+    }
+}
@@ -3,19 +3,55 @@ package com.nigel.bookgame.rest.repository;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import com.nigel.bookgame.rest.domain.Book;
 import com.nigel.bookgame.rest.domain.BookContainer;
+import com.nigel.bookgame.rest.domain.BookFilter;
+import com.nigel.bookgame.rest.domain.BookPage;
+import com.nigel.bookgame.rest.domain.BookUpdateContainer;
 import com.nigel.bookgame.rest.domain.ERetrievalOutcome;
 import com.nigel.bookgame.rest.domain.EUpdateOutcome;
+import com.nigel.bookgame.rest.domain.GameEvent;
+import com.nigel.bookgame.rest.domain.LineAppend;
+import com.nigel.bookgame.rest.domain.LockLease;
+import com.nigel.bookgame.rest.domain.PlayerRegistry;
+import com.nigel.bookgame.rest.domain.PlayerScore;
+import com.nigel.bookgame.rest.event.GameEventBus;
 
 /**
  * Repository layer for books which holds the state of all books in memory.
  * 
+ * Books are held in an {@link IdIndexedTable} keyed by the ID from {@link IdGenerator}, so finding, locking and
+ * updating a book are constant time regardless of how many books exist.
+ * 
+ * When {@link BookPersistence} is enabled every change is journalled before the caller is told it has been made, and
+ * the books are recovered from disk when the repository starts.
+ * 
+ * Books can also be listed a page at a time, filtered by whether they are complete, whether they are available and who
+ * has written in them, using a {@link BookIndex} which is kept up to date as books are created, locked and written to.
+ * 
+ * Players can also ask for any available book rather than a particular one, which is handed out from an
+ * {@link AvailableBookQueue} that books rejoin whenever they are unlocked.
+ * 
+ * Locks being taken and released, books being completed and changes to the top of the leaderboard are published to
+ * the {@link GameEventBus} for anyone watching.
+ * 
+ * Players are only given a {@link PlayerRegistry} ID once they write a line. Finding, locking and listing books look
+ * players up without registering them, and clearing the repository clears the registry along with everything else.
+ * 
+ * Every operation is timed and its outcome counted by {@link BookMetrics}.
+ * 
+ * Books can be created a batch at a time, under a block of IDs reserved together, to set up a large game quickly.
+ * 
+ * Finding and creating books also come in non-blocking forms, which return a future that completes once the change is
+ * as durable as the journal promises, for callers such as {@link ReactiveBookRepository} which must not wait.
+ * 
  * @author nigel
  */
 @Repository
@@ -24,105 +60,431 @@ public class BookRepository {
     @Autowired
     private IdGenerator idGenerator;
     
-    private List<Book> books = Collections.synchronizedList(new ArrayList<Book>());
+    @Autowired
+    private LockLeaseReaper lockLeaseReaper;
+    
+    @Autowired
+    private LeaderboardRepository leaderboardRepository;
+    
+    @Autowired
+    private BookPersistence bookPersistence;
+    
+    @Autowired
+    private BookMetrics bookMetrics;
+    
+    @Autowired
+    private GameEventBus gameEventBus;
+    
+    @Autowired
+    private PlayerRegistry playerRegistry;
+    
+    private static final CompletableFuture<Void> NOTHING_TO_JOURNAL = CompletableFuture.completedFuture(null);
+    private static final int LEADERBOARD_PLACES_PUBLISHED = 5;
+    
+    private final IdIndexedTable<Book> books = new IdIndexedTable<Book>();
+    private final BookIndex bookIndex = new BookIndex(this.books);
+    private final AvailableBookQueue availableBooks = new AvailableBookQueue(this.books, Runtime.getRuntime().availableProcessors());
+    private final Object leaderboardPublicationLock = new Object();
+    private List<PlayerScore> lastPublishedTopPlayers = Collections.<PlayerScore>emptyList(); // Only used while holding the lock above.
+    
+    // Locks which were still held are handed back to the reaper, and the leaderboard and indexes are rebuilt from the books.
+    @PostConstruct
+    public void recover() {
+        
+        this.lockLeaseReaper.onLeaseExpired(this::leaseExpired);
+        
+        if (!this.bookPersistence.isEnabled()) {
+            return;
+        }
+        
+        this.idGenerator.advancePast(this.bookPersistence.recover(this.books));
+        
+        for (Book book : this.books) {
+            this.lockLeaseReaper.schedule(book);
+            recordCompletionIfComplete(book);
+            this.bookIndex.addContributors(book);
+            refresh(book);
+        }
+    }
     
     public Book create(final Book book) {
+        return createAsync(book).join();
+    }
+    
+    public CompletableFuture<Book> createAsync(final Book book) {
         
-        this.books.add(book);
-        book.setId(this.idGenerator.getNextId());
+        final long startNanos = this.bookMetrics.startTiming();
         
-        return book;
+        book.setId(this.idGenerator.getNextId()); // The ID is assigned first so the book is never visible without one.
+        this.books.putIfAbsent(book);
+        this.bookIndex.addContributors(book);
+        refresh(book);
+        
+        return this.bookPersistence.whenDurable(this.bookPersistence.recordBook(book)).thenApply(journalled -> {
+            this.bookMetrics.recordCreate(startNanos);
+            return book;
+        });
+    }
+    
+    public List<Book> createAll(final List<Book> books) {
+        return createAllAsync(books).join();
+    }
+    
+    /*
+     * Creates a batch of books under a contiguous block of IDs, reserved in one step so that no other book is given an ID
+     * in the middle of it. Every book has its ID before any of them is stored, the table takes the whole batch at once,
+     * and the future completes once they are all journalled, so the batch shares a single force to disk.
+     */
+    public CompletableFuture<List<Book>> createAllAsync(final List<Book> books) {
+        
+        if (books.isEmpty()) {
+            return CompletableFuture.completedFuture(books);
+        }
+        
+        final long startNanos = this.bookMetrics.startTiming();
+        final long firstId = this.idGenerator.reserveIds(books.size());
+        final CompletableFuture<?>[] journalled = new CompletableFuture<?>[books.size()];
+        
+        for (int index = 0; index < books.size(); index++) {
+            books.get(index).setId(Long.valueOf(firstId + index));
+        }
+        
+        this.books.putAllIfAbsent(books);
+        
+        for (int index = 0; index < books.size(); index++) {
+            final Book book = books.get(index);
+            this.bookIndex.addContributors(book);
+            refresh(book);
+            journalled[index] = this.bookPersistence.recordBook(book);
+        }
+        
+        return this.bookPersistence.whenDurable(CompletableFuture.allOf(journalled)).thenApply(allJournalled -> {
+            this.bookMetrics.recordCreateBatch(startNanos, books.size());
+            return books;
+        });
     }
     
     public EUpdateOutcome update(final Long id, final Book book, final String playerName, final boolean unlock) {
         
+        final long startNanos = this.bookMetrics.startTiming();
+        final EUpdateOutcome updateOutcome = applyUpdate(book, playerName, unlock);
+        
+        this.bookMetrics.recordUpdate(startNanos, updateOutcome);
+        
+        return updateOutcome;
+    }
+    
+    private EUpdateOutcome applyUpdate(final Book book, final String playerName, final boolean unlock) {
+        
         if (null == book) {
             return EUpdateOutcome.NULL_BOOK_SUPPLIED;
         }
         
-        if (!playerName.equals(book.getLockedBy())) {
+        if (!book.isLockedBy(playerName)) {
             return EUpdateOutcome.REQUESTING_PLAYER_DOES_NOT_HAVE_LOCK;
         }
         
-        for (int index = 0 ; index < getCount() ; index++) {
-            if (this.books.get(index).getId().equals(book.getId())) {
-                if (unlock) {
-                    book.unlock();
-                }
-                this.books.set(index, book);
-                return EUpdateOutcome.SUCCESS;
+        if (this.books.replace(book)) {
+            this.bookIndex.addContributors(book);
+            if (unlock) {
+                unlock(book, playerName);
             }
+            refresh(book);
+            this.bookPersistence.awaitDurable(CompletableFuture.allOf(this.bookPersistence.recordBook(book), this.bookPersistence.recordLockLease(book)));
+            recordCompletionIfComplete(book);
+            return EUpdateOutcome.SUCCESS;
         }
         
         return EUpdateOutcome.NOT_FOUND;
     }
     
+    /*
+     * Adds a line to a book in one step: a single lookup, taking the lock if the player does not already hold it, a single
+     * compare-and-set of the book's contents and then releasing the lock so the book is available again.
+     * 
+     * Passing a null expected version applies the line regardless of what has been written since the player last read it.
+     * The append is still made against a known version, retrying if another line beats it, so that the journal can record
+     * exactly which line number this line became.
+     */
+    public BookUpdateContainer appendLine(final Long id, final String playerName, final String line, final Long expectedVersion) {
+        return appendLines(Collections.singletonList(new LineAppend(id, playerName, line, expectedVersion))).get(0);
+    }
+    
+    /*
+     * Applies a batch of appends in order and then waits once for all of them to be journalled, so that the whole batch
+     * shares a single force to disk. The results are in the same order as the appends.
+     */
+    public List<BookUpdateContainer> appendLines(final List<LineAppend> lineAppends) {
+        
+        final long startNanos = this.bookMetrics.startTiming();
+        final List<BookUpdateContainer> bookUpdateContainers = new ArrayList<BookUpdateContainer>(lineAppends.size());
+        final List<CompletableFuture<Long>> journalled = new ArrayList<CompletableFuture<Long>>(lineAppends.size() * 2);
+        
+        for (LineAppend lineAppend : lineAppends) {
+            bookUpdateContainers.add(applyLineAppend(lineAppend, journalled));
+        }
+        
+        this.bookPersistence.awaitDurable(CompletableFuture.allOf(journalled.toArray(new CompletableFuture<?>[journalled.size()])));
+        
+        for (BookUpdateContainer bookUpdateContainer : bookUpdateContainers) {
+            if (EUpdateOutcome.SUCCESS == bookUpdateContainer.getUpdateOutcome()) {
+                recordCompletionIfComplete(bookUpdateContainer.getBook());
+            }
+            this.bookMetrics.recordAppend(startNanos, bookUpdateContainer.getUpdateOutcome());
+        }
+        
+        return bookUpdateContainers;
+    }
+    
+    private BookUpdateContainer applyLineAppend(final LineAppend lineAppend, final List<CompletableFuture<Long>> journalled) {
+        
+        final BookUpdateContainer bookUpdateContainer = new BookUpdateContainer();
+        
+        final Book book = this.books.get(lineAppend.getBookId());
+        
+        if (null == book) {
+            bookUpdateContainer.setUpdateOutcome(EUpdateOutcome.NOT_FOUND);
+            return bookUpdateContainer;
+        }
+        
+        final String playerName = lineAppend.getPlayerName();
+        
+        if (!book.isLockedBy(playerName) && !lock(book, playerName)) {
+            bookUpdateContainer.setUpdateOutcome(EUpdateOutcome.REQUESTING_PLAYER_DOES_NOT_HAVE_LOCK);
+            return bookUpdateContainer;
+        }
+        
+        final Long expectedVersion = lineAppend.getExpectedVersion();
+        
+        // Only registers the player if the line can still be written. A book never becomes incomplete again and its
+        // version only goes up, so an append which fails this check fails below too and is never written without an ID.
+        final boolean isWritable = !book.isComplete() && (null == expectedVersion || expectedVersion.longValue() == book.getVersion());
+        final int playerId = isWritable ? this.playerRegistry.idOf(playerName) : this.playerRegistry.findId(playerName);
+        
+        long versionAppendedTo;
+        EUpdateOutcome updateOutcome;
+        
+        do {
+            versionAppendedTo = (null != expectedVersion) ? expectedVersion.longValue() : book.getVersion();
+            updateOutcome = book.appendLine(lineAppend.getLine(), playerId, Long.valueOf(versionAppendedTo));
+        } while (null == expectedVersion && EUpdateOutcome.VERSION_CONFLICT == updateOutcome);
+        
+        unlock(book, playerName);
+        
+        if (EUpdateOutcome.SUCCESS == updateOutcome) {
+            this.bookIndex.addContributor(book, playerId);
+            journalled.add(this.bookPersistence.recordAppend(book, versionAppendedTo + 1, playerId, lineAppend.getLine()));
+        }
+        journalled.add(this.bookPersistence.recordLockLease(book));
+        
+        bookUpdateContainer.setBook(book);
+        bookUpdateContainer.setUpdateOutcome(updateOutcome);
+        
+        return bookUpdateContainer;
+    }
+    
+    private boolean lock(final Book book, final String playerName) {
+        
+        final long startNanos = this.bookMetrics.startTiming();
+        final boolean wasAlreadyHeld = book.isLockedBy(playerName);
+        final boolean isLocked = book.lock(playerName);
+        
+        refresh(book);
+        this.bookMetrics.recordLock(startNanos);
+        
+        if (isLocked && !wasAlreadyHeld) {
+            this.gameEventBus.publish(GameEvent.lockChanged(book, playerName));
+        }
+        
+        return isLocked;
+    }
+    
+    // Leaves the book alone if the player's lease has lapsed and somebody else now holds it.
+    private void unlock(final Book book, final String playerName) {
+        
+        final LockLease releasedLease = book.unlock(playerName);
+        
+        refresh(book);
+        this.bookMetrics.recordLockReleased(releasedLease, System.currentTimeMillis());
+        
+        if (releasedLease.isLocked()) {
+            this.gameEventBus.publish(GameEvent.lockChanged(book, null));
+        }
+    }
+    
+    private void leaseExpired(final Book book, final LockLease expiredLease) {
+        refresh(book);
+        this.bookMetrics.recordLockExpired(expiredLease);
+        this.gameEventBus.publish(GameEvent.lockChanged(book, null));
+    }
+    
+    // Called after anything which may have changed whether a book is complete or available.
+    private void refresh(final Book book) {
+        this.bookIndex.refresh(book);
+        this.availableBooks.offer(book);
+    }
+    
+    private void recordCompletionIfComplete(final Book book) {
+        if (book.recordCompletion()) {
+            this.leaderboardRepository.recordCompletedBook(book);
+            this.gameEventBus.publish(GameEvent.bookCompleted(book));
+            publishLeaderboardIfChanged();
+        }
+    }
+    
+    // Serialised so that two books completing at once cannot publish their views of the top places out of order.
+    private void publishLeaderboardIfChanged() {
+        
+        if (!this.gameEventBus.hasSubscribers()) {
+            return;
+        }
+        
+        synchronized (this.leaderboardPublicationLock) {
+            
+            final List<PlayerScore> topPlayers = this.leaderboardRepository.findTopPlayers(LEADERBOARD_PLACES_PUBLISHED);
+            
+            if (!topPlayers.equals(this.lastPublishedTopPlayers)) {
+                this.lastPublishedTopPlayers = topPlayers;
+                this.gameEventBus.publish(GameEvent.leaderboardChanged(topPlayers));
+            }
+        }
+    }
+    
+    // Returns a snapshot in ID order, so callers can iterate it without holding any lock.
     public List<Book> findAll() {
+        return this.books.values();
+    }
+    
+    // Visits the books in ID order as it goes rather than copying them first, so it costs no memory however many books there
+    // are. Each book is seen as it is when it is reached, and books created meanwhile may or may not be included.
+    public Iterable<Book> iterateAll() {
         return this.books;
     }
     
+    public BookPage findPage(final BookFilter filter, final Long after, final Long before, final int limit) {
+        return this.bookIndex.findPage(filter.resolvedWith(this.playerRegistry), after, before, limit);
+    }
+    
     public BookContainer findById(final Long id, final String playerName) {
+        return findByIdAsync(id, playerName).join();
+    }
+    
+    public CompletableFuture<BookContainer> findByIdAsync(final Long id, final String playerName) {
         
+        final long startNanos = this.bookMetrics.startTiming();
         final BookContainer bookContainer = new BookContainer();
         
-        final Optional<Book> bookOptional = this.books.stream().filter(book -> book.getId().equals(id)).findFirst();
+        final Book book = this.books.get(id);
+        final CompletableFuture<?> durable;
         
-        if (bookOptional.isPresent()) {
-            attemptToLockBook(id, playerName, bookContainer, bookOptional);
+        if (null != book) {
+            durable = attemptToLockBook(playerName, bookContainer, book);
         }
         else {
             bookContainer.setBook(null);
             bookContainer.setRetrievalOutcome(ERetrievalOutcome.NOT_FOUND);
+            durable = NOTHING_TO_JOURNAL;
         }
         
-        return bookContainer;
+        return durable.thenApply(journalled -> {
+            this.bookMetrics.recordFind(startNanos, bookContainer.getRetrievalOutcome());
+            return bookContainer;
+        });
+    }
+    
+    public BookContainer findAvailable(final String playerName) {
+        return findAvailableAsync(playerName).join();
     }
     
-    private void attemptToLockBook(final Long id, final String playerName, final BookContainer bookContainer, final Optional<Book> bookOptional) {
+    /*
+     * Locks and returns any available book whose last line the player did not write, or NOT_FOUND if there is none. A
+     * book taken from the queue can be locked or completed by someone else before this player locks it, in which case
+     * the next one is tried, so the player is never turned away while another book is free.
+     */
+    public CompletableFuture<BookContainer> findAvailableAsync(final String playerName) {
         
-        final Book book = bookOptional.get();
+        final long startNanos = this.bookMetrics.startTiming();
+        final BookContainer bookContainer = new BookContainer();
+        final int playerId = this.playerRegistry.findId(playerName); // A player who has never written has no books to skip.
         
-        final String lockedBy = book.getLockedBy();
+        CompletableFuture<?> durable = null;
+        Book book;
         
-        if (null == lockedBy) {
-            attemptToLockBookWhereNotCurrentlyLocked(id, playerName, bookContainer, book);
+        while (null == durable && null != (book = nextAvailableBook(playerId))) {
+            if (!lock(book, playerName)) {
+                continue;
+            }
+            if (book.isComplete()) { // Completed between being taken and being locked, so it is no use to the player.
+                unlock(book, playerName);
+                continue;
+            }
+            durable = grantLock(bookContainer, book);
         }
-        else {
-            attemptToLockBookWhereCurrentlyLocked(playerName, bookContainer, book);
+        
+        if (null == durable) {
+            bookContainer.setRetrievalOutcome(ERetrievalOutcome.NOT_FOUND);
+            durable = NOTHING_TO_JOURNAL;
         }
+        
+        return durable.thenApply(journalled -> {
+            this.bookMetrics.recordFind(startNanos, bookContainer.getRetrievalOutcome());
+            return bookContainer;
+        });
     }
     
-    private void attemptToLockBookWhereNotCurrentlyLocked(final Long id, final String playerName, final BookContainer bookContainer, Book book) {
+    private Book nextAvailableBook(final int playerId) {
         
-        if (book.lock(playerName)) {
-            update(id, book, playerName, false); // Can only return SUCCESS when called from here. Passes false to ensure we don't unlock the lock we just secured.
-            bookContainer.setBook(book);
-            bookContainer.setRetrievalOutcome(ERetrievalOutcome.SUCCESS);
-        }
-        else { // Unlikely to happen (and hard to test) - the lock would have to occurred between the check in the calling method and now.
-            bookContainer.setBook(null);
-            bookContainer.setRetrievalOutcome(ERetrievalOutcome.LOCKED_BY_ANOTHER_PLAYER);
-        }
+        final Book book = this.availableBooks.poll(playerId);
+        
+        return (null != book) ? book : this.bookIndex.findAvailableNotLastWrittenBy(playerId);
     }
     
-    // The only chance of success here is if a player already has the lock and is trying unnecessarily to lock the book again.
-    private void attemptToLockBookWhereCurrentlyLocked(final String playerName, final BookContainer bookContainer, final Book book) {
+    // Succeeds if the book is free, its lease has run out, or the player already holds it (which renews the lease).
+    private CompletableFuture<?> attemptToLockBook(final String playerName, final BookContainer bookContainer, final Book book) {
         
-        if (playerName.equals(book.getLockedBy())) {
-            bookContainer.setBook(book);
-            bookContainer.setRetrievalOutcome(ERetrievalOutcome.SUCCESS);
-        }
-        else {
-            bookContainer.setBook(null);
-            bookContainer.setRetrievalOutcome(ERetrievalOutcome.LOCKED_BY_ANOTHER_PLAYER);
+        if (lock(book, playerName)) {
+            return grantLock(bookContainer, book);
         }
+        
+        bookContainer.setBook(null);
+        bookContainer.setRetrievalOutcome(ERetrievalOutcome.LOCKED_BY_ANOTHER_PLAYER);
+        
+        return NOTHING_TO_JOURNAL;
+    }
+    
+    // Hands a book the player has just locked to them once the lock is journalled, with the reaper watching the lease.
+    private CompletableFuture<?> grantLock(final BookContainer bookContainer, final Book book) {
+        
+        final CompletableFuture<?> durable = this.bookPersistence.whenDurable(this.bookPersistence.recordLockLease(book));
+        
+        this.lockLeaseReaper.schedule(book);
+        bookContainer.setBook(book);
+        bookContainer.setRetrievalOutcome(ERetrievalOutcome.SUCCESS);
+        
+        return durable;
     }
     
     public int getCount() {
         return this.books.size();
     }
     
+    public int countLockedBooks() {
+        return this.bookIndex.countLocked();
+    }
+    
+    public int countCompletedBooks() {
+        return this.bookIndex.countComplete();
+    }
+    
     public void clear() {
         this.books.clear();
+        this.bookIndex.clear();
+        this.availableBooks.clear();
+        
+        synchronized (this.leaderboardPublicationLock) {
+            this.lastPublishedTopPlayers = Collections.<PlayerScore>emptyList();
+        }
+        this.leaderboardRepository.clear();
+        this.playerRegistry.clear();
     }
 }
\ No newline at end of file
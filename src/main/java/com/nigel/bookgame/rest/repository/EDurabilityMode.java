@@ -0,0 +1,15 @@
+package com.nigel.bookgame.rest.repository;
+
+/**
+ * Enumeration describing when a change written to the {@link BookJournal} counts as made.
+ *
+ * SYNC_BATCH forces each batch of journal records to disk before anyone waiting on a record in it carries on, so an
+ * acknowledged change survives a power failure. ASYNC lets callers carry on as soon as their change is queued and forces
+ * the journal every few milliseconds, so a crash of the machine (but not of the application) can lose the last moments.
+ *
+ * @author nigel
+ */
+public enum EDurabilityMode {
+    SYNC_BATCH,
+    ASYNC
+}
@@ -0,0 +1,233 @@
+package com.nigel.bookgame.rest.repository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent set of IDs held as one bit per ID.
+ *
+ * Laid out like {@link IdIndexedTable}: the bits are split into chunks which are allocated as the IDs reach them, so a
+ * million books cost 128KB per set. Adding and removing an ID is a single CAS on the word holding its bit, and finding
+ * the next or previous ID in the set reads 64 IDs at a time, skipping chunks which were never allocated.
+ *
+ * @author nigel
+ */
+public class IdBitSet {
+
+    public static final long NONE = -1L;
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int WORDS_PER_CHUNK = CHUNK_SIZE >>> 6;
+    private static final int INITIAL_DIRECTORY_SIZE = 16;
+
+    private volatile AtomicReferenceArray<AtomicLongArray> directory = new AtomicReferenceArray<AtomicLongArray>(INITIAL_DIRECTORY_SIZE);
+    private final AtomicInteger size = new AtomicInteger();
+
+    // Returns true if the ID was not already in the set.
+    public boolean add(final long id) {
+
+        checkId(id);
+
+        final AtomicLongArray chunk = createChunkIfAbsent(chunkIndexOf(id));
+        final int wordIndex = wordIndexOf(id);
+        final long mask = 1L << id;
+
+        while (true) {
+
+            final long word = chunk.get(wordIndex);
+
+            if (0 != (word & mask)) {
+                return false;
+            }
+
+            if (chunk.compareAndSet(wordIndex, word, word | mask)) {
+                this.size.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    // Returns true if the ID was in the set.
+    public boolean remove(final long id) {
+
+        final AtomicLongArray chunk = findChunk(id);
+
+        if (null == chunk) {
+            return false;
+        }
+
+        final int wordIndex = wordIndexOf(id);
+        final long mask = 1L << id;
+
+        while (true) {
+
+            final long word = chunk.get(wordIndex);
+
+            if (0 == (word & mask)) {
+                return false;
+            }
+
+            if (chunk.compareAndSet(wordIndex, word, word & ~mask)) {
+                this.size.decrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    public boolean contains(final long id) {
+
+        final AtomicLongArray chunk = findChunk(id);
+
+        return null != chunk && 0 != (chunk.get(wordIndexOf(id)) & (1L << id));
+    }
+
+    // The lowest ID in the set above the one given, or NONE.
+    public long next(final long afterId) {
+
+        final AtomicReferenceArray<AtomicLongArray> currentDirectory = this.directory;
+
+        long candidate = Math.max(afterId, NONE) + 1;
+
+        while ((candidate >>> CHUNK_SHIFT) < currentDirectory.length()) {
+
+            final AtomicLongArray chunk = currentDirectory.get(chunkIndexOf(candidate));
+
+            if (null != chunk) {
+
+                int wordIndex = wordIndexOf(candidate);
+                long word = chunk.get(wordIndex) & (-1L << candidate);
+
+                while (true) {
+                    if (0 != word) {
+                        return chunkStartOf(candidate) + ((long) wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                    }
+                    if (++wordIndex == WORDS_PER_CHUNK) {
+                        break;
+                    }
+                    word = chunk.get(wordIndex);
+                }
+            }
+
+            candidate = chunkStartOf(candidate) + CHUNK_SIZE;
+        }
+
+        return NONE;
+    }
+
+    // The highest ID in the set below the one given, or NONE.
+    public long previous(final long beforeId) {
+
+        final AtomicReferenceArray<AtomicLongArray> currentDirectory = this.directory;
+
+        long candidate = Math.min(beforeId - 1, ((long) currentDirectory.length() << CHUNK_SHIFT) - 1);
+
+        while (candidate >= 0) {
+
+            final AtomicLongArray chunk = currentDirectory.get(chunkIndexOf(candidate));
+
+            if (null != chunk) {
+
+                int wordIndex = wordIndexOf(candidate);
+                long word = chunk.get(wordIndex) & (-1L >>> (63 - (candidate & 63)));
+
+                while (true) {
+                    if (0 != word) {
+                        return chunkStartOf(candidate) + ((long) wordIndex << 6) + 63 - Long.numberOfLeadingZeros(word);
+                    }
+                    if (--wordIndex < 0) {
+                        break;
+                    }
+                    word = chunk.get(wordIndex);
+                }
+            }
+
+            candidate = chunkStartOf(candidate) - 1;
+        }
+
+        return NONE;
+    }
+
+    public int size() {
+        return this.size.get();
+    }
+
+    public synchronized void clear() {
+        this.directory = new AtomicReferenceArray<AtomicLongArray>(INITIAL_DIRECTORY_SIZE);
+        this.size.set(0);
+    }
+
+    private void checkId(final long id) {
+        if (id < 0 || (id >>> CHUNK_SHIFT) >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Cannot store an ID outside the range of the set: " + id);
+        }
+    }
+
+    private int chunkIndexOf(final long id) {
+        return (int) (id >>> CHUNK_SHIFT);
+    }
+
+    private long chunkStartOf(final long id) {
+        return id & ~((long) CHUNK_MASK);
+    }
+
+    private int wordIndexOf(final long id) {
+        return (int) ((id & CHUNK_MASK) >>> 6);
+    }
+
+    private AtomicLongArray findChunk(final long id) {
+
+        final AtomicReferenceArray<AtomicLongArray> currentDirectory = this.directory;
+
+        if (id < 0 || (id >>> CHUNK_SHIFT) >= currentDirectory.length()) {
+            return null;
+        }
+
+        return currentDirectory.get(chunkIndexOf(id));
+    }
+
+    private AtomicLongArray createChunkIfAbsent(final int chunkIndex) {
+
+        final AtomicReferenceArray<AtomicLongArray> currentDirectory = this.directory;
+
+        if (chunkIndex < currentDirectory.length()) {
+
+            final AtomicLongArray chunk = currentDirectory.get(chunkIndex);
+
+            if (null != chunk) {
+                return chunk;
+            }
+        }
+
+        return createChunk(chunkIndex);
+    }
+
+    // Directory slots are only ever written while holding the set's monitor, so growing the directory can never lose a chunk.
+    private synchronized AtomicLongArray createChunk(final int chunkIndex) {
+
+        AtomicReferenceArray<AtomicLongArray> currentDirectory = this.directory;
+
+        if (chunkIndex >= currentDirectory.length()) {
+
+            final AtomicReferenceArray<AtomicLongArray> grownDirectory = new AtomicReferenceArray<AtomicLongArray>(Math.max(chunkIndex + 1, currentDirectory.length() * 2));
+
+            for (int index = 0; index < currentDirectory.length(); index++) {
+                grownDirectory.set(index, currentDirectory.get(index));
+            }
+
+            this.directory = grownDirectory;
+            currentDirectory = grownDirectory;
+        }
+
+        AtomicLongArray chunk = currentDirectory.get(chunkIndex);
+
+        if (null == chunk) {
+            chunk = new AtomicLongArray(WORDS_PER_CHUNK);
+            currentDirectory.set(chunkIndex, chunk);
+        }
+
+        return chunk;
+    }
+}
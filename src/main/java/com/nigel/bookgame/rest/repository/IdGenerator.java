@@ -20,4 +20,19 @@ public class IdGenerator {
 	public long getNextId() {
 		return this.nextId.getAndIncrement();
 	}
+	
+	// Reserves a contiguous block of IDs in one step and returns the first of them, so a batch never interleaves with other IDs.
+	public long reserveIds(final int count) {
+		
+		if (count < 1) {
+			throw new IllegalArgumentException("Cannot reserve fewer than one ID: " + count);
+		}
+		
+		return this.nextId.getAndAdd(count);
+	}
+	
+	// Makes sure IDs handed out from now on are all higher than one already in use, such as one recovered from disk.
+	public void advancePast(final long usedId) {
+		this.nextId.accumulateAndGet(usedId + 1, Math::max);
+	}
 }
\ No newline at end of file
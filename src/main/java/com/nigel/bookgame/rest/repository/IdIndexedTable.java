@@ -0,0 +1,317 @@
+package com.nigel.bookgame.rest.repository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.nigel.bookgame.rest.domain.Identifiable;
+
+/**
+ * Concurrent table of identifiable domain objects, indexed directly by ID.
+ *
+ * IDs handed out by {@link IdGenerator} are dense and increasing, so rather than hashing them the table splits an ID into
+ * a chunk number and an offset within that chunk. Lookups are two array reads, inserts and replacements are a single CAS
+ * on the slot and iteration visits entries in ID order without any sorting. The only lock taken is when a new chunk has
+ * to be allocated, which happens once every {@link #CHUNK_SIZE} IDs.
+ *
+ * @author nigel
+ *
+ * @param <T> The type of the domain object.
+ */
+public class IdIndexedTable<T extends Identifiable> implements Iterable<T> {
+
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int INITIAL_DIRECTORY_SIZE = 16;
+
+    private volatile AtomicReferenceArray<AtomicReferenceArray<T>> directory = new AtomicReferenceArray<>(INITIAL_DIRECTORY_SIZE);
+    private final AtomicInteger size = new AtomicInteger();
+
+    public T get(final Long id) {
+
+        if (!isValidId(id)) {
+            return null;
+        }
+
+        final AtomicReferenceArray<T> chunk = findChunk(chunkIndexOf(id));
+
+        return (null == chunk) ? null : chunk.get(slotIndexOf(id));
+    }
+
+    public boolean contains(final Long id) {
+        return null != get(id);
+    }
+
+    public boolean putIfAbsent(final T value) {
+
+        final Long id = value.getId();
+
+        if (!isValidId(id)) {
+            throw new IllegalArgumentException("Cannot store an object without a positive ID: " + id);
+        }
+
+        if (createChunkIfAbsent(chunkIndexOf(id)).compareAndSet(slotIndexOf(id), null, value)) {
+            this.size.incrementAndGet();
+            return true;
+        }
+
+        return false;
+    }
+
+    // Stores a batch, looking up each chunk once for the run of IDs that falls in it rather than once per entry. Entries
+    // whose slot is already taken are skipped. Returns how many were stored.
+    public int putAllIfAbsent(final List<T> values) {
+
+        int stored = 0;
+        int chunkIndex = -1;
+        AtomicReferenceArray<T> chunk = null;
+
+        for (T value : values) {
+
+            final Long id = value.getId();
+
+            if (!isValidId(id)) {
+                throw new IllegalArgumentException("Cannot store an object without a positive ID: " + id);
+            }
+
+            if (chunkIndexOf(id) != chunkIndex) {
+                chunkIndex = chunkIndexOf(id);
+                chunk = createChunkIfAbsent(chunkIndex);
+            }
+
+            if (chunk.compareAndSet(slotIndexOf(id), null, value)) {
+                stored++;
+            }
+        }
+
+        this.size.addAndGet(stored);
+
+        return stored;
+    }
+
+    public boolean replace(final T value) {
+
+        final Long id = value.getId();
+
+        if (!isValidId(id)) {
+            return false;
+        }
+
+        final AtomicReferenceArray<T> chunk = findChunk(chunkIndexOf(id));
+
+        if (null == chunk) {
+            return false;
+        }
+
+        final int slotIndex = slotIndexOf(id);
+
+        T current = chunk.get(slotIndex);
+
+        while (null != current) {
+            if (chunk.compareAndSet(slotIndex, current, value)) {
+                return true;
+            }
+            current = chunk.get(slotIndex);
+        }
+
+        return false;
+    }
+
+    public List<T> values() {
+
+        final List<T> values = new ArrayList<T>(size());
+
+        for (T value : this) {
+            values.add(value);
+        }
+
+        return values;
+    }
+
+    // The entry with the lowest ID above the one given, or null if there is none. Chunks never allocated are skipped whole.
+    public T higher(final long id) {
+
+        final AtomicReferenceArray<AtomicReferenceArray<T>> currentDirectory = this.directory;
+
+        long candidate = Math.max(id, 0L) + 1;
+
+        while ((candidate >>> CHUNK_SHIFT) < currentDirectory.length()) {
+
+            final AtomicReferenceArray<T> chunk = currentDirectory.get(chunkIndexOf(candidate));
+
+            if (null != chunk) {
+                for (int slotIndex = slotIndexOf(candidate); slotIndex < CHUNK_SIZE; slotIndex++) {
+                    final T value = chunk.get(slotIndex);
+                    if (null != value) {
+                        return value;
+                    }
+                }
+            }
+
+            candidate = (long) (chunkIndexOf(candidate) + 1) << CHUNK_SHIFT;
+        }
+
+        return null;
+    }
+
+    // The entry with the highest ID below the one given, or null if there is none.
+    public T lower(final long id) {
+
+        final AtomicReferenceArray<AtomicReferenceArray<T>> currentDirectory = this.directory;
+
+        long candidate = Math.min(id - 1, ((long) currentDirectory.length() << CHUNK_SHIFT) - 1);
+
+        while (candidate > 0) {
+
+            final AtomicReferenceArray<T> chunk = currentDirectory.get(chunkIndexOf(candidate));
+
+            if (null != chunk) {
+                for (int slotIndex = slotIndexOf(candidate); slotIndex >= 0; slotIndex--) {
+                    final T value = chunk.get(slotIndex);
+                    if (null != value) {
+                        return value;
+                    }
+                }
+            }
+
+            candidate = ((long) chunkIndexOf(candidate) << CHUNK_SHIFT) - 1;
+        }
+
+        return null;
+    }
+
+    public int size() {
+        return this.size.get();
+    }
+
+    public synchronized void clear() {
+        this.directory = new AtomicReferenceArray<>(INITIAL_DIRECTORY_SIZE);
+        this.size.set(0);
+    }
+
+    // Weakly consistent in the same way as the java.util.concurrent collections: never fails, but may or may not reflect
+    // changes made after the iterator was created.
+    @Override
+    public Iterator<T> iterator() {
+        return new TableIterator(this.directory);
+    }
+
+    private boolean isValidId(final Long id) {
+        return null != id && id > 0 && (id >>> CHUNK_SHIFT) < Integer.MAX_VALUE;
+    }
+
+    private int chunkIndexOf(final long id) {
+        return (int) (id >>> CHUNK_SHIFT);
+    }
+
+    private int slotIndexOf(final long id) {
+        return (int) (id & CHUNK_MASK);
+    }
+
+    private AtomicReferenceArray<T> findChunk(final int chunkIndex) {
+
+        final AtomicReferenceArray<AtomicReferenceArray<T>> currentDirectory = this.directory;
+
+        if (chunkIndex >= currentDirectory.length()) {
+            return null;
+        }
+
+        return currentDirectory.get(chunkIndex);
+    }
+
+    private AtomicReferenceArray<T> createChunkIfAbsent(final int chunkIndex) {
+
+        final AtomicReferenceArray<T> chunk = findChunk(chunkIndex);
+
+        if (null != chunk) {
+            return chunk;
+        }
+
+        return createChunk(chunkIndex);
+    }
+
+    // Directory slots are only ever written while holding the table's monitor, so growing the directory can never lose a chunk.
+    private synchronized AtomicReferenceArray<T> createChunk(final int chunkIndex) {
+
+        AtomicReferenceArray<AtomicReferenceArray<T>> currentDirectory = this.directory;
+
+        if (chunkIndex >= currentDirectory.length()) {
+
+            final AtomicReferenceArray<AtomicReferenceArray<T>> grownDirectory = new AtomicReferenceArray<>(Math.max(chunkIndex + 1, currentDirectory.length() * 2));
+
+            for (int index = 0; index < currentDirectory.length(); index++) {
+                grownDirectory.set(index, currentDirectory.get(index));
+            }
+
+            this.directory = grownDirectory;
+            currentDirectory = grownDirectory;
+        }
+
+        AtomicReferenceArray<T> chunk = currentDirectory.get(chunkIndex);
+
+        if (null == chunk) {
+            chunk = new AtomicReferenceArray<T>(CHUNK_SIZE);
+            currentDirectory.set(chunkIndex, chunk);
+        }
+
+        return chunk;
+    }
+
+    private class TableIterator implements Iterator<T> {
+
+        private final AtomicReferenceArray<AtomicReferenceArray<T>> iteratedDirectory;
+        private int chunkIndex = 0;
+        private int slotIndex = -1;
+        private T next;
+
+        private TableIterator(final AtomicReferenceArray<AtomicReferenceArray<T>> iteratedDirectory) {
+            this.iteratedDirectory = iteratedDirectory;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return null != this.next;
+        }
+
+        @Override
+        public T next() {
+
+            if (null == this.next) {
+                throw new NoSuchElementException();
+            }
+
+            final T current = this.next;
+            advance();
+
+            return current;
+        }
+
+        private void advance() {
+
+            this.next = null;
+
+            while (this.chunkIndex < this.iteratedDirectory.length()) {
+
+                final AtomicReferenceArray<T> chunk = this.iteratedDirectory.get(this.chunkIndex);
+
+                if (null != chunk) {
+                    while (++this.slotIndex < CHUNK_SIZE) {
+                        final T value = chunk.get(this.slotIndex);
+                        if (null != value) {
+                            this.next = value;
+                            return;
+                        }
+                    }
+                }
+
+                this.chunkIndex++;
+                this.slotIndex = -1;
+            }
+        }
+    }
+}
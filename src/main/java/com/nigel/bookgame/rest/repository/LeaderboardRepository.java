@@ -0,0 +1,137 @@
+package com.nigel.bookgame.rest.repository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.LineHistory;
+import com.nigel.bookgame.rest.domain.PlayerRegistry;
+import com.nigel.bookgame.rest.domain.PlayerScore;
+
+/**
+ * Repository layer for the leaderboard which keeps every player's score up to date as books are completed.
+ * 
+ * Scores only change at the moment a book is completed, so rather than deriving the leaderboard from every book on every
+ * request, each completed book is scored once and the players are kept in a concurrent skip list in leaderboard order.
+ * Showing the top N players is then a walk of the first N or so entries. Scores are kept against {@link PlayerRegistry}
+ * IDs, so no names are hashed or compared except to break ties in the rankings. Each name is looked up once, when the
+ * player's score changes.
+ * 
+ * The leaderboard carries a version which moves on once each change to the scores has been made, so that anyone who
+ * reads the version before the scores knows the scores are at least that new.
+ * 
+ * @author nigel
+ */
+@Repository
+public class LeaderboardRepository {
+    
+    private static final int POINTS_PER_COMPLETED_BOOK = 10;
+    
+    private final Map<Integer, PlayerScore> playerScoreMap = new ConcurrentHashMap<Integer, PlayerScore>();
+    private final ConcurrentSkipListSet<PlayerScore> rankings = new ConcurrentSkipListSet<PlayerScore>();
+    private final AtomicLong version = new AtomicLong();
+    private final PlayerRegistry playerRegistry;
+    
+    @Autowired
+    public LeaderboardRepository(final PlayerRegistry playerRegistry) {
+        this.playerRegistry = playerRegistry;
+    }
+    
+    // Where somebody contributes multiple times to the same book, they only score once for that book. Callers are
+    // responsible for recording each book only once (see Book.recordCompletion()).
+    public void recordCompletedBook(final Book book) {
+        
+        final LineHistory lineHistory = book.getLineHistory();
+        
+        if (!lineHistory.isComplete()) {
+            return;
+        }
+        
+        for (int index = 0; index < lineHistory.lineCount(); index++) {
+            
+            final int playerId = lineHistory.getPlayerId(index);
+            
+            if (!isEarlierContributor(lineHistory, index, playerId)) {
+                this.playerScoreMap.compute(playerId, (key, currentPlayerScore) -> increaseScore(playerId, currentPlayerScore));
+            }
+        }
+        
+        this.version.incrementAndGet();
+    }
+    
+    // Books are only a handful of lines long, so a scan of the earlier lines beats building a set of contributors.
+    private boolean isEarlierContributor(final LineHistory lineHistory, final int index, final int playerId) {
+        
+        for (int earlierIndex = 0; earlierIndex < index; earlierIndex++) {
+            if (lineHistory.getPlayerId(earlierIndex) == playerId) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    // Called under the map's lock for the player. The new ranking is added before the old one is removed so that readers
+    // never miss the player, at the cost of occasionally seeing them twice.
+    private PlayerScore increaseScore(final int playerId, final PlayerScore currentPlayerScore) {
+        
+        final int currentScore = (null == currentPlayerScore) ? 0 : currentPlayerScore.getScore();
+        final PlayerScore newPlayerScore = new PlayerScore(playerId, this.playerRegistry.nameOf(playerId), currentScore + POINTS_PER_COMPLETED_BOOK);
+        
+        this.rankings.add(newPlayerScore);
+        
+        if (null != currentPlayerScore) {
+            this.rankings.remove(currentPlayerScore);
+        }
+        
+        return newPlayerScore;
+    }
+    
+    // Returns the players in the top N places in leaderboard order, including anyone tied with whoever is in Nth place.
+    public List<PlayerScore> findTopPlayers(final int numberOfPlaces) {
+        
+        final List<PlayerScore> topPlayers = new ArrayList<PlayerScore>();
+        final Set<Integer> playersSeen = new HashSet<Integer>();
+        
+        int lastPlaceScore = 0;
+        
+        for (PlayerScore playerScore : this.rankings) {
+            
+            if (!playersSeen.add(playerScore.getPlayerId())) {
+                continue; // Caught mid-update: the entry already seen has the higher, newer score.
+            }
+            
+            if (topPlayers.size() >= numberOfPlaces && playerScore.getScore() != lastPlaceScore) {
+                break;
+            }
+            
+            topPlayers.add(playerScore);
+            
+            if (topPlayers.size() == numberOfPlaces) {
+                lastPlaceScore = playerScore.getScore();
+            }
+        }
+        
+        return topPlayers;
+    }
+    
+    public long getVersion() {
+        return this.version.get();
+    }
+    
+    // The version moves on rather than starting again, so that nothing seen before clearing can be mistaken for current.
+    public void clear() {
+        this.playerScoreMap.clear();
+        this.rankings.clear();
+        this.version.incrementAndGet();
+    }
+}
@@ -0,0 +1,130 @@
+package com.nigel.bookgame.rest.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiConsumer;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.LockLease;
+
+/**
+ * Expires abandoned book locks in bulk using a hashed timer wheel.
+ *
+ * Each lease granted is dropped into the wheel slot for the tick in which it runs out. Every tick only that slot is
+ * visited, so the cost of reaping is proportional to the number of leases due rather than to the number of books.
+ * Leases further away than one revolution of the wheel simply stay in their slot until the revolution they are due in.
+ *
+ * @author nigel
+ */
+@Component
+public class LockLeaseReaper {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 512;
+
+    private final List<Queue<ScheduledLease>> wheel = new ArrayList<Queue<ScheduledLease>>(WHEEL_SIZE);
+
+    private volatile long lastProcessedTick;
+    private volatile BiConsumer<Book, LockLease> leaseExpiredListener = (book, expiredLease) -> { };
+
+    public LockLeaseReaper() {
+
+        for (int index = 0; index < WHEEL_SIZE; index++) {
+            this.wheel.add(new ConcurrentLinkedQueue<ScheduledLease>());
+        }
+
+        this.lastProcessedTick = System.currentTimeMillis() / TICK_MILLIS;
+    }
+
+    // Told about each book whose lease has just been expired, along with that lease, on the reaper's thread.
+    public void onLeaseExpired(final BiConsumer<Book, LockLease> leaseExpiredListener) {
+        this.leaseExpiredListener = leaseExpiredListener;
+    }
+
+    public void schedule(final Book book) {
+
+        final LockLease lease = book.getLockLease();
+
+        if (!lease.isLocked()) {
+            return;
+        }
+
+        final long deadlineTick = (lease.getLeaseDeadline() + TICK_MILLIS - 1) / TICK_MILLIS;
+
+        // A lease due in a tick which has already been processed goes in the next one, otherwise it would wait a whole revolution.
+        addToWheel(new ScheduledLease(book, lease), Math.max(deadlineTick, this.lastProcessedTick + 1));
+    }
+
+    @Scheduled(fixedRate = TICK_MILLIS)
+    public void expireLeases() {
+        expireLeasesUpTo(System.currentTimeMillis());
+    }
+
+    public synchronized int expireLeasesUpTo(final long now) {
+
+        final long currentTick = now / TICK_MILLIS;
+
+        int numberOfLeasesExpired = 0;
+
+        // After a long pause there is no point going round the wheel more than once.
+        for (long tick = Math.max(this.lastProcessedTick + 1, currentTick - WHEEL_SIZE + 1); tick <= currentTick; tick++) {
+            this.lastProcessedTick = tick;
+            numberOfLeasesExpired += processSlot(tick, now);
+        }
+
+        return numberOfLeasesExpired;
+    }
+
+    private int processSlot(final long tick, final long now) {
+
+        final Queue<ScheduledLease> slot = this.wheel.get(slotIndexOf(tick));
+        final List<ScheduledLease> notYetDue = new ArrayList<ScheduledLease>();
+
+        int numberOfLeasesExpired = 0;
+
+        ScheduledLease scheduledLease;
+
+        while (null != (scheduledLease = slot.poll())) {
+
+            if (scheduledLease.book.getLockLease() != scheduledLease.lease) {
+                continue; // Unlocked, renewed or taken over since it was scheduled, so whoever changed it has taken responsibility.
+            }
+
+            if (scheduledLease.lease.isHeldAt(now)) {
+                notYetDue.add(scheduledLease);
+            }
+            else if (scheduledLease.book.expireLease(scheduledLease.lease, now)) {
+                this.leaseExpiredListener.accept(scheduledLease.book, scheduledLease.lease);
+                numberOfLeasesExpired++;
+            }
+        }
+
+        slot.addAll(notYetDue);
+
+        return numberOfLeasesExpired;
+    }
+
+    private void addToWheel(final ScheduledLease scheduledLease, final long tick) {
+        this.wheel.get(slotIndexOf(tick)).add(scheduledLease);
+    }
+
+    private int slotIndexOf(final long tick) {
+        return (int) (tick % WHEEL_SIZE);
+    }
+
+    private static class ScheduledLease {
+
+        private final Book book;
+        private final LockLease lease;
+
+        private ScheduledLease(final Book book, final LockLease lease) {
+            this.book = book;
+            this.lease = lease;
+        }
+    }
+}
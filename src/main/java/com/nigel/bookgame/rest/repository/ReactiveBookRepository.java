@@ -0,0 +1,86 @@
+package com.nigel.bookgame.rest.repository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.BookContainer;
+import com.nigel.bookgame.rest.domain.BookFilter;
+import com.nigel.bookgame.rest.domain.BookPage;
+import com.nigel.bookgame.rest.domain.BookUpdateContainer;
+import com.nigel.bookgame.rest.domain.PlayerScore;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking view of the books and the leaderboard for the reactive deployment, returning Mono and Flux.
+ *
+ * Nothing here holds a thread while it waits. Books and scores are in memory, so reading them never waits at all, and
+ * anything which has to wait for the journal or the {@link BookAppendPipeline} completes its Mono when that is done.
+ * Results completed by the journal writer or a pipeline drainer are handed to the parallel scheduler, so that those
+ * threads go straight back to their next batch instead of rendering responses.
+ *
+ * @author nigel
+ */
+@Component
+public class ReactiveBookRepository {
+
+    private final BookRepository bookRepository;
+    private final BookAppendPipeline bookAppendPipeline;
+    private final LeaderboardRepository leaderboardRepository;
+
+    @Autowired
+    public ReactiveBookRepository(final BookRepository bookRepository, final BookAppendPipeline bookAppendPipeline,
+            final LeaderboardRepository leaderboardRepository) {
+        this.bookRepository = bookRepository;
+        this.bookAppendPipeline = bookAppendPipeline;
+        this.leaderboardRepository = leaderboardRepository;
+    }
+
+    public Flux<Book> findAll() {
+        return Flux.fromIterable(this.bookRepository.iterateAll()); // Books are only visited as the subscriber asks for them.
+    }
+
+    public Mono<BookPage> findPage(final BookFilter filter, final Long after, final Long before, final int limit) {
+        return Mono.fromSupplier(() -> this.bookRepository.findPage(filter, after, before, limit));
+    }
+
+    public Mono<BookContainer> findById(final Long id, final String playerName) {
+        return Mono.defer(() -> toMono(this.bookRepository.findByIdAsync(id, playerName)));
+    }
+
+    public Mono<BookContainer> findAvailable(final String playerName) {
+        return Mono.defer(() -> toMono(this.bookRepository.findAvailableAsync(playerName)));
+    }
+
+    public Mono<Book> create(final Book book) {
+        return Mono.defer(() -> toMono(this.bookRepository.createAsync(book)));
+    }
+
+    public Mono<List<Book>> createAll(final List<Book> books) {
+        return Mono.defer(() -> toMono(this.bookRepository.createAllAsync(books)));
+    }
+
+    public Mono<BookUpdateContainer> appendLine(final Long id, final String playerName, final String line, final Long expectedVersion) {
+        return Mono.defer(() -> toMono(this.bookAppendPipeline.append(id, playerName, line, expectedVersion)));
+    }
+
+    public Mono<List<PlayerScore>> findTopPlayers(final int numberOfPlaces) {
+        return Mono.fromSupplier(() -> this.leaderboardRepository.findTopPlayers(numberOfPlaces));
+    }
+
+    // A single read which never blocks, so it is returned directly.
+    public long getLeaderboardVersion() {
+        return this.leaderboardRepository.getVersion();
+    }
+
+    // A future which is already complete is emitted on the subscriber's thread, with no hand-off.
+    private static <T> Mono<T> toMono(final CompletableFuture<T> future) {
+        return future.isDone() ? Mono.fromFuture(future) : Mono.fromFuture(future).publishOn(Schedulers.parallel());
+    }
+}
@@ -0,0 +1,36 @@
+package com.nigel.bookgame.rest.resource;
+
+import org.springframework.hateoas.RepresentationModel;
+
+/**
+ * Resource object representation of a batch of books just created, which summarises the batch rather than listing it.
+ *
+ * The books of a batch have consecutive IDs, so how many there are and the first and last of them say which books were
+ * created, with links to the first and the last.
+ *
+ * @author nigel
+ */
+public class BookBatchResource extends RepresentationModel<BookBatchResource> {
+
+    private final int count;
+    private final long firstId;
+    private final long lastId;
+
+    public BookBatchResource(final int count, final long firstId, final long lastId) {
+        this.count = count;
+        this.firstId = firstId;
+        this.lastId = lastId;
+    }
+
+    public int getCount() {
+        return this.count;
+    }
+
+    public long getFirstId() {
+        return this.firstId;
+    }
+
+    public long getLastId() {
+        return this.lastId;
+    }
+}
@@ -0,0 +1,62 @@
+package com.nigel.bookgame.rest.resource;
+
+import java.util.List;
+
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+
+import com.nigel.bookgame.rest.domain.Book;
+
+/**
+ * The /book/{id} links of every book for one base URI, worked out once so that linking a book is just appending its ID.
+ *
+ * Books are linked to by ID alone, and an ID is a number which never needs encoding, so the link for any book is the
+ * base followed by its ID. Both links a book carries have that same address, so one is made and the other is a copy of
+ * it with a different relation.
+ *
+ * @author nigel
+ */
+public final class BookLinkTemplate {
+
+    private static final String UPDATE_RELATION = "update";
+
+    private final String bookBaseUri;
+    private final String bookUriPrefix;
+
+    public BookLinkTemplate(final String bookBaseUri) {
+        this.bookBaseUri = bookBaseUri;
+        this.bookUriPrefix = bookBaseUri.endsWith("/") ? bookBaseUri : bookBaseUri + "/";
+    }
+
+    public String getBookBaseUri() {
+        return this.bookBaseUri;
+    }
+
+    public String getBookUri(final Long id) {
+        return this.bookUriPrefix + id;
+    }
+
+    public BookResource toResource(final Book book) {
+
+        final Link selfLink = Link.of(getBookUri(book.getId()));
+
+        final BookResource bookResource = new BookResource(book);
+        bookResource.add(selfLink);
+        bookResource.add(selfLink.withRel(UPDATE_RELATION));
+
+        return bookResource;
+    }
+
+    // The books are expected to be a batch just created, so in ID order with no gaps.
+    public BookBatchResource toBatchResource(final List<Book> books) {
+
+        final Long firstId = books.get(0).getId();
+        final Long lastId = books.get(books.size() - 1).getId();
+
+        final BookBatchResource bookBatchResource = new BookBatchResource(books.size(), firstId.longValue(), lastId.longValue());
+        bookBatchResource.add(Link.of(getBookUri(firstId), IanaLinkRelations.FIRST));
+        bookBatchResource.add(Link.of(getBookUri(lastId), IanaLinkRelations.LAST));
+
+        return bookBatchResource;
+    }
+}
@@ -0,0 +1,23 @@
+package com.nigel.bookgame.rest.resource;
+
+import java.util.List;
+
+import org.springframework.hateoas.RepresentationModel;
+
+/**
+ * Resource object representation of one page of the book listing, with links to the pages either side of it.
+ * 
+ * @author nigel
+ */
+public class BookPageResource extends RepresentationModel<BookPageResource> {
+    
+    private final List<BookResource> books;
+    
+    public BookPageResource(final List<BookResource> books) {
+        this.books = books;
+    }
+    
+    public List<BookResource> getBooks() {
+        return this.books;
+    }
+}
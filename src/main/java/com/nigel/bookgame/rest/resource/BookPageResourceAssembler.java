@@ -0,0 +1,61 @@
+package com.nigel.bookgame.rest.resource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.BookPage;
+
+/**
+ * Resource assembler for a page of books, adding self, next and prev links.
+ * 
+ * The next and prev links are the request's own URI with the cursor swapped, so the filters and limit the caller asked
+ * for carry through from page to page. Both deployments supply their request's URI, which is what lets this one
+ * assembler serve Tomcat and Netty alike.
+ * 
+ * @author nigel
+ */
+@Component
+public class BookPageResourceAssembler {
+    
+    private static final String AFTER = "after";
+    private static final String BEFORE = "before";
+    
+    public BookPageResource toResource(final BookPage bookPage, final Function<Book, BookResource> toBookResource, final UriComponentsBuilder requestUri) {
+        
+        final List<BookResource> bookResources = new ArrayList<BookResource>(bookPage.getBooks().size());
+        
+        for (Book book : bookPage.getBooks()) {
+            bookResources.add(toBookResource.apply(book));
+        }
+        
+        final BookPageResource bookPageResource = new BookPageResource(bookResources);
+        bookPageResource.add(Link.of(requestUri.toUriString()).withSelfRel());
+        
+        if (null != bookPage.getNextCursor()) {
+            bookPageResource.add(cursorLink(requestUri, AFTER, BEFORE, bookPage.getNextCursor(), IanaLinkRelations.NEXT));
+        }
+        
+        if (null != bookPage.getPreviousCursor()) {
+            bookPageResource.add(cursorLink(requestUri, BEFORE, AFTER, bookPage.getPreviousCursor(), IanaLinkRelations.PREV));
+        }
+        
+        return bookPageResource;
+    }
+    
+    private static Link cursorLink(final UriComponentsBuilder requestUri, final String cursorParameter, final String otherCursorParameter, final Long cursor,
+            final LinkRelation linkRelation) {
+        
+        return Link.of(requestUri.cloneBuilder()
+                .replaceQueryParam(otherCursorParameter)
+                .replaceQueryParam(cursorParameter, cursor)
+                .toUriString()).withRel(linkRelation);
+    }
+}
@@ -1,14 +1,13 @@
 package com.nigel.bookgame.rest.resource;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.SortedMap;
 
 import org.springframework.hateoas.RepresentationModel;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.nigel.bookgame.rest.domain.Book;
-import com.nigel.bookgame.rest.domain.LineDetail;
+import com.nigel.bookgame.rest.domain.LineHistory;
 
 /**
  * Resource object representation of a book which captures what should be presented to the caller.
@@ -21,40 +20,30 @@ public class BookResource extends RepresentationModel<BookResource> {
 	private final String name;
 	private final List<String> lines;
 	private final boolean isComplete;
+	private final long version;
 	
+	// Everything exposed is taken from one snapshot of the book's lines, so the lines, completeness and version always agree.
 	public BookResource(final Book book) {
+	    
+	    final LineHistory lineHistory = book.getLineHistory();
+	    
 		this.id = book.getId();
 		this.name = book.getName();
-		this.lines = determineLinesToExpose(book);
-		this.isComplete = book.isComplete();
+		this.lines = determineLinesToExpose(lineHistory);
+		this.isComplete = lineHistory.isComplete();
+		this.version = lineHistory.getVersion();
 	}
 	
-	private List<String> determineLinesToExpose(final Book book) {
-        
-	    final List<String> linesToExpose = new ArrayList<String>();
-	    
-	    final SortedMap<Integer, LineDetail> lineDetailMap = book.getLineDetailMap();
+	// Full if complete, last line only if not. Neither case copies any lines.
+	private List<String> determineLinesToExpose(final LineHistory lineHistory) {
 	    
-	    if (book.isComplete()) {
-	        addAllLines(linesToExpose, lineDetailMap);
-	    }
-	    else {
-	        addLastLine(linesToExpose, lineDetailMap);
+	    if (lineHistory.isComplete()) {
+	        return lineHistory.getLines();
 	    }
 	    
-	    return linesToExpose;
-    }
-	
-    private void addAllLines(final List<String> linesToExpose, final SortedMap<Integer, LineDetail> lineDetailMap) {
-        for (Integer mapKey : lineDetailMap.keySet()) {
-            linesToExpose.add(lineDetailMap.get(mapKey).getLine());
-        }
-    }
-    
-    private void addLastLine(final List<String> linesToExpose, final SortedMap<Integer, LineDetail> lineDetailMap) {
-        if (!lineDetailMap.isEmpty()) {
-            linesToExpose.add(lineDetailMap.get(lineDetailMap.lastKey()).getLine());
-        }
+	    final String lastLine = lineHistory.lastLine();
+	    
+	    return (null == lastLine) ? Collections.<String>emptyList() : Collections.singletonList(lastLine);
     }
 	
     @JsonProperty("id")
@@ -73,4 +62,8 @@ public class BookResource extends RepresentationModel<BookResource> {
 	public boolean isComplete() {
 		return this.isComplete;
 	}
+	
+	public long getVersion() {
+	    return this.version;
+	}
 }
\ No newline at end of file
@@ -1,32 +1,72 @@
 package com.nigel.bookgame.rest.resource;
 
+import java.util.List;
+import java.util.function.Function;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.server.EntityLinks;
-import org.springframework.hateoas.Link;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import com.nigel.bookgame.rest.domain.Book;
 
 /**
  * Resource assembler for a book which enhances the resource to be exposed with HATEOAS links for self and update.
- * 
+ *
+ * EntityLinks is only asked where books live once per request, and the answer is kept with the request as a
+ * {@link BookLinkTemplate}, so every book assembled while answering it is linked without looking up the mapping or
+ * building a URI again.
+ *
  * @author NRawli01
  */
 @Component
 public class BookResourceAssembler extends ResourceAssembler<Book, BookResource> {
-	
+
+	private static final String LINK_TEMPLATE_ATTRIBUTE = BookResourceAssembler.class.getName() + ".linkTemplate";
+
 	@Autowired
 	protected EntityLinks entityLinks;
-	
+
 	@Override
 	public BookResource toResource(final Book book) {
-        
-        final Link selfLink = this.entityLinks.linkToItemResource(book, b -> b.getId());
-		
-		final BookResource bookResource = new BookResource(book);
-		bookResource.add(selfLink.withSelfRel());
-		bookResource.add(selfLink.withRel("update"));
-		
-		return bookResource;
+        return getLinkTemplate().toResource(book);
+	}
+
+	public BookBatchResource toBatchResource(final List<Book> books) {
+	    return getLinkTemplate().toBatchResource(books);
+	}
+
+	// Works out the links' base from the current request straight away, so resources can then be assembled on another
+	// thread (such as one streaming the response), where the request is no longer to hand.
+	public Function<Book, BookResource> bindToCurrentRequest() {
+	    return getLinkTemplate()::toResource;
+	}
+
+	// Every book's links start with this for the current request, so it is all a rendering of a book depends on besides the book.
+	public String getBookBaseUri() {
+	    return getLinkTemplate().getBookBaseUri();
+	}
+
+	private BookLinkTemplate getLinkTemplate() {
+
+	    final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+
+	    if (null == requestAttributes) {
+	        return createLinkTemplate();
+	    }
+
+	    BookLinkTemplate linkTemplate = (BookLinkTemplate) requestAttributes.getAttribute(LINK_TEMPLATE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+
+	    if (null == linkTemplate) {
+	        linkTemplate = createLinkTemplate();
+	        requestAttributes.setAttribute(LINK_TEMPLATE_ATTRIBUTE, linkTemplate, RequestAttributes.SCOPE_REQUEST);
+	    }
+
+	    return linkTemplate;
+	}
+
+	private BookLinkTemplate createLinkTemplate() {
+	    return new BookLinkTemplate(this.entityLinks.linkFor(Book.class).toUri().toString());
 	}
-}
\ No newline at end of file
+}
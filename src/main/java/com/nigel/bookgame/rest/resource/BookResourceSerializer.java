@@ -0,0 +1,46 @@
+package com.nigel.bookgame.rest.resource;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.hateoas.Links;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+
+/**
+ * Writes a {@link BookResource} straight to the generator, exactly as Jackson's bean serialiser would.
+ *
+ * @author nigel
+ */
+class BookResourceSerializer extends ResourceSerializer<BookResource> {
+
+    private static final long serialVersionUID = 1L;
+
+    BookResourceSerializer(final JsonSerializer<Object> beanSerializer, final boolean isHal) {
+        super(BookResource.class, beanSerializer, isHal);
+    }
+
+    @Override
+    protected ResourceSerializer<BookResource> withBeanSerializer(final JsonSerializer<Object> contextualBeanSerializer) {
+        return new BookResourceSerializer(contextualBeanSerializer, isHal());
+    }
+
+    // In the order Jackson finds the properties: fields first, then the getter renamed to id.
+    @Override
+    protected void writeFields(final BookResource bookResource, final Links links, final JsonGenerator generator) throws IOException {
+
+        final List<String> lines = bookResource.getLines();
+
+        generator.writeStringField("name", bookResource.getName());
+        generator.writeArrayFieldStart("lines");
+        for (int index = 0; index < lines.size(); index++) {
+            generator.writeString(lines.get(index));
+        }
+        generator.writeEndArray();
+        generator.writeNumberField("version", bookResource.getVersion());
+        generator.writeBooleanField("complete", bookResource.isComplete());
+        writeLinks(links, generator);
+        generator.writeNumberField("id", bookResource.getResourceId().longValue());
+    }
+}
@@ -0,0 +1,78 @@
+package com.nigel.bookgame.rest.resource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.config.HypermediaMappingInformation;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Writes book resources one at a time as newline delimited JSON (NDJSON), for streaming every book to a caller.
+ * 
+ * Each line is a book exactly as GET /book/{id} renders it, links included, so the mapper is configured for HAL in the
+ * same way as the one the controllers' responses go through. Nothing is held between books, so however many books are
+ * streamed only the one being written is in memory.
+ * 
+ * Books can also be written as the elements of the JSON array GET /book returns. A plain collection is not rendered as
+ * HAL, so its elements go through the application's own mapper, which lists links as they are held.
+ * 
+ * @author nigel
+ */
+@Component
+public class BookResourceStreamWriter {
+    
+    private static final byte LINE_SEPARATOR = '\n';
+    
+    private final ObjectWriter bookResourceWriter;
+    private final ObjectWriter listElementWriter;
+    
+    @Autowired
+    public BookResourceStreamWriter(final ObjectMapper objectMapper, final List<HypermediaMappingInformation> hypermediaMappingInformation) {
+        
+        final HypermediaMappingInformation halMappingInformation = hypermediaMappingInformation.stream()
+                .filter(mappingInformation -> mappingInformation.getMediaTypes().contains(MediaTypes.HAL_JSON))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("HAL hypermedia support is not enabled"));
+        
+        this.bookResourceWriter = halMappingInformation.configureObjectMapper(objectMapper.copy())
+                .writerFor(BookResource.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.listElementWriter = objectMapper.writerFor(BookResource.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+    
+    public byte[] toJson(final BookResource bookResource) throws JsonProcessingException {
+        return this.bookResourceWriter.writeValueAsBytes(bookResource);
+    }
+    
+    public void writeListElement(final BookResource bookResource, final OutputStream outputStream) throws IOException {
+        this.listElementWriter.writeValue(outputStream, bookResource);
+    }
+    
+    public byte[] toListElementJson(final BookResource bookResource) throws JsonProcessingException {
+        return this.listElementWriter.writeValueAsBytes(bookResource);
+    }
+    
+    public void writeLine(final BookResource bookResource, final OutputStream outputStream) throws IOException {
+        this.bookResourceWriter.writeValue(outputStream, bookResource);
+        outputStream.write(LINE_SEPARATOR);
+    }
+    
+    public byte[] toLine(final BookResource bookResource) throws JsonProcessingException {
+        
+        final byte[] json = toJson(bookResource);
+        final byte[] line = new byte[json.length + 1];
+        
+        System.arraycopy(json, 0, line, 0, json.length);
+        line[json.length] = LINE_SEPARATOR;
+        
+        return line;
+    }
+}
@@ -0,0 +1,176 @@
+package com.nigel.bookgame.rest.resource;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.LineHistory;
+
+/**
+ * Cache of complete books already rendered as JSON, so that a book which can never change again is built into a
+ * resource, given its links and run through Jackson once rather than on every request for it.
+ *
+ * Each book is held in both of the forms it is served in: as HAL, which is how GET /book/{id}, the NDJSON stream and
+ * pages of books render it, and as an element of the array GET /book returns. Callers write the bytes held straight to
+ * the response.
+ *
+ * Links are absolute, so a rendering is only used for requests whose links start with the same base URI, and a book
+ * asked for with a different base is rendered again in its place. A rendering is also only used for the exact lines it
+ * was made from, so a book replaced wholesale is never served as it was.
+ *
+ * The cache holds at most bookgame.completed-book-cache.max-bytes of JSON (64MB by default, 0 to turn it off). Books
+ * are evicted in the order they were first cached: complete books are all equally likely to be listed again, so there
+ * is nothing to gain from tracking which were read most recently, and reading a cached book takes no lock and writes
+ * nothing.
+ *
+ * @author nigel
+ */
+@Component
+public class CompletedBookJsonCache {
+
+    private final BookResourceStreamWriter bookResourceStreamWriter;
+    private final long maximumBytes;
+    private final ConcurrentMap<Long, RenderedBook> renderedBooks = new ConcurrentHashMap<Long, RenderedBook>();
+    private final Queue<Long> cachedIds = new ConcurrentLinkedQueue<Long>(); // Oldest first.
+    private final AtomicLong cachedBytes = new AtomicLong();
+
+    @Autowired
+    public CompletedBookJsonCache(final BookResourceStreamWriter bookResourceStreamWriter,
+            @Value("${bookgame.completed-book-cache.max-bytes:67108864}") final long maximumBytes) {
+        this.bookResourceStreamWriter = bookResourceStreamWriter;
+        this.maximumBytes = maximumBytes;
+    }
+
+    /*
+     * Returns the book rendered with links starting with the base URI given, rendering it with the function given if it
+     * is not cached yet, or null if the book is not complete (in which case it must be rendered afresh every time).
+     */
+    public RenderedBook find(final Book book, final String bookBaseUri, final Function<Book, BookResource> toResource) throws JsonProcessingException {
+
+        final LineHistory lineHistory = book.getLineHistory();
+
+        if (!lineHistory.isComplete()) {
+            return null;
+        }
+
+        final RenderedBook cachedBook = this.renderedBooks.get(book.getId());
+
+        if (null != cachedBook && cachedBook.isRenderingOf(lineHistory, bookBaseUri)) {
+            return cachedBook;
+        }
+
+        final BookResource bookResource = toResource.apply(book);
+        final RenderedBook renderedBook = new RenderedBook(lineHistory, bookBaseUri, this.bookResourceStreamWriter.toJson(bookResource),
+                this.bookResourceStreamWriter.toListElementJson(bookResource));
+
+        cache(book.getId(), cachedBook, renderedBook);
+
+        return renderedBook;
+    }
+
+    public int size() {
+        return this.renderedBooks.size();
+    }
+
+    public long getCachedBytes() {
+        return this.cachedBytes.get();
+    }
+
+    public void clear() {
+
+        this.cachedIds.clear();
+
+        for (Long id : this.renderedBooks.keySet()) {
+            evict(id);
+        }
+    }
+
+    // Only replaces the rendering looked at, so that of two threads rendering the same book only one is counted.
+    private void cache(final Long id, final RenderedBook cachedBook, final RenderedBook renderedBook) {
+
+        if (renderedBook.size() > this.maximumBytes) {
+            return;
+        }
+
+        if (null == cachedBook) {
+            if (null != this.renderedBooks.putIfAbsent(id, renderedBook)) {
+                return;
+            }
+            this.cachedIds.add(id);
+        }
+        else if (this.renderedBooks.replace(id, cachedBook, renderedBook)) {
+            this.cachedBytes.addAndGet(-cachedBook.size());
+        }
+        else {
+            return;
+        }
+
+        long bytes = this.cachedBytes.addAndGet(renderedBook.size());
+
+        while (bytes > this.maximumBytes) {
+
+            final Long oldestId = this.cachedIds.poll();
+
+            if (null == oldestId) {
+                return;
+            }
+
+            evict(oldestId);
+            bytes = this.cachedBytes.get();
+        }
+    }
+
+    private void evict(final Long id) {
+
+        final RenderedBook evictedBook = this.renderedBooks.remove(id);
+
+        if (null != evictedBook) {
+            this.cachedBytes.addAndGet(-evictedBook.size());
+        }
+    }
+
+    /**
+     * A complete book rendered as JSON in each of the forms it is served in. The arrays are shared, so must not be changed.
+     */
+    public static final class RenderedBook {
+
+        private final LineHistory lineHistory;
+        private final String bookBaseUri;
+        private final byte[] json;
+        private final byte[] listElementJson;
+
+        private RenderedBook(final LineHistory lineHistory, final String bookBaseUri, final byte[] json, final byte[] listElementJson) {
+            this.lineHistory = lineHistory;
+            this.bookBaseUri = bookBaseUri;
+            this.json = json;
+            this.listElementJson = listElementJson;
+        }
+
+        // As HAL, exactly as GET /book/{id} renders it.
+        public byte[] getJson() {
+            return this.json;
+        }
+
+        // As an element of the array GET /book renders.
+        public byte[] getListElementJson() {
+            return this.listElementJson;
+        }
+
+        private boolean isRenderingOf(final LineHistory currentLineHistory, final String currentBookBaseUri) {
+            return this.lineHistory == currentLineHistory && this.bookBaseUri.equals(currentBookBaseUri);
+        }
+
+        private long size() {
+            return this.json.length + this.listElementJson.length;
+        }
+    }
+}
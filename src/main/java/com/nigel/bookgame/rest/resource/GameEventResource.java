@@ -0,0 +1,50 @@
+package com.nigel.bookgame.rest.resource;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.nigel.bookgame.rest.domain.EGameEventType;
+import com.nigel.bookgame.rest.domain.GameEvent;
+
+/**
+ * Resource object representation of a game event, holding only the fields which apply to its type so that each event
+ * sent is a few dozen bytes.
+ * 
+ * - BOOK_COMPLETED: the ID of the book.
+ * - LOCK_CHANGED: the ID of the book and who now holds it, which is left out once the book is unlocked.
+ * - LEADERBOARD_CHANGED: the top places, as GET /leaderboard shows them.
+ * - RESYNC: nothing; events were dropped, so the current state should be fetched again.
+ * 
+ * @author nigel
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GameEventResource {
+    
+    private final EGameEventType type;
+    private final Long bookId;
+    private final String lockedBy;
+    private final List<LeaderboardResource.Player> leaderboard;
+    
+    public GameEventResource(final GameEvent gameEvent) {
+        this.type = gameEvent.getType();
+        this.bookId = gameEvent.getBookId();
+        this.lockedBy = (EGameEventType.LOCK_CHANGED == gameEvent.getType()) ? gameEvent.getPlayerName() : null;
+        this.leaderboard = (EGameEventType.LEADERBOARD_CHANGED == gameEvent.getType()) ? new LeaderboardResource(gameEvent.getTopPlayers()).getLeaderboard() : null;
+    }
+    
+    public EGameEventType getType() {
+        return this.type;
+    }
+    
+    public Long getBookId() {
+        return this.bookId;
+    }
+    
+    public String getLockedBy() {
+        return this.lockedBy;
+    }
+    
+    public List<LeaderboardResource.Player> getLeaderboard() {
+        return this.leaderboard;
+    }
+}
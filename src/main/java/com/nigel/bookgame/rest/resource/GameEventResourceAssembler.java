@@ -0,0 +1,19 @@
+package com.nigel.bookgame.rest.resource;
+
+import org.springframework.stereotype.Component;
+
+import com.nigel.bookgame.rest.domain.GameEvent;
+
+/**
+ * Resource assembler for a game event. As with {@link LeaderboardResourceAssembler} no HATEOAS links are included.
+ * 
+ * @author nigel
+ */
+@Component
+public class GameEventResourceAssembler extends ResourceAssembler<GameEvent, GameEventResource> {
+    
+    @Override
+    public GameEventResource toResource(final GameEvent gameEvent) {
+        return new GameEventResource(gameEvent);
+    }
+}
@@ -4,7 +4,7 @@ import java.util.List;
 
 import org.springframework.stereotype.Component;
 
-import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.PlayerScore;
 
 /**
  * Resource assembler for a leaderboard. Included for similarity with {@link BookResourceAssembler}
@@ -13,11 +13,11 @@ import com.nigel.bookgame.rest.domain.Book;
  * @author nigel
  */
 @Component
-public class LeaderboardResourceAssembler extends ResourceAssembler<List<Book>, LeaderboardResource> {
+public class LeaderboardResourceAssembler extends ResourceAssembler<List<PlayerScore>, LeaderboardResource> {
     
     @Override
-    public LeaderboardResource toResource(List<Book> books) {
-        LeaderboardResource resource = new LeaderboardResource(books);
+    public LeaderboardResource toResource(List<PlayerScore> playerScores) {
+        LeaderboardResource resource = new LeaderboardResource(playerScores);
         return resource;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package com.nigel.bookgame.rest.resource;
+
+import java.io.IOException;
+
+import org.springframework.hateoas.Links;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.nigel.bookgame.rest.resource.LeaderboardResource.Player;
+
+/**
+ * Writes a {@link LeaderboardResource} and its players straight to the generator, exactly as Jackson's bean serialiser
+ * would.
+ *
+ * @author nigel
+ */
+class LeaderboardResourceSerializer extends ResourceSerializer<LeaderboardResource> {
+
+    private static final long serialVersionUID = 1L;
+
+    LeaderboardResourceSerializer(final JsonSerializer<Object> beanSerializer, final boolean isHal) {
+        super(LeaderboardResource.class, beanSerializer, isHal);
+    }
+
+    @Override
+    protected ResourceSerializer<LeaderboardResource> withBeanSerializer(final JsonSerializer<Object> contextualBeanSerializer) {
+        return new LeaderboardResourceSerializer(contextualBeanSerializer, isHal());
+    }
+
+    @Override
+    protected void writeFields(final LeaderboardResource leaderboardResource, final Links links, final JsonGenerator generator) throws IOException {
+
+        generator.writeArrayFieldStart("leaderboard");
+        for (Player player : leaderboardResource.getLeaderboard()) {
+            generator.writeStartObject();
+            generator.writeStringField("playerName", player.getPlayerName());
+            if (null == player.getScore()) {
+                generator.writeNullField("score");
+            }
+            else {
+                generator.writeNumberField("score", player.getScore().intValue());
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        writeLinks(links, generator);
+    }
+}
@@ -0,0 +1,53 @@
+package com.nigel.bookgame.rest.resource;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.nigel.bookgame.rest.domain.Book;
+
+/**
+ * Resource assembler for a book in the reactive deployment, adding the same self and update links as
+ * {@link BookResourceAssembler}.
+ *
+ * There is no current servlet request for EntityLinks to take the host from, so the links are built from the request
+ * being answered instead, which keeps them absolute just as they are when served by Tomcat. Anything assembling more
+ * than one book for a request binds to it first, so the base is only built once.
+ *
+ * @author nigel
+ */
+@Component
+public class ReactiveBookResourceAssembler {
+
+    private static final String BOOK_PATH = "/book";
+
+    public BookResource toResource(final Book book, final ServerHttpRequest request) {
+        return createLinkTemplate(request).toResource(book);
+    }
+
+    public BookBatchResource toBatchResource(final List<Book> books, final ServerHttpRequest request) {
+        return createLinkTemplate(request).toBatchResource(books);
+    }
+
+    public Function<Book, BookResource> bindTo(final ServerHttpRequest request) {
+        return createLinkTemplate(request)::toResource;
+    }
+
+    // Every book's links start with this for the request, as they do with BookResourceAssembler.getBookBaseUri().
+    public String getBookBaseUri(final ServerHttpRequest request) {
+        return UriComponentsBuilder.fromUri(request.getURI()).replacePath(BOOK_PATH).replaceQuery(null).fragment(null).toUriString();
+    }
+
+    public Collection<BookResource> toResourceCollection(final Collection<Book> books, final ServerHttpRequest request) {
+        return books.stream().map(bindTo(request)).collect(Collectors.toList());
+    }
+
+    private BookLinkTemplate createLinkTemplate(final ServerHttpRequest request) {
+        return new BookLinkTemplate(getBookBaseUri(request));
+    }
+}
@@ -0,0 +1,69 @@
+package com.nigel.bookgame.rest.resource;
+
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.mediatype.hal.RepresentationModelMixin;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+
+/**
+ * Jackson module which has books and the leaderboard written by {@link BookResourceSerializer} and
+ * {@link LeaderboardResourceSerializer} rather than reflectively. Spring Boot registers it with the application's mapper,
+ * and so with every copy of it, including those Spring HATEOAS makes to render HAL.
+ *
+ * Each mapper decides for itself when it first meets one of the resources. Mappers which render links neither as HAL
+ * nor as a plain list, or which name or leave out properties other than by default, keep Jackson's serialiser, so that
+ * what they write never changes.
+ *
+ * @author nigel
+ */
+@Component
+public class ResourceSerializationModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    public ResourceSerializationModule() {
+        super(ResourceSerializationModule.class.getSimpleName());
+        setSerializerModifier(new ResourceSerializerModifier());
+    }
+
+    private static class ResourceSerializerModifier extends BeanSerializerModifier {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public JsonSerializer<?> modifySerializer(final SerializationConfig config, final BeanDescription beanDescription, final JsonSerializer<?> serializer) {
+
+            final Class<?> beanClass = beanDescription.getBeanClass();
+
+            if ((BookResource.class != beanClass && LeaderboardResource.class != beanClass) || !writesPropertiesByDefault(config)) {
+                return serializer;
+            }
+
+            final Class<?> representationModelMixin = config.findMixInClassFor(RepresentationModel.class);
+
+            if (null != representationModelMixin && RepresentationModelMixin.class != representationModelMixin) {
+                return serializer; // Some other hypermedia format.
+            }
+
+            final boolean isHal = null != representationModelMixin;
+
+            return (BookResource.class == beanClass)
+                    ? new BookResourceSerializer((JsonSerializer<Object>) serializer, isHal)
+                    : new LeaderboardResourceSerializer((JsonSerializer<Object>) serializer, isHal);
+        }
+
+        private static boolean writesPropertiesByDefault(final SerializationConfig config) {
+
+            final JsonInclude.Include inclusion = config.getDefaultPropertyInclusion().getValueInclusion();
+
+            return null == config.getPropertyNamingStrategy() && (JsonInclude.Include.ALWAYS == inclusion || JsonInclude.Include.USE_DEFAULTS == inclusion);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.nigel.bookgame.rest.resource;
+
+import java.io.IOException;
+
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.Links;
+import org.springframework.hateoas.RepresentationModel;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Base of the serialisers which write a resource's fields straight to the generator, in the order and form Jackson's
+ * own bean serialiser would, instead of finding and calling each getter reflectively.
+ *
+ * Links are written as HAL or as a plain list, depending on which the mapper renders. Only links with nothing but an
+ * href and a relation, and no two with the same relation, are written by hand; anything else is handed to Jackson's
+ * serialiser, which is kept for that and resolved alongside this one.
+ *
+ * @author nigel
+ *
+ * @param <T> The type of the resource.
+ */
+abstract class ResourceSerializer<T extends RepresentationModel<T>> extends StdSerializer<T> implements ContextualSerializer, ResolvableSerializer {
+
+    private static final long serialVersionUID = 1L;
+
+    private final JsonSerializer<Object> beanSerializer;
+    private final boolean isHal;
+
+    protected ResourceSerializer(final Class<T> resourceType, final JsonSerializer<Object> beanSerializer, final boolean isHal) {
+        super(resourceType);
+        this.beanSerializer = beanSerializer;
+        this.isHal = isHal;
+    }
+
+    protected abstract ResourceSerializer<T> withBeanSerializer(JsonSerializer<Object> contextualBeanSerializer);
+
+    protected abstract void writeFields(T resource, Links links, JsonGenerator generator) throws IOException;
+
+    protected boolean isHal() {
+        return this.isHal;
+    }
+
+    // The links are only asked for once, since each time they are it copies them.
+    @Override
+    public void serialize(final T resource, final JsonGenerator generator, final SerializerProvider provider) throws IOException {
+
+        final Links links = resource.getLinks();
+
+        if (!canWriteLinks(links)) {
+            this.beanSerializer.serialize(resource, generator, provider);
+            return;
+        }
+
+        generator.writeStartObject(resource);
+        writeFields(resource, links, generator);
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(final T resource, final JsonGenerator generator, final SerializerProvider provider, final TypeSerializer typeSerializer)
+            throws IOException {
+        this.beanSerializer.serializeWithType(resource, generator, provider, typeSerializer);
+    }
+
+    @Override
+    public void resolve(final SerializerProvider provider) throws JsonMappingException {
+        if (this.beanSerializer instanceof ResolvableSerializer) {
+            ((ResolvableSerializer) this.beanSerializer).resolve(provider);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public JsonSerializer<?> createContextual(final SerializerProvider provider, final BeanProperty property) throws JsonMappingException {
+
+        if (!(this.beanSerializer instanceof ContextualSerializer)) {
+            return this;
+        }
+
+        final JsonSerializer<?> contextualBeanSerializer = ((ContextualSerializer) this.beanSerializer).createContextual(provider, property);
+
+        return (contextualBeanSerializer == this.beanSerializer) ? this : withBeanSerializer((JsonSerializer<Object>) contextualBeanSerializer);
+    }
+
+    // HAL leaves out empty links altogether, where a plain list is always written.
+    protected void writeLinks(final Links links, final JsonGenerator generator) throws IOException {
+
+        if (!this.isHal) {
+            generator.writeArrayFieldStart("links");
+            for (Link link : links) {
+                generator.writeStartObject();
+                generator.writeStringField("rel", link.getRel().value());
+                generator.writeStringField("href", link.getHref());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            return;
+        }
+
+        if (links.isEmpty()) {
+            return;
+        }
+
+        generator.writeObjectFieldStart("_links");
+        for (Link link : links) {
+            generator.writeObjectFieldStart(link.getRel().value());
+            generator.writeStringField("href", link.getHref());
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+
+    private static boolean canWriteLinks(final Links links) {
+
+        int index = 0;
+
+        for (Link link : links) {
+
+            if (!isPlain(link)) {
+                return false;
+            }
+
+            int otherIndex = 0;
+
+            for (Link otherLink : links) {
+                if (otherIndex++ < index && otherLink.hasRel(link.getRel())) {
+                    return false; // HAL would group the two into an array.
+                }
+            }
+
+            index++;
+        }
+
+        return true;
+    }
+
+    private static boolean isPlain(final Link link) {
+        return !link.isTemplated() && null == link.getHreflang() && null == link.getMedia() && null == link.getTitle() && null == link.getType()
+                && null == link.getDeprecation() && null == link.getProfile() && null == link.getName();
+    }
+}
@@ -0,0 +1,124 @@
+package com.nigel.bookgame.rest.benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares benchmark results with a baseline saved from an earlier run, both as written by JMH in JSON.
+ *
+ * Results are matched by benchmark, parameters and thread count. A result is a regression if its score is worse than the
+ * baseline by more than the tolerance, where worse means lower for throughput and higher for time per operation.
+ * Benchmarks which appear in only one of the two are reported but do not count as regressions.
+ *
+ * @author nigel
+ */
+public final class BenchmarkBaseline {
+
+    private static final String RESULT_FILE_PREFIX = "results-t";
+    private static final String RESULT_FILE_SUFFIX = ".json";
+
+    private BenchmarkBaseline() {
+    }
+
+    public static String resultFileName(final int threadCount) {
+        return RESULT_FILE_PREFIX + threadCount + RESULT_FILE_SUFFIX;
+    }
+
+    // Returns false if anything has regressed.
+    public static boolean compare(final Path baselineDirectory, final Path resultDirectory, final double tolerance, final PrintStream report) throws IOException {
+
+        final Map<String, Score> baselineScores = readScores(baselineDirectory);
+        final Map<String, Score> currentScores = readScores(resultDirectory);
+
+        boolean isRegressionFree = true;
+
+        for (Map.Entry<String, Score> currentScore : currentScores.entrySet()) {
+
+            final Score baselineScore = baselineScores.get(currentScore.getKey());
+
+            if (null == baselineScore) {
+                report.printf("NEW        %s: %.3f %s%n", currentScore.getKey(), currentScore.getValue().score, currentScore.getValue().unit);
+                continue;
+            }
+
+            final double change = currentScore.getValue().relativeImprovementOver(baselineScore);
+            final boolean isRegression = change < -tolerance;
+
+            report.printf("%-10s %s: %.3f -> %.3f %s (%+.1f%%)%n", isRegression ? "REGRESSED" : "OK", currentScore.getKey(), baselineScore.score,
+                    currentScore.getValue().score, currentScore.getValue().unit, change * 100);
+
+            isRegressionFree &= !isRegression;
+        }
+
+        for (String missingKey : baselineScores.keySet()) {
+            if (!currentScores.containsKey(missingKey)) {
+                report.printf("MISSING    %s%n", missingKey);
+            }
+        }
+
+        return isRegressionFree;
+    }
+
+    static Map<String, Score> readScores(final Path directory) throws IOException {
+
+        final ObjectMapper objectMapper = new ObjectMapper();
+        final Map<String, Score> scores = new TreeMap<String, Score>();
+
+        try (DirectoryStream<Path> resultFiles = Files.newDirectoryStream(directory, RESULT_FILE_PREFIX + "*" + RESULT_FILE_SUFFIX)) {
+            for (Path resultFile : resultFiles) {
+                for (JsonNode result : objectMapper.readTree(resultFile.toFile())) {
+                    final JsonNode primaryMetric = result.get("primaryMetric");
+                    scores.put(keyOf(result), new Score(result.get("mode").asText(), primaryMetric.get("score").asDouble(), primaryMetric.get("scoreUnit").asText()));
+                }
+            }
+        }
+
+        return scores;
+    }
+
+    private static String keyOf(final JsonNode result) {
+
+        final StringBuilder key = new StringBuilder(result.get("benchmark").asText());
+        final JsonNode params = result.get("params");
+
+        if (null != params) {
+            final Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+            while (fields.hasNext()) {
+                final Map.Entry<String, JsonNode> field = fields.next();
+                key.append(' ').append(field.getKey()).append('=').append(field.getValue().asText());
+            }
+        }
+
+        return key.append(" threads=").append(result.get("threads").asInt()).toString();
+    }
+
+    static class Score {
+
+        private final String mode;
+        private final double score;
+        private final String unit;
+
+        Score(final String mode, final double score, final String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.unit = unit;
+        }
+
+        // Positive when better than the baseline, negative when worse, as a fraction of the baseline.
+        double relativeImprovementOver(final Score baseline) {
+
+            final double change = (this.score - baseline.score) / baseline.score;
+
+            return "thrpt".equals(this.mode) ? change : -change;
+        }
+    }
+}
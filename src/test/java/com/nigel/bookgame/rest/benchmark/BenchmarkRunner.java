@@ -0,0 +1,96 @@
+package com.nigel.bookgame.rest.benchmark;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks once for each thread count and writes the results of each run as JSON.
+ *
+ * Settings are taken from system properties so that they can be passed through Maven (see the benchmark profile):
+ *
+ * - benchmark.include: regular expression of the benchmarks to run (default all of them).
+ * - benchmark.threads: comma separated thread counts (default 1 and 4).
+ * - benchmark.results: directory the results are written to (default target/benchmarks).
+ * - benchmark.baseline: directory of earlier results to compare against, failing if anything has regressed.
+ * - benchmark.tolerance: fraction by which a score may be worse than its baseline (default 0.1).
+ * - benchmark.saveBaseline: directory to copy the results to, to become the baseline for later runs.
+ * - benchmark.profilers: comma separated JMH profilers to run alongside (none by default), for example gc to report
+ *   bytes allocated per operation.
+ *
+ * Any arguments are passed to JMH as they would be on its own command line, for example -f 3 or -p numberOfBooks=1000.
+ *
+ * @author nigel
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(final String[] arguments) throws RunnerException, CommandLineOptionException, IOException {
+
+        final String include = System.getProperty("benchmark.include", "com\\.nigel\\.bookgame\\.rest\\.benchmark\\..*");
+        final Path resultDirectory = Paths.get(System.getProperty("benchmark.results", "target/benchmarks"));
+
+        Files.createDirectories(resultDirectory);
+
+        for (String threadCount : System.getProperty("benchmark.threads", "1,4").split(",")) {
+
+            final Path resultFile = resultDirectory.resolve(BenchmarkBaseline.resultFileName(Integer.parseInt(threadCount.trim())));
+
+            final ChainedOptionsBuilder options = new OptionsBuilder()
+                    .parent(new CommandLineOptions(arguments))
+                    .include(include)
+                    .threads(Integer.parseInt(threadCount.trim()))
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultFile.toString());
+
+            for (String profiler : System.getProperty("benchmark.profilers", "").split(",")) {
+                if (!profiler.isBlank()) {
+                    options.addProfiler(profiler.trim());
+                }
+            }
+
+            new Runner(options.build()).run();
+        }
+
+        final String saveBaselineDirectory = System.getProperty("benchmark.saveBaseline");
+
+        if (null != saveBaselineDirectory && !saveBaselineDirectory.isEmpty()) {
+            saveBaseline(resultDirectory, Paths.get(saveBaselineDirectory));
+        }
+
+        final String baselineDirectory = System.getProperty("benchmark.baseline");
+
+        if (null != baselineDirectory && !baselineDirectory.isEmpty()) {
+
+            final double tolerance = Double.parseDouble(System.getProperty("benchmark.tolerance", "0.1"));
+
+            if (!BenchmarkBaseline.compare(Paths.get(baselineDirectory), resultDirectory, tolerance, System.out)) {
+                System.exit(1);
+            }
+        }
+    }
+
+    private static void saveBaseline(final Path resultDirectory, final Path baselineDirectory) throws IOException {
+
+        Files.createDirectories(baselineDirectory);
+
+        try (DirectoryStream<Path> resultFiles = Files.newDirectoryStream(resultDirectory, "*.json")) {
+            for (Path resultFile : resultFiles) {
+                Files.copy(resultFile, baselineDirectory.resolve(resultFile.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.nigel.bookgame.rest.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DelegatingLinkRelationProvider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nigel.bookgame.rest.Application;
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.repository.BookRepository;
+
+/**
+ * Set-up shared by the benchmarks.
+ *
+ * @author nigel
+ */
+final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    // The real application context without a web server, so repositories are wired exactly as they are in production.
+    static ConfigurableApplicationContext startApplication() {
+        return new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.main.banner-mode=off", "--logging.level.root=WARN");
+    }
+
+    // Configured for HAL as Spring HATEOAS configures the mapper it renders responses with.
+    static ObjectMapper createHalObjectMapper() {
+
+        final ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new Jackson2HalModule());
+        objectMapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(new DelegatingLinkRelationProvider(), CurieProvider.NONE,
+                MessageResolver.DEFAULTS_ONLY));
+
+        return objectMapper;
+    }
+
+    static void populate(final BookRepository bookRepository, final int numberOfBooks) {
+
+        bookRepository.clear();
+
+        for (int index = 0; index < numberOfBooks; index++) {
+            final Book book = new Book();
+            book.setName("Book " + index);
+            bookRepository.create(book);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.nigel.bookgame.rest.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.repository.BookRepository;
+
+/**
+ * Benchmark for creating books in {@link BookRepository} on top of an existing number of books.
+ *
+ * Creating books grows the repository, so it is put back to the starting number of books before every iteration and
+ * iterations are kept short to stop the repository drifting far from that number.
+ *
+ * @author nigel
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookCreateBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int numberOfBooks;
+
+    private ConfigurableApplicationContext applicationContext;
+    private BookRepository bookRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.applicationContext = Benchmarks.startApplication();
+        this.bookRepository = this.applicationContext.getBean(BookRepository.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetBooks() {
+        Benchmarks.populate(this.bookRepository, this.numberOfBooks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.applicationContext.close();
+    }
+
+    @Benchmark
+    public Book create() {
+
+        final Book book = new Book();
+        book.setName("New book");
+
+        return this.bookRepository.create(book);
+    }
+}
@@ -0,0 +1,97 @@
+package com.nigel.bookgame.rest.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.server.EntityLinks;
+import org.springframework.hateoas.server.core.ControllerEntityLinks;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilderFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.nigel.bookgame.rest.controller.BookController;
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.resource.BookResource;
+import com.nigel.bookgame.rest.resource.BookResourceAssembler;
+
+/**
+ * Benchmarks for linking a book while answering a request: asking EntityLinks for every book, as the assembler used to,
+ * against {@link BookResourceAssembler} as it is now, both book by book and bound to the request as listings use it.
+ *
+ * Each thread has a request of its own bound to it, as a Tomcat thread would.
+ *
+ * @author nigel
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BookLinkBenchmark {
+
+    private EntityLinks entityLinks;
+    private BookResourceAssembler bookResourceAssembler;
+    private Function<Book, BookResource> boundToResource;
+    private Book book;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/book");
+        request.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        this.entityLinks = new ControllerEntityLinks(List.of(BookController.class), new WebMvcLinkBuilderFactory());
+        this.bookResourceAssembler = new BookResourceAssembler();
+        ReflectionTestUtils.setField(this.bookResourceAssembler, "entityLinks", this.entityLinks);
+        this.boundToResource = this.bookResourceAssembler.bindToCurrentRequest();
+
+        this.book = new Book();
+        this.book.setId(Long.valueOf(12345));
+        this.book.setName("A book about benchmarking");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public BookResource linkWithEntityLinks() {
+
+        final Link selfLink = this.entityLinks.linkToItemResource(this.book, Book::getId);
+
+        final BookResource bookResource = new BookResource(this.book);
+        bookResource.add(selfLink.withSelfRel());
+        bookResource.add(selfLink.withRel("update"));
+
+        return bookResource;
+    }
+
+    @Benchmark
+    public BookResource linkWithAssembler() {
+        return this.bookResourceAssembler.toResource(this.book);
+    }
+
+    @Benchmark
+    public BookResource linkWithAssemblerBoundToRequest() {
+        return this.boundToResource.apply(this.book);
+    }
+}
@@ -0,0 +1,92 @@
+package com.nigel.bookgame.rest.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.nigel.bookgame.rest.domain.BookContainer;
+import com.nigel.bookgame.rest.domain.ERetrievalOutcome;
+import com.nigel.bookgame.rest.domain.EUpdateOutcome;
+import com.nigel.bookgame.rest.repository.BookRepository;
+
+/**
+ * Benchmarks for finding (and so locking) and updating books in {@link BookRepository} as the number of books grows.
+ *
+ * Each benchmark thread plays as its own player against books picked at random, so with more than one thread some
+ * attempts find the book locked by another player, as they would in a real game.
+ *
+ * @author nigel
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookRepositoryBenchmark {
+
+    private static final AtomicInteger NUMBER_OF_PLAYERS = new AtomicInteger();
+
+    @Param({ "1000", "100000", "1000000" })
+    public int numberOfBooks;
+
+    private ConfigurableApplicationContext applicationContext;
+    private BookRepository bookRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.applicationContext = Benchmarks.startApplication();
+        this.bookRepository = this.applicationContext.getBean(BookRepository.class);
+        Benchmarks.populate(this.bookRepository, this.numberOfBooks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.applicationContext.close();
+    }
+
+    @Benchmark
+    public BookContainer findById(final Player player) {
+        return this.bookRepository.findById(player.nextBookId(this.numberOfBooks), player.playerName);
+    }
+
+    // The original round trip of the game: lock the book, then hand it back unlocked.
+    @Benchmark
+    public EUpdateOutcome update(final Player player) {
+
+        final Long id = player.nextBookId(this.numberOfBooks);
+        final BookContainer bookContainer = this.bookRepository.findById(id, player.playerName);
+
+        if (ERetrievalOutcome.SUCCESS != bookContainer.getRetrievalOutcome()) {
+            return EUpdateOutcome.REQUESTING_PLAYER_DOES_NOT_HAVE_LOCK;
+        }
+
+        return this.bookRepository.update(id, bookContainer.getBook(), player.playerName, true);
+    }
+
+    @State(Scope.Thread)
+    public static class Player {
+
+        private final String playerName = "Player " + NUMBER_OF_PLAYERS.incrementAndGet();
+        private final SplittableRandom random = new SplittableRandom(this.playerName.hashCode());
+
+        private Long nextBookId(final int numberOfBooks) {
+            return Long.valueOf(1 + this.random.nextInt(numberOfBooks));
+        }
+    }
+}
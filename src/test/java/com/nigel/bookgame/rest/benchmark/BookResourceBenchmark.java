@@ -0,0 +1,114 @@
+package com.nigel.bookgame.rest.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.Link;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.PlayerRegistry;
+import com.nigel.bookgame.rest.resource.BookResource;
+import com.nigel.bookgame.rest.resource.ResourceSerializationModule;
+
+/**
+ * Benchmarks for presenting a book: building its {@link BookResource} and serialising it as HAL JSON, for a book in
+ * progress (only the last line shown) and a complete one (every line shown). Each book is serialised both by Jackson's
+ * reflective bean serialiser and by hand, as the {@link ResourceSerializationModule} the application registers does.
+ *
+ * @author nigel
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookResourceBenchmark {
+
+    private final PlayerRegistry playerRegistry = new PlayerRegistry();
+    private ObjectMapper objectMapper;
+    private ObjectMapper handWrittenObjectMapper;
+    private Book incompleteBook;
+    private Book completeBook;
+    private BookResource incompleteBookResource;
+    private BookResource completeBookResource;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        this.objectMapper = Benchmarks.createHalObjectMapper();
+        this.handWrittenObjectMapper = Benchmarks.createHalObjectMapper().registerModule(new ResourceSerializationModule());
+
+        this.incompleteBook = createBook(1, 3);
+        this.completeBook = createBook(2, 5);
+        this.incompleteBookResource = createBookResource(this.incompleteBook);
+        this.completeBookResource = createBookResource(this.completeBook);
+    }
+
+    @Benchmark
+    public BookResource createIncompleteBookResource() {
+        return createBookResource(this.incompleteBook);
+    }
+
+    @Benchmark
+    public BookResource createCompleteBookResource() {
+        return createBookResource(this.completeBook);
+    }
+
+    @Benchmark
+    public byte[] serialiseIncompleteBook() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(this.incompleteBookResource);
+    }
+
+    @Benchmark
+    public byte[] serialiseCompleteBook() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(this.completeBookResource);
+    }
+
+    @Benchmark
+    public byte[] serialiseIncompleteBookByHand() throws JsonProcessingException {
+        return this.handWrittenObjectMapper.writeValueAsBytes(this.incompleteBookResource);
+    }
+
+    @Benchmark
+    public byte[] serialiseCompleteBookByHand() throws JsonProcessingException {
+        return this.handWrittenObjectMapper.writeValueAsBytes(this.completeBookResource);
+    }
+
+    // The same links as BookResourceAssembler adds.
+    private BookResource createBookResource(final Book book) {
+
+        final BookResource bookResource = new BookResource(book);
+        final String bookUri = "http://localhost:8080/book/" + book.getId();
+
+        bookResource.add(Link.of(bookUri));
+        bookResource.add(Link.of(bookUri, "update"));
+
+        return bookResource;
+    }
+
+    private Book createBook(final long id, final int numberOfLines) {
+
+        final Book book = new Book();
+        book.setId(Long.valueOf(id));
+        book.setName("A book about benchmarking");
+
+        for (int line = 1; line <= numberOfLines; line++) {
+            book.addLineToLineDetailMap("This is line number " + line + " of a book written one line at a time by different players.", this.playerRegistry.idOf("Player " + line));
+        }
+
+        return book;
+    }
+}
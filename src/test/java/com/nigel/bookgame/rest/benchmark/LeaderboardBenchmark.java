@@ -0,0 +1,102 @@
+package com.nigel.bookgame.rest.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.PlayerRegistry;
+import com.nigel.bookgame.rest.repository.LeaderboardRepository;
+import com.nigel.bookgame.rest.resource.LeaderboardResource;
+
+/**
+ * Benchmarks for building the leaderboard and scoring completed books.
+ *
+ * Contributors are drawn so that a few players write a large share of the lines and most players write only a few,
+ * which is how players of a real game are spread and which produces plenty of tied scores.
+ *
+ * @author nigel
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LeaderboardBenchmark {
+
+    private static final int LINES_PER_BOOK = 5;
+    private static final int NUMBER_OF_PLACES_SHOWN = 5;
+    private static final int NUMBER_OF_SPARE_BOOKS = 1024;
+
+    @Param({ "1000", "100000" })
+    public int numberOfCompletedBooks;
+
+    @Param({ "100", "10000" })
+    public int numberOfPlayers;
+
+    private PlayerRegistry playerRegistry;
+    private LeaderboardRepository leaderboardRepository;
+    private Book[] spareBooks;
+    private int nextSpareBook;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        final SplittableRandom random = new SplittableRandom(42);
+
+        this.playerRegistry = new PlayerRegistry();
+        this.leaderboardRepository = new LeaderboardRepository(this.playerRegistry);
+
+        for (int index = 0; index < this.numberOfCompletedBooks; index++) {
+            this.leaderboardRepository.recordCompletedBook(createCompletedBook(random));
+        }
+
+        this.spareBooks = new Book[NUMBER_OF_SPARE_BOOKS];
+
+        for (int index = 0; index < NUMBER_OF_SPARE_BOOKS; index++) {
+            this.spareBooks[index] = createCompletedBook(random);
+        }
+    }
+
+    @Benchmark
+    public LeaderboardResource showLeaderboard() {
+        return new LeaderboardResource(this.leaderboardRepository.findTopPlayers(NUMBER_OF_PLACES_SHOWN));
+    }
+
+    // Scores keep rising as the same spare books are scored over and over, which moves players around the rankings just as new books would.
+    @Benchmark
+    public void recordCompletedBook() {
+        this.leaderboardRepository.recordCompletedBook(this.spareBooks[this.nextSpareBook++ & (NUMBER_OF_SPARE_BOOKS - 1)]);
+    }
+
+    private Book createCompletedBook(final SplittableRandom random) {
+
+        final Book book = new Book();
+
+        for (int line = 0; line < LINES_PER_BOOK; line++) {
+            book.addLineToLineDetailMap("A line.", this.playerRegistry.idOf("Player " + skewedPlayer(random)));
+        }
+
+        return book;
+    }
+
+    private int skewedPlayer(final SplittableRandom random) {
+
+        final double uniform = random.nextDouble();
+
+        return (int) (this.numberOfPlayers * uniform * uniform * uniform);
+    }
+}
@@ -0,0 +1,69 @@
+package com.nigel.bookgame.rest.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nigel.bookgame.rest.domain.PlayerScore;
+import com.nigel.bookgame.rest.resource.LeaderboardResource;
+import com.nigel.bookgame.rest.resource.ResourceSerializationModule;
+
+/**
+ * Benchmarks for serialising the leaderboard as HAL JSON, by Jackson's reflective bean serialiser and by hand as the
+ * {@link ResourceSerializationModule} the application registers does, for the default number of places shown.
+ *
+ * @author nigel
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LeaderboardResourceBenchmark {
+
+    private static final int NUMBER_OF_PLACES_SHOWN = 5;
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper handWrittenObjectMapper;
+    private LeaderboardResource leaderboardResource;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        this.objectMapper = Benchmarks.createHalObjectMapper();
+        this.handWrittenObjectMapper = Benchmarks.createHalObjectMapper().registerModule(new ResourceSerializationModule());
+
+        final List<PlayerScore> playerScores = new ArrayList<PlayerScore>();
+
+        for (int place = 1; place <= NUMBER_OF_PLACES_SHOWN; place++) {
+            playerScores.add(new PlayerScore(place, "Player " + place, 1000 - place));
+        }
+
+        this.leaderboardResource = new LeaderboardResource(playerScores);
+    }
+
+    @Benchmark
+    public byte[] serialiseLeaderboard() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(this.leaderboardResource);
+    }
+
+    @Benchmark
+    public byte[] serialiseLeaderboardByHand() throws JsonProcessingException {
+        return this.handWrittenObjectMapper.writeValueAsBytes(this.leaderboardResource);
+    }
+}
@@ -0,0 +1,92 @@
+package com.nigel.bookgame.rest.benchmark;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.LineDetail;
+import com.nigel.bookgame.rest.domain.LineHistory;
+import com.nigel.bookgame.rest.domain.PlayerRegistry;
+import com.nigel.bookgame.rest.resource.BookResource;
+
+/**
+ * Memory footprint comparison between the compact {@link LineHistory} of a completed book and the map of
+ * {@link LineDetail} objects books used to hold, measured by walking the object graphs with JOL. Exits with a failure
+ * unless the history is at least three times smaller, both before anyone has read it and after it has been rendered.
+ *
+ * Player names are shared across books in either case (a player writes many lines), so they are left out of the count
+ * for the map. The history only holds player IDs, so has no names to leave out. The history is measured first before
+ * anyone has read its lines, as most finished books are, and then again after the book has been rendered as JSON and
+ * its line details read, as a listing does, since reading a finished book must not grow it back.
+ *
+ * Walking object graphs depends on the JVM's layout rather than on the code, so this runs with the benchmarks (see the
+ * benchmark profile) rather than with the unit tests.
+ *
+ * @author nigel
+ */
+public final class LineHistoryFootprint {
+
+    private static final String[] PLAYER_NAMES = { "Nigel", "Marie", "Jeremy", "Chloe", "Steph" };
+
+    private LineHistoryFootprint() {
+    }
+
+    public static void main(final String[] arguments) throws JsonProcessingException {
+
+        final SortedMap<Integer, LineDetail> lineDetailMap = new TreeMap<Integer, LineDetail>();
+        final Book book = new Book();
+
+        for (int index = 0; index < PLAYER_NAMES.length; index++) {
+            // Fresh strings, as they would be when deserialised from separate requests.
+            lineDetailMap.put(index + 1, new LineDetail(new String("Line " + (index + 1) + "."), new String(PLAYER_NAMES[index])));
+            book.addLineToLineDetailMap(new String("Line " + (index + 1) + "."), index);
+        }
+
+        final LineHistory lineHistory = book.getLineHistory();
+
+        final long lineDetailMapSize = GraphLayout.parseInstance(lineDetailMap).totalSize() - sizeOfPlayerNames(lineDetailMap);
+        final long lineHistorySize = GraphLayout.parseInstance(lineHistory).totalSize();
+
+        render(book);
+
+        final long renderedLineHistorySize = GraphLayout.parseInstance(lineHistory).totalSize();
+
+        System.out.println("Completed book of " + PLAYER_NAMES.length + " lines: line detail map " + lineDetailMapSize + " bytes, frozen line history "
+                + lineHistorySize + " bytes, " + renderedLineHistorySize + " bytes after rendering");
+
+        if (!lineHistory.isFrozen() || lineHistorySize * 3 >= lineDetailMapSize || renderedLineHistorySize * 3 >= lineDetailMapSize) {
+            System.out.println("The line history is not at least three times smaller than the line detail map");
+            System.exit(1);
+        }
+    }
+
+    // Reads every line the way serving the book does, keeping nothing but the output.
+    private static void render(final Book book) throws JsonProcessingException {
+
+        final PlayerRegistry playerRegistry = new PlayerRegistry();
+
+        for (String playerName : PLAYER_NAMES) {
+            playerRegistry.idOf(playerName);
+        }
+
+        book.setId(Long.valueOf(1));
+
+        System.out.println("Rendered " + new ObjectMapper().writeValueAsBytes(new BookResource(book)).length + " bytes of JSON and "
+                + book.getLineDetailMap(playerRegistry).size() + " line details");
+    }
+
+    private static long sizeOfPlayerNames(final SortedMap<Integer, LineDetail> lineDetailMap) {
+
+        long size = 0;
+
+        for (LineDetail lineDetail : lineDetailMap.values()) {
+            size += GraphLayout.parseInstance(lineDetail.getPlayerName()).totalSize();
+        }
+
+        return size;
+    }
+}
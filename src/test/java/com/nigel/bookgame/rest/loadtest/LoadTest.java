@@ -0,0 +1,225 @@
+package com.nigel.bookgame.rest.loadtest;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.nigel.bookgame.rest.Application;
+import com.nigel.bookgame.rest.config.VirtualThreads;
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.repository.BookRepository;
+
+/**
+ * Load test which starts the whole application on a free port in this JVM and plays simulated players against its REST
+ * API over HTTP, for every combination of number of books and number of players asked for.
+ *
+ * Settings are taken from system properties so that they can be passed through Maven (see the loadtest profile):
+ *
+ * - loadtest.books: comma separated numbers of books being written at once (default 100 and 10000).
+ * - loadtest.players: comma separated numbers of concurrent players (default 10 and 100).
+ * - loadtest.durationSeconds: how long each combination is measured for (default 30).
+ * - loadtest.warmUpSeconds: how long each combination runs before measuring starts (default 5).
+ * - loadtest.thinkMillis: the longest a player thinks between requests, picked at random up to this (default 20).
+ * - loadtest.leaderboardPollerFraction: the fraction of players who only watch the leaderboard (default 0.1).
+ * - loadtest.results: CSV file the results are appended to (default target/loadtest/results.csv).
+ * - loadtest.serverThreads: platform to serve requests from Tomcat's thread pool, virtual to serve each on its own
+ *   virtual thread or reactive to serve them from the reactive deployment on Netty (default platform).
+ * - loadtest.playerThreads: platform or virtual, the kind of thread each simulated player runs on (default platform).
+ * - loadtest.matchmaking: true for writers to ask GET /book/available for a book rather than pick one at random and
+ *   risk 423 LOCKED (default false).
+ * - loadtest.encoding: json or cbor, what every request and response is encoded as (default json). The mean size of each
+ *   kind of response is reported alongside its latencies, so a run of each compares the two.
+ *
+ * Virtual threads need Java 21 or later. The peak number of platform threads is reported for each combination, which
+ * with thousands of players shows what serving from a pool costs compared with serving on virtual threads.
+ *
+ * Any arguments are passed on to the application, for example --bookgame.persistence.enabled=true.
+ *
+ * @author nigel
+ */
+public final class LoadTest {
+
+    private static final String CSV_HEADER = "books,players,durationSeconds,requestsPerSecond,operation,count,p50Millis,p99Millis,p999Millis,lockedRate,errors,serverThreads,playerThreads,peakPlatformThreads,matchmaking,encoding,meanResponseBytes";
+    private static final String VIRTUAL = "virtual";
+    private static final String REACTIVE = "reactive";
+    private static final String CBOR = "cbor";
+    private static final int DEFAULT_MAXIMUM_CONNECTIONS = 8192;
+    private static final int LOCKED = 423;
+
+    private LoadTest() {
+    }
+
+    public static void main(final String[] arguments) throws IOException, InterruptedException {
+
+        final int[] bookCounts = parseCounts(System.getProperty("loadtest.books", "100,10000"));
+        final int[] playerCounts = parseCounts(System.getProperty("loadtest.players", "10,100"));
+        final long durationSeconds = Long.getLong("loadtest.durationSeconds", 30L).longValue();
+        final long warmUpSeconds = Long.getLong("loadtest.warmUpSeconds", 5L).longValue();
+        final long thinkMillis = Long.getLong("loadtest.thinkMillis", 20L).longValue();
+        final double leaderboardPollerFraction = Double.parseDouble(System.getProperty("loadtest.leaderboardPollerFraction", "0.1"));
+        final Path resultFile = Paths.get(System.getProperty("loadtest.results", "target/loadtest/results.csv"));
+        final String serverThreads = System.getProperty("loadtest.serverThreads", "platform");
+        final String playerThreads = System.getProperty("loadtest.playerThreads", "platform");
+        final boolean isMatchmaking = Boolean.getBoolean("loadtest.matchmaking");
+        final String encoding = System.getProperty("loadtest.encoding", "json");
+
+        // Every player keeps a connection open, so Tomcat must accept more connections than there are players.
+        final int maximumConnections = Math.max(DEFAULT_MAXIMUM_CONNECTIONS, 2 * Arrays.stream(playerCounts).max().orElse(0));
+
+        final List<String> applicationArguments = new ArrayList<String>(List.of("--server.port=0", "--spring.main.banner-mode=off", "--logging.level.root=WARN",
+                "--server.tomcat.max-connections=" + maximumConnections, "--bookgame.server.virtual-threads=" + VIRTUAL.equals(serverThreads)));
+        if (REACTIVE.equals(serverThreads)) {
+            applicationArguments.add("--spring.profiles.active=reactive");
+        }
+
+        applicationArguments.addAll(List.of(arguments));
+
+        try (ConfigurableApplicationContext applicationContext = new SpringApplicationBuilder(Application.class).run(applicationArguments.toArray(new String[0]))) {
+
+            final String baseUri = "http://localhost:" + ((WebServerApplicationContext) applicationContext).getWebServer().getPort();
+            final BookRepository bookRepository = applicationContext.getBean(BookRepository.class);
+            final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            createResultFile(resultFile);
+
+            for (int numberOfBooks : bookCounts) {
+                for (int numberOfPlayers : playerCounts) {
+
+                    final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+                    threadMXBean.resetPeakThreadCount();
+
+                    final List<SimulatedPlayer> players = runScenario(httpClient, baseUri, bookRepository, numberOfBooks, numberOfPlayers, durationSeconds,
+                            warmUpSeconds, thinkMillis, leaderboardPollerFraction, VIRTUAL.equals(playerThreads), isMatchmaking, CBOR.equals(encoding));
+
+                    report(players, numberOfBooks, numberOfPlayers, durationSeconds,
+                            serverThreads + "," + playerThreads + "," + threadMXBean.getPeakThreadCount() + "," + isMatchmaking + "," + encoding, resultFile);
+                }
+            }
+        }
+    }
+
+    private static List<SimulatedPlayer> runScenario(final HttpClient httpClient, final String baseUri, final BookRepository bookRepository,
+            final int numberOfBooks, final int numberOfPlayers, final long durationSeconds, final long warmUpSeconds, final long thinkMillis,
+            final double leaderboardPollerFraction, final boolean isOnVirtualThreads, final boolean isMatchmaking, final boolean isCbor) throws InterruptedException {
+
+        bookRepository.clear();
+
+        final AtomicLongArray activeBookIds = new AtomicLongArray(numberOfBooks);
+
+        for (int slot = 0; slot < numberOfBooks; slot++) {
+            final Book book = new Book();
+            book.setName("A load test book");
+            activeBookIds.set(slot, bookRepository.create(book).getId().longValue());
+        }
+
+        final long warmUpEndNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmUpSeconds);
+        final long endNanos = warmUpEndNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+        final int numberOfPollers = (int) Math.round(numberOfPlayers * leaderboardPollerFraction);
+        final List<SimulatedPlayer> players = new ArrayList<SimulatedPlayer>(numberOfPlayers);
+        final ExecutorService playerExecutor = isOnVirtualThreads ? VirtualThreads.newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(numberOfPlayers);
+
+        for (int playerNumber = 0; playerNumber < numberOfPlayers; playerNumber++) {
+            final SimulatedPlayer player = new SimulatedPlayer(httpClient, baseUri, playerNumber, playerNumber < numberOfPollers, isMatchmaking, isCbor, activeBookIds, thinkMillis,
+                    warmUpEndNanos, endNanos);
+            players.add(player);
+            playerExecutor.execute(player);
+        }
+
+        playerExecutor.shutdown();
+
+        if (!playerExecutor.awaitTermination(warmUpSeconds + durationSeconds + 60, TimeUnit.SECONDS)) {
+            playerExecutor.shutdownNow();
+        }
+
+        return players;
+    }
+
+    private static void report(final List<SimulatedPlayer> players, final int numberOfBooks, final int numberOfPlayers, final long durationSeconds,
+            final String threadColumns, final Path resultFile) throws IOException {
+
+        final Map<String, OperationStatistics> operations = Map.of("lock", new OperationStatistics(), "append", new OperationStatistics(), "create",
+                new OperationStatistics(), "leaderboard", new OperationStatistics());
+
+        long numberOfErrors = 0;
+
+        for (SimulatedPlayer player : players) {
+            operations.get("lock").merge(player.lockStatistics);
+            operations.get("append").merge(player.appendStatistics);
+            operations.get("create").merge(player.createStatistics);
+            operations.get("leaderboard").merge(player.leaderboardStatistics);
+            numberOfErrors += player.numberOfErrors;
+        }
+
+        long numberOfRequests = 0;
+
+        for (OperationStatistics statistics : operations.values()) {
+            numberOfRequests += statistics.getCount();
+        }
+
+        final double requestsPerSecond = (double) numberOfRequests / durationSeconds;
+
+        System.out.printf("%n%d books, %d players: %.1f requests/s, %d errors (server threads, player threads, peak platform threads, matchmaking, encoding: %s)%n", numberOfBooks,
+                numberOfPlayers, requestsPerSecond, numberOfErrors, threadColumns);
+        System.out.printf("  %-12s %10s %10s %10s %10s %10s %10s  %s%n", "operation", "count", "p50 ms", "p99 ms", "p99.9 ms", "423 rate", "mean bytes", "statuses");
+
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(resultFile, StandardCharsets.UTF_8, StandardOpenOption.APPEND))) {
+
+            for (String operation : List.of("lock", "append", "create", "leaderboard")) {
+
+                final OperationStatistics statistics = operations.get(operation);
+                final double lockedRate = (0 == statistics.getCount()) ? 0.0 : (double) statistics.getStatusCount(LOCKED) / statistics.getCount();
+                final double p50 = statistics.percentileMillis(50);
+                final double p99 = statistics.percentileMillis(99);
+                final double p999 = statistics.percentileMillis(99.9);
+
+                System.out.printf("  %-12s %10d %10.3f %10.3f %10.3f %9.1f%% %10.1f  %s%n", operation, statistics.getCount(), p50, p99, p999, lockedRate * 100,
+                        statistics.meanResponseBytes(), statistics.getStatusCounts());
+
+                csv.printf("%d,%d,%d,%.1f,%s,%d,%.3f,%.3f,%.3f,%.4f,%d,%s,%.1f%n", numberOfBooks, numberOfPlayers, durationSeconds, requestsPerSecond, operation,
+                        statistics.getCount(), p50, p99, p999, lockedRate, numberOfErrors, threadColumns, statistics.meanResponseBytes());
+            }
+        }
+    }
+
+    private static void createResultFile(final Path resultFile) throws IOException {
+
+        if (null != resultFile.getParent()) {
+            Files.createDirectories(resultFile.getParent());
+        }
+
+        if (!Files.exists(resultFile)) {
+            Files.write(resultFile, List.of(CSV_HEADER), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static int[] parseCounts(final String counts) {
+
+        final String[] parts = counts.split(",");
+        final int[] parsedCounts = new int[parts.length];
+
+        for (int index = 0; index < parts.length; index++) {
+            parsedCounts[index] = Integer.parseInt(parts[index].trim());
+        }
+
+        return parsedCounts;
+    }
+}
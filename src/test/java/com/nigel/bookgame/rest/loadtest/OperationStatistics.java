@@ -0,0 +1,75 @@
+package com.nigel.bookgame.rest.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latencies, response statuses and response sizes recorded for one kind of request.
+ *
+ * Each simulated player records into its own instance, so recording needs no synchronisation, and the instances are
+ * merged once the run is over. Every latency is kept, which makes the percentiles exact rather than estimated.
+ *
+ * @author nigel
+ */
+class OperationStatistics {
+
+    private long[] latencyNanos = new long[1024];
+    private int numberOfSamples;
+    private final Map<Integer, Long> statusCounts = new TreeMap<Integer, Long>();
+    private long responseBytes;
+
+    void record(final long latency, final int status, final int responseLength) {
+
+        if (this.numberOfSamples == this.latencyNanos.length) {
+            this.latencyNanos = Arrays.copyOf(this.latencyNanos, this.latencyNanos.length * 2);
+        }
+
+        this.latencyNanos[this.numberOfSamples++] = latency;
+        this.statusCounts.merge(Integer.valueOf(status), Long.valueOf(1L), Long::sum);
+        this.responseBytes += responseLength;
+    }
+
+    void merge(final OperationStatistics other) {
+
+        for (int index = 0; index < other.numberOfSamples; index++) {
+            if (this.numberOfSamples == this.latencyNanos.length) {
+                this.latencyNanos = Arrays.copyOf(this.latencyNanos, Math.max(this.latencyNanos.length * 2, this.numberOfSamples + other.numberOfSamples));
+            }
+            this.latencyNanos[this.numberOfSamples++] = other.latencyNanos[index];
+        }
+
+        other.statusCounts.forEach((status, count) -> this.statusCounts.merge(status, count, Long::sum));
+        this.responseBytes += other.responseBytes;
+    }
+
+    int getCount() {
+        return this.numberOfSamples;
+    }
+
+    long getStatusCount(final int status) {
+        return this.statusCounts.getOrDefault(Integer.valueOf(status), Long.valueOf(0L)).longValue();
+    }
+
+    Map<Integer, Long> getStatusCounts() {
+        return this.statusCounts;
+    }
+
+    double meanResponseBytes() {
+        return (0 == this.numberOfSamples) ? 0.0 : (double) this.responseBytes / this.numberOfSamples;
+    }
+
+    // Sorts the samples in place, so is only for once recording has finished.
+    double percentileMillis(final double percentile) {
+
+        if (0 == this.numberOfSamples) {
+            return 0.0;
+        }
+
+        Arrays.sort(this.latencyNanos, 0, this.numberOfSamples);
+
+        final int index = (int) Math.ceil(percentile / 100.0 * this.numberOfSamples) - 1;
+
+        return this.latencyNanos[Math.max(0, Math.min(index, this.numberOfSamples - 1))] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,196 @@
+package com.nigel.bookgame.rest.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * A player hitting the REST API the way a person playing the game would.
+ *
+ * A writer repeatedly picks a book at random and asks for it, which locks it (or gets 423 LOCKED if someone else has it),
+ * thinks for a while, then appends a line quoting the version it saw. A book found to be complete is swapped for a
+ * newly created one, so the number of books being written stays the same however long the run. With matchmaking a
+ * writer instead asks for any available book, and creates a new book whenever it writes the last line of one. A poller instead
+ * fetches the leaderboard and thinks in between.
+ *
+ * Every request and response is JSON, or CBOR if the player is told to use it instead.
+ *
+ * Requests made before the end of the warm up are made but not recorded.
+ *
+ * @author nigel
+ */
+class SimulatedPlayer implements Runnable {
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    private static final ObjectMapper CBOR_MAPPER = new ObjectMapper(new CBORFactory());
+
+    private final HttpClient httpClient;
+    private final String baseUri;
+    private final String playerName;
+    private final boolean isLeaderboardPoller;
+    private final boolean isMatchmaking;
+    private final ObjectMapper objectMapper;
+    private final String mediaType;
+    private final AtomicLongArray activeBookIds;
+    private final long maximumThinkMillis;
+    private final long warmUpEndNanos;
+    private final long endNanos;
+    private final SplittableRandom random;
+
+    final OperationStatistics lockStatistics = new OperationStatistics();
+    final OperationStatistics appendStatistics = new OperationStatistics();
+    final OperationStatistics createStatistics = new OperationStatistics();
+    final OperationStatistics leaderboardStatistics = new OperationStatistics();
+    long numberOfErrors;
+
+    SimulatedPlayer(final HttpClient httpClient, final String baseUri, final int playerNumber, final boolean isLeaderboardPoller,
+            final boolean isMatchmaking, final boolean isCbor, final AtomicLongArray activeBookIds, final long maximumThinkMillis, final long warmUpEndNanos,
+            final long endNanos) {
+        this.httpClient = httpClient;
+        this.baseUri = baseUri;
+        this.playerName = "Player " + playerNumber;
+        this.isLeaderboardPoller = isLeaderboardPoller;
+        this.isMatchmaking = isMatchmaking;
+        this.objectMapper = isCbor ? CBOR_MAPPER : JSON_MAPPER;
+        this.mediaType = isCbor ? "application/cbor" : "application/json";
+        this.activeBookIds = activeBookIds;
+        this.maximumThinkMillis = maximumThinkMillis;
+        this.warmUpEndNanos = warmUpEndNanos;
+        this.endNanos = endNanos;
+        this.random = new SplittableRandom(playerNumber);
+    }
+
+    @Override
+    public void run() {
+
+        while (System.nanoTime() < this.endNanos) {
+            try {
+                if (this.isLeaderboardPoller) {
+                    send(request("/leaderboard").GET().build(), this.leaderboardStatistics);
+                    think();
+                }
+                else if (this.isMatchmaking) {
+                    writeALineInAnyBook();
+                }
+                else {
+                    writeALine();
+                }
+            }
+            catch (final IOException exception) {
+                this.numberOfErrors++;
+            }
+            catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void writeALine() throws IOException, InterruptedException {
+
+        final int slot = this.random.nextInt(this.activeBookIds.length());
+        final long bookId = this.activeBookIds.get(slot);
+
+        final HttpResponse<byte[]> lockResponse = send(request("/book/" + bookId + "?playerName=" + this.playerName.replace(" ", "%20")).GET().build(),
+                this.lockStatistics);
+
+        if (200 != lockResponse.statusCode()) {
+            return; // Locked by someone else (or gone), so try another book straight away as a person would.
+        }
+
+        final JsonNode book = this.objectMapper.readTree(lockResponse.body());
+
+        if (book.path("complete").asBoolean()) {
+            replaceCompletedBook(slot, bookId);
+            return;
+        }
+
+        think();
+
+        final ObjectNode updateRequest = this.objectMapper.createObjectNode();
+        updateRequest.put("newLine", "A line written by " + this.playerName + ".");
+        updateRequest.put("playerName", this.playerName);
+        updateRequest.put("version", book.path("version").asLong());
+
+        send(requestWithBody("/book/" + bookId).PUT(body(updateRequest)).build(), this.appendStatistics);
+    }
+
+    private void writeALineInAnyBook() throws IOException, InterruptedException {
+
+        final HttpResponse<byte[]> lockResponse = send(request("/book/available?playerName=" + this.playerName.replace(" ", "%20")).GET().build(),
+                this.lockStatistics);
+
+        think(); // With nothing available there is nothing to do but wait for a book to come free.
+
+        if (200 != lockResponse.statusCode()) {
+            return;
+        }
+
+        final JsonNode book = this.objectMapper.readTree(lockResponse.body());
+
+        final ObjectNode updateRequest = this.objectMapper.createObjectNode();
+        updateRequest.put("newLine", "A line written by " + this.playerName + ".");
+        updateRequest.put("playerName", this.playerName);
+        updateRequest.put("version", book.path("version").asLong());
+
+        final HttpResponse<byte[]> appendResponse = send(requestWithBody("/book/" + book.path("id").asLong()).PUT(body(updateRequest)).build(),
+                this.appendStatistics);
+
+        if (200 == appendResponse.statusCode() && this.objectMapper.readTree(appendResponse.body()).path("complete").asBoolean()) {
+            send(requestWithBody("/book").POST(body(createBookRequest())).build(), this.createStatistics);
+        }
+    }
+
+    private void replaceCompletedBook(final int slot, final long completedBookId) throws IOException, InterruptedException {
+
+        final HttpResponse<byte[]> createResponse = send(requestWithBody("/book").POST(body(createBookRequest())).build(), this.createStatistics);
+
+        if (201 == createResponse.statusCode()) {
+            this.activeBookIds.compareAndSet(slot, completedBookId, this.objectMapper.readTree(createResponse.body()).path("id").asLong());
+        }
+    }
+
+    private ObjectNode createBookRequest() {
+        return this.objectMapper.createObjectNode().put("name", "A load test book");
+    }
+
+    private HttpRequest.Builder request(final String path) {
+        return HttpRequest.newBuilder(URI.create(this.baseUri + path)).header("Accept", this.mediaType);
+    }
+
+    private HttpRequest.Builder requestWithBody(final String path) {
+        return request(path).header("Content-Type", this.mediaType);
+    }
+
+    private HttpRequest.BodyPublisher body(final JsonNode body) throws JsonProcessingException {
+        return HttpRequest.BodyPublishers.ofByteArray(this.objectMapper.writeValueAsBytes(body));
+    }
+
+    private HttpResponse<byte[]> send(final HttpRequest request, final OperationStatistics statistics) throws IOException, InterruptedException {
+
+        final long start = System.nanoTime();
+        final HttpResponse<byte[]> response = this.httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+        if (start >= this.warmUpEndNanos) {
+            statistics.record(System.nanoTime() - start, response.statusCode(), response.body().length);
+        }
+
+        return response;
+    }
+
+    private void think() throws InterruptedException {
+        if (this.maximumThinkMillis > 0) {
+            Thread.sleep(this.random.nextLong(this.maximumThinkMillis + 1));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.nigel.bookgame.rest.unit.config;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.hateoas.Link;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.nigel.bookgame.rest.config.CborConfiguration;
+import com.nigel.bookgame.rest.controller.BookUpdateRequest;
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.PlayerRegistry;
+import com.nigel.bookgame.rest.resource.BookResource;
+
+/**
+ * Test class for {@link CborConfiguration}.
+ *
+ * @author nigel
+ */
+@SpringBootTest
+public class CborConfigurationTest {
+
+    private static final ObjectMapper CBOR_READER = new ObjectMapper(new CBORFactory());
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborHttpMessageConverter;
+
+    @Test
+    public void testBookIsWrittenAsHal() throws IOException {
+
+        final JsonNode book = CBOR_READER.readTree(write(createBookResource(), BookResource.class));
+
+        Assertions.assertThat(book.path("id").asLong()).isEqualTo(1);
+        Assertions.assertThat(book.path("lines").get(0).asText()).isEqualTo("First line.");
+        Assertions.assertThat(book.path("_links").path("self").path("href").asText()).isEqualTo("http://localhost/book/1");
+    }
+
+    // As in JSON, a plain list of books is not rendered as HAL.
+    @Test
+    public void testListedBooksKeepTheirLinksAsHeld() throws IOException {
+
+        final JsonNode books = CBOR_READER.readTree(write(List.of(createBookResource()), new ParameterizedTypeReference<List<BookResource>>() {
+        }.getType()));
+
+        Assertions.assertThat(books.get(0).path("links").get(0).path("rel").asText()).isEqualTo("self");
+        Assertions.assertThat(books.get(0).has("_links")).isFalse();
+    }
+
+    @Test
+    public void testUpdateRequestIsRead() throws IOException {
+
+        final byte[] cbor = CBOR_READER.writeValueAsBytes(CBOR_READER.createObjectNode().put("newLine", "A line.").put("playerName", "Nigel").put("version", 3));
+        final MockHttpInputMessage inputMessage = new MockHttpInputMessage(cbor);
+        inputMessage.getHeaders().setContentType(MediaType.APPLICATION_CBOR);
+
+        final BookUpdateRequest bookUpdateRequest = (BookUpdateRequest) this.cborHttpMessageConverter.read(BookUpdateRequest.class, null, inputMessage);
+
+        Assertions.assertThat(bookUpdateRequest.getNewLine()).isEqualTo("A line.");
+        Assertions.assertThat(bookUpdateRequest.getPlayerName()).isEqualTo("Nigel");
+        Assertions.assertThat(bookUpdateRequest.getVersion()).isEqualTo(Long.valueOf(3));
+    }
+
+    private byte[] write(final Object value, final Type type) throws IOException {
+
+        final MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+        this.cborHttpMessageConverter.write(value, type, MediaType.APPLICATION_CBOR, outputMessage);
+
+        return outputMessage.getBodyAsBytes();
+    }
+
+    private BookResource createBookResource() {
+
+        final Book book = new Book();
+        book.setId(Long.valueOf(1));
+        book.appendLine("First line.", new PlayerRegistry().idOf("Nigel"), null);
+
+        final BookResource bookResource = new BookResource(book);
+        bookResource.add(Link.of("http://localhost/book/1").withSelfRel());
+
+        return bookResource;
+    }
+}
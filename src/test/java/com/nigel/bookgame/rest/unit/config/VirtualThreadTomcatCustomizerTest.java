@@ -0,0 +1,54 @@
+package com.nigel.bookgame.rest.unit.config;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.coyote.ProtocolHandler;
+import org.assertj.core.api.Assertions;
+import org.assertj.core.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import com.nigel.bookgame.rest.config.VirtualThreadTomcatCustomizer;
+import com.nigel.bookgame.rest.config.VirtualThreads;
+
+/**
+ * Test class for {@link VirtualThreadTomcatCustomizer}.
+ * 
+ * @author nigel
+ */
+public class VirtualThreadTomcatCustomizerTest {
+    
+    @Test
+    public void testSupportFollowsTheJavaVersion() {
+        Assertions.assertThat(VirtualThreads.isSupported()).isEqualTo(Runtime.version().feature() >= 21);
+    }
+    
+    @Test
+    public void testRefusesToStartWithoutVirtualThreads() {
+        
+        Assumptions.assumeThat(VirtualThreads.isSupported()).isFalse();
+        
+        Assertions.assertThatIllegalStateException().isThrownBy(VirtualThreadTomcatCustomizer::new).withMessageContaining("Java 21");
+        Assertions.assertThatIllegalStateException().isThrownBy(VirtualThreads::newVirtualThreadPerTaskExecutor);
+    }
+    
+    @Test
+    public void testRequestsAreServedOnVirtualThreads() throws Exception {
+        
+        Assumptions.assumeThat(VirtualThreads.isSupported()).isTrue();
+        
+        final ProtocolHandler protocolHandler = Mockito.mock(ProtocolHandler.class);
+        new VirtualThreadTomcatCustomizer().customize(protocolHandler);
+        
+        final ArgumentCaptor<Executor> executorCaptor = ArgumentCaptor.forClass(Executor.class);
+        Mockito.verify(protocolHandler).setExecutor(executorCaptor.capture());
+        
+        final CompletableFuture<Thread> servingThread = new CompletableFuture<Thread>();
+        executorCaptor.getValue().execute(() -> servingThread.complete(Thread.currentThread()));
+        
+        Assertions.assertThat(Thread.class.getMethod("isVirtual").invoke(servingThread.get(5, TimeUnit.SECONDS))).isEqualTo(Boolean.TRUE);
+    }
+}
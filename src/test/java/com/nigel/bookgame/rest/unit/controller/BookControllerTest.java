@@ -1,8 +1,12 @@
 package com.nigel.bookgame.rest.unit.controller;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -12,19 +16,43 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.nigel.bookgame.rest.controller.BookBatchCreateRequest;
 import com.nigel.bookgame.rest.controller.BookController;
 import com.nigel.bookgame.rest.controller.BookCreateRequest;
+import com.nigel.bookgame.rest.controller.BookPageRequest;
 import com.nigel.bookgame.rest.controller.BookUpdateRequest;
 import com.nigel.bookgame.rest.domain.Book;
 import com.nigel.bookgame.rest.domain.BookContainer;
+import com.nigel.bookgame.rest.domain.BookFilter;
+import com.nigel.bookgame.rest.domain.BookPage;
+import com.nigel.bookgame.rest.domain.BookUpdateContainer;
 import com.nigel.bookgame.rest.domain.ERetrievalOutcome;
 import com.nigel.bookgame.rest.domain.EUpdateOutcome;
+import com.nigel.bookgame.rest.domain.PlayerRegistry;
+import com.nigel.bookgame.rest.repository.BookAppendPipeline;
 import com.nigel.bookgame.rest.repository.BookRepository;
+import com.nigel.bookgame.rest.resource.BookBatchResource;
+import com.nigel.bookgame.rest.resource.BookPageResource;
+import com.nigel.bookgame.rest.resource.BookPageResourceAssembler;
 import com.nigel.bookgame.rest.resource.BookResource;
 import com.nigel.bookgame.rest.resource.BookResourceAssembler;
+import com.nigel.bookgame.rest.resource.BookResourceStreamWriter;
+import com.nigel.bookgame.rest.resource.CompletedBookJsonCache;
+import com.nigel.bookgame.rest.resource.CompletedBookJsonCache.RenderedBook;
 
 /**
  * Test class for {@link BookController}.
@@ -34,35 +62,208 @@ import com.nigel.bookgame.rest.resource.BookResourceAssembler;
 @ExtendWith(MockitoExtension.class)
 public class BookControllerTest {
     
+    private static final String BOOK_BASE_URI = "http://localhost/book";
+    
     @Mock
     private BookRepository mockBookRepository;
     
+    @Mock
+    private BookAppendPipeline mockBookAppendPipeline;
+    
     @Mock
     private BookResourceAssembler mockBookResourceAssembler;
     
+    @Mock
+    private BookResourceStreamWriter mockBookResourceStreamWriter;
+    
+    @Mock
+    private BookPageResourceAssembler mockBookPageResourceAssembler;
+    
+    @Mock
+    private CompletedBookJsonCache mockCompletedBookJsonCache;
+    
     @InjectMocks
     private BookController bookController;
     
     @Test
-    public void testFindAllBooks() {
+    public void testFindAllBooks() throws IOException {
+        
+        final Book incompleteBook = new Book();
+        incompleteBook.setId(Long.valueOf(1));
+        final Book completeBook = new Book();
+        completeBook.setId(Long.valueOf(2));
+        completeBook.setComplete(true);
+        
+        final RenderedBook renderedBook = createRenderedBook(completeBook, "{\"complete\":true}");
+        
+        Mockito.when(this.mockBookRepository.iterateAll()).thenReturn(List.of(incompleteBook, completeBook));
+        Mockito.when(this.mockBookResourceAssembler.bindToCurrentRequest()).thenReturn(BookResource::new);
+        Mockito.when(this.mockBookResourceAssembler.getBookBaseUri()).thenReturn(BOOK_BASE_URI);
+        Mockito.lenient().when(this.mockCompletedBookJsonCache.find(Mockito.eq(completeBook), Mockito.eq(BOOK_BASE_URI), Mockito.any())).thenReturn(renderedBook); // Incomplete books are looked up too.
+        Mockito.doAnswer(invocation -> {
+            ((OutputStream) invocation.getArgument(1)).write("{\"complete\":false}".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(this.mockBookResourceStreamWriter).writeListElement(Mockito.any(BookResource.class), Mockito.any(OutputStream.class));
+        
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        this.bookController.findAllBooks(response);
+        
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        Assertions.assertThat(response.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        
+        // Only the incomplete book is rendered; the complete one is written as the cache holds it.
+        Assertions.assertThat(response.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("[{\"complete\":false},{\"complete\":true}]");
+        Mockito.verify(this.mockBookResourceStreamWriter).writeListElement(Mockito.argThat(bookResource -> Long.valueOf(1).equals(bookResource.getResourceId())),
+                Mockito.any(OutputStream.class));
+    }
+    
+    @Test
+    public void testFindAllBooksWhereNone() throws IOException {
+        
+        Mockito.when(this.mockBookRepository.iterateAll()).thenReturn(new ArrayList<Book>());
+        
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        this.bookController.findAllBooks(response);
+        
+        Assertions.assertThat(response.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("[]");
+    }
+    
+    @Test
+    public void testFindBooksWithoutParametersListsAll() throws IOException {
+        
+        Mockito.when(this.mockBookRepository.iterateAll()).thenReturn(new ArrayList<Book>());
+        
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        Assertions.assertThat(this.bookController.findBooks(new BookPageRequest(), createWebRequest(null), response)).isNull();
+        Assertions.assertThat(response.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("[]");
+        
+        Mockito.verify(this.mockBookRepository).iterateAll();
+        Mockito.verify(this.mockBookRepository, Mockito.never()).findPage(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyInt());
+    }
+    
+    @Test
+    public void testFindBookPage() throws IOException {
+        
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/book");
+        request.setQueryString("available=true&after=3");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        
+        final BookPageRequest bookPageRequest = new BookPageRequest();
+        bookPageRequest.setAvailable(Boolean.TRUE);
+        bookPageRequest.setAfter(Long.valueOf(3));
+        
+        final BookPage bookPage = new BookPage(new ArrayList<Book>(), null, null);
+        final BookPageResource bookPageResource = new BookPageResource(new ArrayList<BookResource>());
+        
+        Mockito.when(this.mockBookRepository.findPage(Mockito.any(BookFilter.class), Mockito.eq(Long.valueOf(3)), Mockito.isNull(), Mockito.eq(BookPageRequest.DEFAULT_LIMIT))).thenReturn(bookPage);
+        Mockito.when(this.mockBookPageResourceAssembler.toResource(Mockito.eq(bookPage), Mockito.any(), Mockito.any())).thenReturn(bookPageResource);
+        
+        try {
+            final ResponseEntity<?> responseEntity = this.bookController.findBooks(bookPageRequest, createWebRequest(null), new MockHttpServletResponse());
+            
+            Assertions.assertThat(responseEntity.getBody()).isEqualTo(bookPageResource);
+            Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        }
+        finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+        
+        final ArgumentCaptor<BookFilter> argumentCaptorForFilter = ArgumentCaptor.forClass(BookFilter.class);
+        final ArgumentCaptor<UriComponentsBuilder> argumentCaptorForRequestUri = ArgumentCaptor.forClass(UriComponentsBuilder.class);
+        
+        Mockito.verify(this.mockBookRepository).findPage(argumentCaptorForFilter.capture(), Mockito.any(), Mockito.any(), Mockito.anyInt());
+        Mockito.verify(this.mockBookPageResourceAssembler).toResource(Mockito.eq(bookPage), Mockito.any(), argumentCaptorForRequestUri.capture());
+        
+        Assertions.assertThat(argumentCaptorForFilter.getValue().getAvailable()).isTrue();
+        Assertions.assertThat(argumentCaptorForFilter.getValue().getComplete()).isNull();
+        Assertions.assertThat(argumentCaptorForRequestUri.getValue().toUriString()).isEqualTo("http://localhost/book?available=true&after=3");
+    }
+    
+    @Test
+    public void testFindBookPageWithBothCursorsIsBadRequest() throws IOException {
+        
+        final BookPageRequest bookPageRequest = new BookPageRequest();
+        bookPageRequest.setAfter(Long.valueOf(1));
+        bookPageRequest.setBefore(Long.valueOf(5));
+        
+        Assertions.assertThat(this.bookController.findBooks(bookPageRequest, createWebRequest(null), new MockHttpServletResponse()).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        
+        Mockito.verifyNoInteractions(this.mockBookRepository);
+    }
+    
+    @Test
+    public void testFindBookPageWithLimitOutOfRangeIsBadRequest() throws IOException {
+        
+        final BookPageRequest bookPageRequest = new BookPageRequest();
+        bookPageRequest.setLimit(Integer.valueOf(BookPageRequest.MAXIMUM_LIMIT + 1));
+        
+        Assertions.assertThat(this.bookController.findBooks(bookPageRequest, createWebRequest(null), new MockHttpServletResponse()).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        
+        Mockito.verifyNoInteractions(this.mockBookRepository);
+    }
+    
+    @Test
+    public void testFindAvailableBook() {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(1));
+        
+        final BookResource bookResource = new BookResource(book);
+        
+        Mockito.when(this.mockBookRepository.findAvailable("Nigel")).thenReturn(createBookContainer(book, ERetrievalOutcome.SUCCESS));
+        Mockito.when(this.mockBookResourceAssembler.toResource(book)).thenReturn(bookResource);
+        
+        final ResponseEntity<BookResource> responseEntity = this.bookController.findAvailableBook("Nigel");
+        
+        Assertions.assertThat(responseEntity.getBody()).isEqualTo(bookResource);
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+    
+    @Test
+    public void testFindAvailableBookWhereNoneAvailable() {
+        
+        Mockito.when(this.mockBookRepository.findAvailable("Nigel")).thenReturn(createBookContainer(null, ERetrievalOutcome.NOT_FOUND));
         
-        final List<Book> listOfBooks = new ArrayList<Book>();
-        final List<BookResource> listOfBookResources = new ArrayList<BookResource>();
+        final ResponseEntity<BookResource> responseEntity = this.bookController.findAvailableBook("Nigel");
         
-        Mockito.when(this.mockBookRepository.findAll()).thenReturn(listOfBooks);
-        Mockito.when(this.mockBookResourceAssembler.toResourceCollection(Mockito.anyCollection())).thenReturn(listOfBookResources);
+        Assertions.assertThat(responseEntity.getBody()).isNull();
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        Mockito.verifyNoInteractions(this.mockBookResourceAssembler);
+    }
+    
+    @Test
+    public void testStreamAllBooks() throws IOException {
         
-        final ResponseEntity<Collection<BookResource>> responseEntity = this.bookController.findAllBooks();
+        final Book firstBook = new Book();
+        firstBook.setId(Long.valueOf(1));
+        final Book secondBook = new Book();
+        secondBook.setId(Long.valueOf(2));
+        
+        Mockito.when(this.mockBookRepository.iterateAll()).thenReturn(List.of(firstBook, secondBook));
+        Mockito.when(this.mockBookResourceAssembler.bindToCurrentRequest()).thenReturn(BookResource::new);
+        
+        final ResponseEntity<StreamingResponseBody> responseEntity = this.bookController.streamAllBooks();
         
-        Assertions.assertThat(responseEntity.getBody()).isEqualTo(listOfBookResources);
         Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(responseEntity.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+        Mockito.verifyNoInteractions(this.mockBookResourceStreamWriter); // Nothing is written until the response body is.
+        
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        responseEntity.getBody().writeTo(outputStream);
+        
+        final ArgumentCaptor<BookResource> argumentCaptorForBookResource = ArgumentCaptor.forClass(BookResource.class);
         
-        Mockito.verify(this.mockBookRepository).findAll();
-        Mockito.verify(this.mockBookResourceAssembler).toResourceCollection(listOfBooks);
+        Mockito.verify(this.mockBookResourceStreamWriter, Mockito.times(2)).writeLine(argumentCaptorForBookResource.capture(), Mockito.eq(outputStream));
+        
+        Assertions.assertThat(argumentCaptorForBookResource.getAllValues()).extracting(BookResource::getResourceId).containsExactly(Long.valueOf(1), Long.valueOf(2));
+        Mockito.verify(this.mockBookRepository, Mockito.never()).findAll();
     }
     
     @Test
-    public void testFindBookByIdWhereNotFound() {
+    public void testFindBookByIdWhereNotFound() throws IOException {
         
         final BookContainer bookContainer = new BookContainer();
         bookContainer.setBook(null);
@@ -70,7 +271,7 @@ public class BookControllerTest {
         
         Mockito.when(this.mockBookRepository.findById(Mockito.anyLong(), Mockito.anyString())).thenReturn(bookContainer);
         
-        final ResponseEntity<BookResource> responseEntity = this.bookController.findBookById(Long.valueOf(1), "Nigel");
+        final ResponseEntity<?> responseEntity = this.bookController.findBookById(Long.valueOf(1), "Nigel", createWebRequest(null));
         
         Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
         
@@ -84,7 +285,7 @@ public class BookControllerTest {
     }
     
     @Test
-    public void testFindBookByIdWhereLockedByAnotherPlayer() {
+    public void testFindBookByIdWhereLockedByAnotherPlayer() throws IOException {
         
         final BookContainer bookContainer = new BookContainer();
         bookContainer.setBook(null);
@@ -92,7 +293,7 @@ public class BookControllerTest {
         
         Mockito.when(this.mockBookRepository.findById(Mockito.anyLong(), Mockito.anyString())).thenReturn(bookContainer);
         
-        final ResponseEntity<BookResource> responseEntity = this.bookController.findBookById(Long.valueOf(1), "Nigel");
+        final ResponseEntity<?> responseEntity = this.bookController.findBookById(Long.valueOf(1), "Nigel", createWebRequest(null));
         
         Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.LOCKED);
         
@@ -106,7 +307,7 @@ public class BookControllerTest {
     }
     
     @Test
-    public void testFindBookByIdWhereSuccessful() {
+    public void testFindBookByIdWhereSuccessful() throws IOException {
         
         final Book book = new Book();
         book.setId(Long.valueOf(1));
@@ -120,7 +321,7 @@ public class BookControllerTest {
         Mockito.when(this.mockBookRepository.findById(Mockito.anyLong(), Mockito.anyString())).thenReturn(bookContainer);
         Mockito.when(this.mockBookResourceAssembler.toResource(Mockito.any(Book.class))).thenReturn(bookResource);
         
-        final ResponseEntity<BookResource> responseEntity = this.bookController.findBookById(Long.valueOf(1), "Nigel");
+        final ResponseEntity<?> responseEntity = this.bookController.findBookById(Long.valueOf(1), "Nigel", createWebRequest(null));
         
         Assertions.assertThat(responseEntity.getBody()).isEqualTo(bookResource);
         Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
@@ -135,6 +336,100 @@ public class BookControllerTest {
         Assertions.assertThat(argumentCaptorForPlayerName.getValue()).isEqualTo("Nigel");
     }
     
+    @Test
+    public void testFindBookByIdWhereETagQuotedIsNotModified() throws IOException {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(1));
+        
+        Mockito.when(this.mockBookRepository.findById(Mockito.anyLong(), Mockito.anyString())).thenReturn(createBookContainer(book, ERetrievalOutcome.SUCCESS));
+        Mockito.when(this.mockBookResourceAssembler.toResource(Mockito.any(Book.class))).thenReturn(new BookResource(book));
+        
+        final ResponseEntity<?> responseEntity = this.bookController.findBookById(Long.valueOf(1), "Nigel", createWebRequest(null));
+        final String eTag = responseEntity.getHeaders().getETag();
+        
+        Assertions.assertThat(eTag).isNotNull();
+        Assertions.assertThat(responseEntity.getHeaders().getCacheControl()).isEqualTo("no-cache");
+        
+        final ResponseEntity<?> notModifiedResponseEntity = this.bookController.findBookById(Long.valueOf(1), "Nigel", createWebRequest(eTag));
+        
+        Assertions.assertThat(notModifiedResponseEntity.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        Assertions.assertThat(notModifiedResponseEntity.getBody()).isNull();
+        Assertions.assertThat(notModifiedResponseEntity.getHeaders().getCacheControl()).isEqualTo("no-cache");
+        
+        // Still locked for the player each time, but only rendered the once.
+        Mockito.verify(this.mockBookRepository, Mockito.times(2)).findById(Long.valueOf(1), "Nigel");
+        Mockito.verify(this.mockBookResourceAssembler).toResource(book);
+        
+        book.appendLine("A line.", new PlayerRegistry().idOf("Nigel"), null);
+        
+        final ResponseEntity<?> changedResponseEntity = this.bookController.findBookById(Long.valueOf(1), "Nigel", createWebRequest(eTag));
+        
+        Assertions.assertThat(changedResponseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(changedResponseEntity.getHeaders().getETag()).isNotEqualTo(eTag);
+    }
+    
+    @Test
+    public void testFindBookByIdWhereCompleteIsCacheable() throws IOException {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(1));
+        book.setComplete(true);
+        
+        final RenderedBook renderedBook = createRenderedBook(book, "{\"complete\":true}");
+        
+        Mockito.when(this.mockBookRepository.findById(Mockito.anyLong(), Mockito.anyString())).thenReturn(createBookContainer(book, ERetrievalOutcome.SUCCESS));
+        Mockito.when(this.mockBookResourceAssembler.getBookBaseUri()).thenReturn(BOOK_BASE_URI);
+        Mockito.when(this.mockCompletedBookJsonCache.find(Mockito.eq(book), Mockito.eq(BOOK_BASE_URI), Mockito.any())).thenReturn(renderedBook);
+        
+        final ResponseEntity<?> responseEntity = this.bookController.findBookById(Long.valueOf(1), "Nigel", createWebRequest(null));
+        
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(responseEntity.getBody()).isSameAs(renderedBook.getJson());
+        Assertions.assertThat(responseEntity.getHeaders().getCacheControl()).isEqualTo("max-age=31536000, public");
+        Mockito.verify(this.mockBookResourceAssembler, Mockito.never()).toResource(Mockito.any(Book.class));
+    }
+    
+    @Test
+    public void testFindBookByIdAsCborRendersCompleteBook() throws IOException {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(1));
+        book.setComplete(true);
+        
+        final BookResource bookResource = new BookResource(book);
+        
+        Mockito.when(this.mockBookRepository.findById(Mockito.anyLong(), Mockito.anyString())).thenReturn(createBookContainer(book, ERetrievalOutcome.SUCCESS));
+        Mockito.when(this.mockBookResourceAssembler.toResource(Mockito.any(Book.class))).thenReturn(bookResource);
+        
+        final ResponseEntity<?> responseEntity = this.bookController.findBookById(Long.valueOf(1), "Nigel",
+                createWebRequestAccepting("application/json;q=0.5, application/cbor"));
+        
+        // The cache only holds JSON, and the CBOR encoding is tagged apart from it.
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(responseEntity.getBody()).isEqualTo(bookResource);
+        Assertions.assertThat(responseEntity.getHeaders().getETag()).isEqualTo("\"1-0-complete-cbor\"");
+        Assertions.assertThat(responseEntity.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT);
+        Mockito.verifyNoInteractions(this.mockCompletedBookJsonCache);
+    }
+    
+    @Test
+    public void testFindBooksAsCborListsResources() throws IOException {
+        
+        final Book completeBook = new Book();
+        completeBook.setId(Long.valueOf(1));
+        completeBook.setComplete(true);
+        
+        Mockito.when(this.mockBookRepository.findAll()).thenReturn(List.of(completeBook));
+        Mockito.when(this.mockBookResourceAssembler.bindToCurrentRequest()).thenReturn(BookResource::new);
+        
+        final ResponseEntity<?> responseEntity = this.bookController.findBooks(new BookPageRequest(), createWebRequestAccepting("application/cbor"), new MockHttpServletResponse());
+        
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(responseEntity.getBody()).asList().hasSize(1).first().isInstanceOf(BookResource.class);
+        Mockito.verifyNoInteractions(this.mockCompletedBookJsonCache, this.mockBookResourceStreamWriter);
+    }
+    
     @Test
     public void testCreate() {
         
@@ -158,6 +453,36 @@ public class BookControllerTest {
         Mockito.verify(this.mockBookResourceAssembler).toResource(book);
     }
     
+    @Test
+    public void testCreateBatch() {
+        
+        final List<Book> books = new ArrayList<>();
+        final BookBatchResource bookBatchResource = new BookBatchResource(2, 1, 2);
+        
+        Mockito.when(this.mockBookRepository.createAll(Mockito.anyList())).thenReturn(books);
+        Mockito.when(this.mockBookResourceAssembler.toBatchResource(books)).thenReturn(bookBatchResource);
+        
+        final ResponseEntity<BookBatchResource> responseEntity = this.bookController.createBooks(createBookBatchCreateRequest(2));
+        
+        Assertions.assertThat(responseEntity.getBody()).isEqualTo(bookBatchResource);
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        
+        final ArgumentCaptor<List<Book>> booksCaptor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(this.mockBookRepository).createAll(booksCaptor.capture());
+        Assertions.assertThat(booksCaptor.getValue()).extracting(Book::getName).containsExactly("Book 0", "Book 1");
+    }
+    
+    @Test
+    public void testCreateBatchEmptyOrTooLargeIsBadRequest() {
+        
+        Assertions.assertThat(this.bookController.createBooks(new BookBatchCreateRequest()).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        Assertions.assertThat(this.bookController.createBooks(createBookBatchCreateRequest(0)).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        Assertions.assertThat(this.bookController.createBooks(createBookBatchCreateRequest(BookBatchCreateRequest.MAXIMUM_SIZE + 1)).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        
+        Mockito.verifyNoInteractions(this.mockBookRepository);
+    }
+    
     @Test
     public void testUpdateWherePlayerNameNull() {
         
@@ -165,7 +490,7 @@ public class BookControllerTest {
         bookUpdateRequest.setNewLine("A line.");
         bookUpdateRequest.setPlayerName(null);
         
-        final ResponseEntity<BookResource> responseEntity = this.bookController.updateBook(Long.valueOf(1), bookUpdateRequest);
+        final ResponseEntity<BookResource> responseEntity = this.bookController.updateBook(Long.valueOf(1), bookUpdateRequest, createWebRequest(null));
         
         Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
     }
@@ -173,180 +498,165 @@ public class BookControllerTest {
     @Test
     public void testUpdateWhereNotFound() {
         
-        final BookContainer bookContainer = new BookContainer();
-        bookContainer.setBook(null);
-        bookContainer.setRetrievalOutcome(ERetrievalOutcome.NOT_FOUND);
+        Mockito.when(this.mockBookAppendPipeline.append(Mockito.anyLong(), Mockito.anyString(), Mockito.anyString(), Mockito.any())).thenReturn(createBookUpdateFuture(null, EUpdateOutcome.NOT_FOUND));
         
-        Mockito.when(this.mockBookRepository.findById(Mockito.anyLong(), Mockito.anyString())).thenReturn(bookContainer);
-        
-        final BookUpdateRequest bookUpdateRequest = new BookUpdateRequest();
-        bookUpdateRequest.setNewLine("A line.");
-        bookUpdateRequest.setPlayerName("Nigel");
-        
-        final ResponseEntity<BookResource> responseEntity = this.bookController.updateBook(Long.valueOf(1), bookUpdateRequest);
+        final ResponseEntity<BookResource> responseEntity = this.bookController.updateBook(Long.valueOf(1), createBookUpdateRequest(null), createWebRequest(null));
         
         Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
         
-        final ArgumentCaptor<Long> argumentCaptorForId = ArgumentCaptor.forClass(Long.class);
-        final ArgumentCaptor<String> argumentCaptorForPlayerName = ArgumentCaptor.forClass(String.class);
-        
-        Mockito.verify(this.mockBookRepository).findById(argumentCaptorForId.capture(), argumentCaptorForPlayerName.capture());
-        
-        Assertions.assertThat(argumentCaptorForId.getValue()).isEqualTo(Long.valueOf(1));
-        Assertions.assertThat(argumentCaptorForPlayerName.getValue()).isEqualTo("Nigel");
+        Mockito.verify(this.mockBookAppendPipeline).append(Long.valueOf(1), "Nigel", "A line.", null);
+        Mockito.verifyNoInteractions(this.mockBookResourceAssembler);
     }
     
     @Test
-    public void testUpdateWhereNotLockedByAnotherPlayer() {
+    public void testUpdateWhereLockedByAnotherPlayer() {
         
-        final BookContainer bookContainer = new BookContainer();
-        bookContainer.setBook(null);
-        bookContainer.setRetrievalOutcome(ERetrievalOutcome.LOCKED_BY_ANOTHER_PLAYER);
+        Mockito.when(this.mockBookAppendPipeline.append(Mockito.anyLong(), Mockito.anyString(), Mockito.anyString(), Mockito.any())).thenReturn(createBookUpdateFuture(null, EUpdateOutcome.REQUESTING_PLAYER_DOES_NOT_HAVE_LOCK));
         
-        Mockito.when(this.mockBookRepository.findById(Mockito.anyLong(), Mockito.anyString())).thenReturn(bookContainer);
-        
-        final BookUpdateRequest bookUpdateRequest = new BookUpdateRequest();
-        bookUpdateRequest.setNewLine("A line.");
-        bookUpdateRequest.setPlayerName("Nigel");
-        
-        final ResponseEntity<BookResource> responseEntity = this.bookController.updateBook(Long.valueOf(1), bookUpdateRequest);
+        final ResponseEntity<BookResource> responseEntity = this.bookController.updateBook(Long.valueOf(1), createBookUpdateRequest(null), createWebRequest(null));
         
         Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.LOCKED);
         
-        final ArgumentCaptor<Long> argumentCaptorForId = ArgumentCaptor.forClass(Long.class);
-        final ArgumentCaptor<String> argumentCaptorForPlayerName = ArgumentCaptor.forClass(String.class);
-        
-        Mockito.verify(this.mockBookRepository).findById(argumentCaptorForId.capture(), argumentCaptorForPlayerName.capture());
-        
-        Assertions.assertThat(argumentCaptorForId.getValue()).isEqualTo(Long.valueOf(1));
-        Assertions.assertThat(argumentCaptorForPlayerName.getValue()).isEqualTo("Nigel");
+        Mockito.verify(this.mockBookAppendPipeline).append(Long.valueOf(1), "Nigel", "A line.", null);
+        Mockito.verifyNoInteractions(this.mockBookResourceAssembler);
     }
     
     @Test
-    public void testUpdateWhereFoundButNullBookSuppliedToUpdate() {
+    public void testUpdateWhereVersionConflict() {
         
         final Book book = new Book();
         book.setId(Long.valueOf(1));
         
-        final BookContainer bookContainer = new BookContainer();
-        bookContainer.setBook(new Book());
-        bookContainer.setRetrievalOutcome(ERetrievalOutcome.SUCCESS);
-        
-        Mockito.when(this.mockBookRepository.findById(Mockito.anyLong(), Mockito.anyString())).thenReturn(bookContainer);
-        Mockito.when(this.mockBookRepository.update(Mockito.eq(Long.valueOf(1)), Mockito.any(Book.class), Mockito.eq("Nigel"), Mockito.eq(true))).thenReturn(EUpdateOutcome.NULL_BOOK_SUPPLIED);
-        
-        final BookUpdateRequest bookUpdateRequest = new BookUpdateRequest();
-        bookUpdateRequest.setNewLine("A line.");
-        bookUpdateRequest.setPlayerName("Nigel");
-        
-        final ResponseEntity<BookResource> responseEntity = this.bookController.updateBook(Long.valueOf(1), bookUpdateRequest);
+        Mockito.when(this.mockBookAppendPipeline.append(Mockito.anyLong(), Mockito.anyString(), Mockito.anyString(), Mockito.any())).thenReturn(createBookUpdateFuture(book, EUpdateOutcome.VERSION_CONFLICT));
         
-        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        final ResponseEntity<BookResource> responseEntity = this.bookController.updateBook(Long.valueOf(1), createBookUpdateRequest(Long.valueOf(3)), createWebRequest(null));
         
-        final ArgumentCaptor<Long> argumentCaptorForId = ArgumentCaptor.forClass(Long.class);
-        final ArgumentCaptor<String> argumentCaptorForPlayerName = ArgumentCaptor.forClass(String.class);
-        
-        Mockito.verify(this.mockBookRepository).findById(argumentCaptorForId.capture(), argumentCaptorForPlayerName.capture());
-        Mockito.verify(this.mockBookRepository).update(Mockito.eq(Long.valueOf(1)), Mockito.any(Book.class), Mockito.eq("Nigel"), Mockito.eq(true));
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
         
-        Assertions.assertThat(argumentCaptorForId.getValue()).isEqualTo(Long.valueOf(1));
-        Assertions.assertThat(argumentCaptorForPlayerName.getValue()).isEqualTo("Nigel");
+        Mockito.verify(this.mockBookAppendPipeline).append(Long.valueOf(1), "Nigel", "A line.", Long.valueOf(3));
+        Mockito.verifyNoInteractions(this.mockBookResourceAssembler);
     }
     
     @Test
-    public void testUpdateWhereFoundButRequestingPlayerDoesNotHaveLock() {
+    public void testUpdateWhereBookAlreadyComplete() {
         
         final Book book = new Book();
         book.setId(Long.valueOf(1));
         
-        final BookContainer bookContainer = new BookContainer();
-        bookContainer.setBook(new Book());
-        bookContainer.setRetrievalOutcome(ERetrievalOutcome.SUCCESS);
-        
-        Mockito.when(this.mockBookRepository.findById(Mockito.anyLong(), Mockito.anyString())).thenReturn(bookContainer);
-        Mockito.when(this.mockBookRepository.update(Mockito.eq(Long.valueOf(1)), Mockito.any(Book.class), Mockito.eq("Nigel"), Mockito.eq(true))).thenReturn(EUpdateOutcome.REQUESTING_PLAYER_DOES_NOT_HAVE_LOCK);
-        
-        final BookUpdateRequest bookUpdateRequest = new BookUpdateRequest();
-        bookUpdateRequest.setNewLine("A line.");
-        bookUpdateRequest.setPlayerName("Nigel");
-        
-        final ResponseEntity<BookResource> responseEntity = this.bookController.updateBook(Long.valueOf(1), bookUpdateRequest);
+        final BookResource bookResource = new BookResource(book);
         
-        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.LOCKED);
+        Mockito.when(this.mockBookAppendPipeline.append(Mockito.anyLong(), Mockito.anyString(), Mockito.anyString(), Mockito.any())).thenReturn(createBookUpdateFuture(book, EUpdateOutcome.BOOK_COMPLETE));
+        Mockito.when(this.mockBookResourceAssembler.toResource(Mockito.any(Book.class))).thenReturn(bookResource);
         
-        final ArgumentCaptor<Long> argumentCaptorForId = ArgumentCaptor.forClass(Long.class);
-        final ArgumentCaptor<String> argumentCaptorForPlayerName = ArgumentCaptor.forClass(String.class);
+        final ResponseEntity<BookResource> responseEntity = this.bookController.updateBook(Long.valueOf(1), createBookUpdateRequest(null), createWebRequest(null));
         
-        Mockito.verify(this.mockBookRepository).findById(argumentCaptorForId.capture(), argumentCaptorForPlayerName.capture());
-        Mockito.verify(this.mockBookRepository).update(Mockito.eq(Long.valueOf(1)), Mockito.any(Book.class), Mockito.eq("Nigel"), Mockito.eq(true));
+        Assertions.assertThat(responseEntity.getBody()).isEqualTo(bookResource);
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
         
-        Assertions.assertThat(argumentCaptorForId.getValue()).isEqualTo(Long.valueOf(1));
-        Assertions.assertThat(argumentCaptorForPlayerName.getValue()).isEqualTo("Nigel");
+        Mockito.verify(this.mockBookResourceAssembler).toResource(book);
     }
     
     @Test
-    public void testUpdateWhereFoundButNotFoundOnUpdate() {
+    public void testUpdateWhereSuccessful() {
         
         final Book book = new Book();
         book.setId(Long.valueOf(1));
         
-        final BookContainer bookContainer = new BookContainer();
-        bookContainer.setBook(new Book());
-        bookContainer.setRetrievalOutcome(ERetrievalOutcome.SUCCESS);
-        
-        Mockito.when(this.mockBookRepository.findById(Mockito.anyLong(), Mockito.anyString())).thenReturn(bookContainer);
-        Mockito.when(this.mockBookRepository.update(Mockito.eq(Long.valueOf(1)), Mockito.any(Book.class), Mockito.eq("Nigel"), Mockito.eq(true))).thenReturn(EUpdateOutcome.NOT_FOUND);
+        final BookResource bookResource = new BookResource(book);
         
-        final BookUpdateRequest bookUpdateRequest = new BookUpdateRequest();
-        bookUpdateRequest.setNewLine("A line.");
-        bookUpdateRequest.setPlayerName("Nigel");
+        Mockito.when(this.mockBookAppendPipeline.append(Mockito.anyLong(), Mockito.anyString(), Mockito.anyString(), Mockito.any())).thenReturn(createBookUpdateFuture(book, EUpdateOutcome.SUCCESS));
+        Mockito.when(this.mockBookResourceAssembler.toResource(Mockito.any(Book.class))).thenReturn(bookResource);
         
-        final ResponseEntity<BookResource> responseEntity = this.bookController.updateBook(Long.valueOf(1), bookUpdateRequest);
+        final ResponseEntity<BookResource> responseEntity = this.bookController.updateBook(Long.valueOf(1), createBookUpdateRequest(Long.valueOf(0)), createWebRequest(null));
         
-        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        Assertions.assertThat(responseEntity.getBody()).isEqualTo(bookResource);
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
         
         final ArgumentCaptor<Long> argumentCaptorForId = ArgumentCaptor.forClass(Long.class);
         final ArgumentCaptor<String> argumentCaptorForPlayerName = ArgumentCaptor.forClass(String.class);
+        final ArgumentCaptor<String> argumentCaptorForLine = ArgumentCaptor.forClass(String.class);
+        final ArgumentCaptor<Long> argumentCaptorForVersion = ArgumentCaptor.forClass(Long.class);
         
-        Mockito.verify(this.mockBookRepository).findById(argumentCaptorForId.capture(), argumentCaptorForPlayerName.capture());
-        Mockito.verify(this.mockBookRepository).update(Mockito.eq(Long.valueOf(1)), Mockito.any(Book.class), Mockito.eq("Nigel"), Mockito.eq(true));
+        Mockito.verify(this.mockBookAppendPipeline).append(argumentCaptorForId.capture(), argumentCaptorForPlayerName.capture(), argumentCaptorForLine.capture(), argumentCaptorForVersion.capture());
+        Mockito.verify(this.mockBookResourceAssembler).toResource(book);
+        Mockito.verify(this.mockBookRepository, Mockito.never()).findById(Mockito.anyLong(), Mockito.anyString());
         
         Assertions.assertThat(argumentCaptorForId.getValue()).isEqualTo(Long.valueOf(1));
         Assertions.assertThat(argumentCaptorForPlayerName.getValue()).isEqualTo("Nigel");
+        Assertions.assertThat(argumentCaptorForLine.getValue()).isEqualTo("A line.");
+        Assertions.assertThat(argumentCaptorForVersion.getValue()).isEqualTo(Long.valueOf(0));
     }
     
-    @Test
-    public void testUpdateWhereSuccessful() {
+    private WebRequest createWebRequest(final String ifNoneMatch) {
         
-        final Book book = new Book();
-        book.setId(Long.valueOf(1));
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/book/1");
         
-        final BookContainer bookContainer = new BookContainer();
-        bookContainer.setBook(new Book());
-        bookContainer.setRetrievalOutcome(ERetrievalOutcome.SUCCESS);
+        if (null != ifNoneMatch) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
         
-        final BookResource bookResource = new BookResource(book);
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+    
+    private WebRequest createWebRequestAccepting(final String accept) {
         
-        Mockito.when(this.mockBookRepository.findById(Mockito.anyLong(), Mockito.anyString())).thenReturn(bookContainer);
-        Mockito.when(this.mockBookRepository.update(Mockito.eq(Long.valueOf(1)), Mockito.any(Book.class), Mockito.eq("Nigel"), Mockito.eq(true))).thenReturn(EUpdateOutcome.SUCCESS);
-        Mockito.when(this.mockBookResourceAssembler.toResource(Mockito.any(Book.class))).thenReturn(bookResource);
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/book/1");
+        request.addHeader(HttpHeaders.ACCEPT, accept);
+        
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+    
+    private BookUpdateRequest createBookUpdateRequest(final Long version) {
         
         final BookUpdateRequest bookUpdateRequest = new BookUpdateRequest();
         bookUpdateRequest.setNewLine("A line.");
         bookUpdateRequest.setPlayerName("Nigel");
+        bookUpdateRequest.setVersion(version);
         
-        final ResponseEntity<BookResource> responseEntity = this.bookController.updateBook(Long.valueOf(1), bookUpdateRequest);
+        return bookUpdateRequest;
+    }
+    
+    private BookContainer createBookContainer(final Book book, final ERetrievalOutcome retrievalOutcome) {
         
-        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        final BookContainer bookContainer = new BookContainer();
+        bookContainer.setBook(book);
+        bookContainer.setRetrievalOutcome(retrievalOutcome);
         
-        final ArgumentCaptor<Long> argumentCaptorForId = ArgumentCaptor.forClass(Long.class);
-        final ArgumentCaptor<String> argumentCaptorForPlayerName = ArgumentCaptor.forClass(String.class);
+        return bookContainer;
+    }
+    
+    private CompletableFuture<BookUpdateContainer> createBookUpdateFuture(final Book book, final EUpdateOutcome updateOutcome) {
         
-        Mockito.verify(this.mockBookRepository).findById(argumentCaptorForId.capture(), argumentCaptorForPlayerName.capture());
-        Mockito.verify(this.mockBookRepository).update(Mockito.eq(Long.valueOf(1)), Mockito.any(Book.class), Mockito.eq("Nigel"), Mockito.eq(true));
-        Mockito.verify(this.mockBookResourceAssembler).toResource(Mockito.isA(Book.class));
+        final BookUpdateContainer bookUpdateContainer = new BookUpdateContainer();
+        bookUpdateContainer.setBook(book);
+        bookUpdateContainer.setUpdateOutcome(updateOutcome);
         
-        Assertions.assertThat(argumentCaptorForId.getValue()).isEqualTo(Long.valueOf(1));
-        Assertions.assertThat(argumentCaptorForPlayerName.getValue()).isEqualTo("Nigel");
+        return CompletableFuture.completedFuture(bookUpdateContainer);
+    }
+    
+    // Renders through a cache of its own, since only the cache can make a rendering.
+    private RenderedBook createRenderedBook(final Book book, final String json) throws JsonProcessingException {
+        
+        final BookResourceStreamWriter bookResourceStreamWriter = Mockito.mock(BookResourceStreamWriter.class);
+        Mockito.when(bookResourceStreamWriter.toJson(Mockito.any(BookResource.class))).thenReturn(json.getBytes(StandardCharsets.UTF_8));
+        Mockito.when(bookResourceStreamWriter.toListElementJson(Mockito.any(BookResource.class))).thenReturn(json.getBytes(StandardCharsets.UTF_8));
+        
+        return new CompletedBookJsonCache(bookResourceStreamWriter, 0).find(book, BOOK_BASE_URI, BookResource::new);
+    }
+    
+    private BookBatchCreateRequest createBookBatchCreateRequest(final int size) {
+        
+        final List<BookCreateRequest> bookCreateRequests = new ArrayList<>();
+        
+        for (int i = 0; i < size; i++) {
+            final BookCreateRequest bookCreateRequest = new BookCreateRequest();
+            bookCreateRequest.setName("Book " + i);
+            bookCreateRequests.add(bookCreateRequest);
+        }
+        
+        final BookBatchCreateRequest bookBatchCreateRequest = new BookBatchCreateRequest();
+        bookBatchCreateRequest.setBooks(bookCreateRequests);
+        
+        return bookBatchCreateRequest;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,180 @@
+package com.nigel.bookgame.rest.unit.controller;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.nigel.bookgame.rest.controller.GameEventController;
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.GameEvent;
+import com.nigel.bookgame.rest.event.GameEventBus;
+import com.nigel.bookgame.rest.resource.GameEventResourceAssembler;
+
+/**
+ * Test class for {@link GameEventController}.
+ *
+ * @author nigel
+ */
+@ExtendWith(MockitoExtension.class)
+public class GameEventControllerTest {
+
+    private static final int BUFFER_CAPACITY = 2;
+
+    @Spy
+    private GameEventBus gameEventBus = new GameEventBus(BUFFER_CAPACITY, 1);
+
+    @Spy
+    private GameEventResourceAssembler gameEventResourceAssembler;
+
+    @InjectMocks
+    private GameEventController gameEventController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        this.mockMvc = MockMvcBuilders.standaloneSetup(this.gameEventController).build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.gameEventBus.stop();
+    }
+
+    @Test
+    public void testEventsNamedAfterTheirType() throws Exception {
+
+        final MvcResult mvcResult = watch();
+
+        this.gameEventBus.publish(GameEvent.bookCompleted(book(1)));
+        this.gameEventBus.publish(GameEvent.lockChanged(book(2), "Nigel"));
+
+        final String content = awaitContent(mvcResult, "event:LOCK_CHANGED");
+
+        Assertions.assertThat(content).contains("event:BOOK_COMPLETED\ndata:{").contains("\"bookId\":1");
+        Assertions.assertThat(content.indexOf("event:BOOK_COMPLETED")).isLessThan(content.indexOf("event:LOCK_CHANGED"));
+        Assertions.assertThat(content).contains("\"lockedBy\":\"Nigel\"");
+    }
+
+    @Test
+    public void testWatcherWhoFallsBehindIsSentResync() throws Exception {
+
+        final CountDownLatch deliveryThreadBlocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        // Holds the bus's only delivery thread, as a watcher on a slow connection would.
+        this.gameEventBus.subscribe(gameEvent -> {
+            deliveryThreadBlocked.countDown();
+            try {
+                release.await();
+            }
+            catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        final MvcResult mvcResult = watch();
+
+        this.gameEventBus.publish(GameEvent.bookCompleted(book(1)));
+
+        Assertions.assertThat(deliveryThreadBlocked.await(10, TimeUnit.SECONDS)).isTrue();
+
+        for (long id = 2; id <= BUFFER_CAPACITY + 2; id++) {
+            this.gameEventBus.publish(GameEvent.bookCompleted(book(id)));
+        }
+
+        release.countDown();
+
+        final String content = awaitContent(mvcResult, "\"bookId\":" + (BUFFER_CAPACITY + 2));
+
+        Assertions.assertThat(content).startsWith("event:RESYNC\n").doesNotContain("\"bookId\":1,");
+    }
+
+    @Test
+    public void testCompletionCancelsSubscription() throws Exception {
+
+        final MvcResult mvcResult = watch();
+
+        Assertions.assertThat(this.gameEventBus.getSubscriberCount()).isEqualTo(1);
+
+        mvcResult.getRequest().getAsyncContext().complete();
+
+        Assertions.assertThat(this.gameEventBus.getSubscriberCount()).isZero();
+    }
+
+    @Test
+    public void testTimeoutCancelsSubscription() throws Exception {
+
+        final MvcResult mvcResult = watch();
+        final MockAsyncContext asyncContext = (MockAsyncContext) mvcResult.getRequest().getAsyncContext();
+
+        for (AsyncListener asyncListener : asyncContext.getListeners()) {
+            asyncListener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        Assertions.assertThat(this.gameEventBus.getSubscriberCount()).isZero();
+    }
+
+    @Test
+    public void testErrorCancelsSubscription() throws Exception {
+
+        final MvcResult mvcResult = watch();
+        final MockAsyncContext asyncContext = (MockAsyncContext) mvcResult.getRequest().getAsyncContext();
+
+        for (AsyncListener asyncListener : asyncContext.getListeners()) {
+            asyncListener.onError(new AsyncEvent(asyncContext, new IOException("Connection reset")));
+        }
+
+        Assertions.assertThat(this.gameEventBus.getSubscriberCount()).isZero();
+    }
+
+    private MvcResult watch() throws Exception {
+        return this.mockMvc.perform(MockMvcRequestBuilders.get("/events").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+    }
+
+    // Events are written on the bus's delivery thread, so the response is watched until the one expected last turns up.
+    private static String awaitContent(final MvcResult mvcResult, final String expectedContent) throws Exception {
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        String content = mvcResult.getResponse().getContentAsString();
+
+        while (!content.contains(expectedContent) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            content = mvcResult.getResponse().getContentAsString();
+        }
+
+        Assertions.assertThat(content).contains(expectedContent);
+
+        return content;
+    }
+
+    private static Book book(final long id) {
+
+        final Book book = new Book();
+        book.setId(Long.valueOf(id));
+
+        return book;
+    }
+}
@@ -10,12 +10,17 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 
 import com.nigel.bookgame.rest.controller.LeaderboardController;
-import com.nigel.bookgame.rest.domain.Book;
-import com.nigel.bookgame.rest.repository.BookRepository;
+import com.nigel.bookgame.rest.domain.PlayerScore;
+import com.nigel.bookgame.rest.repository.LeaderboardRepository;
 import com.nigel.bookgame.rest.resource.LeaderboardResource;
 import com.nigel.bookgame.rest.resource.LeaderboardResourceAssembler;
 
@@ -28,7 +33,7 @@ import com.nigel.bookgame.rest.resource.LeaderboardResourceAssembler;
 public class LeaderboardControllerTest {
     
     @Mock
-    private BookRepository mockBookRepository;
+    private LeaderboardRepository mockLeaderboardRepository;
     
     @Mock
     private LeaderboardResourceAssembler leaderboardResourceAssembler;
@@ -39,18 +44,96 @@ public class LeaderboardControllerTest {
     @Test
     public void testShowLeaderboard() {
         
-        final List<Book> listOfBooks = new ArrayList<Book>();
-        final LeaderboardResource leaderboardResource = new LeaderboardResource(listOfBooks);
+        final List<PlayerScore> topPlayers = new ArrayList<PlayerScore>();
+        final LeaderboardResource leaderboardResource = new LeaderboardResource(topPlayers);
         
-        Mockito.when(this.mockBookRepository.findAll()).thenReturn(listOfBooks);
+        Mockito.when(this.mockLeaderboardRepository.findTopPlayers(5)).thenReturn(topPlayers);
         Mockito.when(this.leaderboardResourceAssembler.toResource(Mockito.anyList())).thenReturn(leaderboardResource);
         
-        final ResponseEntity<LeaderboardResource> responseEntity = this.leaderboardController.showLeaderboard();
+        final ResponseEntity<LeaderboardResource> responseEntity = this.leaderboardController.showLeaderboard(5, createWebRequest(null));
         
         Assertions.assertThat(responseEntity.getBody()).isEqualTo(leaderboardResource);
         Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
         
-        Mockito.verify(this.mockBookRepository).findAll();
-        Mockito.verify(this.leaderboardResourceAssembler).toResource(listOfBooks);
+        Mockito.verify(this.mockLeaderboardRepository).findTopPlayers(5);
+        Mockito.verify(this.leaderboardResourceAssembler).toResource(topPlayers);
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void testShowLeaderboardWithLimit() {
+        
+        final List<PlayerScore> topPlayers = new ArrayList<PlayerScore>();
+        final LeaderboardResource leaderboardResource = new LeaderboardResource(topPlayers);
+        
+        Mockito.when(this.mockLeaderboardRepository.findTopPlayers(20)).thenReturn(topPlayers);
+        Mockito.when(this.leaderboardResourceAssembler.toResource(Mockito.anyList())).thenReturn(leaderboardResource);
+        
+        final ResponseEntity<LeaderboardResource> responseEntity = this.leaderboardController.showLeaderboard(20, createWebRequest(null));
+        
+        Assertions.assertThat(responseEntity.getBody()).isEqualTo(leaderboardResource);
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        
+        Mockito.verify(this.mockLeaderboardRepository).findTopPlayers(20);
+    }
+    
+    @Test
+    public void testShowLeaderboardWhereETagQuotedIsNotModified() {
+        
+        Mockito.when(this.mockLeaderboardRepository.getVersion()).thenReturn(Long.valueOf(3));
+        Mockito.when(this.leaderboardResourceAssembler.toResource(Mockito.anyList())).thenReturn(new LeaderboardResource(new ArrayList<PlayerScore>()));
+        
+        final ResponseEntity<LeaderboardResource> responseEntity = this.leaderboardController.showLeaderboard(5, createWebRequest(null));
+        final String eTag = responseEntity.getHeaders().getETag();
+        
+        Assertions.assertThat(eTag).isNotNull();
+        Assertions.assertThat(responseEntity.getHeaders().getCacheControl()).isEqualTo("no-cache");
+        
+        final ResponseEntity<LeaderboardResource> notModifiedResponseEntity = this.leaderboardController.showLeaderboard(5, createWebRequest(eTag));
+        
+        Assertions.assertThat(notModifiedResponseEntity.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        Assertions.assertThat(notModifiedResponseEntity.getBody()).isNull();
+        
+        Mockito.verify(this.mockLeaderboardRepository).findTopPlayers(5);
+        
+        Mockito.when(this.mockLeaderboardRepository.getVersion()).thenReturn(Long.valueOf(4));
+        
+        Assertions.assertThat(this.leaderboardController.showLeaderboard(5, createWebRequest(eTag)).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+    
+    @Test
+    public void testShowLeaderboardAsCborIsTaggedApart() {
+        
+        Mockito.when(this.mockLeaderboardRepository.getVersion()).thenReturn(Long.valueOf(3));
+        Mockito.when(this.leaderboardResourceAssembler.toResource(Mockito.anyList())).thenReturn(new LeaderboardResource(new ArrayList<PlayerScore>()));
+        
+        final WebRequest cborWebRequest = createWebRequest("\"leaderboard-3\"");
+        ((MockHttpServletRequest) ((ServletWebRequest) cborWebRequest).getRequest()).addHeader(HttpHeaders.ACCEPT, "application/cbor");
+        
+        // The JSON encoding's tag does not stand for the CBOR one.
+        final ResponseEntity<LeaderboardResource> responseEntity = this.leaderboardController.showLeaderboard(5, cborWebRequest);
+        
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(responseEntity.getHeaders().getETag()).isEqualTo("\"leaderboard-3-cbor\"");
+        Assertions.assertThat(responseEntity.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT);
+    }
+    
+    @Test
+    public void testShowLeaderboardWithInvalidLimit() {
+        
+        Assertions.assertThat(this.leaderboardController.showLeaderboard(0, createWebRequest(null)).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        Assertions.assertThat(this.leaderboardController.showLeaderboard(1001, createWebRequest(null)).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        
+        Mockito.verifyNoInteractions(this.mockLeaderboardRepository);
+    }
+    
+    private WebRequest createWebRequest(final String ifNoneMatch) {
+        
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/leaderboard");
+        
+        if (null != ifNoneMatch) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
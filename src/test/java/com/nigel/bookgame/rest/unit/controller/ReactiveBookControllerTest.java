@@ -0,0 +1,545 @@
+package com.nigel.bookgame.rest.unit.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import com.nigel.bookgame.rest.controller.BookBatchCreateRequest;
+import com.nigel.bookgame.rest.controller.BookCreateRequest;
+import com.nigel.bookgame.rest.controller.BookPageRequest;
+import com.nigel.bookgame.rest.controller.BookUpdateRequest;
+import com.nigel.bookgame.rest.controller.ReactiveBookController;
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.BookContainer;
+import com.nigel.bookgame.rest.domain.BookPage;
+import com.nigel.bookgame.rest.domain.BookUpdateContainer;
+import com.nigel.bookgame.rest.domain.ERetrievalOutcome;
+import com.nigel.bookgame.rest.domain.EUpdateOutcome;
+import com.nigel.bookgame.rest.repository.ReactiveBookRepository;
+import com.nigel.bookgame.rest.resource.BookBatchResource;
+import com.nigel.bookgame.rest.resource.BookPageResource;
+import com.nigel.bookgame.rest.resource.BookPageResourceAssembler;
+import com.nigel.bookgame.rest.resource.BookResource;
+import com.nigel.bookgame.rest.resource.BookResourceStreamWriter;
+import com.nigel.bookgame.rest.resource.CompletedBookJsonCache;
+import com.nigel.bookgame.rest.resource.CompletedBookJsonCache.RenderedBook;
+import com.nigel.bookgame.rest.resource.ReactiveBookResourceAssembler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Test class for {@link ReactiveBookController}, mirroring {@link BookControllerTest}.
+ * 
+ * @author nigel
+ */
+@ExtendWith(MockitoExtension.class)
+public class ReactiveBookControllerTest {
+    
+    private static final String BOOK_BASE_URI = "http://localhost/book";
+    
+    private final MockServerHttpRequest request = MockServerHttpRequest.get("http://localhost/book/1").build();
+    
+    @Mock
+    private ReactiveBookRepository mockReactiveBookRepository;
+    
+    @Mock
+    private ReactiveBookResourceAssembler mockReactiveBookResourceAssembler;
+    
+    @Mock
+    private BookResourceStreamWriter mockBookResourceStreamWriter;
+    
+    @Mock
+    private BookPageResourceAssembler mockBookPageResourceAssembler;
+    
+    @Mock
+    private CompletedBookJsonCache mockCompletedBookJsonCache;
+    
+    @InjectMocks
+    private ReactiveBookController reactiveBookController;
+    
+    @Test
+    public void testFindAllBooks() throws JsonProcessingException {
+        
+        final Book incompleteBook = new Book();
+        incompleteBook.setId(Long.valueOf(1));
+        final Book completeBook = new Book();
+        completeBook.setId(Long.valueOf(2));
+        completeBook.setComplete(true);
+        
+        final RenderedBook renderedBook = createRenderedBook(completeBook, "{\"complete\":true}");
+        
+        Mockito.when(this.mockReactiveBookRepository.findAll()).thenReturn(Flux.just(incompleteBook, completeBook));
+        Mockito.when(this.mockReactiveBookResourceAssembler.getBookBaseUri(this.request)).thenReturn(BOOK_BASE_URI);
+        Mockito.when(this.mockReactiveBookResourceAssembler.bindTo(this.request)).thenReturn(BookResource::new);
+        Mockito.lenient().when(this.mockCompletedBookJsonCache.find(Mockito.eq(completeBook), Mockito.eq(BOOK_BASE_URI), Mockito.any())).thenReturn(renderedBook); // Incomplete books are looked up too.
+        Mockito.when(this.mockBookResourceStreamWriter.toListElementJson(Mockito.any(BookResource.class))).thenReturn("{\"complete\":false}".getBytes(StandardCharsets.UTF_8));
+        
+        // Only the incomplete book is rendered; the complete one is written as the cache holds it.
+        final MockServerHttpResponse response = new MockServerHttpResponse();
+        
+        StepVerifier.create(this.reactiveBookController.findBooks(new BookPageRequest(), this.request, response)).verifyComplete();
+        
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        Assertions.assertThat(response.getBodyAsString().block()).isEqualTo("[{\"complete\":false},{\"complete\":true}]");
+        
+        Mockito.verify(this.mockBookResourceStreamWriter).toListElementJson(Mockito.argThat(bookResource -> Long.valueOf(1).equals(bookResource.getResourceId())));
+    }
+    
+    @Test
+    public void testFindAllBooksWhereNone() {
+        
+        Mockito.when(this.mockReactiveBookRepository.findAll()).thenReturn(Flux.empty());
+        
+        // The buffers go out as they are: the brackets and each book's JSON, with nothing joined up.
+        StepVerifier.create(this.reactiveBookController.findAllBooks(this.request, new MockServerHttpResponse()).map(buffer -> buffer.toString(StandardCharsets.UTF_8)))
+                .expectNext("[", "]")
+                .verifyComplete();
+    }
+    
+    @Test
+    public void testFindBookPage() {
+        
+        final BookPageRequest bookPageRequest = new BookPageRequest();
+        bookPageRequest.setContributor("Nigel");
+        bookPageRequest.setLimit(Integer.valueOf(5));
+        
+        final BookPage bookPage = new BookPage(new ArrayList<Book>(), null, null);
+        final BookPageResource bookPageResource = new BookPageResource(new ArrayList<BookResource>());
+        
+        Mockito.when(this.mockReactiveBookRepository.findPage(Mockito.any(), Mockito.isNull(), Mockito.isNull(), Mockito.eq(5))).thenReturn(Mono.just(bookPage));
+        Mockito.when(this.mockBookPageResourceAssembler.toResource(Mockito.eq(bookPage), Mockito.any(), Mockito.any())).thenReturn(bookPageResource);
+        
+        StepVerifier.create(this.reactiveBookController.findBooks(bookPageRequest, this.request, new MockServerHttpResponse()))
+                .assertNext(responseEntity -> {
+                    Assertions.assertThat(responseEntity.getBody()).isEqualTo(bookPageResource);
+                    Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+                })
+                .verifyComplete();
+        
+        Mockito.verify(this.mockReactiveBookRepository, Mockito.never()).findAll();
+    }
+    
+    @Test
+    public void testFindBookPageWithBothCursorsIsBadRequest() {
+        
+        final BookPageRequest bookPageRequest = new BookPageRequest();
+        bookPageRequest.setAfter(Long.valueOf(1));
+        bookPageRequest.setBefore(Long.valueOf(5));
+        
+        StepVerifier.create(this.reactiveBookController.findBooks(bookPageRequest, this.request, new MockServerHttpResponse()))
+                .assertNext(responseEntity -> Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST))
+                .verifyComplete();
+        
+        Mockito.verifyNoInteractions(this.mockReactiveBookRepository);
+    }
+    
+    @Test
+    public void testFindAvailableBook() {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(1));
+        
+        final BookResource bookResource = new BookResource(book);
+        
+        Mockito.when(this.mockReactiveBookRepository.findAvailable("Nigel")).thenReturn(createBookMono(book, ERetrievalOutcome.SUCCESS));
+        Mockito.when(this.mockReactiveBookResourceAssembler.toResource(book, this.request)).thenReturn(bookResource);
+        
+        StepVerifier.create(this.reactiveBookController.findAvailableBook("Nigel", this.request))
+                .assertNext(responseEntity -> {
+                    Assertions.assertThat(responseEntity.getBody()).isEqualTo(bookResource);
+                    Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+                })
+                .verifyComplete();
+    }
+    
+    @Test
+    public void testFindAvailableBookWhereNoneAvailable() {
+        
+        Mockito.when(this.mockReactiveBookRepository.findAvailable("Nigel")).thenReturn(createBookMono(null, ERetrievalOutcome.NOT_FOUND));
+        
+        StepVerifier.create(this.reactiveBookController.findAvailableBook("Nigel", this.request))
+                .assertNext(responseEntity -> Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND))
+                .verifyComplete();
+    }
+    
+    @Test
+    public void testStreamAllBooks() throws JsonProcessingException {
+        
+        final Book firstBook = new Book();
+        firstBook.setId(Long.valueOf(1));
+        final Book secondBook = new Book();
+        secondBook.setId(Long.valueOf(2));
+        
+        Mockito.when(this.mockReactiveBookRepository.findAll()).thenReturn(Flux.just(firstBook, secondBook));
+        Mockito.when(this.mockReactiveBookResourceAssembler.bindTo(this.request)).thenReturn(BookResource::new);
+        Mockito.when(this.mockBookResourceStreamWriter.toLine(Mockito.any(BookResource.class))).then(invocation -> (((BookResource) invocation.getArgument(0)).getResourceId() + "\n").getBytes(StandardCharsets.UTF_8));
+        
+        StepVerifier.create(this.reactiveBookController.streamAllBooks(this.request, new MockServerHttpResponse()).map(dataBuffer -> dataBuffer.toString(StandardCharsets.UTF_8)), 1)
+                .expectNext("1\n")
+                .thenRequest(1)
+                .expectNext("2\n")
+                .verifyComplete();
+        
+        // The links' base is only worked out the once for the whole stream.
+        Mockito.verify(this.mockReactiveBookResourceAssembler).bindTo(this.request);
+        Mockito.verify(this.mockReactiveBookResourceAssembler, Mockito.never()).toResource(Mockito.any(Book.class), Mockito.any());
+    }
+    
+    @Test
+    public void testFindBookByIdWhereNotFound() {
+        
+        Mockito.when(this.mockReactiveBookRepository.findById(Mockito.anyLong(), Mockito.anyString())).thenReturn(createBookMono(null, ERetrievalOutcome.NOT_FOUND));
+        
+        StepVerifier.create(this.reactiveBookController.findBookById(Long.valueOf(1), "Nigel", MockServerWebExchange.from(this.request)))
+                .assertNext(responseEntity -> Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND))
+                .verifyComplete();
+        
+        Mockito.verify(this.mockReactiveBookRepository).findById(Long.valueOf(1), "Nigel");
+        Mockito.verifyNoInteractions(this.mockReactiveBookResourceAssembler);
+    }
+    
+    @Test
+    public void testFindBookByIdWhereLockedByAnotherPlayer() {
+        
+        Mockito.when(this.mockReactiveBookRepository.findById(Mockito.anyLong(), Mockito.anyString())).thenReturn(createBookMono(null, ERetrievalOutcome.LOCKED_BY_ANOTHER_PLAYER));
+        
+        StepVerifier.create(this.reactiveBookController.findBookById(Long.valueOf(1), "Nigel", MockServerWebExchange.from(this.request)))
+                .assertNext(responseEntity -> Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.LOCKED))
+                .verifyComplete();
+        
+        Mockito.verify(this.mockReactiveBookRepository).findById(Long.valueOf(1), "Nigel");
+        Mockito.verifyNoInteractions(this.mockReactiveBookResourceAssembler);
+    }
+    
+    @Test
+    public void testFindBookByIdWhereSuccessful() {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(1));
+        
+        final BookResource bookResource = new BookResource(book);
+        
+        Mockito.when(this.mockReactiveBookRepository.findById(Mockito.anyLong(), Mockito.anyString())).thenReturn(createBookMono(book, ERetrievalOutcome.SUCCESS));
+        Mockito.when(this.mockReactiveBookResourceAssembler.toResource(Mockito.any(Book.class), Mockito.any())).thenReturn(bookResource);
+        
+        StepVerifier.create(this.reactiveBookController.findBookById(Long.valueOf(1), "Nigel", MockServerWebExchange.from(this.request)))
+                .assertNext(responseEntity -> {
+                    Assertions.assertThat(responseEntity.getBody()).isEqualTo(bookResource);
+                    Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+                })
+                .verifyComplete();
+        
+        Mockito.verify(this.mockReactiveBookRepository).findById(Long.valueOf(1), "Nigel");
+        Mockito.verify(this.mockReactiveBookResourceAssembler).toResource(book, this.request);
+    }
+    
+    @Test
+    public void testFindBookByIdWhereETagQuotedIsNotModified() throws JsonProcessingException {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(1));
+        book.setComplete(true);
+        
+        final RenderedBook renderedBook = createRenderedBook(book, "{\"complete\":true}");
+        
+        Mockito.when(this.mockReactiveBookRepository.findById(Mockito.anyLong(), Mockito.anyString())).thenReturn(createBookMono(book, ERetrievalOutcome.SUCCESS));
+        Mockito.when(this.mockReactiveBookResourceAssembler.getBookBaseUri(this.request)).thenReturn(BOOK_BASE_URI);
+        Mockito.when(this.mockCompletedBookJsonCache.find(Mockito.eq(book), Mockito.eq(BOOK_BASE_URI), Mockito.any())).thenReturn(renderedBook);
+        
+        final ResponseEntity<?> responseEntity = this.reactiveBookController.findBookById(Long.valueOf(1), "Nigel", MockServerWebExchange.from(this.request)).block();
+        final String eTag = responseEntity.getHeaders().getETag();
+        
+        Assertions.assertThat(((DataBuffer) responseEntity.getBody()).toString(StandardCharsets.UTF_8)).isEqualTo("{\"complete\":true}");
+        Assertions.assertThat(eTag).isNotNull();
+        Assertions.assertThat(responseEntity.getHeaders().getCacheControl()).isEqualTo("max-age=31536000, public");
+        
+        final MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost/book/1").ifNoneMatch(eTag));
+        
+        StepVerifier.create(this.reactiveBookController.findBookById(Long.valueOf(1), "Nigel", exchange))
+                .assertNext(notModifiedResponseEntity -> {
+                    Assertions.assertThat(notModifiedResponseEntity.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+                    Assertions.assertThat(notModifiedResponseEntity.getBody()).isNull();
+                    Assertions.assertThat(notModifiedResponseEntity.getHeaders().getETag()).isEqualTo(eTag);
+                })
+                .verifyComplete();
+        
+        Mockito.verify(this.mockReactiveBookRepository, Mockito.times(2)).findById(Long.valueOf(1), "Nigel");
+        Mockito.verify(this.mockCompletedBookJsonCache).find(Mockito.eq(book), Mockito.eq(BOOK_BASE_URI), Mockito.any());
+        Mockito.verify(this.mockReactiveBookResourceAssembler, Mockito.never()).toResource(Mockito.any(Book.class), Mockito.any());
+    }
+    
+    @Test
+    public void testFindBookByIdAsCborRendersCompleteBook() {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(1));
+        book.setComplete(true);
+        
+        final BookResource bookResource = new BookResource(book);
+        final MockServerHttpRequest cborRequest = MockServerHttpRequest.get("http://localhost/book/1").accept(MediaType.APPLICATION_CBOR).build();
+        
+        Mockito.when(this.mockReactiveBookRepository.findById(Mockito.anyLong(), Mockito.anyString())).thenReturn(createBookMono(book, ERetrievalOutcome.SUCCESS));
+        Mockito.when(this.mockReactiveBookResourceAssembler.toResource(book, cborRequest)).thenReturn(bookResource);
+        
+        // The cache only holds JSON, and the CBOR encoding is tagged apart from it.
+        StepVerifier.create(this.reactiveBookController.findBookById(Long.valueOf(1), "Nigel", MockServerWebExchange.from(cborRequest)))
+                .assertNext(responseEntity -> {
+                    Assertions.assertThat(responseEntity.getBody()).isEqualTo(bookResource);
+                    Assertions.assertThat(responseEntity.getHeaders().getETag()).isEqualTo("\"1-0-complete-cbor\"");
+                    Assertions.assertThat(responseEntity.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT);
+                })
+                .verifyComplete();
+        
+        Mockito.verifyNoInteractions(this.mockCompletedBookJsonCache);
+    }
+    
+    @Test
+    public void testFindBooksAsCborListsResources() {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(1));
+        
+        final MockServerHttpRequest cborRequest = MockServerHttpRequest.get("http://localhost/book").accept(MediaType.APPLICATION_CBOR).build();
+        
+        Mockito.when(this.mockReactiveBookRepository.findAll()).thenReturn(Flux.just(book));
+        Mockito.when(this.mockReactiveBookResourceAssembler.toResourceCollection(List.of(book), cborRequest)).thenReturn(List.of(new BookResource(book)));
+        
+        StepVerifier.create(this.reactiveBookController.findBooks(new BookPageRequest(), cborRequest, new MockServerHttpResponse()))
+                .assertNext(responseEntity -> {
+                    Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+                    Assertions.assertThat(responseEntity.getBody()).asList().hasSize(1);
+                })
+                .verifyComplete();
+        
+        Mockito.verifyNoInteractions(this.mockCompletedBookJsonCache, this.mockBookResourceStreamWriter);
+    }
+    
+    @Test
+    public void testCreate() {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(1));
+        
+        final BookResource bookResource = new BookResource(book);
+        
+        final BookCreateRequest bookCreateRequest = new BookCreateRequest();
+        bookCreateRequest.setName("My book");
+        
+        Mockito.when(this.mockReactiveBookRepository.create(Mockito.any(Book.class))).thenReturn(Mono.just(book));
+        Mockito.when(this.mockReactiveBookResourceAssembler.toResource(Mockito.any(Book.class), Mockito.any())).thenReturn(bookResource);
+        
+        StepVerifier.create(this.reactiveBookController.createBook(bookCreateRequest, this.request))
+                .assertNext(responseEntity -> {
+                    Assertions.assertThat(responseEntity.getBody()).isEqualTo(bookResource);
+                    Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+                })
+                .verifyComplete();
+        
+        Mockito.verify(this.mockReactiveBookRepository).create(Mockito.isA(Book.class));
+        Mockito.verify(this.mockReactiveBookResourceAssembler).toResource(book, this.request);
+    }
+    
+    @Test
+    public void testCreateBatch() {
+        
+        final List<Book> books = new ArrayList<>();
+        final BookBatchResource bookBatchResource = new BookBatchResource(1, 1, 1);
+        
+        final BookCreateRequest bookCreateRequest = new BookCreateRequest();
+        bookCreateRequest.setName("My book");
+        
+        final BookBatchCreateRequest bookBatchCreateRequest = new BookBatchCreateRequest();
+        bookBatchCreateRequest.setBooks(List.of(bookCreateRequest));
+        
+        Mockito.when(this.mockReactiveBookRepository.createAll(Mockito.anyList())).thenReturn(Mono.just(books));
+        Mockito.when(this.mockReactiveBookResourceAssembler.toBatchResource(books, this.request)).thenReturn(bookBatchResource);
+        
+        StepVerifier.create(this.reactiveBookController.createBooks(bookBatchCreateRequest, this.request))
+                .assertNext(responseEntity -> {
+                    Assertions.assertThat(responseEntity.getBody()).isEqualTo(bookBatchResource);
+                    Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+                })
+                .verifyComplete();
+    }
+    
+    @Test
+    public void testCreateBatchEmptyIsBadRequest() {
+        
+        StepVerifier.create(this.reactiveBookController.createBooks(new BookBatchCreateRequest(), this.request))
+                .assertNext(responseEntity -> Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST))
+                .verifyComplete();
+        
+        Mockito.verifyNoInteractions(this.mockReactiveBookRepository);
+    }
+    
+    @Test
+    public void testUpdateWherePlayerNameNull() {
+        
+        final BookUpdateRequest bookUpdateRequest = new BookUpdateRequest();
+        bookUpdateRequest.setNewLine("A line.");
+        bookUpdateRequest.setPlayerName(null);
+        
+        StepVerifier.create(this.reactiveBookController.updateBook(Long.valueOf(1), bookUpdateRequest, this.request))
+                .assertNext(responseEntity -> Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST))
+                .verifyComplete();
+        
+        Mockito.verifyNoInteractions(this.mockReactiveBookRepository);
+    }
+    
+    @Test
+    public void testUpdateWhereNotFound() {
+        
+        Mockito.when(this.mockReactiveBookRepository.appendLine(Mockito.anyLong(), Mockito.anyString(), Mockito.anyString(), Mockito.any())).thenReturn(createBookUpdateMono(null, EUpdateOutcome.NOT_FOUND));
+        
+        StepVerifier.create(this.reactiveBookController.updateBook(Long.valueOf(1), createBookUpdateRequest(null), this.request))
+                .assertNext(responseEntity -> Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND))
+                .verifyComplete();
+        
+        Mockito.verify(this.mockReactiveBookRepository).appendLine(Long.valueOf(1), "Nigel", "A line.", null);
+        Mockito.verifyNoInteractions(this.mockReactiveBookResourceAssembler);
+    }
+    
+    @Test
+    public void testUpdateWhereLockedByAnotherPlayer() {
+        
+        Mockito.when(this.mockReactiveBookRepository.appendLine(Mockito.anyLong(), Mockito.anyString(), Mockito.anyString(), Mockito.any())).thenReturn(createBookUpdateMono(null, EUpdateOutcome.REQUESTING_PLAYER_DOES_NOT_HAVE_LOCK));
+        
+        StepVerifier.create(this.reactiveBookController.updateBook(Long.valueOf(1), createBookUpdateRequest(null), this.request))
+                .assertNext(responseEntity -> Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.LOCKED))
+                .verifyComplete();
+        
+        Mockito.verify(this.mockReactiveBookRepository).appendLine(Long.valueOf(1), "Nigel", "A line.", null);
+        Mockito.verifyNoInteractions(this.mockReactiveBookResourceAssembler);
+    }
+    
+    @Test
+    public void testUpdateWhereVersionConflict() {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(1));
+        
+        Mockito.when(this.mockReactiveBookRepository.appendLine(Mockito.anyLong(), Mockito.anyString(), Mockito.anyString(), Mockito.any())).thenReturn(createBookUpdateMono(book, EUpdateOutcome.VERSION_CONFLICT));
+        
+        StepVerifier.create(this.reactiveBookController.updateBook(Long.valueOf(1), createBookUpdateRequest(Long.valueOf(3)), this.request))
+                .assertNext(responseEntity -> Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.CONFLICT))
+                .verifyComplete();
+        
+        Mockito.verify(this.mockReactiveBookRepository).appendLine(Long.valueOf(1), "Nigel", "A line.", Long.valueOf(3));
+        Mockito.verifyNoInteractions(this.mockReactiveBookResourceAssembler);
+    }
+    
+    @Test
+    public void testUpdateWhereBookAlreadyComplete() {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(1));
+        
+        final BookResource bookResource = new BookResource(book);
+        
+        Mockito.when(this.mockReactiveBookRepository.appendLine(Mockito.anyLong(), Mockito.anyString(), Mockito.anyString(), Mockito.any())).thenReturn(createBookUpdateMono(book, EUpdateOutcome.BOOK_COMPLETE));
+        Mockito.when(this.mockReactiveBookResourceAssembler.toResource(Mockito.any(Book.class), Mockito.any())).thenReturn(bookResource);
+        
+        StepVerifier.create(this.reactiveBookController.updateBook(Long.valueOf(1), createBookUpdateRequest(null), this.request))
+                .assertNext(responseEntity -> {
+                    Assertions.assertThat(responseEntity.getBody()).isEqualTo(bookResource);
+                    Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+                })
+                .verifyComplete();
+        
+        Mockito.verify(this.mockReactiveBookResourceAssembler).toResource(book, this.request);
+    }
+    
+    @Test
+    public void testUpdateWhereSuccessful() {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(1));
+        
+        final BookResource bookResource = new BookResource(book);
+        
+        Mockito.when(this.mockReactiveBookRepository.appendLine(Mockito.anyLong(), Mockito.anyString(), Mockito.anyString(), Mockito.any())).thenReturn(createBookUpdateMono(book, EUpdateOutcome.SUCCESS));
+        Mockito.when(this.mockReactiveBookResourceAssembler.toResource(Mockito.any(Book.class), Mockito.any())).thenReturn(bookResource);
+        
+        StepVerifier.create(this.reactiveBookController.updateBook(Long.valueOf(1), createBookUpdateRequest(Long.valueOf(0)), this.request))
+                .assertNext(responseEntity -> {
+                    Assertions.assertThat(responseEntity.getBody()).isEqualTo(bookResource);
+                    Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+                })
+                .verifyComplete();
+        
+        final ArgumentCaptor<Long> argumentCaptorForId = ArgumentCaptor.forClass(Long.class);
+        final ArgumentCaptor<String> argumentCaptorForPlayerName = ArgumentCaptor.forClass(String.class);
+        final ArgumentCaptor<String> argumentCaptorForLine = ArgumentCaptor.forClass(String.class);
+        final ArgumentCaptor<Long> argumentCaptorForVersion = ArgumentCaptor.forClass(Long.class);
+        
+        Mockito.verify(this.mockReactiveBookRepository).appendLine(argumentCaptorForId.capture(), argumentCaptorForPlayerName.capture(), argumentCaptorForLine.capture(), argumentCaptorForVersion.capture());
+        Mockito.verify(this.mockReactiveBookResourceAssembler).toResource(book, this.request);
+        Mockito.verify(this.mockReactiveBookRepository, Mockito.never()).findById(Mockito.anyLong(), Mockito.anyString());
+        
+        Assertions.assertThat(argumentCaptorForId.getValue()).isEqualTo(Long.valueOf(1));
+        Assertions.assertThat(argumentCaptorForPlayerName.getValue()).isEqualTo("Nigel");
+        Assertions.assertThat(argumentCaptorForLine.getValue()).isEqualTo("A line.");
+        Assertions.assertThat(argumentCaptorForVersion.getValue()).isEqualTo(Long.valueOf(0));
+    }
+    
+    private BookUpdateRequest createBookUpdateRequest(final Long version) {
+        
+        final BookUpdateRequest bookUpdateRequest = new BookUpdateRequest();
+        bookUpdateRequest.setNewLine("A line.");
+        bookUpdateRequest.setPlayerName("Nigel");
+        bookUpdateRequest.setVersion(version);
+        
+        return bookUpdateRequest;
+    }
+    
+    private Mono<BookContainer> createBookMono(final Book book, final ERetrievalOutcome retrievalOutcome) {
+        
+        final BookContainer bookContainer = new BookContainer();
+        bookContainer.setBook(book);
+        bookContainer.setRetrievalOutcome(retrievalOutcome);
+        
+        return Mono.just(bookContainer);
+    }
+    
+    private Mono<BookUpdateContainer> createBookUpdateMono(final Book book, final EUpdateOutcome updateOutcome) {
+        
+        final BookUpdateContainer bookUpdateContainer = new BookUpdateContainer();
+        bookUpdateContainer.setBook(book);
+        bookUpdateContainer.setUpdateOutcome(updateOutcome);
+        
+        return Mono.just(bookUpdateContainer);
+    }
+    
+    // Renders through a cache of its own, since only the cache can make a rendering.
+    private RenderedBook createRenderedBook(final Book book, final String json) throws JsonProcessingException {
+        
+        final BookResourceStreamWriter bookResourceStreamWriter = Mockito.mock(BookResourceStreamWriter.class);
+        Mockito.when(bookResourceStreamWriter.toJson(Mockito.any(BookResource.class))).thenReturn(json.getBytes(StandardCharsets.UTF_8));
+        Mockito.when(bookResourceStreamWriter.toListElementJson(Mockito.any(BookResource.class))).thenReturn(json.getBytes(StandardCharsets.UTF_8));
+        
+        return new CompletedBookJsonCache(bookResourceStreamWriter, 0).find(book, BOOK_BASE_URI, BookResource::new);
+    }
+}
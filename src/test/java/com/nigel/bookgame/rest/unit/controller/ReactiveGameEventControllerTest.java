@@ -0,0 +1,69 @@
+package com.nigel.bookgame.rest.unit.controller;
+
+import java.time.Duration;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.nigel.bookgame.rest.controller.ReactiveGameEventController;
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.EGameEventType;
+import com.nigel.bookgame.rest.domain.GameEvent;
+import com.nigel.bookgame.rest.event.GameEventBus;
+import com.nigel.bookgame.rest.resource.GameEventResourceAssembler;
+
+import reactor.test.StepVerifier;
+
+/**
+ * Test class for {@link ReactiveGameEventController}.
+ * 
+ * @author nigel
+ */
+@ExtendWith(MockitoExtension.class)
+public class ReactiveGameEventControllerTest {
+    
+    @Spy
+    private GameEventBus gameEventBus = new GameEventBus(2, 1);
+    
+    @Spy
+    private GameEventResourceAssembler gameEventResourceAssembler;
+    
+    @InjectMocks
+    private ReactiveGameEventController reactiveGameEventController;
+    
+    @Test
+    public void testEventsSentOnlyAsRequestedAndCoalescedMeanwhile() {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(1));
+        
+        StepVerifier.create(this.reactiveGameEventController.streamEvents(), 0)
+                .then(() -> {
+                    this.gameEventBus.publish(GameEvent.bookCompleted(book));
+                    this.gameEventBus.publish(GameEvent.lockChanged(book, "Nigel"));
+                    this.gameEventBus.publish(GameEvent.lockChanged(book, null));
+                })
+                .thenRequest(1)
+                .assertNext(serverSentEvent -> {
+                    Assertions.assertThat(serverSentEvent.event()).isEqualTo("BOOK_COMPLETED");
+                    Assertions.assertThat(serverSentEvent.data().getBookId()).isEqualTo(Long.valueOf(1));
+                })
+                .thenRequest(1)
+                .assertNext(serverSentEvent -> {
+                    Assertions.assertThat(serverSentEvent.data().getType()).isEqualTo(EGameEventType.LOCK_CHANGED);
+                    Assertions.assertThat(serverSentEvent.data().getLockedBy()).isNull();
+                })
+                .thenRequest(1)
+                .expectNoEvent(Duration.ofMillis(50))
+                .then(() -> this.gameEventBus.publish(GameEvent.bookCompleted(book)))
+                .assertNext(serverSentEvent -> Assertions.assertThat(serverSentEvent.event()).isEqualTo("BOOK_COMPLETED"))
+                .thenCancel()
+                .verify();
+        
+        Assertions.assertThat(this.gameEventBus.getSubscriberCount()).isZero();
+    }
+}
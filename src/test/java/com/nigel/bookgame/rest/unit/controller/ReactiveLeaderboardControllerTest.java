@@ -0,0 +1,121 @@
+package com.nigel.bookgame.rest.unit.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import com.nigel.bookgame.rest.controller.ReactiveLeaderboardController;
+import com.nigel.bookgame.rest.domain.PlayerScore;
+import com.nigel.bookgame.rest.repository.ReactiveBookRepository;
+import com.nigel.bookgame.rest.resource.LeaderboardResource;
+import com.nigel.bookgame.rest.resource.LeaderboardResourceAssembler;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Test class for {@link ReactiveLeaderboardController}, mirroring {@link LeaderboardControllerTest}.
+ * 
+ * @author nigel
+ */
+@ExtendWith(MockitoExtension.class)
+public class ReactiveLeaderboardControllerTest {
+    
+    @Mock
+    private ReactiveBookRepository mockReactiveBookRepository;
+    
+    @Mock
+    private LeaderboardResourceAssembler leaderboardResourceAssembler;
+    
+    @InjectMocks
+    private ReactiveLeaderboardController reactiveLeaderboardController;
+    
+    @Test
+    public void testShowLeaderboard() {
+        
+        final List<PlayerScore> topPlayers = new ArrayList<PlayerScore>();
+        final LeaderboardResource leaderboardResource = new LeaderboardResource(topPlayers);
+        
+        Mockito.when(this.mockReactiveBookRepository.findTopPlayers(5)).thenReturn(Mono.just(topPlayers));
+        Mockito.when(this.leaderboardResourceAssembler.toResource(Mockito.anyList())).thenReturn(leaderboardResource);
+        
+        StepVerifier.create(this.reactiveLeaderboardController.showLeaderboard(5, createExchange(null)))
+                .assertNext(responseEntity -> {
+                    Assertions.assertThat(responseEntity.getBody()).isEqualTo(leaderboardResource);
+                    Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+                })
+                .verifyComplete();
+        
+        Mockito.verify(this.mockReactiveBookRepository).findTopPlayers(5);
+        Mockito.verify(this.leaderboardResourceAssembler).toResource(topPlayers);
+    }
+    
+    @Test
+    public void testShowLeaderboardWithLimit() {
+        
+        final List<PlayerScore> topPlayers = new ArrayList<PlayerScore>();
+        final LeaderboardResource leaderboardResource = new LeaderboardResource(topPlayers);
+        
+        Mockito.when(this.mockReactiveBookRepository.findTopPlayers(20)).thenReturn(Mono.just(topPlayers));
+        Mockito.when(this.leaderboardResourceAssembler.toResource(Mockito.anyList())).thenReturn(leaderboardResource);
+        
+        StepVerifier.create(this.reactiveLeaderboardController.showLeaderboard(20, createExchange(null)))
+                .assertNext(responseEntity -> {
+                    Assertions.assertThat(responseEntity.getBody()).isEqualTo(leaderboardResource);
+                    Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+                })
+                .verifyComplete();
+        
+        Mockito.verify(this.mockReactiveBookRepository).findTopPlayers(20);
+    }
+    
+    @Test
+    public void testShowLeaderboardWhereETagQuotedIsNotModified() {
+        
+        Mockito.when(this.mockReactiveBookRepository.getLeaderboardVersion()).thenReturn(Long.valueOf(3));
+        
+        StepVerifier.create(this.reactiveLeaderboardController.showLeaderboard(5, createExchange("\"leaderboard-3\"")))
+                .assertNext(responseEntity -> {
+                    Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+                    Assertions.assertThat(responseEntity.getHeaders().getETag()).isEqualTo("\"leaderboard-3\"");
+                    Assertions.assertThat(responseEntity.getHeaders().getCacheControl()).isEqualTo("no-cache");
+                })
+                .verifyComplete();
+        
+        Mockito.verify(this.mockReactiveBookRepository, Mockito.never()).findTopPlayers(Mockito.anyInt());
+    }
+    
+    @Test
+    public void testShowLeaderboardWithInvalidLimit() {
+        
+        StepVerifier.create(this.reactiveLeaderboardController.showLeaderboard(0, createExchange(null)))
+                .assertNext(responseEntity -> Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST))
+                .verifyComplete();
+        StepVerifier.create(this.reactiveLeaderboardController.showLeaderboard(1001, createExchange(null)))
+                .assertNext(responseEntity -> Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST))
+                .verifyComplete();
+        
+        Mockito.verifyNoInteractions(this.mockReactiveBookRepository);
+    }
+    
+    private MockServerWebExchange createExchange(final String ifNoneMatch) {
+        
+        final MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("http://localhost/leaderboard");
+        
+        if (null != ifNoneMatch) {
+            request.ifNoneMatch(ifNoneMatch);
+        }
+        
+        return MockServerWebExchange.from(request);
+    }
+}
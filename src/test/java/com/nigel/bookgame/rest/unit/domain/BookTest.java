@@ -4,7 +4,10 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.EUpdateOutcome;
 import com.nigel.bookgame.rest.domain.LineDetail;
+import com.nigel.bookgame.rest.domain.LockLease;
+import com.nigel.bookgame.rest.domain.PlayerRegistry;
 
 /**
  * Test class for {@link Book}.
@@ -13,18 +16,40 @@ import com.nigel.bookgame.rest.domain.LineDetail;
  */
 public class BookTest {
     
+    private final PlayerRegistry playerRegistry = new PlayerRegistry();
+    
     @Test
     public void testAddingLines() {
         
         final Book book = new Book();
-        Assertions.assertThat(book.getLineDetailMap()).isEmpty();
+        Assertions.assertThat(book.getLineDetailMap(this.playerRegistry)).isEmpty();
         
-        book.addLineToLineDetailMap("First line.", "Nigel");
-        Assertions.assertThat(book.getLineDetailMap()).hasSize(1);
+        book.addLineToLineDetailMap("First line.", this.playerRegistry.idOf("Nigel"));
+        Assertions.assertThat(book.getLineDetailMap(this.playerRegistry)).hasSize(1);
         
         final LineDetail expectedLineDetail = new LineDetail("First line.", "Nigel");
-        Assertions.assertThat(expectedLineDetail.getLine()).isEqualTo(book.getLineDetailMap().get(1).getLine());
-        Assertions.assertThat(expectedLineDetail.getPlayerName()).isEqualTo(book.getLineDetailMap().get(1).getPlayerName());
+        Assertions.assertThat(expectedLineDetail.getLine()).isEqualTo(book.getLineDetailMap(this.playerRegistry).get(1).getLine());
+        Assertions.assertThat(expectedLineDetail.getPlayerName()).isEqualTo(book.getLineDetailMap(this.playerRegistry).get(1).getPlayerName());
+    }
+    
+    @Test
+    public void testAppendingLinesWithVersions() {
+        
+        final Book book = new Book();
+        Assertions.assertThat(book.getVersion()).isZero();
+        
+        Assertions.assertThat(book.appendLine("Line 1.", this.playerRegistry.idOf("Nigel"), Long.valueOf(0))).isEqualTo(EUpdateOutcome.SUCCESS);
+        Assertions.assertThat(book.appendLine("Line 2.", this.playerRegistry.idOf("Marie"), Long.valueOf(0))).isEqualTo(EUpdateOutcome.VERSION_CONFLICT);
+        Assertions.assertThat(book.getVersion()).isEqualTo(1);
+        
+        Assertions.assertThat(book.appendLine("Line 2.", this.playerRegistry.idOf("Marie"), null)).isEqualTo(EUpdateOutcome.SUCCESS);
+        Assertions.assertThat(book.appendLine("Line 3.", this.playerRegistry.idOf("Jeremy"), null)).isEqualTo(EUpdateOutcome.SUCCESS);
+        Assertions.assertThat(book.appendLine("Line 4.", this.playerRegistry.idOf("Chloe"), null)).isEqualTo(EUpdateOutcome.SUCCESS);
+        Assertions.assertThat(book.appendLine("Line 5.", this.playerRegistry.idOf("Steph"), Long.valueOf(4))).isEqualTo(EUpdateOutcome.SUCCESS);
+        Assertions.assertThat(book.isComplete()).isTrue();
+        
+        Assertions.assertThat(book.appendLine("Line 6.", this.playerRegistry.idOf("Nigel"), null)).isEqualTo(EUpdateOutcome.BOOK_COMPLETE);
+        Assertions.assertThat(book.getLineDetailMap(this.playerRegistry)).hasSize(5);
     }
     
     @Test
@@ -37,8 +62,62 @@ public class BookTest {
         Assertions.assertThat(book.lock("Marie")).isFalse();
         Assertions.assertThat(book.getLockedBy()).isEqualTo("Nigel");
         
-        book.unlock();
+        Assertions.assertThat(book.unlock("Marie").isLocked()).isFalse();
+        Assertions.assertThat(book.getLockedBy()).isEqualTo("Nigel");
+        
+        Assertions.assertThat(book.unlock("Nigel").getOwner()).isEqualTo("Nigel");
+        Assertions.assertThat(book.getLockedBy()).isNull();
+    }
+    
+    @Test
+    public void testRelockingRenewsLease() {
+        
+        final Book book = new Book();
+        Assertions.assertThat(book.lock("Nigel")).isTrue();
+        
+        final LockLease firstLease = book.getLockLease();
+        
+        Assertions.assertThat(book.lock("Nigel")).isTrue();
+        Assertions.assertThat(book.getLockLease().getVersion()).isGreaterThan(firstLease.getVersion());
+        Assertions.assertThat(book.getLockLease().getLeaseDeadline()).isGreaterThanOrEqualTo(firstLease.getLeaseDeadline());
+        Assertions.assertThat(book.getLockLease().getLockedSince()).isEqualTo(firstLease.getLockedSince());
+    }
+    
+    @Test
+    public void testExpiredLeaseCanBeTakenOver() {
+        
+        final Book book = new Book();
+        Assertions.assertThat(book.lock("Nigel", 0)).isTrue();
         Assertions.assertThat(book.getLockedBy()).isNull();
+        Assertions.assertThat(book.lock("Marie")).isTrue();
+        Assertions.assertThat(book.getLockedBy()).isEqualTo("Marie");
+    }
+    
+    @Test
+    public void testExpireLeaseOnlyClearsTheSuppliedLease() {
+        
+        final Book book = new Book();
+        book.lock("Nigel", 0);
+        
+        final LockLease expiredLease = book.getLockLease();
+        book.lock("Marie");
+        
+        Assertions.assertThat(book.expireLease(expiredLease, System.currentTimeMillis())).isFalse();
+        Assertions.assertThat(book.getLockedBy()).isEqualTo("Marie");
+    }
+    
+    @Test
+    public void testUnlockLeavesLeaseRetakenAfterExpiry() {
+        
+        final Book book = new Book();
+        book.lock("Nigel", 0);
+        book.lock("Marie");
+        
+        final LockLease retakenLease = book.getLockLease();
+        
+        Assertions.assertThat(book.unlock("Nigel")).isSameAs(LockLease.UNLOCKED);
+        Assertions.assertThat(book.getLockLease()).isSameAs(retakenLease);
+        Assertions.assertThat(book.getLockedBy()).isEqualTo("Marie");
     }
     
     @Test
@@ -0,0 +1,103 @@
+package com.nigel.bookgame.rest.unit.domain;
+
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.nigel.bookgame.rest.domain.LineDetail;
+import com.nigel.bookgame.rest.domain.LineHistory;
+import com.nigel.bookgame.rest.domain.PlayerRegistry;
+
+/**
+ * Test class for {@link LineHistory}.
+ * 
+ * @author nigel
+ */
+public class LineHistoryTest {
+    
+    private final PlayerRegistry playerRegistry = new PlayerRegistry();
+    
+    @Test
+    public void testEmptyHistory() {
+        
+        final LineHistory lineHistory = LineHistory.EMPTY;
+        
+        Assertions.assertThat(lineHistory.lineCount()).isZero();
+        Assertions.assertThat(lineHistory.lastLine()).isNull();
+        Assertions.assertThat(lineHistory.getLines()).isEmpty();
+        Assertions.assertThat(lineHistory.getVersion()).isZero();
+        Assertions.assertThat(lineHistory.isComplete()).isFalse();
+    }
+    
+    @Test
+    public void testAppendingLeavesEarlierSnapshotUnchanged() {
+        
+        final LineHistory firstHistory = LineHistory.EMPTY.append("Line 1.", playerIdOf("Nigel"), 3);
+        final LineHistory secondHistory = firstHistory.append("Line 2.", playerIdOf("Marie"), 3);
+        
+        Assertions.assertThat(firstHistory.getLines()).containsExactly("Line 1.");
+        Assertions.assertThat(firstHistory.getVersion()).isEqualTo(1);
+        
+        Assertions.assertThat(secondHistory.getLines()).containsExactly("Line 1.", "Line 2.");
+        Assertions.assertThat(secondHistory.lastLine()).isEqualTo("Line 2.");
+        Assertions.assertThat(secondHistory.getLineDetails(this.playerRegistry).get(1).getPlayerName()).isEqualTo("Marie");
+        Assertions.assertThat(secondHistory.getLine(0)).isSameAs(firstHistory.getLine(0));
+        Assertions.assertThat(secondHistory.getVersion()).isEqualTo(2);
+        Assertions.assertThat(secondHistory.isComplete()).isFalse();
+        
+        Assertions.assertThat(secondHistory.append("Line 3.", playerIdOf("Jeremy"), 3).isComplete()).isTrue();
+    }
+    
+    @Test
+    public void testHasContributor() {
+        
+        final LineHistory lineHistory = LineHistory.EMPTY.append("Line 1.", playerIdOf("Nigel"), 3).append("Line 2.", playerIdOf("Marie"), 3);
+        
+        Assertions.assertThat(lineHistory.hasContributor(playerIdOf("Marie"))).isTrue();
+        Assertions.assertThat(lineHistory.hasContributor(playerIdOf("Somebody else"))).isFalse();
+        Assertions.assertThat(LineHistory.EMPTY.hasContributor(playerIdOf("Nigel"))).isFalse();
+    }
+    
+    @Test
+    public void testFrozenLinesAreReadFromThePackedText() {
+        
+        final LineHistory lineHistory = LineHistory.EMPTY.append("Line 1.", playerIdOf("Nigel"), 2).append("Line 2.", playerIdOf("Marie"), 2);
+        
+        Assertions.assertThat(lineHistory.isFrozen()).isTrue();
+        Assertions.assertThat(lineHistory.getLines()).containsExactly("Line 1.", "Line 2.");
+        Assertions.assertThat(lineHistory.lastLine()).isEqualTo("Line 2.");
+        Assertions.assertThatThrownBy(() -> lineHistory.getLine(2)).isInstanceOf(IndexOutOfBoundsException.class);
+        
+        final List<LineDetail> lineDetails = lineHistory.getLineDetails(this.playerRegistry);
+        
+        Assertions.assertThat(lineDetails.get(1)).isSameAs(lineDetails.get(1));
+        Assertions.assertThat(lineDetails.get(1).getPlayerName()).isEqualTo("Marie");
+    }
+    
+    @Test
+    public void testReopeningFrozenHistoryLeavesTheOriginalFrozen() {
+        
+        final LineHistory lineHistory = LineHistory.EMPTY.append("Line 1.", playerIdOf("Nigel"), 2).append("Line 2.", playerIdOf("Marie"), 2);
+        final LineHistory reopenedHistory = lineHistory.withComplete(false);
+        
+        Assertions.assertThat(reopenedHistory.isFrozen()).isFalse();
+        Assertions.assertThat(reopenedHistory.getLines()).containsExactly("Line 1.", "Line 2.");
+        Assertions.assertThat(lineHistory.isFrozen()).isTrue();
+        Assertions.assertThat(lineHistory.withComplete(true)).isSameAs(lineHistory);
+        Assertions.assertThat(reopenedHistory.append("Line 3.", playerIdOf("Jeremy"), 4).getLines()).containsExactly("Line 1.", "Line 2.", "Line 3.");
+    }
+    
+    @Test
+    public void testViewsAreReadOnly() {
+        
+        final LineHistory lineHistory = LineHistory.EMPTY.append("Line 1.", playerIdOf("Nigel"), 3);
+        
+        Assertions.assertThatThrownBy(() -> lineHistory.getLines().add("Line 2.")).isInstanceOf(UnsupportedOperationException.class);
+        Assertions.assertThatThrownBy(() -> lineHistory.getLineDetails(this.playerRegistry).set(0, null)).isInstanceOf(UnsupportedOperationException.class);
+    }
+    
+    private int playerIdOf(final String playerName) {
+        return this.playerRegistry.idOf(playerName);
+    }
+}
@@ -0,0 +1,67 @@
+package com.nigel.bookgame.rest.unit.domain;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.nigel.bookgame.rest.domain.PlayerRegistry;
+
+/**
+ * Test class for {@link PlayerRegistry}.
+ * 
+ * @author nigel
+ */
+public class PlayerRegistryTest {
+    
+    private final PlayerRegistry playerRegistry = new PlayerRegistry();
+    
+    @Test
+    public void testSameNameGivesSameId() {
+        
+        final int playerId = this.playerRegistry.idOf("PlayerRegistryTest-Nigel");
+        
+        Assertions.assertThat(this.playerRegistry.idOf(new String("PlayerRegistryTest-Nigel"))).isEqualTo(playerId);
+        Assertions.assertThat(this.playerRegistry.idOf("PlayerRegistryTest-Marie")).isNotEqualTo(playerId);
+        Assertions.assertThat(this.playerRegistry.nameOf(playerId)).isEqualTo("PlayerRegistryTest-Nigel");
+    }
+    
+    @Test
+    public void testNoPlayer() {
+        Assertions.assertThat(this.playerRegistry.idOf(null)).isEqualTo(PlayerRegistry.NO_PLAYER);
+        Assertions.assertThat(this.playerRegistry.nameOf(PlayerRegistry.NO_PLAYER)).isNull();
+    }
+    
+    @Test
+    public void testFindIdDoesNotRegister() {
+        
+        Assertions.assertThat(this.playerRegistry.findId("PlayerRegistryTest-Nigel")).isEqualTo(PlayerRegistry.NO_PLAYER);
+        Assertions.assertThat(this.playerRegistry.findId("PlayerRegistryTest-Nigel")).isEqualTo(PlayerRegistry.NO_PLAYER);
+        Assertions.assertThat(this.playerRegistry.findId(null)).isEqualTo(PlayerRegistry.NO_PLAYER);
+        
+        final int playerId = this.playerRegistry.idOf("PlayerRegistryTest-Nigel");
+        
+        Assertions.assertThat(this.playerRegistry.findId(new String("PlayerRegistryTest-Nigel"))).isEqualTo(playerId);
+    }
+    
+    @Test
+    public void testClearForgetsEveryPlayer() {
+        
+        this.playerRegistry.idOf("PlayerRegistryTest-Nigel");
+        this.playerRegistry.clear();
+        
+        Assertions.assertThat(this.playerRegistry.findId("PlayerRegistryTest-Nigel")).isEqualTo(PlayerRegistry.NO_PLAYER);
+        Assertions.assertThat(this.playerRegistry.idOf("PlayerRegistryTest-Marie")).isZero();
+    }
+    
+    @Test
+    public void testRegistryGrows() {
+        
+        final int firstPlayerId = this.playerRegistry.idOf("PlayerRegistryTest-0");
+        
+        for (int index = 1; index < 5000; index++) {
+            this.playerRegistry.idOf("PlayerRegistryTest-" + index);
+        }
+        
+        Assertions.assertThat(this.playerRegistry.nameOf(firstPlayerId)).isEqualTo("PlayerRegistryTest-0");
+        Assertions.assertThat(this.playerRegistry.nameOf(this.playerRegistry.idOf("PlayerRegistryTest-4999"))).isEqualTo("PlayerRegistryTest-4999");
+    }
+}
@@ -0,0 +1,147 @@
+package com.nigel.bookgame.rest.unit.event;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.GameEvent;
+import com.nigel.bookgame.rest.event.GameEventBus;
+import com.nigel.bookgame.rest.event.GameEventSubscription;
+
+/**
+ * Test class for {@link GameEventBus}.
+ * 
+ * @author nigel
+ */
+public class GameEventBusTest {
+    
+    private static final int NUMBER_OF_EVENTS = 100;
+    private static final int NUMBER_OF_DELIVERY_THREADS = 2;
+    
+    private final GameEventBus gameEventBus = new GameEventBus(NUMBER_OF_EVENTS, NUMBER_OF_DELIVERY_THREADS);
+    
+    @AfterEach
+    public void tearDown() {
+        this.gameEventBus.stop();
+    }
+    
+    @Test
+    public void testPublishWithoutSubscribers() {
+        
+        this.gameEventBus.publish(GameEvent.bookCompleted(book(1)));
+        
+        Assertions.assertThat(this.gameEventBus.hasSubscribers()).isFalse();
+    }
+    
+    @Test
+    public void testEveryEventPushedInOrderToEverySubscriber() throws InterruptedException {
+        
+        final List<Long> firstReceived = new CopyOnWriteArrayList<Long>();
+        final List<Long> secondReceived = new CopyOnWriteArrayList<Long>();
+        final CountDownLatch allReceived = new CountDownLatch(2 * NUMBER_OF_EVENTS);
+        
+        this.gameEventBus.subscribe(gameEvent -> {
+            firstReceived.add(gameEvent.getBookId());
+            allReceived.countDown();
+        });
+        this.gameEventBus.subscribe(gameEvent -> {
+            secondReceived.add(gameEvent.getBookId());
+            allReceived.countDown();
+        });
+        
+        for (long id = 1; id <= NUMBER_OF_EVENTS; id++) {
+            this.gameEventBus.publish(GameEvent.bookCompleted(book(id)));
+        }
+        
+        Assertions.assertThat(allReceived.await(10, TimeUnit.SECONDS)).isTrue();
+        Assertions.assertThat(firstReceived).isSorted().hasSize(NUMBER_OF_EVENTS);
+        Assertions.assertThat(secondReceived).isEqualTo(firstReceived);
+    }
+    
+    @Test
+    public void testSubscriberWhichThrowsIsUnsubscribed() throws InterruptedException {
+        
+        final CountDownLatch attempted = new CountDownLatch(1);
+        
+        final GameEventSubscription subscription = this.gameEventBus.subscribe(gameEvent -> {
+            attempted.countDown();
+            throw new IllegalStateException("Watcher went away");
+        });
+        
+        this.gameEventBus.publish(GameEvent.bookCompleted(book(1)));
+        
+        Assertions.assertThat(attempted.await(10, TimeUnit.SECONDS)).isTrue();
+        
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        
+        while (this.gameEventBus.hasSubscribers() && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        
+        Assertions.assertThat(this.gameEventBus.getSubscriberCount()).isZero();
+        
+        this.gameEventBus.publish(GameEvent.bookCompleted(book(2)));
+        
+        Assertions.assertThat(subscription.getPendingCount()).isZero();
+    }
+    
+    @Test
+    public void testBlockedSubscribersTieUpNoMoreThanTheDeliveryThreads() throws InterruptedException {
+        
+        final Set<Thread> deliveryThreads = ConcurrentHashMap.newKeySet();
+        final CountDownLatch allBlocked = new CountDownLatch(NUMBER_OF_DELIVERY_THREADS);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch allReceived = new CountDownLatch(2 * NUMBER_OF_DELIVERY_THREADS);
+        
+        for (int index = 0; index < 2 * NUMBER_OF_DELIVERY_THREADS; index++) {
+            this.gameEventBus.subscribe(gameEvent -> {
+                deliveryThreads.add(Thread.currentThread());
+                allBlocked.countDown();
+                try {
+                    release.await(); // A watcher on a slow connection.
+                }
+                catch (final InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                allReceived.countDown();
+            });
+        }
+        
+        this.gameEventBus.publish(GameEvent.bookCompleted(book(1)));
+        
+        Assertions.assertThat(allBlocked.await(10, TimeUnit.SECONDS)).isTrue();
+        Assertions.assertThat(allReceived.await(100, TimeUnit.MILLISECONDS)).isFalse();
+        
+        release.countDown();
+        
+        Assertions.assertThat(allReceived.await(10, TimeUnit.SECONDS)).isTrue();
+        Assertions.assertThat(deliveryThreads).hasSize(NUMBER_OF_DELIVERY_THREADS);
+    }
+    
+    @Test
+    public void testSubscribingAfterStopIsCancelledOnFirstEvent() {
+        
+        this.gameEventBus.stop();
+        this.gameEventBus.subscribe(gameEvent -> { });
+        
+        this.gameEventBus.publish(GameEvent.bookCompleted(book(1)));
+        
+        Assertions.assertThat(this.gameEventBus.hasSubscribers()).isFalse();
+    }
+    
+    private static Book book(final long id) {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(id));
+        
+        return book;
+    }
+}
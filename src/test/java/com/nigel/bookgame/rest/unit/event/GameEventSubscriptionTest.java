@@ -0,0 +1,148 @@
+package com.nigel.bookgame.rest.unit.event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.EGameEventType;
+import com.nigel.bookgame.rest.domain.GameEvent;
+import com.nigel.bookgame.rest.event.GameEventBus;
+import com.nigel.bookgame.rest.event.GameEventSubscription;
+
+/**
+ * Test class for {@link GameEventSubscription}.
+ * 
+ * @author nigel
+ */
+public class GameEventSubscriptionTest {
+    
+    private static final int CAPACITY = 3;
+    
+    private final GameEventBus gameEventBus = new GameEventBus(CAPACITY, 1);
+    
+    @Test
+    public void testEventsTakenInOrderPublished() {
+        
+        final GameEventSubscription subscription = this.gameEventBus.subscribe();
+        
+        this.gameEventBus.publish(GameEvent.bookCompleted(book(1)));
+        this.gameEventBus.publish(GameEvent.bookCompleted(book(2)));
+        
+        Assertions.assertThat(subscription.poll().getBookId()).isEqualTo(Long.valueOf(1));
+        Assertions.assertThat(subscription.poll().getBookId()).isEqualTo(Long.valueOf(2));
+        Assertions.assertThat(subscription.poll()).isNull();
+    }
+    
+    @Test
+    public void testLockChangesToSameBookCoalesced() {
+        
+        final GameEventSubscription subscription = this.gameEventBus.subscribe();
+        
+        this.gameEventBus.publish(GameEvent.lockChanged(book(1), "Nigel"));
+        this.gameEventBus.publish(GameEvent.bookCompleted(book(2)));
+        this.gameEventBus.publish(GameEvent.lockChanged(book(1), null));
+        
+        Assertions.assertThat(subscription.getPendingCount()).isEqualTo(2);
+        
+        // The newest replaces the one waiting and goes to the back of the queue.
+        Assertions.assertThat(subscription.poll().getType()).isEqualTo(EGameEventType.BOOK_COMPLETED);
+        
+        final GameEvent lockChanged = subscription.poll();
+        
+        Assertions.assertThat(lockChanged.getType()).isEqualTo(EGameEventType.LOCK_CHANGED);
+        Assertions.assertThat(lockChanged.getPlayerName()).isNull();
+    }
+    
+    @Test
+    public void testOverflowReplacedWithResync() {
+        
+        final GameEventSubscription subscription = this.gameEventBus.subscribe();
+        
+        for (int id = 1; id <= CAPACITY + 1; id++) {
+            this.gameEventBus.publish(GameEvent.bookCompleted(book(id)));
+        }
+        
+        Assertions.assertThat(subscription.getNumberOfEventsDropped()).isEqualTo(CAPACITY);
+        Assertions.assertThat(subscription.poll()).isSameAs(GameEvent.RESYNC);
+        Assertions.assertThat(subscription.poll().getBookId()).isEqualTo(Long.valueOf(CAPACITY + 1));
+        Assertions.assertThat(subscription.poll()).isNull();
+    }
+    
+    @Test
+    public void testPendingListenerOnlyToldWhenEventsStartWaiting() {
+        
+        final GameEventSubscription subscription = this.gameEventBus.subscribe();
+        final List<Integer> pendingCounts = new ArrayList<Integer>();
+        
+        subscription.onPending(() -> pendingCounts.add(Integer.valueOf(subscription.getPendingCount())));
+        
+        this.gameEventBus.publish(GameEvent.bookCompleted(book(1)));
+        this.gameEventBus.publish(GameEvent.bookCompleted(book(2)));
+        subscription.poll();
+        subscription.poll();
+        this.gameEventBus.publish(GameEvent.bookCompleted(book(3)));
+        
+        Assertions.assertThat(pendingCounts).containsExactly(Integer.valueOf(1), Integer.valueOf(1));
+    }
+    
+    @Test
+    public void testDrainStopsWithoutDemand() {
+        
+        final GameEventSubscription subscription = this.gameEventBus.subscribe();
+        final List<GameEvent> drained = new ArrayList<GameEvent>();
+        
+        this.gameEventBus.publish(GameEvent.bookCompleted(book(1)));
+        this.gameEventBus.publish(GameEvent.bookCompleted(book(2)));
+        
+        subscription.drain(() -> drained.isEmpty(), drained::add);
+        
+        Assertions.assertThat(drained).hasSize(1);
+        Assertions.assertThat(subscription.getPendingCount()).isEqualTo(1);
+        
+        subscription.drain(() -> true, drained::add);
+        
+        Assertions.assertThat(drained).extracting(GameEvent::getBookId).containsExactly(Long.valueOf(1), Long.valueOf(2));
+    }
+    
+    @Test
+    public void testDrainRequestedWhileDrainingIsNotLost() {
+        
+        final GameEventSubscription subscription = this.gameEventBus.subscribe();
+        final List<GameEvent> drained = new ArrayList<GameEvent>();
+        
+        // The consumer publishes again as it is handed the first event, which asks for a drain while one is under way.
+        subscription.onPending(() -> subscription.drain(() -> true, gameEvent -> {
+            drained.add(gameEvent);
+            if (1 == drained.size()) {
+                this.gameEventBus.publish(GameEvent.bookCompleted(book(2)));
+            }
+        }));
+        
+        this.gameEventBus.publish(GameEvent.bookCompleted(book(1)));
+        
+        Assertions.assertThat(drained).extracting(GameEvent::getBookId).containsExactly(Long.valueOf(1), Long.valueOf(2));
+    }
+    
+    @Test
+    public void testCancelledSubscriptionReceivesNothing() {
+        
+        final GameEventSubscription subscription = this.gameEventBus.subscribe();
+        
+        subscription.cancel();
+        this.gameEventBus.publish(GameEvent.bookCompleted(book(1)));
+        
+        Assertions.assertThat(subscription.poll()).isNull();
+        Assertions.assertThat(this.gameEventBus.hasSubscribers()).isFalse();
+    }
+    
+    private static Book book(final long id) {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(id));
+        
+        return book;
+    }
+}
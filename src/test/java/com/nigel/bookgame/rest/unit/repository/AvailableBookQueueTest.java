@@ -0,0 +1,164 @@
+package com.nigel.bookgame.rest.unit.repository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.PlayerRegistry;
+import com.nigel.bookgame.rest.repository.AvailableBookQueue;
+import com.nigel.bookgame.rest.repository.IdIndexedTable;
+
+/**
+ * Test class for {@link AvailableBookQueue}.
+ *
+ * @author nigel
+ */
+public class AvailableBookQueueTest {
+
+    private static final int NUMBER_OF_STRIPES = 4;
+
+    private final IdIndexedTable<Book> books = new IdIndexedTable<Book>();
+    private final AvailableBookQueue queue = new AvailableBookQueue(this.books, NUMBER_OF_STRIPES);
+    private final PlayerRegistry playerRegistry = new PlayerRegistry();
+    private final int nigelId = this.playerRegistry.idOf("Nigel");
+    private final int marieId = this.playerRegistry.idOf("Marie");
+
+    @Test
+    public void testEveryBookHandedOutOnceAcrossStripes() {
+
+        final List<Book> createdBooks = createBooks(10);
+
+        for (Book book : createdBooks) {
+            this.queue.offer(book);
+            this.queue.offer(book); // Offering again while queued has no effect.
+        }
+
+        Assertions.assertThat(this.queue.size()).isEqualTo(10);
+
+        final Set<Book> polledBooks = new HashSet<Book>();
+
+        Book book;
+
+        while (null != (book = this.queue.poll(this.nigelId))) {
+            Assertions.assertThat(polledBooks.add(book)).isTrue();
+        }
+
+        Assertions.assertThat(polledBooks).containsExactlyInAnyOrderElementsOf(createdBooks);
+        Assertions.assertThat(this.queue.size()).isZero();
+    }
+
+    @Test
+    public void testLockedAndCompleteBooksAreNotQueuedOrHandedOut() {
+
+        final List<Book> createdBooks = createBooks(3);
+
+        createdBooks.get(0).lock("Marie");
+        this.queue.offer(createdBooks.get(0));
+
+        createdBooks.get(1).setComplete(true);
+        this.queue.offer(createdBooks.get(1));
+
+        this.queue.offer(createdBooks.get(2));
+        createdBooks.get(2).lock("Marie"); // Locked after being queued, so dropped when it comes up.
+
+        Assertions.assertThat(this.queue.poll(this.nigelId)).isNull();
+
+        createdBooks.get(2).unlock("Marie");
+        this.queue.offer(createdBooks.get(2));
+
+        Assertions.assertThat(this.queue.poll(this.nigelId)).isSameAs(createdBooks.get(2));
+    }
+
+    @Test
+    public void testBookPlayerWroteLastIsLeftForOthers() {
+
+        final Book book = createBooks(1).get(0);
+        book.appendLine("A line.", this.nigelId, null);
+        this.queue.offer(book);
+
+        Assertions.assertThat(this.queue.poll(this.nigelId)).isNull();
+        Assertions.assertThat(this.queue.size()).isEqualTo(1);
+        Assertions.assertThat(this.queue.poll(this.marieId)).isSameAs(book);
+    }
+
+    @Test
+    public void testPollGivesUpAfterAFewOwnBooksAndLeavesThemQueued() {
+
+        final List<Book> ownBooks = createBooks(10 * NUMBER_OF_STRIPES);
+
+        for (Book ownBook : ownBooks) {
+            ownBook.appendLine("A line.", this.nigelId, null);
+            this.queue.offer(ownBook);
+        }
+
+        Assertions.assertThat(this.queue.poll(this.nigelId)).isNull();
+        Assertions.assertThat(this.queue.size()).isEqualTo(ownBooks.size());
+        Assertions.assertThat(this.queue.poll(this.marieId)).isIn(ownBooks);
+    }
+
+    @Test
+    public void testOthersStillFindBooksWhileAPlayerPassesOverTheirOwn() throws InterruptedException {
+
+        final List<Book> ownBooks = createBooks(10 * NUMBER_OF_STRIPES);
+
+        for (Book ownBook : ownBooks) {
+            ownBook.appendLine("A line.", this.nigelId, null);
+            this.queue.offer(ownBook);
+        }
+
+        final AtomicBoolean isScanning = new AtomicBoolean(true);
+        final Thread scanner = new Thread(() -> {
+            while (isScanning.get()) {
+                this.queue.poll(this.nigelId);
+            }
+        });
+
+        scanner.start();
+
+        try {
+            for (int index = 0; index < 10_000; index++) {
+
+                final Book book = this.queue.poll(this.marieId);
+
+                Assertions.assertThat(book).isNotNull();
+                this.queue.offer(book); // Not locked, so still available to be handed out again.
+            }
+        }
+        finally {
+            isScanning.set(false);
+            scanner.join();
+        }
+
+        Assertions.assertThat(this.queue.size()).isEqualTo(ownBooks.size());
+    }
+
+    @Test
+    public void testClear() {
+
+        this.queue.offer(createBooks(1).get(0));
+        this.queue.clear();
+
+        Assertions.assertThat(this.queue.size()).isZero();
+        Assertions.assertThat(this.queue.poll(this.nigelId)).isNull();
+    }
+
+    private List<Book> createBooks(final int count) {
+
+        final List<Book> createdBooks = new ArrayList<Book>();
+
+        for (int index = 0; index < count; index++) {
+            final Book book = new Book();
+            book.setId(Long.valueOf(this.books.size() + 1));
+            this.books.putIfAbsent(book);
+            createdBooks.add(book);
+        }
+
+        return createdBooks;
+    }
+}
@@ -0,0 +1,150 @@
+package com.nigel.bookgame.rest.unit.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.nigel.bookgame.rest.domain.BookUpdateContainer;
+import com.nigel.bookgame.rest.domain.EUpdateOutcome;
+import com.nigel.bookgame.rest.domain.LineAppend;
+import com.nigel.bookgame.rest.repository.BookAppendPipeline;
+import com.nigel.bookgame.rest.repository.BookRepository;
+
+/**
+ * Test class for {@link BookAppendPipeline}.
+ *
+ * @author nigel
+ */
+@ExtendWith(MockitoExtension.class)
+public class BookAppendPipelineTest {
+
+    @Mock
+    private BookRepository mockBookRepository;
+
+    private BookAppendPipeline bookAppendPipeline;
+
+    @AfterEach
+    public void tearDown() {
+        this.bookAppendPipeline.stop();
+    }
+
+    @Test
+    public void testAppendsCompleteWithRepositoryOutcome() {
+
+        Mockito.when(this.mockBookRepository.appendLines(Mockito.anyList())).thenAnswer(invocation -> outcomesFor(invocation.getArgument(0)));
+
+        this.bookAppendPipeline = startPipeline(2, 0);
+
+        final BookUpdateContainer first = this.bookAppendPipeline.append(Long.valueOf(1), "Nigel", "A line.", null).join();
+        final BookUpdateContainer second = this.bookAppendPipeline.append(Long.valueOf(2), "Marie", "Stale line.", Long.valueOf(3)).join();
+
+        Assertions.assertThat(first.getUpdateOutcome()).isEqualTo(EUpdateOutcome.SUCCESS);
+        Assertions.assertThat(second.getUpdateOutcome()).isEqualTo(EUpdateOutcome.VERSION_CONFLICT);
+        Assertions.assertThat(this.bookAppendPipeline.getShardCount()).isEqualTo(2);
+        Assertions.assertThat(this.bookAppendPipeline.getNumberOfAppends()).isEqualTo(2);
+        Assertions.assertThat(this.bookAppendPipeline.getQueueDepth()).isZero();
+    }
+
+    @Test
+    public void testAppendsArrivingWithinLatencyBudgetShareBatch() {
+
+        Mockito.when(this.mockBookRepository.appendLines(Mockito.anyList())).thenAnswer(invocation -> outcomesFor(invocation.getArgument(0)));
+
+        this.bookAppendPipeline = startPipeline(1, 200_000);
+
+        final List<CompletableFuture<BookUpdateContainer>> futures = new ArrayList<CompletableFuture<BookUpdateContainer>>();
+
+        for (int index = 0; index < 10; index++) {
+            futures.add(this.bookAppendPipeline.append(Long.valueOf(index + 1), "Nigel", "A line.", null));
+        }
+
+        futures.forEach(CompletableFuture::join);
+
+        Assertions.assertThat(this.bookAppendPipeline.getNumberOfAppends()).isEqualTo(10);
+        Assertions.assertThat(this.bookAppendPipeline.getNumberOfBatches()).isLessThan(10);
+    }
+
+    @Test
+    public void testRepositoryFailureFailsAppend() {
+
+        Mockito.when(this.mockBookRepository.appendLines(Mockito.anyList())).thenThrow(new IllegalStateException("Journal is closed"));
+
+        this.bookAppendPipeline = startPipeline(1, 0);
+
+        final CompletableFuture<BookUpdateContainer> future = this.bookAppendPipeline.append(Long.valueOf(1), "Nigel", "A line.", null);
+
+        Assertions.assertThatThrownBy(future::join).isInstanceOf(CompletionException.class).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testErrorFailsAppendWithoutStoppingShard() {
+
+        Mockito.when(this.mockBookRepository.appendLines(Mockito.anyList()))
+                .thenThrow(new AssertionError("Unexpected"))
+                .thenAnswer(invocation -> outcomesFor(invocation.getArgument(0)));
+
+        this.bookAppendPipeline = startPipeline(1, 0);
+
+        final CompletableFuture<BookUpdateContainer> future = this.bookAppendPipeline.append(Long.valueOf(1), "Nigel", "A line.", null);
+
+        Assertions.assertThatThrownBy(future::join).isInstanceOf(CompletionException.class).hasCauseInstanceOf(AssertionError.class);
+        Assertions.assertThat(this.bookAppendPipeline.append(Long.valueOf(1), "Nigel", "A line.", null).join().getUpdateOutcome()).isEqualTo(EUpdateOutcome.SUCCESS);
+    }
+
+    @Test
+    public void testAppendsRacingStopAllComplete() throws InterruptedException {
+
+        Mockito.lenient().when(this.mockBookRepository.appendLines(Mockito.anyList())).thenAnswer(invocation -> outcomesFor(invocation.getArgument(0)));
+
+        this.bookAppendPipeline = startPipeline(4, 0);
+
+        final List<CompletableFuture<BookUpdateContainer>> futures = new ArrayList<CompletableFuture<BookUpdateContainer>>();
+        final Thread appender = new Thread(() -> {
+            for (int index = 0; index < 100_000; index++) {
+                futures.add(this.bookAppendPipeline.append(Long.valueOf(index), "Nigel", "A line.", null));
+            }
+        });
+
+        appender.start();
+        this.bookAppendPipeline.stop();
+        appender.join();
+
+        // Every append is either applied or failed, rather than left in a queue nobody drains.
+        Assertions.assertThat(CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]))
+                .handle((result, throwable) -> Boolean.TRUE)
+                .completeOnTimeout(Boolean.FALSE, 10, TimeUnit.SECONDS)
+                .join()).isTrue();
+    }
+
+    private BookAppendPipeline startPipeline(final int numberOfShards, final long maximumBatchDelayMicros) {
+
+        final BookAppendPipeline pipeline = new BookAppendPipeline(this.mockBookRepository, numberOfShards, 16, maximumBatchDelayMicros);
+        pipeline.start();
+
+        return pipeline;
+    }
+
+    // Appends quoting a version are treated as stale, everything else succeeds.
+    private List<BookUpdateContainer> outcomesFor(final List<LineAppend> lineAppends) {
+
+        final List<BookUpdateContainer> bookUpdateContainers = new ArrayList<BookUpdateContainer>();
+
+        for (LineAppend lineAppend : lineAppends) {
+            final BookUpdateContainer bookUpdateContainer = new BookUpdateContainer();
+            bookUpdateContainer.setUpdateOutcome((null == lineAppend.getExpectedVersion()) ? EUpdateOutcome.SUCCESS : EUpdateOutcome.VERSION_CONFLICT);
+            bookUpdateContainers.add(bookUpdateContainer);
+        }
+
+        return bookUpdateContainers;
+    }
+}
@@ -0,0 +1,157 @@
+package com.nigel.bookgame.rest.unit.repository;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.nigel.bookgame.rest.repository.BookJournal;
+import com.nigel.bookgame.rest.repository.EDurabilityMode;
+
+/**
+ * Test class for {@link BookJournal}.
+ *
+ * @author nigel
+ */
+public class BookJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRecordsReplayedInOrderAcrossSegments() throws Exception {
+
+        final BookJournal bookJournal = new BookJournal(this.directory, EDurabilityMode.SYNC_BATCH, 64, 16, 10, 0);
+
+        for (int index = 0; index < 10; index++) {
+            bookJournal.append(("Record " + index).getBytes(StandardCharsets.UTF_8)).join();
+        }
+
+        final long newSegmentNumber = bookJournal.roll().join().longValue();
+        bookJournal.append("After roll".getBytes(StandardCharsets.UTF_8)).join();
+        bookJournal.close();
+
+        final List<String> replayed = new ArrayList<String>();
+        final long lastSegmentNumber = BookJournal.replay(this.directory, 0, record -> replayed.add(StandardCharsets.UTF_8.decode(record).toString()));
+
+        Assertions.assertThat(replayed).hasSize(11);
+        Assertions.assertThat(replayed.get(0)).isEqualTo("Record 0");
+        Assertions.assertThat(replayed.get(9)).isEqualTo("Record 9");
+        Assertions.assertThat(replayed.get(10)).isEqualTo("After roll");
+        Assertions.assertThat(lastSegmentNumber).isEqualTo(newSegmentNumber);
+
+        final List<String> replayedFromNewSegment = new ArrayList<String>();
+        BookJournal.replay(this.directory, newSegmentNumber, record -> replayedFromNewSegment.add(StandardCharsets.UTF_8.decode(record).toString()));
+
+        Assertions.assertThat(replayedFromNewSegment).containsExactly("After roll");
+    }
+
+    @Test
+    public void testReplayStopsAtCorruptRecord() throws Exception {
+
+        final BookJournal bookJournal = new BookJournal(this.directory, EDurabilityMode.ASYNC, 1024, 16, 10, 0);
+        bookJournal.append("First".getBytes(StandardCharsets.UTF_8)).join();
+        bookJournal.append("Second".getBytes(StandardCharsets.UTF_8)).join();
+        bookJournal.append("Third".getBytes(StandardCharsets.UTF_8)).join();
+        bookJournal.close();
+
+        try (RandomAccessFile segment = new RandomAccessFile(singleSegment().toFile(), "rw")) {
+            segment.seek(8 + "First".length() + 8); // The first byte of the second record's payload.
+            segment.write('X');
+        }
+
+        final List<ByteBuffer> replayed = new ArrayList<ByteBuffer>();
+        BookJournal.replay(this.directory, 0, replayed::add);
+
+        Assertions.assertThat(replayed).hasSize(1);
+        Assertions.assertThat(StandardCharsets.UTF_8.decode(replayed.get(0)).toString()).isEqualTo("First");
+    }
+
+    @Test
+    public void testDeleteSegmentsBefore() throws Exception {
+
+        final BookJournal bookJournal = new BookJournal(this.directory, EDurabilityMode.SYNC_BATCH, 1024, 16, 10, 0);
+        bookJournal.append(new byte[] { 1 }).join();
+        final long newSegmentNumber = bookJournal.roll().join().longValue();
+
+        bookJournal.deleteSegmentsBefore(newSegmentNumber);
+        bookJournal.close();
+
+        Assertions.assertThat(singleSegment().getFileName().toString()).contains(String.valueOf(newSegmentNumber));
+    }
+
+    @Test
+    public void testRecordLargerThanSegmentRejected() throws Exception {
+
+        final BookJournal bookJournal = new BookJournal(this.directory, EDurabilityMode.SYNC_BATCH, 64, 16, 10, 0);
+
+        Assertions.assertThatThrownBy(() -> bookJournal.append(new byte[64])).isInstanceOf(IllegalArgumentException.class);
+
+        bookJournal.close();
+    }
+
+    @Test
+    public void testFailedFlushClosesJournal() throws Exception {
+
+        final BookJournal bookJournal = failingJournal();
+
+        bookJournal.append("Written, then not flushed".getBytes(StandardCharsets.UTF_8)).join();
+
+        final long deadlineMillis = System.currentTimeMillis() + 5000;
+        Throwable rejection = null;
+
+        while (null == rejection && System.currentTimeMillis() < deadlineMillis) {
+            try {
+                final CompletableFuture<Long> future = bookJournal.append("Queued".getBytes(StandardCharsets.UTF_8));
+                future.join();
+                Thread.sleep(10);
+            }
+            catch (final IllegalStateException | CompletionException exception) {
+                rejection = exception;
+            }
+        }
+
+        Assertions.assertThat(rejection).isNotNull().hasRootCauseInstanceOf(IOException.class).hasRootCauseMessage("Disk failed");
+        Assertions.assertThatThrownBy(() -> bookJournal.append("After failure".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(IllegalStateException.class).hasMessage("Journal has failed");
+        Assertions.assertThat(bookJournal.getPendingWriteCount()).isZero();
+
+        bookJournal.close();
+    }
+
+    // Only forcing fails, so records are written and acknowledged as usual in ASYNC mode until the first flush.
+    private BookJournal failingJournal() throws IOException {
+        return new BookJournal(this.directory, EDurabilityMode.ASYNC, 1024, 16, 10, 0) {
+            @Override
+            protected void forceSegment(final MappedByteBuffer segment) {
+                throw new UncheckedIOException(new IOException("Disk failed"));
+            }
+        };
+    }
+
+    private Path singleSegment() throws Exception {
+
+        try (Stream<Path> files = Files.list(this.directory)) {
+
+            final List<Path> segments = files.collect(Collectors.toList());
+
+            Assertions.assertThat(segments).hasSize(1);
+
+            return segments.get(0);
+        }
+    }
+}
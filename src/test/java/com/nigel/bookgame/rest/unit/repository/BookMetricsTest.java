@@ -0,0 +1,98 @@
+package com.nigel.bookgame.rest.unit.repository;
+
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.ERetrievalOutcome;
+import com.nigel.bookgame.rest.domain.EUpdateOutcome;
+import com.nigel.bookgame.rest.domain.LockLease;
+import com.nigel.bookgame.rest.repository.BookMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Test class for {@link BookMetrics}.
+ * 
+ * @author nigel
+ */
+public class BookMetricsTest {
+    
+    private SimpleMeterRegistry meterRegistry;
+    private BookMetrics bookMetrics;
+    
+    @BeforeEach
+    public void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.bookMetrics = new BookMetrics(this.meterRegistry);
+    }
+    
+    @Test
+    public void testEveryOutcomeIsRegisteredUpFront() {
+        
+        Assertions.assertThat(this.meterRegistry.find("bookgame.books.retrievals").counters()).hasSize(ERetrievalOutcome.values().length);
+        Assertions.assertThat(this.meterRegistry.find("bookgame.books.updates").counters()).hasSize(EUpdateOutcome.values().length);
+        Assertions.assertThat(this.meterRegistry.find("bookgame.books.operations").timers()).hasSize(6);
+    }
+    
+    @Test
+    public void testOperationsAreTimedAndCountedByOutcome() {
+        
+        this.bookMetrics.recordFind(this.bookMetrics.startTiming(), ERetrievalOutcome.SUCCESS);
+        this.bookMetrics.recordFind(this.bookMetrics.startTiming(), ERetrievalOutcome.LOCKED_BY_ANOTHER_PLAYER);
+        this.bookMetrics.recordAppend(this.bookMetrics.startTiming(), EUpdateOutcome.VERSION_CONFLICT);
+        
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.operations").tag("operation", "find").timer().count()).isEqualTo(2);
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.operations").tag("operation", "append").timer().count()).isEqualTo(1);
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.retrievals").tag("outcome", "LOCKED_BY_ANOTHER_PLAYER").counter().count()).isEqualTo(1);
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.updates").tag("outcome", "VERSION_CONFLICT").counter().count()).isEqualTo(1);
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.updates").tag("outcome", "SUCCESS").counter().count()).isZero();
+    }
+    
+    @Test
+    public void testCreateBatchIsTimedOnceWithItsSize() {
+        
+        this.bookMetrics.recordCreateBatch(this.bookMetrics.startTiming(), 50);
+        
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.operations").tag("operation", "create-batch").timer().count()).isEqualTo(1);
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.operations").tag("operation", "create").timer().count()).isZero();
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.create.batch.size").summary().count()).isEqualTo(1);
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.create.batch.size").summary().totalAmount()).isEqualTo(50);
+    }
+    
+    @Test
+    public void testLockHoldTimeIsRecordedOnRelease() {
+        
+        final Book book = new Book();
+        book.lock("Nigel");
+        
+        final LockLease heldLease = book.getLockLease();
+        
+        this.bookMetrics.recordLockReleased(heldLease, heldLease.getLockedSince() + 250);
+        this.bookMetrics.recordLockReleased(LockLease.UNLOCKED, System.currentTimeMillis());
+        this.bookMetrics.recordLockReleased(LockLease.of(heldLease.getOwner(), heldLease.getLeaseDeadline(), 1), System.currentTimeMillis());
+        
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.lock.held").tag("outcome", "released").timer().count()).isEqualTo(1);
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.lock.held").tag("outcome", "released").timer().totalTime(TimeUnit.MILLISECONDS)).isEqualTo(250);
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.lock.held").tag("outcome", "expired").timer().count()).isZero();
+    }
+    
+    @Test
+    public void testLockHoldTimeIsRecordedUpToDeadlineOnExpiry() {
+        
+        final Book book = new Book();
+        book.lock("Nigel", 400);
+        
+        final LockLease expiredLease = book.getLockLease();
+        
+        this.bookMetrics.recordLockExpired(expiredLease);
+        
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.lock.held").tag("outcome", "expired").timer().count()).isEqualTo(1);
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.lock.held").tag("outcome", "expired").timer().totalTime(TimeUnit.MILLISECONDS))
+                .isEqualTo(expiredLease.getLeaseDeadline() - expiredLease.getLockedSince());
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.lock.held").tag("outcome", "released").timer().count()).isZero();
+    }
+}
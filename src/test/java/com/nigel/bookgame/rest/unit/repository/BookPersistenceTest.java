@@ -0,0 +1,161 @@
+package com.nigel.bookgame.rest.unit.repository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.PlayerRegistry;
+import com.nigel.bookgame.rest.repository.BookPersistence;
+import com.nigel.bookgame.rest.repository.EDurabilityMode;
+import com.nigel.bookgame.rest.repository.IdIndexedTable;
+
+/**
+ * Test class for {@link BookPersistence}.
+ *
+ * @author nigel
+ */
+public class BookPersistenceTest {
+
+    @TempDir
+    Path directory;
+
+    private final PlayerRegistry playerRegistry = new PlayerRegistry();
+
+    @Test
+    public void testDisabledPersistenceRecoversNothing() {
+
+        final BookPersistence bookPersistence = new BookPersistence(false, this.directory.toString(), EDurabilityMode.SYNC_BATCH, 4096, this.playerRegistry);
+        final IdIndexedTable<Book> books = new IdIndexedTable<Book>();
+
+        Assertions.assertThat(bookPersistence.recover(books)).isZero();
+        Assertions.assertThat(books.size()).isZero();
+        Assertions.assertThat(bookPersistence.recordBook(createBook(1, "Book 1"))).isDone();
+    }
+
+    @Test
+    public void testRecoversFromJournal() {
+
+        final BookPersistence bookPersistence = createBookPersistence();
+        final IdIndexedTable<Book> books = new IdIndexedTable<Book>();
+
+        Assertions.assertThat(bookPersistence.recover(books)).isZero();
+
+        final Book book = createBook(1, "Book 1");
+        books.putIfAbsent(book);
+        bookPersistence.recordBook(book).join();
+        appendAndRecord(bookPersistence, book, "Line 1.", "Nigel");
+        appendAndRecord(bookPersistence, book, "Line 2.", "Marie");
+        book.lock("Jeremy");
+        bookPersistence.recordLockLease(book).join();
+        bookPersistence.close();
+
+        final IdIndexedTable<Book> recoveredBooks = new IdIndexedTable<Book>();
+        final PlayerRegistry recoveredPlayerRegistry = new PlayerRegistry(); // As it would be after a restart.
+
+        Assertions.assertThat(createBookPersistence(recoveredPlayerRegistry).recover(recoveredBooks)).isEqualTo(1L);
+
+        final Book recoveredBook = recoveredBooks.get(Long.valueOf(1));
+
+        Assertions.assertThat(recoveredBook.getName()).isEqualTo("Book 1");
+        Assertions.assertThat(recoveredBook.getLineHistory().getLines()).containsExactly("Line 1.", "Line 2.");
+        Assertions.assertThat(recoveredPlayerRegistry.nameOf(recoveredBook.getLineHistory().getPlayerId(1))).isEqualTo("Marie");
+        Assertions.assertThat(recoveredBook.getVersion()).isEqualTo(2L);
+        Assertions.assertThat(recoveredBook.getLockedBy()).isEqualTo("Jeremy");
+        Assertions.assertThat(recoveredPlayerRegistry.findId("Jeremy")).isEqualTo(PlayerRegistry.NO_PLAYER); // Only holds a lock.
+    }
+
+    @Test
+    public void testRecoversFromSnapshotAndJournalTail() throws Exception {
+
+        final BookPersistence bookPersistence = createBookPersistence();
+        final IdIndexedTable<Book> books = new IdIndexedTable<Book>();
+        bookPersistence.recover(books);
+        bookPersistence.takeSnapshot();
+
+        final Book completeBook = createBook(1, "Book 1");
+        books.putIfAbsent(completeBook);
+        bookPersistence.recordBook(completeBook).join();
+        for (String playerName : new String[] { "Nigel", "Marie", "Jeremy", "Chloe", "Steph" }) {
+            appendAndRecord(bookPersistence, completeBook, "A line by " + playerName + ".", playerName);
+        }
+
+        bookPersistence.takeSnapshot();
+
+        final Book laterBook = createBook(2, "Book 2");
+        books.putIfAbsent(laterBook);
+        bookPersistence.recordBook(laterBook).join();
+        appendAndRecord(bookPersistence, laterBook, "Line 1.", "Nigel");
+        completeBook.lock("Nigel");
+        completeBook.unlock("Nigel");
+        bookPersistence.recordLockLease(completeBook).join();
+        bookPersistence.close();
+
+        final IdIndexedTable<Book> recoveredBooks = new IdIndexedTable<Book>();
+        final PlayerRegistry recoveredPlayerRegistry = new PlayerRegistry();
+
+        Assertions.assertThat(createBookPersistence(recoveredPlayerRegistry).recover(recoveredBooks)).isEqualTo(2L);
+        Assertions.assertThat(recoveredBooks.size()).isEqualTo(2);
+
+        final Book recoveredCompleteBook = recoveredBooks.get(Long.valueOf(1));
+
+        Assertions.assertThat(recoveredCompleteBook.isComplete()).isTrue();
+        Assertions.assertThat(recoveredPlayerRegistry.nameOf(recoveredCompleteBook.getLineHistory().getPlayerId(4))).isEqualTo("Steph");
+        Assertions.assertThat(recoveredCompleteBook.getLockedBy()).isNull();
+        Assertions.assertThat(recoveredBooks.get(Long.valueOf(2)).lastLine()).isEqualTo("Line 1.");
+
+        // Taking a snapshot removes the ones before it.
+        try (Stream<Path> files = Files.list(this.directory)) {
+            Assertions.assertThat(files.filter(file -> file.getFileName().toString().startsWith("snapshot-")).count()).isEqualTo(1L);
+        }
+    }
+
+    @Test
+    public void testReplayingAppendsOutOfOrderGivesSameBook() {
+
+        final BookPersistence bookPersistence = createBookPersistence();
+        bookPersistence.recover(new IdIndexedTable<Book>());
+
+        final Book book = createBook(1, "Book 1");
+        bookPersistence.recordBook(book).join();
+        bookPersistence.recordAppend(book, 2, this.playerRegistry.idOf("Marie"), "Line 2.").join();
+        bookPersistence.recordAppend(book, 1, this.playerRegistry.idOf("Nigel"), "Line 1.").join();
+        bookPersistence.recordAppend(book, 1, this.playerRegistry.idOf("Nigel"), "Line 1.").join();
+        bookPersistence.close();
+
+        final IdIndexedTable<Book> recoveredBooks = new IdIndexedTable<Book>();
+        createBookPersistence().recover(recoveredBooks);
+
+        Assertions.assertThat(recoveredBooks.get(Long.valueOf(1)).getLineHistory().getLines()).containsExactly("Line 1.", "Line 2.");
+    }
+
+    private BookPersistence createBookPersistence() {
+        return createBookPersistence(this.playerRegistry);
+    }
+
+    private BookPersistence createBookPersistence(final PlayerRegistry playerRegistry) {
+        return new BookPersistence(true, this.directory.toString(), EDurabilityMode.SYNC_BATCH, 4096, playerRegistry);
+    }
+
+    private void appendAndRecord(final BookPersistence bookPersistence, final Book book, final String line, final String playerName) {
+
+        final long version = book.getVersion();
+        final int playerId = this.playerRegistry.idOf(playerName);
+
+        book.appendLine(line, playerId, Long.valueOf(version));
+        bookPersistence.recordAppend(book, version + 1, playerId, line).join();
+    }
+
+    private Book createBook(final long id, final String name) {
+
+        final Book book = new Book();
+        book.setId(Long.valueOf(id));
+        book.setName(name);
+
+        return book;
+    }
+}
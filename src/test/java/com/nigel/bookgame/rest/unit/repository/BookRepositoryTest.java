@@ -1,6 +1,7 @@
 package com.nigel.bookgame.rest.unit.repository;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.assertj.core.api.Assertions;
@@ -11,9 +12,23 @@ import org.springframework.boot.test.context.SpringBootTest;
 
 import com.nigel.bookgame.rest.domain.Book;
 import com.nigel.bookgame.rest.domain.BookContainer;
+import com.nigel.bookgame.rest.domain.BookFilter;
+import com.nigel.bookgame.rest.domain.BookPage;
+import com.nigel.bookgame.rest.domain.BookUpdateContainer;
+import com.nigel.bookgame.rest.domain.EGameEventType;
 import com.nigel.bookgame.rest.domain.ERetrievalOutcome;
 import com.nigel.bookgame.rest.domain.EUpdateOutcome;
+import com.nigel.bookgame.rest.domain.GameEvent;
+import com.nigel.bookgame.rest.domain.LineAppend;
+import com.nigel.bookgame.rest.domain.PlayerRegistry;
+import com.nigel.bookgame.rest.domain.PlayerScore;
+import com.nigel.bookgame.rest.event.GameEventBus;
+import com.nigel.bookgame.rest.event.GameEventSubscription;
 import com.nigel.bookgame.rest.repository.BookRepository;
+import com.nigel.bookgame.rest.repository.LeaderboardRepository;
+import com.nigel.bookgame.rest.repository.LockLeaseReaper;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * Test class for {@link BookRepository}.
@@ -23,13 +38,28 @@ import com.nigel.bookgame.rest.repository.BookRepository;
 @SpringBootTest
 public class BookRepositoryTest {
 	
-	private static final long NON_EXISTENT_ID = 10;
+	private static final long NON_EXISTENT_ID = 1_000_000_000L; // Far beyond any ID the tests in this class will reach.
 	private static final String PLAYER_NAME_1 = "Nigel";
     private static final String PLAYER_NAME_2 = "Marie";
 
 	@Autowired
 	private BookRepository repository;
 	
+	@Autowired
+	private LeaderboardRepository leaderboardRepository;
+	
+	@Autowired
+	private MeterRegistry meterRegistry;
+	
+	@Autowired
+	private GameEventBus gameEventBus;
+	
+	@Autowired
+	private PlayerRegistry playerRegistry;
+	
+	@Autowired
+	private LockLeaseReaper lockLeaseReaper;
+	
 	@BeforeEach
 	public void setUp() {
 		this.repository.clear();
@@ -84,6 +114,31 @@ public class BookRepositoryTest {
         Assertions.assertThat(bookContainer.getRetrievalOutcome()).isEqualTo(ERetrievalOutcome.SUCCESS);
     }
 	
+	@Test
+	public void testCreateAllAssignsConsecutiveIds() {
+	    
+	    final Book bookBefore = createBook();
+	    final List<Book> books = new ArrayList<>();
+	    
+	    for (int i = 0; i < 3; i++) {
+	        final Book book = new Book();
+	        book.setName("Book " + i);
+	        books.add(book);
+	    }
+	    
+	    final List<Book> createdBooks = this.repository.createAll(books);
+	    final Book bookAfter = createBook();
+	    
+	    Assertions.assertThat(createdBooks).containsExactlyElementsOf(books);
+	    Assertions.assertThat(createdBooks.get(0).getId()).isEqualTo(bookBefore.getId() + 1);
+	    Assertions.assertThat(createdBooks.get(1).getId()).isEqualTo(bookBefore.getId() + 2);
+	    Assertions.assertThat(createdBooks.get(2).getId()).isEqualTo(bookBefore.getId() + 3);
+	    Assertions.assertThat(bookAfter.getId()).isEqualTo(bookBefore.getId() + 4);
+	    Assertions.assertThat(this.repository.findAll()).hasSize(5);
+	    Assertions.assertThat(findAll(new BookFilter(null, Boolean.TRUE, null))).hasSize(5);
+	    Assertions.assertThat(this.repository.createAll(new ArrayList<>())).isEmpty();
+	}
+	
 	@Test
 	public void testFindAllNoBooks() {
 	    
@@ -178,6 +233,338 @@ public class BookRepositoryTest {
         Assertions.assertThat(updateOutcome).isEqualTo(EUpdateOutcome.SUCCESS);
     }
     
+    @Test
+    public void testAppendLineNotFound() {
+        
+        final BookUpdateContainer bookUpdateContainer = this.repository.appendLine(NON_EXISTENT_ID, PLAYER_NAME_1, "A line.", null);
+        
+        Assertions.assertThat(bookUpdateContainer.getBook()).isNull();
+        Assertions.assertThat(bookUpdateContainer.getUpdateOutcome()).isEqualTo(EUpdateOutcome.NOT_FOUND);
+    }
+    
+    @Test
+    public void testAppendLineLockedByAnotherPlayer() {
+        
+        final Book book = createBook();
+        
+        this.repository.findById(book.getId(), PLAYER_NAME_2);
+        
+        final BookUpdateContainer bookUpdateContainer = this.repository.appendLine(book.getId(), PLAYER_NAME_1, "A line.", null);
+        
+        Assertions.assertThat(bookUpdateContainer.getUpdateOutcome()).isEqualTo(EUpdateOutcome.REQUESTING_PLAYER_DOES_NOT_HAVE_LOCK);
+        Assertions.assertThat(book.getVersion()).isZero();
+        Assertions.assertThat(book.getLockedBy()).isEqualTo(PLAYER_NAME_2);
+    }
+    
+    @Test
+    public void testLateAppendLeavesLeaseRetakenAfterExpiry() {
+        
+        final Book book = createBook();
+        
+        this.repository.findById(book.getId(), PLAYER_NAME_1);
+        book.lock(PLAYER_NAME_1, 0); // Lets the first player's lease lapse.
+        
+        Assertions.assertThat(this.repository.findById(book.getId(), PLAYER_NAME_2).getRetrievalOutcome()).isEqualTo(ERetrievalOutcome.SUCCESS);
+        
+        final BookUpdateContainer lateUpdateContainer = this.repository.appendLine(book.getId(), PLAYER_NAME_1, "A late line.", null);
+        
+        Assertions.assertThat(lateUpdateContainer.getUpdateOutcome()).isEqualTo(EUpdateOutcome.REQUESTING_PLAYER_DOES_NOT_HAVE_LOCK);
+        Assertions.assertThat(book.getLockedBy()).isEqualTo(PLAYER_NAME_2);
+        Assertions.assertThat(this.repository.appendLine(book.getId(), PLAYER_NAME_2, "A line.", null).getUpdateOutcome()).isEqualTo(EUpdateOutcome.SUCCESS);
+        Assertions.assertThat(book.getLineHistory().getLines()).containsExactly("A line.");
+    }
+        
+    @Test
+    public void testAppendLineAfterLockingReleasesLock() {
+        
+        final Book book = createBook();
+        
+        this.repository.findById(book.getId(), PLAYER_NAME_1);
+        
+        final BookUpdateContainer bookUpdateContainer = this.repository.appendLine(book.getId(), PLAYER_NAME_1, "A line.", Long.valueOf(0));
+        
+        Assertions.assertThat(bookUpdateContainer.getUpdateOutcome()).isEqualTo(EUpdateOutcome.SUCCESS);
+        Assertions.assertThat(bookUpdateContainer.getBook()).isSameAs(book);
+        Assertions.assertThat(book.getVersion()).isEqualTo(1);
+        Assertions.assertThat(book.getLockedBy()).isNull();
+    }
+    
+    @Test
+    public void testAppendLineWithStaleVersion() {
+        
+        final Book book = createBook();
+        
+        this.repository.appendLine(book.getId(), PLAYER_NAME_1, "A line.", Long.valueOf(0));
+        
+        final BookUpdateContainer bookUpdateContainer = this.repository.appendLine(book.getId(), PLAYER_NAME_2, "Another line.", Long.valueOf(0));
+        
+        Assertions.assertThat(bookUpdateContainer.getUpdateOutcome()).isEqualTo(EUpdateOutcome.VERSION_CONFLICT);
+        Assertions.assertThat(book.getVersion()).isEqualTo(1);
+        Assertions.assertThat(book.getLockedBy()).isNull();
+    }
+    
+    @Test
+    public void testOnlyPlayersWhoWriteAreRegistered() {
+        
+        final Book book = createBook();
+        
+        this.repository.findById(book.getId(), PLAYER_NAME_2);
+        this.repository.findAvailable("Somebody browsing");
+        this.repository.findPage(new BookFilter(null, null, "Somebody searching"), null, null, 10);
+        this.repository.appendLine(book.getId(), PLAYER_NAME_2, "A stale line.", Long.valueOf(5));
+        
+        Assertions.assertThat(this.playerRegistry.findId(PLAYER_NAME_2)).isEqualTo(PlayerRegistry.NO_PLAYER);
+        Assertions.assertThat(this.playerRegistry.findId("Somebody browsing")).isEqualTo(PlayerRegistry.NO_PLAYER);
+        Assertions.assertThat(this.playerRegistry.findId("Somebody searching")).isEqualTo(PlayerRegistry.NO_PLAYER);
+        
+        this.repository.appendLine(book.getId(), PLAYER_NAME_2, "A line.", null);
+        
+        Assertions.assertThat(this.playerRegistry.findId(PLAYER_NAME_2)).isNotEqualTo(PlayerRegistry.NO_PLAYER);
+        
+        this.repository.clear();
+        
+        Assertions.assertThat(this.playerRegistry.findId(PLAYER_NAME_2)).isEqualTo(PlayerRegistry.NO_PLAYER);
+    }
+        
+    @Test
+    public void testAppendLinesAppliesBatchInOrder() {
+        
+        final Book book = createBook();
+        
+        final List<BookUpdateContainer> bookUpdateContainers = this.repository.appendLines(Arrays.asList(
+                new LineAppend(book.getId(), PLAYER_NAME_1, "Line 1.", Long.valueOf(0)),
+                new LineAppend(book.getId(), PLAYER_NAME_2, "Line 2.", Long.valueOf(1)),
+                new LineAppend(book.getId(), PLAYER_NAME_2, "Stale line.", Long.valueOf(1)),
+                new LineAppend(Long.valueOf(NON_EXISTENT_ID), PLAYER_NAME_1, "Lost line.", null)));
+        
+        Assertions.assertThat(bookUpdateContainers).extracting(BookUpdateContainer::getUpdateOutcome)
+                .containsExactly(EUpdateOutcome.SUCCESS, EUpdateOutcome.SUCCESS, EUpdateOutcome.VERSION_CONFLICT, EUpdateOutcome.NOT_FOUND);
+        Assertions.assertThat(book.getLineHistory().getLines()).containsExactly("Line 1.", "Line 2.");
+        Assertions.assertThat(book.getLockedBy()).isNull();
+    }
+    
+    @Test
+    public void testCompletingBookScoresContributorsOnce() {
+        
+        final Book book = createBook();
+        
+        this.repository.appendLine(book.getId(), PLAYER_NAME_1, "Line 1.", null);
+        this.repository.appendLine(book.getId(), PLAYER_NAME_2, "Line 2.", null);
+        this.repository.appendLine(book.getId(), PLAYER_NAME_1, "Line 3.", null);
+        this.repository.appendLine(book.getId(), PLAYER_NAME_2, "Line 4.", null);
+        
+        Assertions.assertThat(this.leaderboardRepository.findTopPlayers(5)).isEmpty();
+        
+        this.repository.appendLine(book.getId(), PLAYER_NAME_1, "Line 5.", null);
+        this.repository.appendLine(book.getId(), PLAYER_NAME_1, "Line 6.", null);
+        this.repository.update(book.getId(), book, PLAYER_NAME_1, true);
+        
+        final List<PlayerScore> topPlayers = this.leaderboardRepository.findTopPlayers(5);
+        
+        Assertions.assertThat(topPlayers).hasSize(2);
+        Assertions.assertThat(topPlayers.get(0).getPlayerName()).isEqualTo(PLAYER_NAME_2);
+        Assertions.assertThat(topPlayers.get(0).getScore()).isEqualTo(10);
+        Assertions.assertThat(topPlayers.get(1).getPlayerName()).isEqualTo(PLAYER_NAME_1);
+        Assertions.assertThat(topPlayers.get(1).getScore()).isEqualTo(10);
+    }
+    
+    @Test
+    public void testLockChangesAndCompletionArePublished() {
+        
+        final Book book = createBook();
+        final GameEventSubscription subscription = this.gameEventBus.subscribe();
+        
+        try {
+            this.repository.findById(book.getId(), PLAYER_NAME_1);
+            this.repository.findById(book.getId(), PLAYER_NAME_1); // Already held, so nothing changed.
+            
+            final GameEvent locked = subscription.poll();
+            
+            Assertions.assertThat(locked.getType()).isEqualTo(EGameEventType.LOCK_CHANGED);
+            Assertions.assertThat(locked.getBookId()).isEqualTo(book.getId());
+            Assertions.assertThat(locked.getPlayerName()).isEqualTo(PLAYER_NAME_1);
+            Assertions.assertThat(subscription.poll()).isNull();
+            
+            for (int index = 1; index <= 5; index++) {
+                this.repository.appendLine(book.getId(), PLAYER_NAME_1, "Line " + index, null);
+            }
+            
+            // Each append unlocks the book and the next locks it again, which coalesce into the latest: unlocked.
+            final GameEvent unlocked = subscription.poll();
+            
+            Assertions.assertThat(unlocked.getType()).isEqualTo(EGameEventType.LOCK_CHANGED);
+            Assertions.assertThat(unlocked.getPlayerName()).isNull();
+            
+            final GameEvent completed = subscription.poll();
+            
+            Assertions.assertThat(completed.getType()).isEqualTo(EGameEventType.BOOK_COMPLETED);
+            Assertions.assertThat(completed.getBookId()).isEqualTo(book.getId());
+            
+            final GameEvent leaderboardChanged = subscription.poll();
+            
+            Assertions.assertThat(leaderboardChanged.getType()).isEqualTo(EGameEventType.LEADERBOARD_CHANGED);
+            Assertions.assertThat(leaderboardChanged.getTopPlayers()).extracting(PlayerScore::getPlayerName).containsExactly(PLAYER_NAME_1);
+            Assertions.assertThat(subscription.poll()).isNull();
+        }
+        finally {
+            subscription.cancel();
+        }
+    }
+    
+    @Test
+    public void testOperationsAreReportedAsMetrics() {
+        
+        final double foundBefore = this.meterRegistry.get("bookgame.books.retrievals").tag("outcome", "SUCCESS").counter().count();
+        final double lockedOutBefore = this.meterRegistry.get("bookgame.books.retrievals").tag("outcome", "LOCKED_BY_ANOTHER_PLAYER").counter().count();
+        final long releasesBefore = this.meterRegistry.get("bookgame.books.lock.held").tag("outcome", "released").timer().count();
+        
+        final Book book = createBook();
+        this.repository.findById(book.getId(), PLAYER_NAME_1);
+        this.repository.findById(book.getId(), PLAYER_NAME_2);
+        
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.retrievals").tag("outcome", "SUCCESS").counter().count()).isEqualTo(foundBefore + 1);
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.retrievals").tag("outcome", "LOCKED_BY_ANOTHER_PLAYER").counter().count()).isEqualTo(lockedOutBefore + 1);
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.live").gauge().value()).isEqualTo(1);
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.locked").gauge().value()).isEqualTo(1);
+        
+        this.repository.update(book.getId(), book, PLAYER_NAME_1, true);
+        
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.locked").gauge().value()).isZero();
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.lock.held").tag("outcome", "released").timer().count()).isEqualTo(releasesBefore + 1);
+    }
+    
+    @Test
+    public void testExpiredLockIsReportedAsMetrics() {
+        
+        final long expiriesBefore = this.meterRegistry.get("bookgame.books.lock.held").tag("outcome", "expired").timer().count();
+        
+        final Book book = createBook();
+        this.repository.findById(book.getId(), PLAYER_NAME_1);
+        
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.locked").gauge().value()).isEqualTo(1);
+        
+        book.lock(PLAYER_NAME_1, 0); // Lets the player's lease lapse.
+        this.lockLeaseReaper.schedule(book);
+        this.lockLeaseReaper.expireLeasesUpTo(System.currentTimeMillis() + 1000);
+        
+        Assertions.assertThat(book.getLockedBy()).isNull();
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.locked").gauge().value()).isZero();
+        Assertions.assertThat(this.meterRegistry.get("bookgame.books.lock.held").tag("outcome", "expired").timer().count()).isEqualTo(expiriesBefore + 1);
+    }
+    
+    @Test
+    public void testFindPageFollowsCursorsBothWays() {
+        
+        final List<Book> books = createBooks(5);
+        
+        final BookPage firstPage = this.repository.findPage(BookFilter.NONE, null, null, 2);
+        
+        Assertions.assertThat(firstPage.getBooks()).containsExactly(books.get(0), books.get(1));
+        Assertions.assertThat(firstPage.getPreviousCursor()).isNull();
+        Assertions.assertThat(firstPage.getNextCursor()).isEqualTo(books.get(1).getId());
+        
+        final BookPage secondPage = this.repository.findPage(BookFilter.NONE, firstPage.getNextCursor(), null, 2);
+        
+        Assertions.assertThat(secondPage.getBooks()).containsExactly(books.get(2), books.get(3));
+        Assertions.assertThat(secondPage.getPreviousCursor()).isEqualTo(books.get(2).getId());
+        Assertions.assertThat(secondPage.getNextCursor()).isEqualTo(books.get(3).getId());
+        
+        final BookPage lastPage = this.repository.findPage(BookFilter.NONE, secondPage.getNextCursor(), null, 2);
+        
+        Assertions.assertThat(lastPage.getBooks()).containsExactly(books.get(4));
+        Assertions.assertThat(lastPage.getNextCursor()).isNull();
+        
+        final BookPage backToFirstPage = this.repository.findPage(BookFilter.NONE, null, secondPage.getPreviousCursor(), 2);
+        
+        Assertions.assertThat(backToFirstPage.getBooks()).containsExactly(books.get(0), books.get(1));
+        Assertions.assertThat(backToFirstPage.getPreviousCursor()).isNull();
+        Assertions.assertThat(backToFirstPage.getNextCursor()).isEqualTo(books.get(1).getId());
+    }
+    
+    @Test
+    public void testFindPageFiltersFollowLocksAndAppends() {
+        
+        final List<Book> books = createBooks(3);
+        final Book completeBook = books.get(0);
+        final Book lockedBook = books.get(1);
+        final Book availableBook = books.get(2);
+        
+        for (int index = 0; index < 5; index++) {
+            this.repository.appendLine(completeBook.getId(), PLAYER_NAME_1, "Line " + index, null);
+        }
+        this.repository.findById(lockedBook.getId(), PLAYER_NAME_2);
+        
+        Assertions.assertThat(findAll(new BookFilter(null, Boolean.TRUE, null))).containsExactly(availableBook);
+        Assertions.assertThat(findAll(new BookFilter(null, Boolean.FALSE, null))).containsExactly(completeBook, lockedBook);
+        Assertions.assertThat(findAll(new BookFilter(Boolean.TRUE, null, null))).containsExactly(completeBook);
+        Assertions.assertThat(findAll(new BookFilter(Boolean.FALSE, null, null))).containsExactly(lockedBook, availableBook);
+        Assertions.assertThat(findAll(new BookFilter(Boolean.TRUE, Boolean.TRUE, null))).isEmpty();
+        Assertions.assertThat(findAll(new BookFilter(null, null, PLAYER_NAME_1))).containsExactly(completeBook);
+        Assertions.assertThat(findAll(new BookFilter(null, null, "Somebody who never played"))).isEmpty();
+        
+        this.repository.appendLine(lockedBook.getId(), PLAYER_NAME_2, "A line.", null);
+        
+        Assertions.assertThat(findAll(new BookFilter(null, Boolean.TRUE, null))).containsExactly(lockedBook, availableBook);
+        Assertions.assertThat(findAll(new BookFilter(Boolean.FALSE, Boolean.TRUE, PLAYER_NAME_2))).containsExactly(lockedBook);
+    }
+    
+    @Test
+    public void testFindAvailableHandsOutEachFreeBookOnce() {
+        
+        final List<Book> books = createBooks(2);
+        
+        final BookContainer firstBookContainer = this.repository.findAvailable(PLAYER_NAME_1);
+        final BookContainer secondBookContainer = this.repository.findAvailable(PLAYER_NAME_2);
+        
+        Assertions.assertThat(firstBookContainer.getRetrievalOutcome()).isEqualTo(ERetrievalOutcome.SUCCESS);
+        Assertions.assertThat(secondBookContainer.getRetrievalOutcome()).isEqualTo(ERetrievalOutcome.SUCCESS);
+        Assertions.assertThat(List.of(firstBookContainer.getBook(), secondBookContainer.getBook())).containsExactlyInAnyOrderElementsOf(books);
+        Assertions.assertThat(firstBookContainer.getBook().getLockedBy()).isEqualTo(PLAYER_NAME_1);
+        
+        Assertions.assertThat(this.repository.findAvailable(PLAYER_NAME_1).getRetrievalOutcome()).isEqualTo(ERetrievalOutcome.NOT_FOUND);
+    }
+    
+    @Test
+    public void testFindAvailableOffersBookAgainOnceWrittenInButNotToItsWriter() {
+        
+        final Book book = createBook();
+        
+        Assertions.assertThat(this.repository.findAvailable(PLAYER_NAME_1).getBook()).isEqualTo(book);
+        
+        this.repository.appendLine(book.getId(), PLAYER_NAME_1, "A line.", null);
+        
+        Assertions.assertThat(this.repository.findAvailable(PLAYER_NAME_1).getRetrievalOutcome()).isEqualTo(ERetrievalOutcome.NOT_FOUND);
+        Assertions.assertThat(this.repository.findAvailable(PLAYER_NAME_2).getBook()).isEqualTo(book);
+    }
+    
+    @Test
+    public void testFindAvailableFindsFreeBookBehindManyOfThePlayersOwn() {
+        
+        for (Book ownBook : createBooks(20)) {
+            this.repository.appendLine(ownBook.getId(), PLAYER_NAME_1, "A line.", null);
+        }
+        
+        final Book freeBook = createBook();
+        
+        Assertions.assertThat(this.repository.findAvailable(PLAYER_NAME_1).getBook()).isEqualTo(freeBook);
+        Assertions.assertThat(this.repository.findAvailable(PLAYER_NAME_1).getRetrievalOutcome()).isEqualTo(ERetrievalOutcome.NOT_FOUND);
+    }
+    
+    @Test
+    public void testFindAvailableSkipsBookLockedDirectly() {
+        
+        final List<Book> books = createBooks(2);
+        
+        this.repository.findById(books.get(0).getId(), PLAYER_NAME_2);
+        
+        Assertions.assertThat(this.repository.findAvailable(PLAYER_NAME_1).getBook()).isEqualTo(books.get(1));
+        Assertions.assertThat(this.repository.findAvailable(PLAYER_NAME_1).getRetrievalOutcome()).isEqualTo(ERetrievalOutcome.NOT_FOUND);
+    }
+    
+    private List<Book> findAll(final BookFilter filter) {
+        return this.repository.findPage(filter, null, null, 100).getBooks();
+    }
+    
     private Book createBook() {
         
         final Book book = new Book();
@@ -200,7 +587,7 @@ public class BookRepositoryTest {
     private void assertBooksMatch(final Book expectedBook, final Book actualBook) {
         Assertions.assertThat(actualBook.getId()).isEqualTo(expectedBook.getId());
         Assertions.assertThat(actualBook.getName()).isEqualTo(expectedBook.getName());
-        Assertions.assertThat(actualBook.getLineDetailMap()).isEqualTo(expectedBook.getLineDetailMap());
+        Assertions.assertThat(actualBook.getLineDetailMap(this.playerRegistry)).isEqualTo(expectedBook.getLineDetailMap(this.playerRegistry));
         Assertions.assertThat(actualBook.isComplete()).isEqualTo(expectedBook.isComplete());
     }
 }
\ No newline at end of file
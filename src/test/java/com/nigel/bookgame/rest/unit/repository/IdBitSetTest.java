@@ -0,0 +1,78 @@
+package com.nigel.bookgame.rest.unit.repository;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.nigel.bookgame.rest.repository.IdBitSet;
+
+/**
+ * Test class for {@link IdBitSet}.
+ *
+ * @author nigel
+ */
+public class IdBitSetTest {
+
+    @Test
+    public void testAddRemoveAndContains() {
+
+        final IdBitSet ids = new IdBitSet();
+
+        Assertions.assertThat(ids.add(5)).isTrue();
+        Assertions.assertThat(ids.add(5)).isFalse();
+        Assertions.assertThat(ids.contains(5)).isTrue();
+        Assertions.assertThat(ids.contains(6)).isFalse();
+        Assertions.assertThat(ids.size()).isEqualTo(1);
+
+        Assertions.assertThat(ids.remove(5)).isTrue();
+        Assertions.assertThat(ids.remove(5)).isFalse();
+        Assertions.assertThat(ids.contains(5)).isFalse();
+        Assertions.assertThat(ids.remove(1L << 40)).isFalse();
+        Assertions.assertThat(ids.size()).isZero();
+    }
+
+    @Test
+    public void testNegativeIdRejected() {
+        Assertions.assertThatThrownBy(() -> new IdBitSet().add(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testNextAndPreviousAcrossWordsAndChunks() {
+
+        final IdBitSet ids = new IdBitSet();
+        final long[] setIds = { 1, 63, 64, 65535, 65536, 5_000_000 };
+
+        for (long id : setIds) {
+            ids.add(id);
+        }
+
+        long id = IdBitSet.NONE;
+
+        for (long setId : setIds) {
+            id = ids.next(id);
+            Assertions.assertThat(id).isEqualTo(setId);
+        }
+
+        Assertions.assertThat(ids.next(id)).isEqualTo(IdBitSet.NONE);
+
+        id = Long.MAX_VALUE;
+
+        for (int index = setIds.length - 1; index >= 0; index--) {
+            id = ids.previous(id);
+            Assertions.assertThat(id).isEqualTo(setIds[index]);
+        }
+
+        Assertions.assertThat(ids.previous(id)).isEqualTo(IdBitSet.NONE);
+    }
+
+    @Test
+    public void testClear() {
+
+        final IdBitSet ids = new IdBitSet();
+        ids.add(100_000);
+        ids.clear();
+
+        Assertions.assertThat(ids.contains(100_000)).isFalse();
+        Assertions.assertThat(ids.next(IdBitSet.NONE)).isEqualTo(IdBitSet.NONE);
+        Assertions.assertThat(ids.size()).isZero();
+    }
+}
@@ -32,4 +32,13 @@ public class IdGeneratorTest {
 		Assertions.assertThat(this.generator2.getNextId()).isEqualTo(1);
 		Assertions.assertThat(this.generator2.getNextId()).isEqualTo(2);
 	}
+	
+	@Test
+	public void testReserveIdsHandsOutContiguousBlock() throws Exception {
+		Assertions.assertThat(this.generator1.getNextId()).isEqualTo(1);
+		Assertions.assertThat(this.generator1.reserveIds(3)).isEqualTo(2);
+		Assertions.assertThat(this.generator1.getNextId()).isEqualTo(5);
+		Assertions.assertThatThrownBy(() -> this.generator1.reserveIds(0)).isInstanceOf(IllegalArgumentException.class);
+		Assertions.assertThat(this.generator1.getNextId()).isEqualTo(6);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,133 @@
+package com.nigel.bookgame.rest.unit.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.repository.IdIndexedTable;
+
+/**
+ * Test class for {@link IdIndexedTable}.
+ *
+ * @author nigel
+ */
+public class IdIndexedTableTest {
+
+    @Test
+    public void testPutAndGet() {
+
+        final IdIndexedTable<Book> table = new IdIndexedTable<Book>();
+        final Book book = createBook(1);
+
+        Assertions.assertThat(table.putIfAbsent(book)).isTrue();
+        Assertions.assertThat(table.putIfAbsent(createBook(1))).isFalse();
+
+        Assertions.assertThat(table.get(Long.valueOf(1))).isSameAs(book);
+        Assertions.assertThat(table.get(Long.valueOf(2))).isNull();
+        Assertions.assertThat(table.get(null)).isNull();
+        Assertions.assertThat(table.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testPutWithoutIdRejected() {
+
+        final IdIndexedTable<Book> table = new IdIndexedTable<Book>();
+
+        Assertions.assertThatThrownBy(() -> table.putIfAbsent(new Book())).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testPutAllAcrossChunks() {
+
+        final IdIndexedTable<Book> table = new IdIndexedTable<Book>();
+        final List<Book> books = new ArrayList<Book>();
+
+        table.putIfAbsent(createBook(1020));
+
+        for (long id = 1000; id < 3100; id++) {
+            books.add(createBook(id));
+        }
+
+        Assertions.assertThat(table.putAllIfAbsent(books)).isEqualTo(books.size() - 1);
+        Assertions.assertThat(table.size()).isEqualTo(books.size());
+        Assertions.assertThat(table.get(Long.valueOf(1000))).isSameAs(books.get(0));
+        Assertions.assertThat(table.get(Long.valueOf(1020))).isNotSameAs(books.get(20));
+        Assertions.assertThat(table.get(Long.valueOf(3099))).isSameAs(books.get(books.size() - 1));
+        Assertions.assertThat(table.higher(3099)).isNull();
+    }
+
+    @Test
+    public void testReplace() {
+
+        final IdIndexedTable<Book> table = new IdIndexedTable<Book>();
+        final Book replacement = createBook(1);
+
+        Assertions.assertThat(table.replace(replacement)).isFalse();
+
+        table.putIfAbsent(createBook(1));
+
+        Assertions.assertThat(table.replace(replacement)).isTrue();
+        Assertions.assertThat(table.get(Long.valueOf(1))).isSameAs(replacement);
+        Assertions.assertThat(table.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testIterationIsInIdOrderAcrossChunks() {
+
+        final IdIndexedTable<Book> table = new IdIndexedTable<Book>();
+
+        table.putIfAbsent(createBook(5000));
+        table.putIfAbsent(createBook(3));
+        table.putIfAbsent(createBook(1024));
+        table.putIfAbsent(createBook(1));
+
+        final List<Long> ids = new ArrayList<Long>();
+
+        for (Book book : table.values()) {
+            ids.add(book.getId());
+        }
+
+        Assertions.assertThat(ids).containsExactly(1L, 3L, 1024L, 5000L);
+    }
+
+    @Test
+    public void testClear() {
+
+        final IdIndexedTable<Book> table = new IdIndexedTable<Book>();
+        table.putIfAbsent(createBook(1));
+
+        table.clear();
+
+        Assertions.assertThat(table.size()).isZero();
+        Assertions.assertThat(table.get(Long.valueOf(1))).isNull();
+        Assertions.assertThat(table.values()).isEmpty();
+    }
+
+    @Test
+    public void testHigherAndLowerSkipGapsAndChunks() {
+
+        final IdIndexedTable<Book> table = new IdIndexedTable<Book>();
+
+        table.putIfAbsent(createBook(3));
+        table.putIfAbsent(createBook(5000));
+
+        Assertions.assertThat(table.higher(0).getId()).isEqualTo(3);
+        Assertions.assertThat(table.higher(3).getId()).isEqualTo(5000);
+        Assertions.assertThat(table.higher(5000)).isNull();
+
+        Assertions.assertThat(table.lower(Long.MAX_VALUE).getId()).isEqualTo(5000);
+        Assertions.assertThat(table.lower(5000).getId()).isEqualTo(3);
+        Assertions.assertThat(table.lower(3)).isNull();
+    }
+
+    private Book createBook(final long id) {
+
+        final Book book = new Book();
+        book.setId(Long.valueOf(id));
+
+        return book;
+    }
+}
@@ -0,0 +1,180 @@
+package com.nigel.bookgame.rest.unit.repository;
+
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.PlayerRegistry;
+import com.nigel.bookgame.rest.domain.PlayerScore;
+import com.nigel.bookgame.rest.repository.LeaderboardRepository;
+
+/**
+ * Test class for {@link LeaderboardRepository}.
+ * 
+ * @author nigel
+ */
+public class LeaderboardRepositoryTest {
+    
+    private final PlayerRegistry playerRegistry = new PlayerRegistry();
+    
+    /*
+     * Tests that:
+     * 
+     * 1. Scores for incomplete books are not included.
+     * 2. Where somebody contributes multiple times to the same book, they only score 10 points for that book.
+     * 3. Where scores in the leaderboard are tied, ordering is alphabetical.
+     * 4. Where 5th place is tied, the ties are included but no further.
+     */
+    @Test
+    public void testLeaderboardCorrect() {
+        
+        final Book book1 = new Book();
+        book1.setId(Long.valueOf(1));
+        book1.setName("Book 1");
+        book1.addLineToLineDetailMap("Line 1.", this.playerRegistry.idOf("Nigel"));
+        book1.addLineToLineDetailMap("Line 2.", this.playerRegistry.idOf("Marie"));
+        book1.addLineToLineDetailMap("Line 3.", this.playerRegistry.idOf("Jeremy"));
+        book1.addLineToLineDetailMap("Line 4.", this.playerRegistry.idOf("Chloe"));
+        book1.addLineToLineDetailMap("Line 5.", this.playerRegistry.idOf("Steph"));
+        
+        final Book book2 = new Book();
+        book2.setId(Long.valueOf(2));
+        book2.setName("Book 2");
+        book2.addLineToLineDetailMap("Line 1.", this.playerRegistry.idOf("Nick"));
+        book2.addLineToLineDetailMap("Line 2.", this.playerRegistry.idOf("Nigel"));
+        book2.addLineToLineDetailMap("Line 3.", this.playerRegistry.idOf("Jeremy"));
+        book2.addLineToLineDetailMap("Line 4.", this.playerRegistry.idOf("Chloe"));
+        book2.addLineToLineDetailMap("Line 5.", this.playerRegistry.idOf("Jeremy"));
+        
+        final Book book3 = new Book();
+        book3.setId(Long.valueOf(3));
+        book3.setName("Book 3");
+        book3.addLineToLineDetailMap("Line 1.", this.playerRegistry.idOf("Marie"));
+        book3.addLineToLineDetailMap("Line 2.", this.playerRegistry.idOf("Steph"));
+        book3.addLineToLineDetailMap("Line 3.", this.playerRegistry.idOf("Chloe"));
+        book3.addLineToLineDetailMap("Line 4.", this.playerRegistry.idOf("Nick"));
+        book3.addLineToLineDetailMap("Line 5.", this.playerRegistry.idOf("Amaury"));
+        
+        final Book book4 = new Book();
+        book4.setId(Long.valueOf(4));
+        book4.setName("Book 4");
+        book4.addLineToLineDetailMap("Line 1.", this.playerRegistry.idOf("Aubry"));
+        book4.addLineToLineDetailMap("Line 2.", this.playerRegistry.idOf("Jeremy"));
+        book4.addLineToLineDetailMap("Line 3.", this.playerRegistry.idOf("Marie"));
+        book4.addLineToLineDetailMap("Line 4.", this.playerRegistry.idOf("Nick"));
+        book4.addLineToLineDetailMap("Line 5.", this.playerRegistry.idOf("Amaury"));
+        
+        final Book book5 = new Book();
+        book5.setId(Long.valueOf(5));
+        book5.setName("Book 5");
+        book5.addLineToLineDetailMap("Line 1.", this.playerRegistry.idOf("Chloe"));
+        book5.addLineToLineDetailMap("Line 2.", this.playerRegistry.idOf("Amaury"));
+        book5.addLineToLineDetailMap("Line 3.", this.playerRegistry.idOf("Aubry"));
+        book5.addLineToLineDetailMap("Line 4.", this.playerRegistry.idOf("Nigel"));
+        
+        final LeaderboardRepository leaderboardRepository = new LeaderboardRepository(this.playerRegistry);
+        leaderboardRepository.recordCompletedBook(book1);
+        leaderboardRepository.recordCompletedBook(book2);
+        leaderboardRepository.recordCompletedBook(book3);
+        leaderboardRepository.recordCompletedBook(book4);
+        leaderboardRepository.recordCompletedBook(book5);
+        
+        final List<PlayerScore> leaderboard = leaderboardRepository.findTopPlayers(5);
+        
+        Assertions.assertThat(leaderboard).hasSize(7);
+        Assertions.assertThat(leaderboard.get(0).getPlayerName()).isEqualTo("Chloe");
+        Assertions.assertThat(leaderboard.get(0).getScore()).isEqualTo(30);
+        Assertions.assertThat(leaderboard.get(1).getPlayerName()).isEqualTo("Jeremy");
+        Assertions.assertThat(leaderboard.get(1).getScore()).isEqualTo(30);
+        Assertions.assertThat(leaderboard.get(2).getPlayerName()).isEqualTo("Marie");
+        Assertions.assertThat(leaderboard.get(2).getScore()).isEqualTo(30);
+        Assertions.assertThat(leaderboard.get(3).getPlayerName()).isEqualTo("Nick");
+        Assertions.assertThat(leaderboard.get(3).getScore()).isEqualTo(30);
+        Assertions.assertThat(leaderboard.get(4).getPlayerName()).isEqualTo("Amaury");
+        Assertions.assertThat(leaderboard.get(4).getScore()).isEqualTo(20);
+        Assertions.assertThat(leaderboard.get(5).getPlayerName()).isEqualTo("Nigel");
+        Assertions.assertThat(leaderboard.get(5).getScore()).isEqualTo(20);
+        Assertions.assertThat(leaderboard.get(6).getPlayerName()).isEqualTo("Steph");
+        Assertions.assertThat(leaderboard.get(6).getScore()).isEqualTo(20);
+    }
+    
+    @Test
+    public void testFewerPlayersThanPlaces() {
+        
+        final LeaderboardRepository leaderboardRepository = new LeaderboardRepository(this.playerRegistry);
+        
+        Assertions.assertThat(leaderboardRepository.findTopPlayers(5)).isEmpty();
+        
+        final Book book = new Book();
+        book.addLineToLineDetailMap("Line 1.", this.playerRegistry.idOf("Nigel"));
+        book.addLineToLineDetailMap("Line 2.", this.playerRegistry.idOf("Marie"));
+        book.addLineToLineDetailMap("Line 3.", this.playerRegistry.idOf("Nigel"));
+        book.addLineToLineDetailMap("Line 4.", this.playerRegistry.idOf("Marie"));
+        book.addLineToLineDetailMap("Line 5.", this.playerRegistry.idOf("Nigel"));
+        leaderboardRepository.recordCompletedBook(book);
+        
+        final List<PlayerScore> leaderboard = leaderboardRepository.findTopPlayers(5);
+        
+        Assertions.assertThat(leaderboard).hasSize(2);
+        Assertions.assertThat(leaderboard.get(0).getPlayerName()).isEqualTo("Marie");
+        Assertions.assertThat(leaderboard.get(1).getPlayerName()).isEqualTo("Nigel");
+        
+        leaderboardRepository.clear();
+        
+        Assertions.assertThat(leaderboardRepository.findTopPlayers(5)).isEmpty();
+    }
+    
+    @Test
+    public void testTopPlayersIncludesTiesForLastPlace() {
+        
+        final LeaderboardRepository leaderboardRepository = new LeaderboardRepository(this.playerRegistry);
+        leaderboardRepository.recordCompletedBook(createCompleteBook("Nigel", "Marie", "Jeremy", "Chloe", "Steph"));
+        leaderboardRepository.recordCompletedBook(createCompleteBook("Nigel", "Marie", "Nigel", "Marie", "Nigel"));
+        
+        final List<PlayerScore> topOne = leaderboardRepository.findTopPlayers(1);
+        
+        Assertions.assertThat(topOne).hasSize(2);
+        Assertions.assertThat(topOne.get(0).getPlayerName()).isEqualTo("Marie");
+        Assertions.assertThat(topOne.get(1).getPlayerName()).isEqualTo("Nigel");
+        
+        final List<PlayerScore> topThree = leaderboardRepository.findTopPlayers(3);
+        
+        Assertions.assertThat(topThree).hasSize(5);
+        Assertions.assertThat(topThree.get(2).getPlayerName()).isEqualTo("Chloe");
+        Assertions.assertThat(topThree.get(4).getPlayerName()).isEqualTo("Steph");
+    }
+    
+    @Test
+    public void testVersionMovesOnWithEveryChange() {
+        
+        final LeaderboardRepository leaderboardRepository = new LeaderboardRepository(this.playerRegistry);
+        final long initialVersion = leaderboardRepository.getVersion();
+        
+        leaderboardRepository.recordCompletedBook(createCompleteBook("Nigel"));
+        
+        Assertions.assertThat(leaderboardRepository.getVersion()).isEqualTo(initialVersion);
+        
+        leaderboardRepository.recordCompletedBook(createCompleteBook("Nigel", "Marie", "Jeremy", "Chloe", "Steph"));
+        
+        final long versionAfterCompletion = leaderboardRepository.getVersion();
+        
+        Assertions.assertThat(versionAfterCompletion).isGreaterThan(initialVersion);
+        
+        leaderboardRepository.clear();
+        
+        Assertions.assertThat(leaderboardRepository.getVersion()).isGreaterThan(versionAfterCompletion);
+    }
+    
+    private Book createCompleteBook(final String... playerNames) {
+        
+        final Book book = new Book();
+        
+        for (String playerName : playerNames) {
+            book.addLineToLineDetailMap("A line.", this.playerRegistry.idOf(playerName));
+        }
+        
+        return book;
+    }
+}
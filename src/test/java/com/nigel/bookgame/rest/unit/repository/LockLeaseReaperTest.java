@@ -0,0 +1,90 @@
+package com.nigel.bookgame.rest.unit.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.repository.LockLeaseReaper;
+
+/**
+ * Test class for {@link LockLeaseReaper}.
+ * 
+ * @author nigel
+ */
+public class LockLeaseReaperTest {
+    
+    private static final long LEASE_DURATION_MILLIS = 2000;
+    
+    @Test
+    public void testExpiredLeaseIsReaped() {
+        
+        final LockLeaseReaper reaper = new LockLeaseReaper();
+        
+        final Book book = new Book();
+        book.lock("Nigel", LEASE_DURATION_MILLIS);
+        reaper.schedule(book);
+        
+        final long deadline = book.getLockLease().getLeaseDeadline();
+        
+        Assertions.assertThat(reaper.expireLeasesUpTo(deadline - LEASE_DURATION_MILLIS)).isZero();
+        Assertions.assertThat(book.getLockLease().getOwner()).isEqualTo("Nigel");
+        
+        Assertions.assertThat(reaper.expireLeasesUpTo(deadline + 1000)).isEqualTo(1);
+        Assertions.assertThat(book.getLockLease().getOwner()).isNull();
+    }
+    
+    @Test
+    public void testListenerToldOfExpiredLease() {
+        
+        final LockLeaseReaper reaper = new LockLeaseReaper();
+        final List<Book> expiredBooks = new ArrayList<Book>();
+        reaper.onLeaseExpired((book, expiredLease) -> expiredBooks.add(book));
+        
+        final Book book = new Book();
+        book.lock("Nigel", LEASE_DURATION_MILLIS);
+        reaper.schedule(book);
+        
+        reaper.expireLeasesUpTo(book.getLockLease().getLeaseDeadline() + 1000);
+        
+        Assertions.assertThat(expiredBooks).hasSize(1);
+        Assertions.assertThat(expiredBooks.get(0)).isSameAs(book);
+    }
+    
+    @Test
+    public void testLeaseDueInALaterRevolutionIsKept() {
+        
+        final LockLeaseReaper reaper = new LockLeaseReaper();
+        
+        final Book book = new Book();
+        book.lock("Nigel", 600 * 1000);
+        reaper.schedule(book);
+        
+        final long deadline = book.getLockLease().getLeaseDeadline();
+        
+        Assertions.assertThat(reaper.expireLeasesUpTo(deadline - 60 * 1000)).isZero();
+        Assertions.assertThat(book.getLockLease().getOwner()).isEqualTo("Nigel");
+        
+        Assertions.assertThat(reaper.expireLeasesUpTo(deadline + 1000)).isEqualTo(1);
+        Assertions.assertThat(book.getLockLease().getOwner()).isNull();
+    }
+    
+    @Test
+    public void testRenewedLeaseIsNotReaped() {
+        
+        final LockLeaseReaper reaper = new LockLeaseReaper();
+        
+        final Book book = new Book();
+        book.lock("Nigel", LEASE_DURATION_MILLIS);
+        reaper.schedule(book);
+        
+        final long firstDeadline = book.getLockLease().getLeaseDeadline();
+        
+        book.lock("Nigel", 60 * 1000);
+        
+        Assertions.assertThat(reaper.expireLeasesUpTo(firstDeadline + 1000)).isZero();
+        Assertions.assertThat(book.getLockLease().getOwner()).isEqualTo("Nigel");
+    }
+}
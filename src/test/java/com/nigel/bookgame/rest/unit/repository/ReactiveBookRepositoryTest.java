@@ -0,0 +1,82 @@
+package com.nigel.bookgame.rest.unit.repository;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.ERetrievalOutcome;
+import com.nigel.bookgame.rest.domain.EUpdateOutcome;
+import com.nigel.bookgame.rest.repository.BookRepository;
+import com.nigel.bookgame.rest.repository.ReactiveBookRepository;
+
+import reactor.test.StepVerifier;
+
+/**
+ * Test class for {@link ReactiveBookRepository}.
+ * 
+ * @author nigel
+ */
+@SpringBootTest
+public class ReactiveBookRepositoryTest {
+    
+    @Autowired
+    private ReactiveBookRepository reactiveBookRepository;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @BeforeEach
+    public void setUp() {
+        this.bookRepository.clear();
+    }
+    
+    @Test
+    public void testNothingHappensUntilSubscribed() {
+        
+        final Book book = new Book();
+        book.setName("My book");
+        
+        this.reactiveBookRepository.create(book);
+        Assertions.assertThat(this.bookRepository.getCount()).isZero();
+        
+        StepVerifier.create(this.reactiveBookRepository.create(book))
+                .assertNext(createdBook -> Assertions.assertThat(createdBook.getId()).isNotNull())
+                .verifyComplete();
+        Assertions.assertThat(this.bookRepository.getCount()).isEqualTo(1);
+    }
+    
+    @Test
+    public void testFindLockAndAppend() {
+        
+        final Book book = new Book();
+        book.setName("My book");
+        this.bookRepository.create(book);
+        
+        StepVerifier.create(this.reactiveBookRepository.findById(book.getId(), "Nigel"))
+                .assertNext(bookContainer -> Assertions.assertThat(bookContainer.getRetrievalOutcome()).isEqualTo(ERetrievalOutcome.SUCCESS))
+                .verifyComplete();
+        
+        StepVerifier.create(this.reactiveBookRepository.findById(book.getId(), "Marie"))
+                .assertNext(bookContainer -> Assertions.assertThat(bookContainer.getRetrievalOutcome()).isEqualTo(ERetrievalOutcome.LOCKED_BY_ANOTHER_PLAYER))
+                .verifyComplete();
+        
+        StepVerifier.create(this.reactiveBookRepository.appendLine(book.getId(), "Nigel", "A line.", Long.valueOf(0)))
+                .assertNext(bookUpdateContainer -> Assertions.assertThat(bookUpdateContainer.getUpdateOutcome()).isEqualTo(EUpdateOutcome.SUCCESS))
+                .verifyComplete();
+        
+        StepVerifier.create(this.reactiveBookRepository.findAll())
+                .assertNext(foundBook -> Assertions.assertThat(foundBook.lastLine()).isEqualTo("A line."))
+                .verifyComplete();
+    }
+    
+    @Test
+    public void testFindTopPlayers() {
+        
+        StepVerifier.create(this.reactiveBookRepository.findTopPlayers(5))
+                .assertNext(topPlayers -> Assertions.assertThat(topPlayers).isEmpty())
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,64 @@
+package com.nigel.bookgame.rest.unit.resource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.IanaLinkRelations;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.resource.BookBatchResource;
+import com.nigel.bookgame.rest.resource.BookLinkTemplate;
+import com.nigel.bookgame.rest.resource.BookResource;
+
+/**
+ * Test class for {@link BookLinkTemplate}.
+ * 
+ * @author nigel
+ */
+public class BookLinkTemplateTest {
+    
+    @Test
+    public void testSelfAndUpdateLinks() {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(42));
+        
+        final BookResource bookResource = new BookLinkTemplate("http://localhost:8080/book").toResource(book);
+        
+        Assertions.assertThat(bookResource.getResourceId()).isEqualTo(Long.valueOf(42));
+        Assertions.assertThat(bookResource.getLinks()).hasSize(2);
+        Assertions.assertThat(bookResource.getRequiredLink(IanaLinkRelations.SELF).getHref()).isEqualTo("http://localhost:8080/book/42");
+        Assertions.assertThat(bookResource.getRequiredLink("update").getHref()).isEqualTo("http://localhost:8080/book/42");
+    }
+    
+    @Test
+    public void testBatchLinksToFirstAndLast() {
+        
+        final List<Book> books = new ArrayList<Book>();
+        
+        for (long id = 5; id <= 7; id++) {
+            final Book book = new Book();
+            book.setId(Long.valueOf(id));
+            books.add(book);
+        }
+        
+        final BookBatchResource bookBatchResource = new BookLinkTemplate("http://localhost:8080/book").toBatchResource(books);
+        
+        Assertions.assertThat(bookBatchResource.getCount()).isEqualTo(3);
+        Assertions.assertThat(bookBatchResource.getFirstId()).isEqualTo(5);
+        Assertions.assertThat(bookBatchResource.getLastId()).isEqualTo(7);
+        Assertions.assertThat(bookBatchResource.getRequiredLink(IanaLinkRelations.FIRST).getHref()).isEqualTo("http://localhost:8080/book/5");
+        Assertions.assertThat(bookBatchResource.getRequiredLink(IanaLinkRelations.LAST).getHref()).isEqualTo("http://localhost:8080/book/7");
+    }
+    
+    @Test
+    public void testBaseWithTrailingSlash() {
+        
+        final BookLinkTemplate bookLinkTemplate = new BookLinkTemplate("https://example.com/book/");
+        
+        Assertions.assertThat(bookLinkTemplate.getBookBaseUri()).isEqualTo("https://example.com/book/");
+        Assertions.assertThat(bookLinkTemplate.getBookUri(Long.valueOf(7))).isEqualTo("https://example.com/book/7");
+    }
+}
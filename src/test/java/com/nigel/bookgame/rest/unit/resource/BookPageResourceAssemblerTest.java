@@ -0,0 +1,51 @@
+package com.nigel.bookgame.rest.unit.resource;
+
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.BookPage;
+import com.nigel.bookgame.rest.resource.BookPageResource;
+import com.nigel.bookgame.rest.resource.BookPageResourceAssembler;
+import com.nigel.bookgame.rest.resource.BookResource;
+
+/**
+ * Test class for {@link BookPageResourceAssembler}.
+ * 
+ * @author nigel
+ */
+public class BookPageResourceAssemblerTest {
+    
+    private static final String REQUEST_URI = "http://localhost/book?available=true&before=9&limit=2";
+    
+    @Test
+    public void testCursorLinksKeepFiltersAndSwapCursor() {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(4));
+        
+        final BookPage bookPage = new BookPage(List.of(book), Long.valueOf(4), Long.valueOf(4));
+        
+        final BookPageResource bookPageResource = new BookPageResourceAssembler().toResource(bookPage, BookResource::new, UriComponentsBuilder.fromUriString(REQUEST_URI));
+        
+        Assertions.assertThat(bookPageResource.getBooks()).extracting(BookResource::getResourceId).containsExactly(Long.valueOf(4));
+        Assertions.assertThat(bookPageResource.getRequiredLink(IanaLinkRelations.SELF).getHref()).isEqualTo(REQUEST_URI);
+        Assertions.assertThat(bookPageResource.getRequiredLink(IanaLinkRelations.NEXT).getHref()).isEqualTo("http://localhost/book?available=true&limit=2&after=4");
+        Assertions.assertThat(bookPageResource.getRequiredLink(IanaLinkRelations.PREV).getHref()).isEqualTo("http://localhost/book?available=true&limit=2&before=4");
+    }
+    
+    @Test
+    public void testNoCursorLinksAtEitherEnd() {
+        
+        final BookPageResource bookPageResource = new BookPageResourceAssembler().toResource(new BookPage(List.of(), null, null), BookResource::new,
+                UriComponentsBuilder.fromUriString(REQUEST_URI));
+        
+        Assertions.assertThat(bookPageResource.getBooks()).isEmpty();
+        Assertions.assertThat(bookPageResource.getLinks()).extracting(Link::getRel).containsExactly(IanaLinkRelations.SELF);
+    }
+}
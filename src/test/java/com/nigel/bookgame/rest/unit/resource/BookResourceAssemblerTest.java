@@ -0,0 +1,108 @@
+package com.nigel.bookgame.rest.unit.resource;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.server.EntityLinks;
+import org.springframework.hateoas.server.core.ControllerEntityLinks;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilderFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.nigel.bookgame.rest.controller.BookController;
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.resource.BookResource;
+import com.nigel.bookgame.rest.resource.BookResourceAssembler;
+
+/**
+ * Test class for {@link BookResourceAssembler}, with the EntityLinks the application uses.
+ * 
+ * @author nigel
+ */
+@ExtendWith(MockitoExtension.class)
+public class BookResourceAssemblerTest {
+    
+    @Spy
+    private EntityLinks entityLinks = new ControllerEntityLinks(List.of(BookController.class), new WebMvcLinkBuilderFactory());
+    
+    @InjectMocks
+    private BookResourceAssembler bookResourceAssembler;
+    
+    @BeforeEach
+    public void setUp() {
+        bindRequest("example.com");
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+    
+    @Test
+    public void testLinksSameAsEntityLinks() {
+        
+        final BookResource bookResource = this.bookResourceAssembler.toResource(createBook(7));
+        final String expectedHref = this.entityLinks.linkToItemResource(Book.class, Long.valueOf(7)).getHref();
+        
+        Assertions.assertThat(expectedHref).isEqualTo("http://example.com:8080/book/7");
+        Assertions.assertThat(bookResource.getRequiredLink(IanaLinkRelations.SELF).getHref()).isEqualTo(expectedHref);
+        Assertions.assertThat(bookResource.getRequiredLink("update").getHref()).isEqualTo(expectedHref);
+        Assertions.assertThat(this.bookResourceAssembler.getBookBaseUri()).isEqualTo("http://example.com:8080/book");
+    }
+    
+    @Test
+    public void testBooksLinkedWithOneLookUpPerRequest() {
+        
+        this.bookResourceAssembler.toResource(createBook(1));
+        this.bookResourceAssembler.toResource(createBook(2));
+        this.bookResourceAssembler.bindToCurrentRequest().apply(createBook(3));
+        this.bookResourceAssembler.getBookBaseUri();
+        
+        Mockito.verify(this.entityLinks).linkFor(Book.class);
+        
+        bindRequest("example.org");
+        
+        final BookResource bookResource = this.bookResourceAssembler.toResource(createBook(4));
+        
+        Assertions.assertThat(bookResource.getRequiredLink(IanaLinkRelations.SELF).getHref()).isEqualTo("http://example.org:8080/book/4");
+        Mockito.verify(this.entityLinks, Mockito.times(2)).linkFor(Book.class);
+    }
+    
+    @Test
+    public void testBoundToRequestUsableAfterIt() {
+        
+        final Function<Book, BookResource> toResource = this.bookResourceAssembler.bindToCurrentRequest();
+        
+        RequestContextHolder.resetRequestAttributes();
+        
+        Assertions.assertThat(toResource.apply(createBook(5)).getRequiredLink(IanaLinkRelations.SELF).getHref()).isEqualTo("http://example.com:8080/book/5");
+    }
+    
+    private static void bindRequest(final String serverName) {
+        
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/book");
+        request.setServerName(serverName);
+        request.setServerPort(8080);
+        
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+    
+    private static Book createBook(final long id) {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(id));
+        
+        return book;
+    }
+}
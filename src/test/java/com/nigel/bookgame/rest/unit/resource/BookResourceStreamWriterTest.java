@@ -0,0 +1,83 @@
+package com.nigel.bookgame.rest.unit.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.hateoas.Link;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.PlayerRegistry;
+import com.nigel.bookgame.rest.resource.BookResource;
+import com.nigel.bookgame.rest.resource.BookResourceStreamWriter;
+
+/**
+ * Test class for {@link BookResourceStreamWriter}.
+ * 
+ * @author nigel
+ */
+@SpringBootTest
+public class BookResourceStreamWriterTest {
+    
+    @Autowired
+    private BookResourceStreamWriter bookResourceStreamWriter;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private PlayerRegistry playerRegistry;
+    
+    @Test
+    public void testEachBookIsOneHalLine() throws IOException {
+        
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        
+        this.bookResourceStreamWriter.writeLine(createBookResource(1, "First line."), outputStream);
+        this.bookResourceStreamWriter.writeLine(createBookResource(2, "Line with a\nnewline."), outputStream);
+        
+        final String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n", -1);
+        
+        Assertions.assertThat(lines).hasSize(3);
+        Assertions.assertThat(lines[0]).startsWith("{").endsWith("}").contains("\"id\":1", "\"_links\":{\"self\":{\"href\":\"http://localhost/book/1\"}");
+        Assertions.assertThat(lines[1]).contains("\"id\":2", "Line with a\\nnewline.");
+        Assertions.assertThat(lines[2]).isEmpty();
+    }
+    
+    @Test
+    public void testLineMatchesStreamedLine() throws IOException {
+        
+        final BookResource bookResource = createBookResource(1, "First line.");
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        
+        this.bookResourceStreamWriter.writeLine(bookResource, outputStream);
+        
+        Assertions.assertThat(this.bookResourceStreamWriter.toLine(bookResource)).isEqualTo(outputStream.toByteArray());
+    }
+    
+    // The writer's mappers are copies of the application's, so they write books by hand only if it does.
+    @Test
+    public void testApplicationMapperWritesResourcesByHand() throws JsonMappingException {
+        Assertions.assertThat(this.objectMapper.getSerializerProviderInstance().findValueSerializer(BookResource.class).getClass().getSimpleName())
+                .isEqualTo("BookResourceSerializer");
+    }
+    
+    private BookResource createBookResource(final long id, final String line) {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(id));
+        book.setName("My book");
+        book.addLineToLineDetailMap(line, this.playerRegistry.idOf("Nigel"));
+        
+        final BookResource bookResource = new BookResource(book);
+        bookResource.add(Link.of("http://localhost/book/" + id));
+        
+        return bookResource;
+    }
+}
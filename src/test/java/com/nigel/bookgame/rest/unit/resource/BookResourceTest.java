@@ -6,6 +6,7 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.PlayerRegistry;
 import com.nigel.bookgame.rest.resource.BookResource;
 
 /**
@@ -15,6 +16,8 @@ import com.nigel.bookgame.rest.resource.BookResource;
  */
 public class BookResourceTest {
     
+    private final PlayerRegistry playerRegistry = new PlayerRegistry();
+    
     @Test
     public void testCorrectRepresentationExposedWhenBookNotComplete() {
         
@@ -76,10 +79,10 @@ public class BookResourceTest {
     private Book createIncompleteBook() {
         
         final Book book = createEmptyBook();
-        book.addLineToLineDetailMap("Line 1.", "Nigel");
-        book.addLineToLineDetailMap("Line 2.", "Marie");
-        book.addLineToLineDetailMap("Line 3.", "Jeremy");
-        book.addLineToLineDetailMap("Line 4.", "Chloe");
+        book.addLineToLineDetailMap("Line 1.", this.playerRegistry.idOf("Nigel"));
+        book.addLineToLineDetailMap("Line 2.", this.playerRegistry.idOf("Marie"));
+        book.addLineToLineDetailMap("Line 3.", this.playerRegistry.idOf("Jeremy"));
+        book.addLineToLineDetailMap("Line 4.", this.playerRegistry.idOf("Chloe"));
         
         return book;
     }
@@ -87,7 +90,7 @@ public class BookResourceTest {
     private Book createCompleteBook() {
         
         final Book book = createIncompleteBook();
-        book.addLineToLineDetailMap("Line 5.", "Steph");
+        book.addLineToLineDetailMap("Line 5.", this.playerRegistry.idOf("Steph"));
         
         return book;
     }
@@ -0,0 +1,159 @@
+package com.nigel.bookgame.rest.unit.resource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.resource.BookResource;
+import com.nigel.bookgame.rest.resource.BookResourceStreamWriter;
+import com.nigel.bookgame.rest.resource.CompletedBookJsonCache;
+import com.nigel.bookgame.rest.resource.CompletedBookJsonCache.RenderedBook;
+
+/**
+ * Test class for {@link CompletedBookJsonCache}.
+ * 
+ * @author nigel
+ */
+@ExtendWith(MockitoExtension.class)
+public class CompletedBookJsonCacheTest {
+    
+    private static final String BOOK_BASE_URI = "http://localhost/book";
+    
+    // Each book renders as its ID, which is 1 byte as HAL plus 2 bytes as a list element for single digit IDs.
+    private static final int BYTES_PER_BOOK = 3;
+    
+    @Mock
+    private BookResourceStreamWriter mockBookResourceStreamWriter;
+    
+    private final AtomicInteger numberOfRenderings = new AtomicInteger();
+    private final Function<Book, BookResource> toResource = book -> {
+        this.numberOfRenderings.incrementAndGet();
+        return new BookResource(book);
+    };
+    
+    @BeforeEach
+    public void setUp() throws JsonProcessingException {
+        Mockito.lenient().when(this.mockBookResourceStreamWriter.toJson(Mockito.any(BookResource.class)))
+                .then(invocation -> String.valueOf(((BookResource) invocation.getArgument(0)).getResourceId()).getBytes(StandardCharsets.UTF_8));
+        Mockito.lenient().when(this.mockBookResourceStreamWriter.toListElementJson(Mockito.any(BookResource.class)))
+                .then(invocation -> ("[" + ((BookResource) invocation.getArgument(0)).getResourceId()).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    @Test
+    public void testIncompleteBookNotRendered() throws JsonProcessingException {
+        
+        final CompletedBookJsonCache cache = new CompletedBookJsonCache(this.mockBookResourceStreamWriter, 1000);
+        
+        Assertions.assertThat(cache.find(createBook(1, false), BOOK_BASE_URI, this.toResource)).isNull();
+        Assertions.assertThat(cache.size()).isZero();
+        Assertions.assertThat(this.numberOfRenderings.get()).isZero();
+    }
+    
+    @Test
+    public void testCompleteBookRenderedOnce() throws JsonProcessingException {
+        
+        final CompletedBookJsonCache cache = new CompletedBookJsonCache(this.mockBookResourceStreamWriter, 1000);
+        final Book book = createBook(1, true);
+        
+        final RenderedBook renderedBook = cache.find(book, BOOK_BASE_URI, this.toResource);
+        
+        Assertions.assertThat(new String(renderedBook.getJson(), StandardCharsets.UTF_8)).isEqualTo("1");
+        Assertions.assertThat(new String(renderedBook.getListElementJson(), StandardCharsets.UTF_8)).isEqualTo("[1");
+        Assertions.assertThat(cache.find(book, BOOK_BASE_URI, this.toResource)).isSameAs(renderedBook);
+        Assertions.assertThat(this.numberOfRenderings.get()).isEqualTo(1);
+        Assertions.assertThat(cache.getCachedBytes()).isEqualTo(BYTES_PER_BOOK);
+    }
+    
+    @Test
+    public void testDifferentBaseUriRenderedAgainInPlace() throws JsonProcessingException {
+        
+        final CompletedBookJsonCache cache = new CompletedBookJsonCache(this.mockBookResourceStreamWriter, 1000);
+        final Book book = createBook(1, true);
+        
+        final RenderedBook renderedBook = cache.find(book, BOOK_BASE_URI, this.toResource);
+        final RenderedBook rerenderedBook = cache.find(book, "https://example.com/book", this.toResource);
+        
+        Assertions.assertThat(rerenderedBook).isNotSameAs(renderedBook);
+        Assertions.assertThat(cache.find(book, "https://example.com/book", this.toResource)).isSameAs(rerenderedBook);
+        Assertions.assertThat(this.numberOfRenderings.get()).isEqualTo(2);
+        Assertions.assertThat(cache.size()).isEqualTo(1);
+        Assertions.assertThat(cache.getCachedBytes()).isEqualTo(BYTES_PER_BOOK);
+    }
+    
+    @Test
+    public void testReplacedBookRenderedAgain() throws JsonProcessingException {
+        
+        final CompletedBookJsonCache cache = new CompletedBookJsonCache(this.mockBookResourceStreamWriter, 1000);
+        
+        cache.find(createBook(1, true), BOOK_BASE_URI, this.toResource);
+        cache.find(createBook(1, true), BOOK_BASE_URI, this.toResource);
+        
+        Assertions.assertThat(this.numberOfRenderings.get()).isEqualTo(2);
+    }
+    
+    @Test
+    public void testOldestEvictedWhenFull() throws JsonProcessingException {
+        
+        final CompletedBookJsonCache cache = new CompletedBookJsonCache(this.mockBookResourceStreamWriter, 2 * BYTES_PER_BOOK);
+        final Book firstBook = createBook(1, true);
+        final Book secondBook = createBook(2, true);
+        
+        cache.find(firstBook, BOOK_BASE_URI, this.toResource);
+        cache.find(secondBook, BOOK_BASE_URI, this.toResource);
+        cache.find(firstBook, BOOK_BASE_URI, this.toResource); // Reading does not change the order of eviction.
+        cache.find(createBook(3, true), BOOK_BASE_URI, this.toResource);
+        
+        Assertions.assertThat(cache.size()).isEqualTo(2);
+        Assertions.assertThat(cache.getCachedBytes()).isEqualTo(2 * BYTES_PER_BOOK);
+        Assertions.assertThat(this.numberOfRenderings.get()).isEqualTo(3);
+        
+        cache.find(secondBook, BOOK_BASE_URI, this.toResource);
+        
+        Assertions.assertThat(this.numberOfRenderings.get()).isEqualTo(3);
+        
+        cache.find(firstBook, BOOK_BASE_URI, this.toResource);
+        
+        Assertions.assertThat(this.numberOfRenderings.get()).isEqualTo(4);
+    }
+    
+    @Test
+    public void testBookLargerThanCacheStillRendered() throws JsonProcessingException {
+        
+        final CompletedBookJsonCache cache = new CompletedBookJsonCache(this.mockBookResourceStreamWriter, 0);
+        
+        Assertions.assertThat(cache.find(createBook(1, true), BOOK_BASE_URI, this.toResource).getJson()).hasSize(1);
+        Assertions.assertThat(cache.size()).isZero();
+        Assertions.assertThat(cache.getCachedBytes()).isZero();
+    }
+    
+    @Test
+    public void testClear() throws JsonProcessingException {
+        
+        final CompletedBookJsonCache cache = new CompletedBookJsonCache(this.mockBookResourceStreamWriter, 1000);
+        
+        cache.find(createBook(1, true), BOOK_BASE_URI, this.toResource);
+        cache.clear();
+        
+        Assertions.assertThat(cache.size()).isZero();
+        Assertions.assertThat(cache.getCachedBytes()).isZero();
+    }
+    
+    private static Book createBook(final long id, final boolean isComplete) {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(id));
+        book.setComplete(isComplete);
+        
+        return book;
+    }
+}
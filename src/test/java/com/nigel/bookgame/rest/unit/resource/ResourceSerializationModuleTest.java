@@ -0,0 +1,166 @@
+package com.nigel.bookgame.rest.unit.resource;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DelegatingLinkRelationProvider;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nigel.bookgame.rest.domain.Book;
+import com.nigel.bookgame.rest.domain.PlayerRegistry;
+import com.nigel.bookgame.rest.domain.PlayerScore;
+import com.nigel.bookgame.rest.resource.BookPageResource;
+import com.nigel.bookgame.rest.resource.BookResource;
+import com.nigel.bookgame.rest.resource.LeaderboardResource;
+import com.nigel.bookgame.rest.resource.ResourceSerializationModule;
+
+/**
+ * Test class for {@link ResourceSerializationModule}, checking that resources are written byte for byte as Jackson's
+ * own serialiser writes them, as HAL and as plain JSON.
+ * 
+ * @author nigel
+ */
+public class ResourceSerializationModuleTest {
+    
+    private static final String BOOK_URI = "http://localhost:8080/book/1";
+    private static final PlayerRegistry PLAYER_REGISTRY = new PlayerRegistry();
+    
+    @Test
+    public void testBooksWrittenAsJacksonWouldAsHal() throws JsonProcessingException {
+        assertBooksWrittenAsJacksonWould(ResourceSerializationModuleTest::createHalObjectMapper);
+    }
+    
+    @Test
+    public void testBooksWrittenAsJacksonWouldAsPlainJson() throws JsonProcessingException {
+        assertBooksWrittenAsJacksonWould(ObjectMapper::new);
+    }
+    
+    @Test
+    public void testLeaderboardWrittenAsJacksonWould() throws JsonProcessingException {
+        
+        final LeaderboardResource emptyLeaderboard = new LeaderboardResource(List.of());
+        final LeaderboardResource leaderboard = new LeaderboardResource(List.of(new PlayerScore(0, "Nigel", 25), new PlayerScore(1, "Zoë \"Z\"", 5)));
+        final LeaderboardResource linkedLeaderboard = new LeaderboardResource(List.of(new PlayerScore(0, "Nigel", 25)));
+        linkedLeaderboard.add(Link.of("http://localhost:8080/leaderboard"));
+        
+        for (Supplier<ObjectMapper> objectMapperSupplier : List.<Supplier<ObjectMapper>>of(ResourceSerializationModuleTest::createHalObjectMapper, ObjectMapper::new)) {
+            for (LeaderboardResource leaderboardResource : List.of(emptyLeaderboard, leaderboard, linkedLeaderboard)) {
+                assertWrittenAsJacksonWould(objectMapperSupplier, leaderboardResource);
+            }
+        }
+        
+        Assertions.assertThat(createObjectMapperWithModule(ResourceSerializationModuleTest::createHalObjectMapper).writeValueAsString(leaderboard))
+                .isEqualTo("{\"leaderboard\":[{\"playerName\":\"Nigel\",\"score\":25},{\"playerName\":\"Zoë \\\"Z\\\"\",\"score\":5}]}");
+    }
+    
+    @Test
+    public void testBooksWithinPageWrittenAsJacksonWould() throws JsonProcessingException {
+        
+        final BookPageResource bookPageResource = new BookPageResource(List.of(createBookResource(createBook("A book", false)), createBookResource(createBook("B", true))));
+        bookPageResource.add(Link.of("http://localhost:8080/book?limit=2"));
+        
+        assertWrittenAsJacksonWould(ResourceSerializationModuleTest::createHalObjectMapper, bookPageResource);
+    }
+    
+    @Test
+    public void testHandWrittenSerialiserOnlyUsedForDefaultInclusion() throws JsonMappingException {
+        
+        final ObjectMapper objectMapper = createObjectMapperWithModule(ResourceSerializationModuleTest::createHalObjectMapper);
+        final ObjectMapper nonNullObjectMapper = createObjectMapperWithModule(ResourceSerializationModuleTest::createHalObjectMapper)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        
+        Assertions.assertThat(objectMapper.getSerializerProviderInstance().findValueSerializer(BookResource.class).getClass().getSimpleName())
+                .isEqualTo("BookResourceSerializer");
+        Assertions.assertThat(objectMapper.getSerializerProviderInstance().findValueSerializer(LeaderboardResource.class).getClass().getSimpleName())
+                .isEqualTo("LeaderboardResourceSerializer");
+        Assertions.assertThat(createObjectMapperWithModule(ObjectMapper::new).getSerializerProviderInstance().findValueSerializer(BookResource.class)
+                .getClass().getSimpleName()).isEqualTo("BookResourceSerializer");
+        Assertions.assertThat(nonNullObjectMapper.getSerializerProviderInstance().findValueSerializer(BookResource.class).getClass().getSimpleName())
+                .isNotEqualTo("BookResourceSerializer");
+    }
+    
+    private static void assertBooksWrittenAsJacksonWould(final Supplier<ObjectMapper> objectMapperSupplier) throws JsonProcessingException {
+        
+        final BookResource unlinkedBookResource = new BookResource(createBook("Unlinked", false));
+        
+        final BookResource templatedBookResource = createBookResource(createBook("Templated", false));
+        templatedBookResource.add(Link.of("http://localhost:8080/book{?playerName}", "find"));
+        
+        final BookResource titledBookResource = new BookResource(createBook("Titled", false));
+        titledBookResource.add(Link.of(BOOK_URI).withTitle("The book"));
+        
+        final BookResource repeatedRelationBookResource = createBookResource(createBook("Repeated", false));
+        repeatedRelationBookResource.add(Link.of("http://localhost:8080/book/2", "update"));
+        
+        final List<BookResource> bookResources = List.of(
+                createBookResource(createBook(null, false)),
+                createBookResource(createBook("", false)),
+                createBookResource(createBook("Incomplete", false)),
+                createBookResource(createBook("Tab\there 😀 </script> \u0001 é", true)),
+                unlinkedBookResource,
+                templatedBookResource,
+                titledBookResource,
+                repeatedRelationBookResource);
+        
+        for (BookResource bookResource : bookResources) {
+            assertWrittenAsJacksonWould(objectMapperSupplier, bookResource);
+        }
+    }
+    
+    private static void assertWrittenAsJacksonWould(final Supplier<ObjectMapper> objectMapperSupplier, final Object resource) throws JsonProcessingException {
+        
+        final ObjectMapper objectMapper = createObjectMapperWithModule(objectMapperSupplier);
+        
+        Assertions.assertThat(objectMapper.writeValueAsBytes(resource)).isEqualTo(objectMapperSupplier.get().writeValueAsBytes(resource));
+        Assertions.assertThat(objectMapper.writeValueAsString(resource)).isEqualTo(objectMapperSupplier.get().writeValueAsString(resource));
+    }
+    
+    private static ObjectMapper createObjectMapperWithModule(final Supplier<ObjectMapper> objectMapperSupplier) {
+        
+        final ObjectMapper objectMapper = objectMapperSupplier.get();
+        objectMapper.registerModule(new ResourceSerializationModule());
+        
+        return objectMapper;
+    }
+    
+    // Configured for HAL as Spring HATEOAS configures the mapper it renders responses with.
+    private static ObjectMapper createHalObjectMapper() {
+        
+        final ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new Jackson2HalModule());
+        objectMapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(new DelegatingLinkRelationProvider(), CurieProvider.NONE,
+                MessageResolver.DEFAULTS_ONLY));
+        
+        return objectMapper;
+    }
+    
+    private static BookResource createBookResource(final Book book) {
+        
+        final BookResource bookResource = new BookResource(book);
+        bookResource.add(Link.of(BOOK_URI));
+        bookResource.add(Link.of(BOOK_URI, "update"));
+        
+        return bookResource;
+    }
+    
+    private static Book createBook(final String name, final boolean isComplete) {
+        
+        final Book book = new Book();
+        book.setId(Long.valueOf(1));
+        book.setName(name);
+        book.addLineToLineDetailMap("Line 1.", PLAYER_REGISTRY.idOf("Nigel"));
+        book.addLineToLineDetailMap("Line \"2\" 😀.", PLAYER_REGISTRY.idOf("Zoë"));
+        book.setComplete(isComplete);
+        
+        return book;
+    }
+}